@@ -48,6 +48,8 @@ abstract class BaseRowSet implements Comparable<RowSet>, RowSet {
   protected AtomicInteger destinationStepCopy;
 
   protected volatile String remoteSlaveServerName;
+  protected volatile RowArrayPool rowArrayPool;
+  protected volatile RowSetProfile profile;
   private ReadWriteLock lock;
 
   public BaseRowSet() {
@@ -302,4 +304,24 @@ abstract class BaseRowSet implements Comparable<RowSet>, RowSet {
     return false;
   }
 
+  @Override
+  public RowArrayPool getRowArrayPool() {
+    return rowArrayPool;
+  }
+
+  @Override
+  public void setRowArrayPool( RowArrayPool rowArrayPool ) {
+    this.rowArrayPool = rowArrayPool;
+  }
+
+  @Override
+  public RowSetProfile getProfile() {
+    return profile;
+  }
+
+  @Override
+  public void setProfile( RowSetProfile profile ) {
+    this.profile = profile;
+  }
+
 }
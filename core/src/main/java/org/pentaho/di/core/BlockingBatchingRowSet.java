@@ -90,9 +90,21 @@ public class BlockingBatchingRowSet extends BaseRowSet implements Comparable<Row
 
     // If we're not accepting we block until we do
     //
+    RowSetProfile profile = this.profile;
     if ( inputBuffer == null ) {
       try {
-        inputBuffer = putArray.poll( time, tu );
+        if ( profile == null ) {
+          inputBuffer = putArray.poll( time, tu );
+        } else {
+          // Only time the puts that have to wait for an empty buffer
+          //
+          inputBuffer = putArray.poll();
+          if ( inputBuffer == null ) {
+            long start = System.nanoTime();
+            inputBuffer = putArray.poll( time, tu );
+            profile.addPutWait( System.nanoTime() - start );
+          }
+        }
       } catch ( InterruptedException e ) {
         return false;
       }
@@ -102,9 +114,18 @@ public class BlockingBatchingRowSet extends BaseRowSet implements Comparable<Row
       putIndex = 0;
     }
     inputBuffer[putIndex++] = rowData;
+    if ( profile != null ) {
+      profile.rowAdded( this );
+    }
     if ( putIndex == size ) {
       try {
-        getArray.offer( inputBuffer, time, tu );
+        if ( profile == null ) {
+          getArray.offer( inputBuffer, time, tu );
+        } else if ( !getArray.offer( inputBuffer ) ) {
+          long start = System.nanoTime();
+          getArray.offer( inputBuffer, time, tu );
+          profile.addPutWait( System.nanoTime() - start );
+        }
         inputBuffer = null;
       } catch ( InterruptedException e ) {
         return false;
@@ -137,11 +158,51 @@ public class BlockingBatchingRowSet extends BaseRowSet implements Comparable<Row
     return getRow();
   }
 
+  /**
+   * Only hands out rows from batches that are already delivered, never waits for a new batch.
+   */
+  @Override
+  public int getRowsImmediate( Object[][] rows, int offset, int maxRows ) {
+    int count = 0;
+    while ( count < maxRows ) {
+      if ( outputBuffer == null ) {
+        outputBuffer = getArray.poll();
+        if ( outputBuffer == null ) {
+          break;
+        }
+        getIndex = 0;
+      }
+      Object[] row = outputBuffer[getIndex];
+      outputBuffer[getIndex++] = null; // prevent any hold-up to GC
+      if ( getIndex == size ) {
+        putArray.offer( outputBuffer );
+        outputBuffer = null;
+      }
+      if ( row == null ) {
+        break; // end of a partial buffer
+      }
+      rows[offset + count++] = row;
+    }
+    return count;
+  }
+
   @Override
   public Object[] getRowWait( long timeout, TimeUnit tu ) {
     if ( outputBuffer == null ) {
       try {
-        outputBuffer = getArray.poll( timeout, tu );
+        RowSetProfile profile = this.profile;
+        if ( profile == null ) {
+          outputBuffer = getArray.poll( timeout, tu );
+        } else {
+          // Only time the gets that have to wait for a full buffer
+          //
+          outputBuffer = getArray.poll();
+          if ( outputBuffer == null ) {
+            long start = System.nanoTime();
+            outputBuffer = getArray.poll( timeout, tu );
+            profile.addGetWait( System.nanoTime() - start );
+          }
+        }
       } catch ( InterruptedException e ) {
         return null;
       }
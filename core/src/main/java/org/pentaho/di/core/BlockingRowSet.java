@@ -22,6 +22,8 @@
 
 package org.pentaho.di.core;
 
+import java.util.AbstractCollection;
+import java.util.Iterator;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -42,6 +44,8 @@ public class BlockingRowSet extends BaseRowSet implements Comparable<RowSet>, Ro
   private int timeoutPut;
   private int timeoutGet;
 
+  private final RowBufferCollection drainTarget = new RowBufferCollection();
+
   /**
    * Create new non-blocking-queue with maxSize capacity.
    *
@@ -77,8 +81,23 @@ public class BlockingRowSet extends BaseRowSet implements Comparable<RowSet>, Ro
   public boolean putRowWait( RowMetaInterface rowMeta, Object[] rowData, long time, TimeUnit tu ) {
     this.rowMeta = rowMeta;
     try {
-
-      return queArray.offer( rowData, time, tu );
+      RowSetProfile profile = this.profile;
+      if ( profile == null ) {
+        return queArray.offer( rowData, time, tu );
+      }
+
+      // Only time the puts that find the row set full
+      //
+      boolean added = queArray.offer( rowData );
+      if ( !added ) {
+        long start = System.nanoTime();
+        added = queArray.offer( rowData, time, tu );
+        profile.addPutWait( System.nanoTime() - start );
+      }
+      if ( added ) {
+        profile.rowAdded( this );
+      }
+      return added;
     } catch ( InterruptedException e ) {
       return false;
     } catch ( NullPointerException e ) {
@@ -110,6 +129,19 @@ public class BlockingRowSet extends BaseRowSet implements Comparable<RowSet>, Ro
     return queArray.poll();
   }
 
+  /**
+   * Drains the available rows while holding the queue lock only once.
+   */
+  @Override
+  public int getRowsImmediate( Object[][] rows, int offset, int maxRows ) {
+    drainTarget.target( rows, offset );
+    try {
+      return queArray.drainTo( drainTarget, maxRows );
+    } finally {
+      drainTarget.target( null, 0 );
+    }
+  }
+
   /*
    * (non-Javadoc)
    *
@@ -119,7 +151,20 @@ public class BlockingRowSet extends BaseRowSet implements Comparable<RowSet>, Ro
   public Object[] getRowWait( long timeout, TimeUnit tu ) {
 
     try {
-      return queArray.poll( timeout, tu );
+      RowSetProfile profile = this.profile;
+      if ( profile == null ) {
+        return queArray.poll( timeout, tu );
+      }
+
+      // Only time the gets that find the row set empty
+      //
+      Object[] row = queArray.poll();
+      if ( row == null ) {
+        long start = System.nanoTime();
+        row = queArray.poll( timeout, tu );
+        profile.addGetWait( System.nanoTime() - start );
+      }
+      return row;
     } catch ( InterruptedException e ) {
       return null;
     }
@@ -136,4 +181,36 @@ public class BlockingRowSet extends BaseRowSet implements Comparable<RowSet>, Ro
     done.set( false );
   }
 
+  /**
+   * Write-only collection that stores the drained rows straight into the caller's buffer.
+   */
+  private static final class RowBufferCollection extends AbstractCollection<Object[]> {
+    private Object[][] rows;
+    private int index;
+    private int count;
+
+    void target( Object[][] rows, int offset ) {
+      this.rows = rows;
+      this.index = offset;
+      this.count = 0;
+    }
+
+    @Override
+    public boolean add( Object[] row ) {
+      rows[index++] = row;
+      count++;
+      return true;
+    }
+
+    @Override
+    public Iterator<Object[]> iterator() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int size() {
+      return count;
+    }
+  }
+
 }
@@ -0,0 +1,203 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.core;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.pentaho.di.core.row.RowBatch;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * A buffer holding both Object[] rows and columnar {@link RowBatch}es. A batch-aware step reading from this row set gets
+ * the batches as they were put with {@link #getRowBatchImmediate(int)}, any other step simply reads rows: batches are
+ * converted back to rows one at a time when they are read with getRow().<br>
+ * <br>
+ * The size of the row set is counted in rows, a batch is accepted as long as the row set is not full so it can
+ * temporarily hold up to one batch more than its maximum size.<br>
+ * <br>
+ * IMPORTANT: only a single thread can read from this row set.
+ */
+public class ColumnarRowSet extends BaseRowSet implements Comparable<RowSet>, RowSet {
+  private static final long MAX_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos( 500 );
+
+  private final LinkedBlockingQueue<Object> entries;
+  private final AtomicInteger nrRows;
+  private final int capacity;
+
+  /** The batch being converted back to rows and the index of its next row, only used by the reading thread. */
+  private RowBatch currentBatch;
+  private int currentIndex;
+
+  private int timeoutPut;
+  private int timeoutGet;
+
+  /**
+   * @param maxSize
+   *          the maximum number of rows kept in this row set
+   */
+  public ColumnarRowSet( int maxSize ) {
+    super();
+
+    capacity = Math.max( 1, maxSize );
+    entries = new LinkedBlockingQueue<>();
+    nrRows = new AtomicInteger();
+
+    timeoutGet = Const.toInt( System.getProperty( Const.KETTLE_ROWSET_GET_TIMEOUT ), Const.TIMEOUT_GET_MILLIS );
+    timeoutPut = Const.toInt( System.getProperty( Const.KETTLE_ROWSET_PUT_TIMEOUT ), Const.TIMEOUT_PUT_MILLIS );
+  }
+
+  @Override
+  public boolean putRow( RowMetaInterface rowMeta, Object[] rowData ) {
+    return putRowWait( rowMeta, rowData, timeoutPut, TimeUnit.MILLISECONDS );
+  }
+
+  @Override
+  public boolean putRowWait( RowMetaInterface rowMeta, Object[] rowData, long time, TimeUnit tu ) {
+    this.rowMeta = rowMeta;
+    if ( rowData == null || !waitForSpace( tu.toNanos( time ) ) ) {
+      return false;
+    }
+    nrRows.incrementAndGet();
+    entries.add( rowData );
+    return true;
+  }
+
+  @Override
+  public boolean isAcceptingRowBatches() {
+    return true;
+  }
+
+  @Override
+  public boolean putRowBatch( RowMetaInterface rowMeta, RowBatch batch ) {
+    this.rowMeta = rowMeta;
+    if ( batch.size() == 0 ) {
+      return true;
+    }
+    if ( !waitForSpace( TimeUnit.MILLISECONDS.toNanos( timeoutPut ) ) ) {
+      return false;
+    }
+    nrRows.addAndGet( batch.size() );
+    entries.add( batch );
+    return true;
+  }
+
+  @Override
+  public RowBatch getRowBatchImmediate( int maxRows ) {
+    if ( currentBatch != null ) {
+      // Hand out what's left of a batch that was partly read as rows
+      //
+      RowBatch rest = currentBatch.range( currentIndex, currentBatch.size() );
+      currentBatch = null;
+      return rest;
+    }
+    if ( entries.peek() instanceof RowBatch ) {
+      RowBatch batch = (RowBatch) entries.poll();
+      nrRows.addAndGet( -batch.size() );
+      return batch;
+    }
+    return null;
+  }
+
+  @Override
+  public Object[] getRow() {
+    return getRowWait( timeoutGet, TimeUnit.MILLISECONDS );
+  }
+
+  @Override
+  public Object[] getRowImmediate() {
+    return currentBatch != null ? nextBatchRow() : take( entries.poll() );
+  }
+
+  @Override
+  public Object[] getRowWait( long timeout, TimeUnit tu ) {
+    if ( currentBatch != null ) {
+      return nextBatchRow();
+    }
+    try {
+      return take( entries.poll( timeout, tu ) );
+    } catch ( InterruptedException e ) {
+      return null;
+    }
+  }
+
+  private Object[] take( Object entry ) {
+    if ( entry == null ) {
+      return null;
+    }
+    if ( entry instanceof RowBatch ) {
+      RowBatch batch = (RowBatch) entry;
+      nrRows.addAndGet( -batch.size() );
+      currentBatch = batch;
+      currentIndex = 0;
+      return nextBatchRow();
+    }
+    nrRows.decrementAndGet();
+    return (Object[]) entry;
+  }
+
+  private Object[] nextBatchRow() {
+    Object[] row = currentBatch.getRow( currentIndex++ );
+    if ( currentIndex >= currentBatch.size() ) {
+      currentBatch = null;
+    }
+    return row;
+  }
+
+  private boolean waitForSpace( long timeoutNanos ) {
+    if ( nrRows.get() < capacity ) {
+      return true;
+    }
+    long deadline = System.nanoTime() + timeoutNanos;
+    long parkNanos = 1000L;
+    while ( nrRows.get() >= capacity ) {
+      long remaining = deadline - System.nanoTime();
+      if ( remaining <= 0 || Thread.currentThread().isInterrupted() ) {
+        return false;
+      }
+      LockSupport.parkNanos( this, Math.min( parkNanos, remaining ) );
+      parkNanos = Math.min( parkNanos * 2, MAX_PARK_NANOS );
+    }
+    return true;
+  }
+
+  /**
+   * @return the number of rows in the row set, including the rows of a batch that is being read row by row.
+   */
+  @Override
+  public int size() {
+    RowBatch batch = currentBatch;
+    return nrRows.get() + ( batch == null ? 0 : Math.max( 0, batch.size() - currentIndex ) );
+  }
+
+  @Override
+  public void clear() {
+    entries.clear();
+    nrRows.set( 0 );
+    currentBatch = null;
+    currentIndex = 0;
+    done.set( false );
+  }
+}
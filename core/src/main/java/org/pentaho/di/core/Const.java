@@ -141,6 +141,11 @@ public class Const {
    */
   public static final int ROWS_IN_ROWSET = 10000;
 
+  /**
+   * Maximum number of rows a step moves across a hop at once when it reads or writes batches of rows
+   */
+  public static final int ROWS_IN_BATCH = 500;
+
   /**
    * Fetch size in rows when querying a database
    */
@@ -1017,6 +1022,48 @@ public class Const {
    */
   public static final String KETTLE_BATCHING_ROWSET = "KETTLE_BATCHING_ROWSET";
 
+  /**
+   * The name of the variable that optionally contains an alternative maximum number of rows that steps supporting it
+   * read or write at once (see {@link #ROWS_IN_BATCH}).
+   */
+  public static final String KETTLE_ROW_BATCH_SIZE = "KETTLE_ROW_BATCH_SIZE";
+
+  /**
+   * Set this variable to Y to pass immutable copies of the row metadata over the hops, see
+   * {@link org.pentaho.di.core.row.FrozenRowMeta}.
+   */
+  public static final String KETTLE_FROZEN_ROW_META = "KETTLE_FROZEN_ROW_META";
+
+  /**
+   * The number of worker threads of the step scheduler that runs the steps of transformations using pooled step
+   * execution. Defaults to the number of processors.
+   */
+  public static final String KETTLE_STEP_SCHEDULER_POOL_SIZE = "KETTLE_STEP_SCHEDULER_POOL_SIZE";
+
+  /**
+   * Set this variable to Y to recycle the row arrays passed over the hops of a transformation, see
+   * {@link org.pentaho.di.core.RowArrayPool}.
+   */
+  public static final String KETTLE_RECYCLE_ROW_ARRAYS = "KETTLE_RECYCLE_ROW_ARRAYS";
+
+  /**
+   * Set this variable to Y to pass columnar row batches between batch-aware steps, see
+   * {@link org.pentaho.di.core.ColumnarRowSet}.
+   */
+  public static final String KETTLE_COLUMNAR_ROW_BATCHES = "KETTLE_COLUMNAR_ROW_BATCHES";
+
+  /**
+   * The maximum number of transformations and of jobs kept parsed in memory by the meta-data caches, see
+   * {@link org.pentaho.di.base.MetaCache}. Defaults to 0, no caching.
+   */
+  public static final String KETTLE_META_CACHE_SIZE = "KETTLE_META_CACHE_SIZE";
+
+  /**
+   * Set this variable to Y to record the time steps wait on the hops of a transformation, see
+   * {@link org.pentaho.di.core.RowSetProfile}.
+   */
+  public static final String KETTLE_ROWSET_PROFILING = "KETTLE_ROWSET_PROFILING";
+
   /**
    * Set this variable to limit max number of files the Text File Output step can have open at one time.
    */
@@ -60,6 +60,9 @@ public class QueueRowSet extends BaseRowSet implements Comparable<RowSet>, RowSe
   public boolean putRow( RowMetaInterface rowMeta, Object[] rowData ) {
     this.rowMeta = rowMeta;
     buffer.add( rowData );
+    if ( profile != null ) {
+      profile.rowAdded( this );
+    }
     return true;
   }
 
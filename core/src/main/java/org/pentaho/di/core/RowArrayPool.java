@@ -0,0 +1,177 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.core;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.pentaho.di.core.row.RowDataUtil;
+
+/**
+ * A bounded pool of row arrays that travel over a single hop. The consumer of the hop hands back the row arrays it is
+ * done with and the producer picks them up again the next time it needs a new row, cutting down the number of row
+ * arrays that need to be allocated (and garbage collected) per row.
+ * <p>
+ * Ownership rules:
+ * <ul>
+ * <li>By taking row arrays from the pool the producer declares that every row it puts on the hop is a row array it
+ * allocated itself, that each row array is put at most once and that it doesn't keep a reference to a row once it is
+ * put. Until the producer took its first row array the pool doesn't accept any recycled rows.</li>
+ * <li>The consumer may only {@link #recycle(Object[])} a row it got from the hop when it does not retain the row in
+ * any way: the row was not passed on to another step (also not over an error hop), not cached and not referenced by
+ * any other row.</li>
+ * <li>When anything else gets hold of the rows on the hop (a row listener for example) the pool has to be
+ * {@link #close()}d, after that it no longer accepts recycled rows.</li>
+ * </ul>
+ */
+public class RowArrayPool {
+  private final ArrayBlockingQueue<Object[]> arrays;
+
+  private final AtomicLong allocated;
+  private final AtomicLong reused;
+  private final AtomicLong recycled;
+
+  private volatile boolean active;
+  private volatile boolean closed;
+
+  /**
+   * @param capacity
+   *          the maximum number of row arrays to keep in the pool, typically the size of the row set.
+   */
+  public RowArrayPool( int capacity ) {
+    arrays = new ArrayBlockingQueue<>( Math.max( 1, capacity ) );
+    allocated = new AtomicLong();
+    reused = new AtomicLong();
+    recycled = new AtomicLong();
+  }
+
+  /**
+   * Get a row array of at least the given size. All the slots of the returned array are null.
+   *
+   * @param size
+   *          the minimum size of the row array
+   * @return a recycled array if a large enough one is available, a newly allocated (over-allocated) one otherwise.
+   */
+  public Object[] allocate( int size ) {
+    Object[] row = reuse( size );
+    if ( row == null ) {
+      allocated.incrementAndGet();
+      row = RowDataUtil.allocateRowData( size );
+    }
+    return row;
+  }
+
+  /**
+   * Take a recycled row array of at least the given size from the pool. All the slots of the returned array are null.
+   *
+   * @param size
+   *          the minimum size of the row array
+   * @return the recycled row array or null if no large enough array is available.
+   */
+  public Object[] reuse( int size ) {
+    if ( !active ) {
+      active = true;
+    }
+    if ( closed ) {
+      return null;
+    }
+
+    Object[] row = arrays.poll();
+    if ( row == null || row.length < size ) {
+      // A too small array is simply left for the garbage collector.
+      //
+      return null;
+    }
+    Arrays.fill( row, null );
+    reused.incrementAndGet();
+    return row;
+  }
+
+  /**
+   * Hand a row array back to the pool. The caller must no longer use the row, nor keep a reference to it.
+   *
+   * @param row
+   *          the row array to recycle
+   * @return true if the array was added to the pool, false if it was null, the pool is full or the pool doesn't accept
+   *         recycled rows.
+   */
+  public boolean recycle( Object[] row ) {
+    if ( row == null || !active || closed || !arrays.offer( row ) ) {
+      return false;
+    }
+    recycled.incrementAndGet();
+    return true;
+  }
+
+  /**
+   * @return the number of row arrays in the pool waiting to be reused
+   */
+  public int size() {
+    return arrays.size();
+  }
+
+  /**
+   * Empty the pool.
+   */
+  public void clear() {
+    arrays.clear();
+  }
+
+  /**
+   * Stop accepting recycled rows for good and empty the pool.
+   */
+  public void close() {
+    closed = true;
+    arrays.clear();
+  }
+
+  /**
+   * @return true if the pool accepts recycled rows: the producer is taking its rows from the pool and the pool isn't
+   *         closed.
+   */
+  public boolean isAccepting() {
+    return active && !closed;
+  }
+
+  /**
+   * @return the number of row arrays that had to be newly allocated by {@link #allocate(int)}
+   */
+  public long getAllocated() {
+    return allocated.get();
+  }
+
+  /**
+   * @return the number of recycled row arrays handed out again
+   */
+  public long getReused() {
+    return reused.get();
+  }
+
+  /**
+   * @return the number of row arrays that were accepted by {@link #recycle(Object[])}
+   */
+  public long getRecycled() {
+    return recycled.get();
+  }
+}
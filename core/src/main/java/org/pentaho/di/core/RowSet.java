@@ -24,6 +24,7 @@ package org.pentaho.di.core;
 
 import java.util.concurrent.TimeUnit;
 
+import org.pentaho.di.core.row.RowBatch;
 import org.pentaho.di.core.row.RowMetaInterface;
 
 public interface RowSet {
@@ -56,6 +57,54 @@ public interface RowSet {
    */
   boolean putRowWait( RowMetaInterface rowMeta, Object[] rowData, long time, TimeUnit tu );
 
+  /**
+   * Offer a batch of rows to this rowset providing for the description (metadata) of the rows. Rows are added in order
+   * until the buffer is full. Like {@link #putRow(RowMetaInterface, Object[])} this waits (blocks) for a small period of
+   * time if there is no room for a row. Null rows are skipped, but count as handled in the returned number.
+   *
+   * @param rowMeta
+   *          The description of the row data
+   * @param rows
+   *          the buffer holding the rows of data
+   * @param offset
+   *          the index of the first row in the buffer to add
+   * @param nrRows
+   *          the number of rows to add
+   * @return the number of rows that were handled, starting at offset. Only a full buffer makes this less than nrRows.
+   */
+  default int putRows( RowMetaInterface rowMeta, Object[][] rows, int offset, int nrRows ) {
+    int added = 0;
+    while ( added < nrRows ) {
+      Object[] row = rows[offset + added];
+      if ( row != null && !putRow( rowMeta, row ) ) {
+        break;
+      }
+      added++;
+    }
+    return added;
+  }
+
+  /**
+   * @return true if this row set can hold columnar row batches, see {@link #putRowBatch(RowMetaInterface, RowBatch)}
+   */
+  default boolean isAcceptingRowBatches() {
+    return false;
+  }
+
+  /**
+   * Offer a columnar batch of rows to this rowset. Like {@link #putRow(RowMetaInterface, Object[])} this waits (blocks)
+   * for a small period of time if there is no room. Only call this if {@link #isAcceptingRowBatches()} is true.
+   *
+   * @param rowMeta
+   *          The description of the row data
+   * @param batch
+   *          the rows to add
+   * @return true if the batch was added, false if the row set stayed full.
+   */
+  default boolean putRowBatch( RowMetaInterface rowMeta, RowBatch batch ) {
+    throw new UnsupportedOperationException( "Row batches are not supported by " + getClass().getName() );
+  }
+
   /**
    * Get a row from the input buffer, it blocks for a short period until a new row becomes available. Otherwise, it
    * returns null.
@@ -71,6 +120,37 @@ public interface RowSet {
    */
   Object[] getRowImmediate();
 
+  /**
+   * Get the rows that are immediately available, up to a maximum, without waiting.
+   *
+   * @param rows
+   *          the buffer to store the rows in
+   * @param offset
+   *          the index in the buffer of the first row to store
+   * @param maxRows
+   *          the maximum number of rows to get
+   * @return the number of rows stored in the buffer, 0 if no row is available.
+   */
+  default int getRowsImmediate( Object[][] rows, int offset, int maxRows ) {
+    int count = 0;
+    Object[] row;
+    while ( count < maxRows && ( row = getRowImmediate() ) != null ) {
+      rows[offset + count++] = row;
+    }
+    return count;
+  }
+
+  /**
+   * Get the next rows as a columnar row batch if they were put as a batch, without waiting.
+   *
+   * @param maxRows
+   *          the number of rows the caller would like to get, a batch is returned whole even if it holds more rows
+   * @return the row batch or null if the next rows were not put as a batch or no rows are available.
+   */
+  default RowBatch getRowBatchImmediate( int maxRows ) {
+    return null;
+  }
+
   /**
    * get the first row in the list immediately if it is available or wait until timeout
    *
@@ -154,4 +234,36 @@ public interface RowSet {
    * Clear this rowset: remove all rows and remove the "done" flag.
    */
   void clear();
+
+  /**
+   * @return the pool of recycled row arrays of this hop or null if row arrays are not recycled.
+   * @see RowArrayPool
+   */
+  default RowArrayPool getRowArrayPool() {
+    return null;
+  }
+
+  /**
+   * @param rowArrayPool
+   *          the pool of recycled row arrays to use for this hop, null to disable recycling. Ignored by row sets that
+   *          don't support recycling.
+   */
+  default void setRowArrayPool( RowArrayPool rowArrayPool ) {
+  }
+
+  /**
+   * @return the profile recording the waits on this hop or null if the hop isn't profiled.
+   * @see RowSetProfile
+   */
+  default RowSetProfile getProfile() {
+    return null;
+  }
+
+  /**
+   * @param profile
+   *          the profile to record the waits on this hop in, null to stop profiling. Ignored by row sets that don't
+   *          support profiling.
+   */
+  default void setProfile( RowSetProfile profile ) {
+  }
 }
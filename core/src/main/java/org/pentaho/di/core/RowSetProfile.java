@@ -0,0 +1,139 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records where the rows of a hop wait: the time producers spent blocked putting rows into a full row set, the time
+ * consumers spent waiting for rows on an empty one and how many rows the row set usually holds.<br>
+ * <br>
+ * A hop is only profiled when the transformation gives its row set a profile (KETTLE_ROWSET_PROFILING), the row sets
+ * only time the calls that actually have to wait.
+ *
+ * @see RowSet#setProfile(RowSetProfile)
+ */
+public class RowSetProfile {
+
+  /**
+   * The number of buckets of the occupancy histogram. Bucket 0 counts the samples of an empty row set, bucket i the
+   * samples holding 2^(i-1) up to 2^i - 1 rows and the last bucket everything above.
+   */
+  public static final int OCCUPANCY_BUCKETS = 16;
+
+  /** The occupancy is sampled once every 64 rows added. */
+  private static final int SAMPLE_INTERVAL_BITS = 6;
+  private static final int SAMPLE_INTERVAL_MASK = ( 1 << SAMPLE_INTERVAL_BITS ) - 1;
+
+  private final LongAdder putWaitNanos = new LongAdder();
+  private final LongAdder getWaitNanos = new LongAdder();
+  private final AtomicLongArray occupancy = new AtomicLongArray( OCCUPANCY_BUCKETS );
+  private final LongAdder occupancyTotal = new LongAdder();
+
+  /** Only used to pick the samples, lost updates by concurrent producers don't matter. */
+  private int rowsAdded;
+
+  /**
+   * @param nanos the time a producer was blocked putting a row
+   */
+  public void addPutWait( long nanos ) {
+    putWaitNanos.add( nanos );
+  }
+
+  /**
+   * @param nanos the time a consumer waited getting a row
+   */
+  public void addGetWait( long nanos ) {
+    getWaitNanos.add( nanos );
+  }
+
+  /**
+   * Called after a row was added to the row set, samples its size now and then.
+   */
+  public void rowAdded( RowSet rowSet ) {
+    if ( ( ++rowsAdded & SAMPLE_INTERVAL_MASK ) == 0 ) {
+      sampleOccupancy( rowSet.size() );
+    }
+  }
+
+  /**
+   * Called after a number of rows was added to the row set at once. The size is sampled once for every sample interval
+   * the rows pass, so batches are sampled as often as single rows.
+   */
+  public void rowsAdded( RowSet rowSet, int count ) {
+    int before = rowsAdded;
+    int after = before + count;
+    rowsAdded = after;
+    int samples = ( after >>> SAMPLE_INTERVAL_BITS ) - ( before >>> SAMPLE_INTERVAL_BITS );
+    if ( samples > 0 ) {
+      sampleOccupancy( rowSet.size(), samples );
+    }
+  }
+
+  public void sampleOccupancy( int size ) {
+    sampleOccupancy( size, 1 );
+  }
+
+  private void sampleOccupancy( int size, int samples ) {
+    int bucket = size <= 0 ? 0 : Math.min( 32 - Integer.numberOfLeadingZeros( size ), OCCUPANCY_BUCKETS - 1 );
+    occupancy.addAndGet( bucket, samples );
+    occupancyTotal.add( (long) size * samples );
+  }
+
+  /**
+   * @return the total time producers were blocked on a full row set, in nanoseconds
+   */
+  public long getPutWaitNanos() {
+    return putWaitNanos.sum();
+  }
+
+  /**
+   * @return the total time consumers waited on an empty row set, in nanoseconds
+   */
+  public long getGetWaitNanos() {
+    return getWaitNanos.sum();
+  }
+
+  /**
+   * @return the number of occupancy samples per bucket, see {@link #OCCUPANCY_BUCKETS}
+   */
+  public long[] getOccupancyHistogram() {
+    long[] histogram = new long[ OCCUPANCY_BUCKETS ];
+    for ( int i = 0; i < histogram.length; i++ ) {
+      histogram[ i ] = occupancy.get( i );
+    }
+    return histogram;
+  }
+
+  /**
+   * @return the average number of rows in the row set over the samples taken, 0 if there are none
+   */
+  public double getAverageOccupancy() {
+    long samples = 0;
+    for ( int i = 0; i < OCCUPANCY_BUCKETS; i++ ) {
+      samples += occupancy.get( i );
+    }
+    return samples == 0 ? 0.0 : (double) occupancyTotal.sum() / samples;
+  }
+}
@@ -0,0 +1,310 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package org.pentaho.di.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * A lock-free buffer of rows for hops with exactly one producing and one consuming thread (single producer, single
+ * consumer). Rows are kept in a ring buffer, the producer only ever advances the tail and the consumer only ever
+ * advances the head so no lock is required to hand rows over.<br>
+ * <br>
+ * When the buffer is full (or empty) the waiting side first spins for a little while, then yields and finally parks
+ * for short periods until the timeout expires. There is no unpark signal so the other side never pays for waking up a
+ * waiting thread.<br>
+ * <br>
+ * IMPORTANT: this row set is only safe when a single thread puts rows and a single thread gets rows.
+ *
+ * @since 9.1
+ */
+public class SpscRowSet extends BaseRowSet implements Comparable<RowSet>, RowSet {
+
+  private static final int SPIN_TRIES = 100;
+  private static final int YIELD_TRIES = 50;
+  private static final long MAX_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos( 500 );
+
+  private final Object[][] buffer;
+  private final int mask;
+  private final int capacity;
+
+  /** The index of the next row to read, only written by the consumer. */
+  private final AtomicLong head = new PaddedAtomicLong();
+
+  /** The index of the next row to write, only written by the producer. */
+  private final AtomicLong tail = new PaddedAtomicLong();
+
+  /** Producer-local copy of the head, refreshed only when the buffer looks full. */
+  private long headCache;
+
+  /** Consumer-local copy of the tail, refreshed only when the buffer looks empty. */
+  private long tailCache;
+
+  private int timeoutPut;
+  private int timeoutGet;
+
+  /**
+   * Create a new single producer, single consumer row set with maxSize capacity.
+   *
+   * @param maxSize
+   *          the maximum number of rows kept in this row set
+   */
+  public SpscRowSet( int maxSize ) {
+    super();
+
+    capacity = Math.max( 1, maxSize );
+    int length = Integer.highestOneBit( capacity );
+    if ( length < capacity ) {
+      length <<= 1;
+    }
+    buffer = new Object[length][];
+    mask = length - 1;
+
+    timeoutGet = Const.toInt( System.getProperty( Const.KETTLE_ROWSET_GET_TIMEOUT ), Const.TIMEOUT_GET_MILLIS );
+    timeoutPut = Const.toInt( System.getProperty( Const.KETTLE_ROWSET_PUT_TIMEOUT ), Const.TIMEOUT_PUT_MILLIS );
+  }
+
+  @Override
+  public boolean putRow( RowMetaInterface rowMeta, Object[] rowData ) {
+    return putRowWait( rowMeta, rowData, timeoutPut, TimeUnit.MILLISECONDS );
+  }
+
+  @Override
+  public boolean putRowWait( RowMetaInterface rowMeta, Object[] rowData, long time, TimeUnit tu ) {
+    if ( rowData == null ) {
+      return false;
+    }
+    this.rowMeta = rowMeta;
+
+    long currentTail = tail.get();
+    if ( currentTail - headCache >= capacity ) {
+      headCache = head.get();
+      if ( currentTail - headCache >= capacity && !waitForSpace( currentTail, tu.toNanos( time ) ) ) {
+        return false;
+      }
+    }
+
+    buffer[(int) currentTail & mask] = rowData;
+    // Publish the row: the ordered store makes the slot write visible before the new tail.
+    tail.lazySet( currentTail + 1 );
+    if ( profile != null ) {
+      profile.rowAdded( this );
+    }
+    return true;
+  }
+
+  /**
+   * Adds as many rows as fit in the buffer and publishes them with a single update of the tail. Null rows are skipped.
+   */
+  @Override
+  public int putRows( RowMetaInterface rowMeta, Object[][] rows, int offset, int nrRows ) {
+    if ( nrRows <= 0 ) {
+      return 0;
+    }
+    this.rowMeta = rowMeta;
+
+    long currentTail = tail.get();
+    if ( currentTail - headCache >= capacity ) {
+      headCache = head.get();
+      if ( currentTail - headCache >= capacity && !waitForSpace( currentTail, TimeUnit.MILLISECONDS.toNanos(
+        timeoutPut ) ) ) {
+        return 0;
+      }
+    }
+
+    int room = (int) Math.min( nrRows, capacity - ( currentTail - headCache ) );
+    int added = 0;
+    int consumed = 0;
+    while ( added < room && consumed < nrRows ) {
+      Object[] row = rows[offset + consumed++];
+      if ( row != null ) {
+        buffer[(int) ( currentTail + added++ ) & mask] = row;
+      }
+    }
+    if ( added > 0 ) {
+      tail.lazySet( currentTail + added );
+      if ( profile != null ) {
+        profile.rowsAdded( this, added );
+      }
+    }
+    return consumed;
+  }
+
+  /**
+   * Takes all available rows (up to maxRows) and releases their slots with a single update of the head.
+   */
+  @Override
+  public int getRowsImmediate( Object[][] rows, int offset, int maxRows ) {
+    long currentHead = head.get();
+    if ( currentHead >= tailCache ) {
+      tailCache = tail.get();
+    }
+    int count = (int) Math.min( maxRows, tailCache - currentHead );
+    if ( count <= 0 ) {
+      return 0;
+    }
+    for ( int i = 0; i < count; i++ ) {
+      int index = (int) ( currentHead + i ) & mask;
+      rows[offset + i] = buffer[index];
+      buffer[index] = null; // prevent any hold-up to GC
+    }
+    head.lazySet( currentHead + count );
+    return count;
+  }
+
+  @Override
+  public Object[] getRow() {
+    return getRowWait( timeoutGet, TimeUnit.MILLISECONDS );
+  }
+
+  @Override
+  public Object[] getRowImmediate() {
+    long currentHead = head.get();
+    if ( currentHead >= tailCache ) {
+      tailCache = tail.get();
+      if ( currentHead >= tailCache ) {
+        return null;
+      }
+    }
+    return take( currentHead );
+  }
+
+  @Override
+  public Object[] getRowWait( long timeout, TimeUnit tu ) {
+    long currentHead = head.get();
+    if ( currentHead >= tailCache ) {
+      tailCache = tail.get();
+      if ( currentHead >= tailCache && !waitForRow( currentHead, tu.toNanos( timeout ) ) ) {
+        return null;
+      }
+    }
+    return take( currentHead );
+  }
+
+  private Object[] take( long currentHead ) {
+    int index = (int) currentHead & mask;
+    Object[] row = buffer[index];
+    buffer[index] = null; // prevent any hold-up to GC
+    head.lazySet( currentHead + 1 );
+    return row;
+  }
+
+  private boolean waitForSpace( long currentTail, long timeoutNanos ) {
+    long start = System.nanoTime();
+    long deadline = start + timeoutNanos;
+    boolean space = false;
+    for ( int attempt = 0; !space; attempt++ ) {
+      if ( !backOff( attempt, deadline ) ) {
+        break;
+      }
+      headCache = head.get();
+      space = currentTail - headCache < capacity;
+    }
+    RowSetProfile profile = this.profile;
+    if ( profile != null ) {
+      profile.addPutWait( System.nanoTime() - start );
+    }
+    return space;
+  }
+
+  private boolean waitForRow( long currentHead, long timeoutNanos ) {
+    long start = System.nanoTime();
+    long deadline = start + timeoutNanos;
+    boolean available = false;
+    for ( int attempt = 0; !available; attempt++ ) {
+      if ( !backOff( attempt, deadline ) ) {
+        break;
+      }
+      tailCache = tail.get();
+      available = currentHead < tailCache;
+    }
+    RowSetProfile profile = this.profile;
+    if ( profile != null ) {
+      profile.addGetWait( System.nanoTime() - start );
+    }
+    return available;
+  }
+
+  /**
+   * Spin, then yield, then park for increasingly long periods (bounded by MAX_PARK_NANOS).
+   *
+   * @return false if the deadline has passed or the thread was interrupted
+   */
+  private boolean backOff( int attempt, long deadline ) {
+    if ( attempt < SPIN_TRIES ) {
+      return true;
+    }
+    long remaining = deadline - System.nanoTime();
+    if ( remaining <= 0 || Thread.currentThread().isInterrupted() ) {
+      return false;
+    }
+    if ( attempt < SPIN_TRIES + YIELD_TRIES ) {
+      Thread.yield();
+    } else {
+      long parkNanos = Math.min( 1000L << Math.min( attempt - SPIN_TRIES - YIELD_TRIES, 9 ), MAX_PARK_NANOS );
+      LockSupport.parkNanos( this, Math.min( parkNanos, remaining ) );
+    }
+    return true;
+  }
+
+  @Override
+  public int size() {
+    long size = tail.get() - head.get();
+    return (int) Math.max( 0, Math.min( size, capacity ) );
+  }
+
+  /**
+   * @return the maximum number of rows this row set can hold
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Only call this when neither the producer nor the consumer is active.
+   */
+  @Override
+  public void clear() {
+    for ( int i = 0; i < buffer.length; i++ ) {
+      buffer[i] = null;
+    }
+    head.set( 0L );
+    tail.set( 0L );
+    headCache = 0L;
+    tailCache = 0L;
+    done.set( false );
+  }
+
+  /**
+   * Keeps the head and tail counters on separate cache lines so producer and consumer don't invalidate each other.
+   */
+  @SuppressWarnings( "unused" )
+  private static final class PaddedAtomicLong extends AtomicLong {
+    private static final long serialVersionUID = 1L;
+    long p1, p2, p3, p4, p5, p6, p7;
+  }
+}
@@ -0,0 +1,343 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.core;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.ColumnVector;
+import org.pentaho.di.core.row.RowBatch;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaAndData;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.util.Utils;
+
+/**
+ * A {@link Condition} compiled to evaluate a whole {@link RowBatch} at once. Only comparisons (=, &lt;&gt;, &lt;,
+ * &lt;=, &gt;, &gt;=, IS NULL, IS NOT NULL) of Integer or Number fields with a constant or with another field of the
+ * same type can be compiled, combined with any of the logical operators. The results are the same as those of
+ * {@link Condition#evaluate(RowMetaInterface, Object[])} for every row. An instance reuses its buffers, so it can
+ * only be used by one thread at a time.
+ */
+public class VectorizedCondition {
+
+  private final Node root;
+
+  private VectorizedCondition( Node root ) {
+    this.root = root;
+  }
+
+  /**
+   * Compile a condition for the given row layout.
+   *
+   * @param condition
+   *          the condition to compile
+   * @param rowMeta
+   *          the metadata of the rows to evaluate
+   * @return the compiled condition or null if the condition can't be vectorized.
+   */
+  public static VectorizedCondition compile( Condition condition, RowMetaInterface rowMeta ) {
+    Node root = compileNode( condition, rowMeta );
+    return root == null ? null : new VectorizedCondition( root );
+  }
+
+  /**
+   * Evaluate the condition for all rows of the batch.
+   *
+   * @param batch
+   *          the rows to evaluate, with the row layout the condition was compiled for
+   * @param result
+   *          the buffer to store the outcome in or null to allocate a new one
+   * @return for each row in the batch true if the condition holds.
+   */
+  public boolean[] evaluate( RowBatch batch, boolean[] result ) {
+    if ( result == null || result.length < batch.size() ) {
+      result = new boolean[ batch.size() ];
+    }
+    root.evaluate( batch, result );
+    return result;
+  }
+
+  private static Node compileNode( Condition condition, RowMetaInterface rowMeta ) {
+    if ( condition.isComposite() ) {
+      List<Condition> children = condition.getChildren();
+      Node[] nodes = new Node[ children.size() ];
+      int[] operators = new int[ children.size() ];
+      for ( int i = 0; i < nodes.length; i++ ) {
+        nodes[ i ] = compileNode( children.get( i ), rowMeta );
+        if ( nodes[ i ] == null ) {
+          return null;
+        }
+        operators[ i ] = children.get( i ).getOperator();
+      }
+      return new CompositeNode( nodes, operators, condition.isNegated() );
+    }
+
+    if ( condition.getFunction() == Condition.FUNC_TRUE ) {
+      return new ConstantNode( !condition.isNegated() );
+    }
+
+    String leftName = condition.getLeftValuename();
+    int leftIndex = Utils.isEmpty( leftName ) ? -1 : rowMeta.indexOfValue( leftName );
+    if ( leftIndex < 0 ) {
+      return new ConstantNode( false ); // no fields to evaluate, never negated
+    }
+    ValueMetaInterface leftMeta = rowMeta.getValueMeta( leftIndex );
+    int kind = ColumnVector.getKind( leftMeta );
+    if ( kind == ColumnVector.KIND_OBJECT || leftMeta.isSortedDescending() ) {
+      return null;
+    }
+
+    int function = condition.getFunction();
+    switch ( function ) {
+      case Condition.FUNC_NULL:
+      case Condition.FUNC_NOT_NULL:
+        return new NullNode( leftIndex, function == Condition.FUNC_NOT_NULL, condition.isNegated() );
+      case Condition.FUNC_EQUAL:
+      case Condition.FUNC_NOT_EQUAL:
+      case Condition.FUNC_SMALLER:
+      case Condition.FUNC_SMALLER_EQUAL:
+      case Condition.FUNC_LARGER:
+      case Condition.FUNC_LARGER_EQUAL:
+        break;
+      default:
+        return null;
+    }
+
+    // A constant takes precedence over a field
+    //
+    ValueMetaAndData rightExact = condition.getRightExact();
+    if ( rightExact != null && rightExact.getValueData() != null ) {
+      ValueMetaInterface constantMeta = rightExact.getValueMeta();
+      if ( constantMeta == null ) {
+        return null;
+      }
+      try {
+        if ( kind == ColumnVector.KIND_LONG && constantMeta.getType() == ValueMetaInterface.TYPE_NUMBER ) {
+          // An integer field is compared with a number as a number
+          //
+          Double constant = constantMeta.getNumber( rightExact.getValueData() );
+          return constant == null ? null
+            : new CompareNode( leftIndex, -1, true, constant, function, condition.isNegated() );
+        }
+        Object constant = leftMeta.convertData( constantMeta, rightExact.getValueData() );
+        if ( !( constant instanceof Number ) ) {
+          return null;
+        }
+        return new CompareNode( leftIndex, -1, kind == ColumnVector.KIND_DOUBLE, (Number) constant, function,
+          condition.isNegated() );
+      } catch ( KettleValueException e ) {
+        return null; // evaluated row by row this fails too: keep the original behavior
+      }
+    }
+
+    String rightName = condition.getRightValuename();
+    int rightIndex = Utils.isEmpty( rightName ) ? -1 : rowMeta.indexOfValue( rightName );
+    if ( rightIndex < 0 ) {
+      return null;
+    }
+    ValueMetaInterface rightMeta = rowMeta.getValueMeta( rightIndex );
+    if ( rightMeta.getType() != leftMeta.getType() || ColumnVector.getKind( rightMeta ) != kind ) {
+      return null;
+    }
+    return new CompareNode( leftIndex, rightIndex, kind == ColumnVector.KIND_DOUBLE, null, function,
+      condition.isNegated() );
+  }
+
+  private abstract static class Node {
+    abstract void evaluate( RowBatch batch, boolean[] result );
+  }
+
+  private static class ConstantNode extends Node {
+    private final boolean value;
+
+    ConstantNode( boolean value ) {
+      this.value = value;
+    }
+
+    @Override
+    void evaluate( RowBatch batch, boolean[] result ) {
+      Arrays.fill( result, 0, batch.size(), value );
+    }
+  }
+
+  private static class NullNode extends Node {
+    private final int index;
+    private final boolean notNull;
+    private final boolean negate;
+
+    NullNode( int index, boolean notNull, boolean negate ) {
+      this.index = index;
+      this.notNull = notNull;
+      this.negate = negate;
+    }
+
+    @Override
+    void evaluate( RowBatch batch, boolean[] result ) {
+      ColumnVector column = batch.getColumn( index );
+      boolean flip = notNull ^ negate;
+      for ( int i = 0; i < batch.size(); i++ ) {
+        result[ i ] = column.isNull( i ) ^ flip;
+      }
+    }
+  }
+
+  private static class CompareNode extends Node {
+    private final int leftIndex;
+    private final int rightIndex;
+    private final boolean asDouble;
+    private final long longConstant;
+    private final double doubleConstant;
+    private final int function;
+    private final boolean negate;
+
+    /**
+     * @param rightIndex
+     *          the index of the field to compare with, -1 to compare with the constant
+     * @param asDouble
+     *          compare as double values, else as long values
+     */
+    CompareNode( int leftIndex, int rightIndex, boolean asDouble, Number constant, int function, boolean negate ) {
+      this.leftIndex = leftIndex;
+      this.rightIndex = rightIndex;
+      this.asDouble = asDouble;
+      this.longConstant = constant == null ? 0L : constant.longValue();
+      this.doubleConstant = constant == null ? 0.0 : constant.doubleValue();
+      this.function = function;
+      this.negate = negate;
+    }
+
+    @Override
+    void evaluate( RowBatch batch, boolean[] result ) {
+      int size = batch.size();
+      ColumnVector left = batch.getColumn( leftIndex );
+      ColumnVector right = rightIndex < 0 ? null : batch.getColumn( rightIndex );
+      long[] leftLongs = left.getLongs();
+      double[] leftDoubles = left.getDoubles();
+
+      // Compare with the same outcome as ValueMetaBase.compare(): a null value sorts before any other value
+      //
+      for ( int i = 0; i < size; i++ ) {
+        boolean leftNull = left.isNull( i );
+        boolean rightNull = right != null && right.isNull( i );
+        int cmp;
+        if ( leftNull || rightNull ) {
+          cmp = leftNull == rightNull ? 0 : ( leftNull ? -1 : 1 );
+        } else if ( right == null ) {
+          if ( asDouble ) {
+            cmp = Double.compare( leftDoubles != null ? leftDoubles[ i ] : leftLongs[ i ], doubleConstant );
+          } else {
+            cmp = Long.compare( leftLongs[ i ], longConstant );
+          }
+        } else if ( asDouble ) {
+          cmp = Double.compare( leftDoubles[ i ], right.getDouble( i ) );
+        } else {
+          cmp = Long.compare( leftLongs[ i ], right.getLong( i ) );
+        }
+
+        boolean value;
+        switch ( function ) {
+          case Condition.FUNC_EQUAL:
+            value = cmp == 0;
+            break;
+          case Condition.FUNC_NOT_EQUAL:
+            value = cmp != 0;
+            break;
+          case Condition.FUNC_SMALLER:
+            value = !leftNull && cmp < 0;
+            break;
+          case Condition.FUNC_SMALLER_EQUAL:
+            value = !leftNull && cmp <= 0;
+            break;
+          case Condition.FUNC_LARGER:
+            value = cmp > 0;
+            break;
+          default: // FUNC_LARGER_EQUAL
+            value = cmp >= 0;
+            break;
+        }
+        result[ i ] = value ^ negate;
+      }
+    }
+  }
+
+  private static class CompositeNode extends Node {
+    private final Node[] nodes;
+    private final int[] operators;
+    private final boolean negate;
+    private boolean[] other = new boolean[ 0 ];
+
+    CompositeNode( Node[] nodes, int[] operators, boolean negate ) {
+      this.nodes = nodes;
+      this.operators = operators;
+      this.negate = negate;
+    }
+
+    @Override
+    void evaluate( RowBatch batch, boolean[] result ) {
+      int size = batch.size();
+      nodes[ 0 ].evaluate( batch, result );
+      if ( other.length < size ) {
+        other = new boolean[ size ];
+      }
+      for ( int n = 1; n < nodes.length; n++ ) {
+        nodes[ n ].evaluate( batch, other );
+        switch ( operators[ n ] ) {
+          case Condition.OPERATOR_OR:
+            for ( int i = 0; i < size; i++ ) {
+              result[ i ] |= other[ i ];
+            }
+            break;
+          case Condition.OPERATOR_AND:
+            for ( int i = 0; i < size; i++ ) {
+              result[ i ] &= other[ i ];
+            }
+            break;
+          case Condition.OPERATOR_OR_NOT:
+            for ( int i = 0; i < size; i++ ) {
+              result[ i ] |= !other[ i ];
+            }
+            break;
+          case Condition.OPERATOR_AND_NOT:
+            for ( int i = 0; i < size; i++ ) {
+              result[ i ] &= !other[ i ];
+            }
+            break;
+          case Condition.OPERATOR_XOR:
+            for ( int i = 0; i < size; i++ ) {
+              result[ i ] ^= other[ i ];
+            }
+            break;
+          default:
+            break;
+        }
+      }
+      if ( negate ) {
+        for ( int i = 0; i < size; i++ ) {
+          result[ i ] = !result[ i ];
+        }
+      }
+    }
+  }
+}
@@ -90,7 +90,6 @@ import org.pentaho.di.core.logging.Metrics;
 import org.pentaho.di.core.plugins.DatabasePluginType;
 import org.pentaho.di.core.plugins.PluginInterface;
 import org.pentaho.di.core.plugins.PluginRegistry;
-import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMeta;
@@ -152,6 +151,9 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
 
   private RowMetaInterface rowMeta;
 
+  /** Reads the rows of the last row layout passed to getRow() */
+  private ResultSetRowReader rowReader;
+
   private int written;
 
   private LogChannelInterface log;
@@ -1100,6 +1102,30 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
     }
   }
 
+  /**
+   * Sets the values of several rows in a prepared statement, one after the other, like for a multi-row insert.
+   *
+   * @param rowMeta The layout of the rows
+   * @param rows    The rows to set the values of
+   * @param nrRows  The number of rows to use from the array
+   * @param ps      The prepared statement
+   * @throws KettleDatabaseException in case a value can't be set
+   */
+  public void setValues( RowMetaInterface rowMeta, Object[][] rows, int nrRows, PreparedStatement ps )
+    throws KettleDatabaseException {
+    int pos = 1;
+    for ( int r = 0; r < nrRows; r++ ) {
+      Object[] data = rows[ r ];
+      for ( int i = 0; i < rowMeta.size(); i++ ) {
+        try {
+          setValue( ps, rowMeta.getValueMeta( i ), data[ i ], pos++ );
+        } catch ( KettleDatabaseException e ) {
+          throw new KettleDatabaseException( "offending row : " + rowMeta, e );
+        }
+      }
+    }
+  }
+
   /**
    * Sets the values of the preparedStatement pstmt.
    *
@@ -1213,18 +1239,44 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
       String name = fields.getValueMeta( i ).getName();
       ins.append( databaseMeta.quoteField( name ) );
     }
-    ins.append( ") VALUES (" );
+    ins.append( ") VALUES " );
 
     // Add placeholders...
-    for ( int i = 0; i < fields.size(); i++ ) {
+    appendInsertPlaceholders( ins, fields.size() );
+
+    return ins.toString();
+  }
+
+  /**
+   * Builds an INSERT statement with the placeholders of several rows in its VALUES list. Only use this when the
+   * database supports multi-row inserts.
+   *
+   * @param schemaName The schema of the table
+   * @param tableName  The table to insert into
+   * @param fields     The layout of the rows to insert
+   * @param nrRows     The number of rows to insert with the statement
+   * @return The SQL of the INSERT statement
+   * @see DatabaseMeta#supportsMultiRowInsert()
+   */
+  public String getMultiRowInsertStatement( String schemaName, String tableName, RowMetaInterface fields,
+                                            int nrRows ) {
+    StringBuilder ins = new StringBuilder( getInsertStatement( schemaName, tableName, fields ) );
+    for ( int row = 1; row < nrRows; row++ ) {
+      ins.append( ", " );
+      appendInsertPlaceholders( ins, fields.size() );
+    }
+    return ins.toString();
+  }
+
+  private static void appendInsertPlaceholders( StringBuilder ins, int nrFields ) {
+    ins.append( '(' );
+    for ( int i = 0; i < nrFields; i++ ) {
       if ( i > 0 ) {
         ins.append( ", " );
       }
       ins.append( " ?" );
     }
     ins.append( ')' );
-
-    return ins.toString();
   }
 
   public void insertRow() throws KettleDatabaseException {
@@ -2742,20 +2794,15 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
 
     try {
 
-      int nrcols = rowInfo.size();
-      Object[] data = RowDataUtil.allocateRowData( nrcols );
-
-      if ( rs.next() ) {
-        for ( int i = 0; i < nrcols; i++ ) {
-          ValueMetaInterface val = rowInfo.getValueMeta( i );
-
-          data[ i ] = databaseMeta.getValueFromResultSet( rs, val, i );
-        }
-      } else {
-        data = null;
+      if ( !rs.next() ) {
+        return null;
       }
-
-      return data;
+      // Pick the way to read each column once, not for every value
+      //
+      if ( rowReader == null || !rowReader.isReaderFor( rowInfo ) ) {
+        rowReader = new ResultSetRowReader( databaseMeta, rowInfo );
+      }
+      return rowReader.readRow( rs );
     } catch ( Exception ex ) {
       throw new KettleDatabaseException( "Couldn't get row from result set", ex );
     } finally {
@@ -730,6 +730,43 @@ public interface DatabaseInterface extends Cloneable {
    */
   boolean supportsSetMaxRows();
 
+  /**
+   * @return the maximum number of bind parameters to use in a single statement, for example in a long IN list
+   */
+  default int getMaxStatementParameters() {
+    return 1000;
+  }
+
+  /**
+   * @return true if the database accepts several rows in the VALUES list of a single INSERT statement
+   */
+  default boolean supportsMultiRowInsert() {
+    return false;
+  }
+
+  /**
+   * @return the maximum number of rows in the VALUES list of a single INSERT statement
+   */
+  default int getMaxMultiRowInsertRows() {
+    return Integer.MAX_VALUE;
+  }
+
+  /**
+   * @return true if rows can be streamed into a table with a COPY ... FROM STDIN command through the JDBC driver
+   */
+  default boolean supportsCopyFromStdin() {
+    return false;
+  }
+
+  /**
+   * @param expression an integer SQL expression
+   * @param divisor    the number to divide by
+   * @return the SQL expression for the remainder of the division
+   */
+  default String getModuloExpression( String expression, int divisor ) {
+    return "MOD(" + expression + ", " + divisor + ")";
+  }
+
   /**
    * @return true if we want to use a database connection pool
    */
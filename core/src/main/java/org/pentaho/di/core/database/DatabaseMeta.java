@@ -2400,6 +2400,43 @@ public class DatabaseMeta extends SharedObjectBase implements Cloneable, XMLInte
     return databaseInterface.supportsSetMaxRows();
   }
 
+  /**
+   * @return the maximum number of bind parameters to use in a single statement, for example in a long IN list
+   */
+  public int getMaxStatementParameters() {
+    return databaseInterface.getMaxStatementParameters();
+  }
+
+  /**
+   * @return true if the database accepts several rows in the VALUES list of a single INSERT statement
+   */
+  public boolean supportsMultiRowInsert() {
+    return databaseInterface.supportsMultiRowInsert();
+  }
+
+  /**
+   * @return the maximum number of rows in the VALUES list of a single INSERT statement
+   */
+  public int getMaxMultiRowInsertRows() {
+    return databaseInterface.getMaxMultiRowInsertRows();
+  }
+
+  /**
+   * @return true if rows can be streamed into a table with a COPY ... FROM STDIN command through the JDBC driver
+   */
+  public boolean supportsCopyFromStdin() {
+    return databaseInterface.supportsCopyFromStdin();
+  }
+
+  /**
+   * @param expression an integer SQL expression
+   * @param divisor    the number to divide by
+   * @return the SQL expression for the remainder of the division
+   */
+  public String getModuloExpression( String expression, int divisor ) {
+    return databaseInterface.getModuloExpression( expression, divisor );
+  }
+
   /**
    * Verify the name of the database and if required, change it if it already exists in the list of databases.
    *
@@ -285,4 +285,9 @@ public class H2DatabaseMeta extends BaseDatabaseMeta implements DatabaseInterfac
     return false;
   }
 
+  @Override
+  public boolean supportsMultiRowInsert() {
+    return true;
+  }
+
 }
@@ -540,4 +540,30 @@ public class MSSQLServerDatabaseMeta extends BaseDatabaseMeta implements Databas
     return 8000;
   }
 
+  /**
+   * A request can have at most 2100 parameters.
+   */
+  @Override
+  public int getMaxStatementParameters() {
+    return 2000;
+  }
+
+  @Override
+  public boolean supportsMultiRowInsert() {
+    return true;
+  }
+
+  /**
+   * A table value constructor can have at most 1000 rows.
+   */
+  @Override
+  public int getMaxMultiRowInsertRows() {
+    return 1000;
+  }
+
+  @Override
+  public String getModuloExpression( String expression, int divisor ) {
+    return "(" + expression + " % " + divisor + ")";
+  }
+
 }
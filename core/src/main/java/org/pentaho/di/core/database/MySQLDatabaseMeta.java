@@ -515,6 +515,11 @@ public class MySQLDatabaseMeta extends BaseDatabaseMeta implements DatabaseInter
     return Integer.MAX_VALUE;
   }
 
+  @Override
+  public boolean supportsMultiRowInsert() {
+    return true;
+  }
+
   /**
    * Returns the column name for a MySQL field checking if the driver major version is "greater than" or "lower or equal" to 3.
    *
@@ -572,4 +572,25 @@ public class PostgreSQLDatabaseMeta extends BaseDatabaseMeta implements Database
   public int getMaxTextFieldLength() {
     return GB_LIMIT;
   }
+
+  /**
+   * The protocol allows 32767 parameters per statement.
+   */
+  @Override
+  public int getMaxStatementParameters() {
+    return 32767;
+  }
+
+  @Override
+  public boolean supportsMultiRowInsert() {
+    return true;
+  }
+
+  /**
+   * The driver exposes the COPY protocol through its CopyManager.
+   */
+  @Override
+  public boolean supportsCopyFromStdin() {
+    return true;
+  }
 }
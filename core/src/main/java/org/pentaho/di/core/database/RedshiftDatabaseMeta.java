@@ -148,6 +148,14 @@ public class RedshiftDatabaseMeta extends PostgreSQLDatabaseMeta {
     return "redshift";
   }
 
+  /**
+   * Redshift only copies from S3 and the like, not from the client.
+   */
+  @Override
+  public boolean supportsCopyFromStdin() {
+    return false;
+  }
+
   private String getParamIfSet( String param, String val ) {
     if ( !isEmpty( val ) ) {
       return "&" + param + "=" + val;
@@ -0,0 +1,191 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.core.database;
+
+import java.sql.Blob;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.row.RowDataUtil;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBase;
+import org.pentaho.di.core.row.value.ValueMetaTimestamp;
+
+/**
+ * Reads rows from a result set with a reader per column, picked once for the data type of the column and the database
+ * dialect. The generic way of reading a value, {@link DatabaseMeta#getValueFromResultSet(ResultSet,
+ * ValueMetaInterface, int)}, goes through the dialect and a switch on the data type for every value of every row.<br>
+ * <br>
+ * Columns which the dialect or the value meta-data read in a way of their own keep using the generic way.
+ */
+class ResultSetRowReader {
+
+  /**
+   * Reads the value of one column of the current row of a result set.
+   */
+  interface ColumnReader {
+    /**
+     * @param resultSet the result set, positioned on a row
+     * @param index     the column index (0-based)
+     * @return the value in the Kettle data type of the column
+     */
+    Object read( ResultSet resultSet, int index ) throws SQLException, KettleDatabaseException;
+  }
+
+  /** Remembers which classes read values from a result set the generic way, per class */
+  private static final Map<Class<?>, Boolean> GENERIC_READS = new ConcurrentHashMap<>();
+
+  private final RowMetaInterface rowMeta;
+  private final ColumnReader[] readers;
+
+  /**
+   * @param databaseMeta the database the result set comes from
+   * @param rowMeta      the layout of the rows in the result set
+   */
+  ResultSetRowReader( DatabaseMeta databaseMeta, RowMetaInterface rowMeta ) {
+    this.rowMeta = rowMeta;
+    this.readers = new ColumnReader[ rowMeta.size() ];
+
+    DatabaseInterface databaseInterface = databaseMeta.getDatabaseInterface();
+    boolean genericDialect = isGenericDialect( databaseInterface );
+    for ( int i = 0; i < readers.length; i++ ) {
+      ValueMetaInterface valueMeta = rowMeta.getValueMeta( i );
+      ColumnReader reader = genericDialect ? getColumnReader( databaseInterface, valueMeta ) : null;
+      if ( reader == null ) {
+        reader = ( resultSet, index ) -> databaseMeta.getValueFromResultSet( resultSet, valueMeta, index );
+      }
+      readers[ i ] = reader;
+    }
+  }
+
+  /**
+   * @return true if the readers were picked for this row layout
+   */
+  boolean isReaderFor( RowMetaInterface rowInfo ) {
+    return rowInfo == rowMeta && rowInfo.size() == readers.length;
+  }
+
+  /**
+   * Reads the current row of the result set.
+   *
+   * @param resultSet the result set, positioned on a row
+   * @return the row
+   * @throws KettleDatabaseException in case a value can't be read
+   */
+  Object[] readRow( ResultSet resultSet ) throws KettleDatabaseException {
+    Object[] data = RowDataUtil.allocateRowData( readers.length );
+    for ( int i = 0; i < readers.length; i++ ) {
+      try {
+        data[ i ] = readers[ i ].read( resultSet, i );
+      } catch ( SQLException e ) {
+        throw new KettleDatabaseException( "Unable to get value '" + rowMeta.getValueMeta( i ).toStringMeta()
+          + "' from database resultset, index " + i, e );
+      }
+    }
+    return data;
+  }
+
+  /**
+   * @return a reader doing what ValueMetaBase.getValueFromResultSet() does for the type of the value, or null if the
+   *         generic way needs to be used
+   */
+  static ColumnReader getColumnReader( DatabaseInterface databaseInterface, ValueMetaInterface valueMeta ) {
+    if ( valueMeta.getClass() == ValueMetaTimestamp.class ) {
+      return ( resultSet, index ) -> resultSet.getTimestamp( index + 1 );
+    }
+    if ( !isGenericValueMeta( valueMeta ) ) {
+      return null;
+    }
+    switch ( valueMeta.getType() ) {
+      case ValueMetaInterface.TYPE_BOOLEAN:
+        return ( resultSet, index ) -> {
+          boolean value = resultSet.getBoolean( index + 1 );
+          return resultSet.wasNull() ? null : Boolean.valueOf( value );
+        };
+      case ValueMetaInterface.TYPE_NUMBER:
+        return ( resultSet, index ) -> {
+          double value = resultSet.getDouble( index + 1 );
+          return resultSet.wasNull() ? null : Double.valueOf( value );
+        };
+      case ValueMetaInterface.TYPE_INTEGER:
+        return ( resultSet, index ) -> {
+          long value = resultSet.getLong( index + 1 );
+          return resultSet.wasNull() ? null : Long.valueOf( value );
+        };
+      case ValueMetaInterface.TYPE_BIGNUMBER:
+        return ( resultSet, index ) -> resultSet.getBigDecimal( index + 1 );
+      case ValueMetaInterface.TYPE_STRING:
+        // Lazy conversion: keep the bytes as they come from the database, convert only when needed
+        //
+        if ( valueMeta.isStorageBinaryString() ) {
+          return ( resultSet, index ) -> resultSet.getBytes( index + 1 );
+        }
+        return ( resultSet, index ) -> resultSet.getString( index + 1 );
+      case ValueMetaInterface.TYPE_BINARY:
+        if ( databaseInterface.supportsGetBlob() ) {
+          return ( resultSet, index ) -> {
+            Blob blob = resultSet.getBlob( index + 1 );
+            return blob == null ? null : blob.getBytes( 1L, (int) blob.length() );
+          };
+        }
+        return ( resultSet, index ) -> resultSet.getBytes( index + 1 );
+      case ValueMetaInterface.TYPE_DATE:
+        if ( valueMeta.getPrecision() != 1 && databaseInterface.supportsTimeStampToDateConversion() ) {
+          return ( resultSet, index ) -> resultSet.getTimestamp( index + 1 );
+        }
+        if ( databaseInterface instanceof NetezzaDatabaseMeta ) {
+          return null;
+        }
+        return ( resultSet, index ) -> resultSet.getDate( index + 1 );
+      default:
+        return null;
+    }
+  }
+
+  private static boolean isGenericDialect( DatabaseInterface databaseInterface ) {
+    return isDeclaredBy( databaseInterface.getClass(), BaseDatabaseMeta.class, ResultSet.class,
+      ValueMetaInterface.class, int.class );
+  }
+
+  private static boolean isGenericValueMeta( ValueMetaInterface valueMeta ) {
+    return isDeclaredBy( valueMeta.getClass(), ValueMetaBase.class, DatabaseInterface.class, ResultSet.class,
+      int.class );
+  }
+
+  /**
+   * @return true if getValueFromResultSet() of the class is the one of the base class, not an override
+   */
+  private static boolean isDeclaredBy( Class<?> clazz, Class<?> baseClass, Class<?>... parameterTypes ) {
+    return GENERIC_READS.computeIfAbsent( clazz, c -> {
+      try {
+        return c.getMethod( "getValueFromResultSet", parameterTypes ).getDeclaringClass() == baseClass;
+      } catch ( NoSuchMethodException e ) {
+        return false;
+      }
+    } );
+  }
+}
@@ -0,0 +1,460 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.core.hash;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.pentaho.di.core.exception.KettleFileException;
+
+/**
+ * An open addressing hash index of serialized keys and values that is kept outside of the Java heap.<br>
+ * <br>
+ * Keys and values are appended to large chunks of direct memory, the index itself is a table of 8 byte slots using
+ * linear probing. Each slot holds the address of its entry and part of the hash code of the key so that most misses
+ * never touch the entry. Nothing but the chunks themselves lives on the heap, which keeps lookups of many millions
+ * of rows clear of the garbage collector.<br>
+ * <br>
+ * Once the memory budget is used up, new chunks and table segments are memory-mapped from a temporary file instead,
+ * leaving it to the operating system to page them in and out. The table that is left behind by a resize gives its
+ * bytes back to the budget, or its range of the file to later chunks and table segments.<br>
+ * <br>
+ * Keys are compared byte by byte, like in {@link ByteArrayHashIndex}. Replacing the value of a key with a value of a
+ * different length appends a new entry and leaves the old one unused. This class is not thread-safe.
+ */
+public class OffHeapHashIndex implements Closeable {
+
+  /** The default amount of direct memory to use before spilling to a memory-mapped file: 256MB */
+  public static final long DEFAULT_MEMORY_BUDGET = 256L * 1024 * 1024;
+
+  private static final float LOAD_FACTOR = 0.7f;
+  private static final int INITIAL_CAPACITY = 1024;
+
+  // Table segments of 2^24 slots of 8 bytes (128MB)
+  private static final int SEGMENT_SHIFT = 24;
+  private static final int SEGMENT_MASK = ( 1 << SEGMENT_SHIFT ) - 1;
+
+  // Slots: 24 bits of hash tag and 40 bits of entry address + 1, the address being 12 bits of chunk and 28 of offset
+  private static final int TAG_SHIFT = 40;
+  private static final long ADDRESS_MASK = ( 1L << TAG_SHIFT ) - 1;
+  private static final int OFFSET_BITS = 28;
+  private static final int OFFSET_MASK = ( 1 << OFFSET_BITS ) - 1;
+  private static final int MAX_CHUNKS = ( 1 << ( TAG_SHIFT - OFFSET_BITS ) ) - 1;
+  private static final int MAX_CHUNK_SIZE = 1 << OFFSET_BITS;
+  private static final int INITIAL_CHUNK_SIZE = 1 << 20;
+  private static final int LARGE_CHUNK_SIZE = 64 << 20;
+
+  // Entries: the hash code, the key length, the value length, the key and the value
+  private static final int ENTRY_HEADER_SIZE = 16;
+
+  private final long memoryBudget;
+  private final File spillDirectory;
+
+  private ByteBuffer[] table;
+  // The offset of every table segment in the spill file, -1 for segments in direct memory
+  private long[] tableSpillOffsets;
+  private long capacity;
+  private long mask;
+  private long size;
+  private long resizeThreshold;
+
+  private final List<ByteBuffer> chunks;
+  private ByteBuffer currentChunk;
+  private int nextChunkSize;
+
+  private long memoryUsed;
+  private File spillFile;
+  private RandomAccessFile spillAccess;
+  private FileChannel spillChannel;
+  private long bytesMapped;
+  private long spillFileSize;
+  // Ranges of the spill file released by old tables: offset to length
+  private final TreeMap<Long, Long> freeSpillRanges;
+  private long lastSpillOffset;
+
+  /**
+   * Create an off-heap hash index.
+   *
+   * @param memoryBudget
+   *          the number of bytes of direct memory to use before spilling to a memory-mapped file
+   * @param spillDirectory
+   *          the directory of the memory-mapped file or null for the default temporary directory
+   */
+  public OffHeapHashIndex( long memoryBudget, File spillDirectory ) throws KettleFileException {
+    this.memoryBudget = memoryBudget;
+    this.spillDirectory = spillDirectory;
+    this.chunks = new ArrayList<ByteBuffer>();
+    this.nextChunkSize = INITIAL_CHUNK_SIZE;
+    this.freeSpillRanges = new TreeMap<Long, Long>();
+
+    allocateTable( INITIAL_CAPACITY );
+  }
+
+  public OffHeapHashIndex() throws KettleFileException {
+    this( DEFAULT_MEMORY_BUDGET, null );
+  }
+
+  /**
+   * @return the number of keys in the index
+   */
+  public long getSize() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * @return the number of bytes of direct memory allocated
+   */
+  public long getMemoryUsed() {
+    return memoryUsed;
+  }
+
+  /**
+   * @return the number of bytes memory-mapped from the spill file and in use
+   */
+  public long getBytesMapped() {
+    return bytesMapped;
+  }
+
+  /**
+   * @return the size of the spill file, including the ranges released by old tables
+   */
+  long getSpillFileSize() {
+    return spillFileSize;
+  }
+
+  /**
+   * @return a copy of the value stored for the key or null if the key isn't in the index
+   */
+  public byte[] get( byte[] key ) {
+    long address = find( key, hash( key ) );
+    if ( address < 0 ) {
+      return null;
+    }
+    ByteBuffer chunk = chunks.get( (int) ( address >>> OFFSET_BITS ) );
+    int offset = (int) ( address & OFFSET_MASK );
+    int keyLength = chunk.getInt( offset + 8 );
+    byte[] value = new byte[chunk.getInt( offset + 12 )];
+    ByteBuffer entry = chunk.duplicate();
+    entry.position( offset + ENTRY_HEADER_SIZE + keyLength );
+    entry.get( value );
+    return value;
+  }
+
+  /**
+   * Store a value for a key, replacing the value that was stored for the key before.
+   */
+  public void put( byte[] key, byte[] value ) throws KettleFileException {
+    long hash = hash( key );
+    long address = find( key, hash );
+    if ( address >= 0 ) {
+      ByteBuffer chunk = chunks.get( (int) ( address >>> OFFSET_BITS ) );
+      int offset = (int) ( address & OFFSET_MASK );
+      if ( chunk.getInt( offset + 12 ) == value.length ) {
+        ByteBuffer entry = chunk.duplicate();
+        entry.position( offset + ENTRY_HEADER_SIZE + key.length );
+        entry.put( value );
+        return;
+      }
+    }
+
+    long slotValue = ( ( hash >>> TAG_SHIFT ) << TAG_SHIFT ) | ( append( hash, key, value ) + 1 );
+    if ( address >= 0 ) {
+      setSlot( findSlot( key, hash ), slotValue );
+      return;
+    }
+    setSlot( findEmptySlot( hash ), slotValue );
+    size++;
+    if ( size > resizeThreshold ) {
+      resize();
+    }
+  }
+
+  /**
+   * Releases the index. The direct memory is freed once the garbage collector claims the chunks, the spill file is
+   * removed.
+   */
+  @Override
+  public void close() {
+    table = null;
+    tableSpillOffsets = null;
+    chunks.clear();
+    freeSpillRanges.clear();
+    currentChunk = null;
+    size = 0;
+    if ( spillChannel != null ) {
+      try {
+        spillAccess.close();
+      } catch ( IOException e ) {
+        // Nothing to do about it: we're removing the file anyway
+      }
+      spillFile.delete();
+      spillChannel = null;
+      spillAccess = null;
+      spillFile = null;
+    }
+  }
+
+  /**
+   * @return the address of the entry of the key or -1 if the key isn't in the index
+   */
+  private long find( byte[] key, long hash ) {
+    long slot = findSlot( key, hash );
+    return slot < 0 ? -1L : ( getSlot( slot ) & ADDRESS_MASK ) - 1;
+  }
+
+  private long findSlot( byte[] key, long hash ) {
+    long tag = hash >>> TAG_SHIFT;
+    for ( long slot = hash & mask;; slot = ( slot + 1 ) & mask ) {
+      long slotValue = getSlot( slot );
+      if ( slotValue == 0L ) {
+        return -1L;
+      }
+      if ( ( slotValue >>> TAG_SHIFT ) == tag && equalsKey( ( slotValue & ADDRESS_MASK ) - 1, key ) ) {
+        return slot;
+      }
+    }
+  }
+
+  private long findEmptySlot( long hash ) {
+    long slot = hash & mask;
+    while ( getSlot( slot ) != 0L ) {
+      slot = ( slot + 1 ) & mask;
+    }
+    return slot;
+  }
+
+  private boolean equalsKey( long address, byte[] key ) {
+    ByteBuffer chunk = chunks.get( (int) ( address >>> OFFSET_BITS ) );
+    int offset = (int) ( address & OFFSET_MASK );
+    if ( chunk.getInt( offset + 8 ) != key.length ) {
+      return false;
+    }
+    offset += ENTRY_HEADER_SIZE;
+    for ( int i = 0; i < key.length; i++ ) {
+      if ( chunk.get( offset + i ) != key[i] ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the address of the new entry
+   */
+  private long append( long hash, byte[] key, byte[] value ) throws KettleFileException {
+    long entrySize = (long) ENTRY_HEADER_SIZE + key.length + value.length;
+    if ( entrySize > MAX_CHUNK_SIZE ) {
+      throw new KettleFileException( "Unable to store an entry of " + entrySize + " bytes in an off-heap hash index" );
+    }
+    if ( currentChunk == null || currentChunk.remaining() < entrySize ) {
+      if ( chunks.size() >= MAX_CHUNKS ) {
+        throw new KettleFileException( "The off-heap hash index is full" );
+      }
+      int chunkSize = Math.max( (int) entrySize, nextChunkSize );
+      nextChunkSize = Math.min( nextChunkSize * 2, LARGE_CHUNK_SIZE );
+      currentChunk = allocate( chunkSize );
+      chunks.add( currentChunk );
+    }
+
+    long address = ( (long) ( chunks.size() - 1 ) << OFFSET_BITS ) | currentChunk.position();
+    currentChunk.putLong( hash );
+    currentChunk.putInt( key.length );
+    currentChunk.putInt( value.length );
+    currentChunk.put( key );
+    currentChunk.put( value );
+    return address;
+  }
+
+  private void resize() throws KettleFileException {
+    ByteBuffer[] oldTable = table;
+    long[] oldSpillOffsets = tableSpillOffsets;
+    long oldCapacity = capacity;
+
+    allocateTable( capacity * 2 );
+    for ( long slot = 0; slot < oldCapacity; slot++ ) {
+      long slotValue = oldTable[(int) ( slot >>> SEGMENT_SHIFT )].getLong( (int) ( slot & SEGMENT_MASK ) << 3 );
+      if ( slotValue != 0L ) {
+        long address = ( slotValue & ADDRESS_MASK ) - 1;
+        long hash = chunks.get( (int) ( address >>> OFFSET_BITS ) ).getLong( (int) ( address & OFFSET_MASK ) );
+        setSlot( findEmptySlot( hash ), slotValue );
+      }
+    }
+
+    // The direct memory of the old table is freed once the garbage collector claims it, it no longer counts against
+    // the budget. Its range of the spill file is reused by the next chunks and table segments.
+    //
+    for ( int i = 0; i < oldTable.length; i++ ) {
+      int bytes = oldTable[i].capacity();
+      if ( oldSpillOffsets[i] < 0 ) {
+        memoryUsed -= bytes;
+      } else {
+        bytesMapped -= bytes;
+        releaseSpillRange( oldSpillOffsets[i], bytes );
+      }
+    }
+  }
+
+  private void allocateTable( long newCapacity ) throws KettleFileException {
+    int segmentSlots = (int) Math.min( newCapacity, 1L << SEGMENT_SHIFT );
+    ByteBuffer[] newTable = new ByteBuffer[(int) ( newCapacity / segmentSlots )];
+    long[] newSpillOffsets = new long[newTable.length];
+    for ( int i = 0; i < newTable.length; i++ ) {
+      newTable[i] = allocate( segmentSlots << 3 );
+      newSpillOffsets[i] = lastSpillOffset;
+    }
+    table = newTable;
+    tableSpillOffsets = newSpillOffsets;
+    capacity = newCapacity;
+    mask = newCapacity - 1;
+    resizeThreshold = (long) ( newCapacity * LOAD_FACTOR );
+  }
+
+  private long getSlot( long slot ) {
+    return table[(int) ( slot >>> SEGMENT_SHIFT )].getLong( (int) ( slot & SEGMENT_MASK ) << 3 );
+  }
+
+  private void setSlot( long slot, long slotValue ) {
+    table[(int) ( slot >>> SEGMENT_SHIFT )].putLong( (int) ( slot & SEGMENT_MASK ) << 3, slotValue );
+  }
+
+  /**
+   * Allocate a zeroed buffer in direct memory while the budget allows it, memory-mapped from the spill file after
+   * that. The offset in the spill file is left in lastSpillOffset, -1 for direct memory.
+   */
+  private ByteBuffer allocate( int bytes ) throws KettleFileException {
+    ByteBuffer buffer = null;
+    lastSpillOffset = -1L;
+    if ( memoryUsed + bytes <= memoryBudget ) {
+      try {
+        buffer = ByteBuffer.allocateDirect( bytes );
+        memoryUsed += bytes;
+      } catch ( OutOfMemoryError e ) {
+        // The JVM is out of direct memory (-XX:MaxDirectMemorySize), spill instead
+        buffer = null;
+      }
+    }
+    if ( buffer == null ) {
+      try {
+        if ( spillChannel == null ) {
+          spillFile = File.createTempFile( "hashindex", ".tmp", spillDirectory );
+          spillFile.deleteOnExit();
+          spillAccess = new RandomAccessFile( spillFile, "rw" );
+          spillChannel = spillAccess.getChannel();
+        }
+        buffer = mapSpillRange( bytes );
+        bytesMapped += bytes;
+      } catch ( IOException e ) {
+        throw new KettleFileException( "Unable to map " + bytes + " bytes of the off-heap hash index to a file", e );
+      }
+    }
+    return buffer.order( ByteOrder.nativeOrder() );
+  }
+
+  /**
+   * Map a range of the spill file: the first released range that is large enough, the released range at the end of
+   * the file extended as needed or else a new range at the end of the file. Reused bytes are cleared.
+   */
+  private ByteBuffer mapSpillRange( int bytes ) throws IOException {
+    long offset = -1L;
+    long reused = 0L;
+    for ( Map.Entry<Long, Long> range : freeSpillRanges.entrySet() ) {
+      if ( range.getValue() >= bytes ) {
+        offset = range.getKey();
+        reused = bytes;
+        break;
+      }
+    }
+    if ( offset >= 0 ) {
+      long length = freeSpillRanges.remove( offset );
+      if ( length > bytes ) {
+        freeSpillRanges.put( offset + bytes, length - bytes );
+      }
+    } else {
+      Map.Entry<Long, Long> last = freeSpillRanges.lastEntry();
+      if ( last != null && last.getKey() + last.getValue() == spillFileSize ) {
+        offset = last.getKey();
+        reused = last.getValue();
+        freeSpillRanges.remove( offset );
+      } else {
+        offset = spillFileSize;
+      }
+      spillFileSize = offset + bytes;
+    }
+
+    ByteBuffer buffer = spillChannel.map( FileChannel.MapMode.READ_WRITE, offset, bytes );
+    int position = 0;
+    for ( ; position + 8 <= reused; position += 8 ) {
+      buffer.putLong( position, 0L );
+    }
+    for ( ; position < reused; position++ ) {
+      buffer.put( position, (byte) 0 );
+    }
+    lastSpillOffset = offset;
+    return buffer;
+  }
+
+  private void releaseSpillRange( long offset, long length ) {
+    Map.Entry<Long, Long> before = freeSpillRanges.floorEntry( offset );
+    if ( before != null && before.getKey() + before.getValue() == offset ) {
+      freeSpillRanges.remove( before.getKey() );
+      offset = before.getKey();
+      length += before.getValue();
+    }
+    Long after = freeSpillRanges.remove( offset + length );
+    if ( after != null ) {
+      length += after;
+    }
+    freeSpillRanges.put( offset, length );
+  }
+
+  /**
+   * FNV-1a followed by the finalizer of MurmurHash3 so that both the low bits (the slot) and the high bits (the tag)
+   * are well distributed.
+   */
+  static long hash( byte[] key ) {
+    long h = 0xcbf29ce484222325L;
+    for ( byte b : key ) {
+      h ^= b & 0xFF;
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
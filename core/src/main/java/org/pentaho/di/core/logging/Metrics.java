@@ -133,6 +133,37 @@ public class Metrics implements MetricsInterface {
     MetricsSnapshotType.START, "METRIC_STEP_INIT", "Initialize a step" );
   public static Metrics METRIC_STEP_INIT_STOP = new Metrics(
     MetricsSnapshotType.STOP, "METRIC_STEP_INIT", "Initialize a step" );
+  public static Metrics METRIC_STEP_ROW_ARRAYS_ALLOCATED = new Metrics(
+    MetricsSnapshotType.SUM, "METRIC_STEP_ROW_ARRAYS_ALLOCATED", "Row arrays allocated by a step" );
+  public static Metrics METRIC_STEP_ROW_ARRAYS_REUSED = new Metrics(
+    MetricsSnapshotType.SUM, "METRIC_STEP_ROW_ARRAYS_REUSED", "Recycled row arrays reused by a step" );
+  public static Metrics METRIC_STEP_ROW_ARRAYS_RECYCLED = new Metrics(
+    MetricsSnapshotType.SUM, "METRIC_STEP_ROW_ARRAYS_RECYCLED", "Row arrays recycled by a step" );
+  public static Metrics METRIC_STEP_ROW_META_VERIFICATIONS = new Metrics(
+    MetricsSnapshotType.SUM, "METRIC_STEP_ROW_META_VERIFICATIONS", "Output row metadata checks done by a step" );
+  public static Metrics METRIC_STEP_SORT_RUNS_WRITTEN = new Metrics(
+    MetricsSnapshotType.COUNT, "METRIC_STEP_SORT_RUNS_WRITTEN", "Sorted runs written to temporary files" );
+  public static Metrics METRIC_STEP_SORT_BYTES_SPILLED = new Metrics(
+    MetricsSnapshotType.SUM, "METRIC_STEP_SORT_BYTES_SPILLED", "Bytes written to temporary sort files" );
+  public static Metrics METRIC_STEP_SORT_MERGE_FAN_IN = new Metrics(
+    MetricsSnapshotType.MAX, "METRIC_STEP_SORT_MERGE_FAN_IN", "Temporary sort files merged at once" );
+  public static Metrics METRIC_STEP_LOOKUP_CACHE_HITS = new Metrics(
+    MetricsSnapshotType.SUM, "METRIC_STEP_LOOKUP_CACHE_HITS", "Lookups answered from the lookup cache" );
+  public static Metrics METRIC_STEP_LOOKUP_CACHE_MISSES = new Metrics(
+    MetricsSnapshotType.SUM, "METRIC_STEP_LOOKUP_CACHE_MISSES", "Lookups not found in the lookup cache" );
+  public static Metrics METRIC_STEP_LOOKUP_CACHE_EVICTIONS = new Metrics(
+    MetricsSnapshotType.SUM, "METRIC_STEP_LOOKUP_CACHE_EVICTIONS", "Entries evicted from the lookup cache" );
+  public static Metrics METRIC_STEP_DATABASE_BIND_TIME = new Metrics(
+    MetricsSnapshotType.SUM, "METRIC_STEP_DATABASE_BIND_TIME", "Milliseconds spent binding rows to statements" );
+  public static Metrics METRIC_STEP_DATABASE_EXECUTE_TIME = new Metrics(
+    MetricsSnapshotType.SUM, "METRIC_STEP_DATABASE_EXECUTE_TIME", "Milliseconds spent executing and committing" );
+  public static Metrics METRIC_STEP_DATABASE_WAIT_TIME = new Metrics(
+    MetricsSnapshotType.SUM, "METRIC_STEP_DATABASE_WAIT_TIME", "Milliseconds a step waited on the database" );
+  public static Metrics METRIC_STEP_SUBTRANS_SETUP_TIME = new Metrics(
+    MetricsSnapshotType.SUM, "METRIC_STEP_SUBTRANS_SETUP_TIME", "Milliseconds spent preparing sub-transformations" );
+  public static Metrics METRIC_STEP_SUBTRANS_PROCESSING_TIME = new Metrics(
+    MetricsSnapshotType.SUM, "METRIC_STEP_SUBTRANS_PROCESSING_TIME",
+    "Milliseconds spent executing sub-transformations" );
 
   // Logging back-end
   //
@@ -0,0 +1,246 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.core.row;
+
+/**
+ * The values of one field for all the rows of a {@link RowBatch}. Integer and Number values (with normal storage) are
+ * kept in a primitive long[] or double[] array, all other values are kept as they are in an Object[] array. Null
+ * values are tracked in a bitmap.
+ * <p>
+ * A column vector is filled once and is not changed anymore after it is handed over to another step.
+ */
+public class ColumnVector {
+  public static final int KIND_OBJECT = 0;
+  public static final int KIND_LONG = 1;
+  public static final int KIND_DOUBLE = 2;
+
+  private final int kind;
+  private final int capacity;
+
+  private final long[] longs;
+  private final double[] doubles;
+  private final Object[] objects;
+
+  /**
+   * One bit per row, set when the value is null
+   */
+  private final long[] nulls;
+
+  public ColumnVector( int kind, int capacity ) {
+    this.kind = kind;
+    this.capacity = capacity;
+    this.longs = kind == KIND_LONG ? new long[ capacity ] : null;
+    this.doubles = kind == KIND_DOUBLE ? new double[ capacity ] : null;
+    this.objects = kind == KIND_OBJECT ? new Object[ capacity ] : null;
+    this.nulls = new long[ ( capacity + 63 ) >>> 6 ];
+  }
+
+  /**
+   * @param valueMeta
+   *          the metadata of the values
+   * @return the kind of column vector used to store values of this type
+   */
+  public static int getKind( ValueMetaInterface valueMeta ) {
+    if ( valueMeta == null || valueMeta.getStorageType() != ValueMetaInterface.STORAGE_TYPE_NORMAL ) {
+      return KIND_OBJECT;
+    }
+    switch ( valueMeta.getType() ) {
+      case ValueMetaInterface.TYPE_INTEGER:
+        return KIND_LONG;
+      case ValueMetaInterface.TYPE_NUMBER:
+        return KIND_DOUBLE;
+      default:
+        return KIND_OBJECT;
+    }
+  }
+
+  /**
+   * Create an empty column vector to store values described by the given metadata
+   */
+  public static ColumnVector forValueMeta( ValueMetaInterface valueMeta, int capacity ) {
+    return new ColumnVector( getKind( valueMeta ), capacity );
+  }
+
+  public int getKind() {
+    return kind;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public boolean isNull( int index ) {
+    return ( nulls[ index >>> 6 ] & ( 1L << index ) ) != 0;
+  }
+
+  public void setNull( int index ) {
+    nulls[ index >>> 6 ] |= 1L << index;
+    if ( objects != null ) {
+      objects[ index ] = null;
+    }
+  }
+
+  private void clearNull( int index ) {
+    nulls[ index >>> 6 ] &= ~( 1L << index );
+  }
+
+  /**
+   * @return true if at least one of the first size values is null
+   */
+  public boolean hasNulls( int size ) {
+    int words = ( size + 63 ) >>> 6;
+    for ( int i = 0; i < words; i++ ) {
+      long word = nulls[ i ];
+      if ( i == words - 1 && ( size & 63 ) != 0 ) {
+        word &= ( 1L << size ) - 1;
+      }
+      if ( word != 0 ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public long getLong( int index ) {
+    return longs[ index ];
+  }
+
+  public void setLong( int index, long value ) {
+    longs[ index ] = value;
+    clearNull( index );
+  }
+
+  public double getDouble( int index ) {
+    return doubles[ index ];
+  }
+
+  public void setDouble( int index, double value ) {
+    doubles[ index ] = value;
+    clearNull( index );
+  }
+
+  /**
+   * @return the value at the given index in its row representation: a Long, a Double, the original object or null.
+   */
+  public Object getObject( int index ) {
+    if ( isNull( index ) ) {
+      return null;
+    }
+    switch ( kind ) {
+      case KIND_LONG:
+        return Long.valueOf( longs[ index ] );
+      case KIND_DOUBLE:
+        return Double.valueOf( doubles[ index ] );
+      default:
+        return objects[ index ];
+    }
+  }
+
+  /**
+   * Set the value at the given index from its row representation.
+   */
+  public void setObject( int index, Object value ) {
+    if ( value == null ) {
+      setNull( index );
+      return;
+    }
+    switch ( kind ) {
+      case KIND_LONG:
+        setLong( index, ( (Number) value ).longValue() );
+        break;
+      case KIND_DOUBLE:
+        setDouble( index, ( (Number) value ).doubleValue() );
+        break;
+      default:
+        objects[ index ] = value;
+        clearNull( index );
+        break;
+    }
+  }
+
+  /**
+   * Direct access to the long values for vectorized operations. Values of null entries are undefined.
+   */
+  public long[] getLongs() {
+    return longs;
+  }
+
+  /**
+   * Direct access to the double values for vectorized operations. Values of null entries are undefined.
+   */
+  public double[] getDoubles() {
+    return doubles;
+  }
+
+  public Object[] getObjects() {
+    return objects;
+  }
+
+  /**
+   * Direct access to the null bitmap: bit (index &amp; 63) of word (index &gt;&gt;&gt; 6) is set for null values.
+   */
+  public long[] getNulls() {
+    return nulls;
+  }
+
+  /**
+   * Copy the null bitmap of the given vectors into this one: a value is null if it is null in either vector.
+   */
+  public void setNullsFrom( ColumnVector one, ColumnVector two ) {
+    for ( int i = 0; i < nulls.length; i++ ) {
+      nulls[ i ] = one.nulls[ i ] | ( two == null ? 0L : two.nulls[ i ] );
+    }
+  }
+
+  /**
+   * Copy a selection of the values into a new column vector.
+   *
+   * @param selected
+   *          the indexes of the values to copy, in ascending order
+   * @param count
+   *          the number of indexes to use
+   * @return the new column vector holding count values
+   */
+  public ColumnVector copy( int[] selected, int count ) {
+    ColumnVector copy = new ColumnVector( kind, Math.max( 1, count ) );
+    for ( int i = 0; i < count; i++ ) {
+      int from = selected[ i ];
+      if ( isNull( from ) ) {
+        copy.setNull( i );
+      } else {
+        switch ( kind ) {
+          case KIND_LONG:
+            copy.longs[ i ] = longs[ from ];
+            break;
+          case KIND_DOUBLE:
+            copy.doubles[ i ] = doubles[ from ];
+            break;
+          default:
+            copy.objects[ i ] = objects[ from ];
+            break;
+        }
+      }
+    }
+    return copy;
+  }
+}
@@ -0,0 +1,299 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.core.row;
+
+import org.pentaho.di.core.exception.KettleEOFException;
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.util.Utils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable copy of a row layout. Once the fields of a step are resolved the layout of the rows that are passed
+ * over a hop doesn't change anymore, so there's no need to guard every read with a lock. The name to index table is
+ * computed once when the copy is made and replaces the {@link RowMeta.RowMetaCache}.
+ * <p>
+ * All methods that change the layout throw an {@link UnsupportedOperationException}. Clones are regular, mutable
+ * {@link RowMeta} objects.
+ */
+public class FrozenRowMeta extends RowMeta {
+
+  private final ValueMetaInterface[] valueMetas;
+  private final List<ValueMetaInterface> valueMetaView;
+  private final Map<String, Integer> indexes;
+  private final int[] needRealCloneIndexes;
+
+  /**
+   * Makes a frozen copy of the given row metadata, the value metadata is cloned.
+   *
+   * @param rowMeta the row metadata to copy
+   */
+  public FrozenRowMeta( RowMetaInterface rowMeta ) {
+    this( cloneValueMetas( rowMeta ) );
+  }
+
+  private FrozenRowMeta( ValueMetaInterface[] valueMetas ) {
+    super( Collections.unmodifiableList( Arrays.asList( valueMetas ) ), new RowMetaCache() );
+    this.valueMetas = valueMetas;
+    this.valueMetaView = valueMetaList;
+    this.needRealClone = null;
+
+    indexes = new HashMap<>( valueMetas.length * 2 );
+    List<Integer> realClones = new ArrayList<>();
+    for ( int i = 0; i < valueMetas.length; i++ ) {
+      String name = valueMetas[i].getName();
+      if ( !Utils.isEmpty( name ) ) {
+        // Keep the first occurrence, just like a search through the list would
+        //
+        indexes.putIfAbsent( name, i );
+        indexes.putIfAbsent( name.toLowerCase(), i );
+      }
+      if ( valueMetas[i].requiresRealClone() ) {
+        realClones.add( i );
+      }
+    }
+    needRealCloneIndexes = new int[ realClones.size() ];
+    for ( int i = 0; i < needRealCloneIndexes.length; i++ ) {
+      needRealCloneIndexes[i] = realClones.get( i );
+    }
+  }
+
+  private static ValueMetaInterface[] cloneValueMetas( RowMetaInterface rowMeta ) {
+    List<ValueMetaInterface> list = rowMeta.getValueMetaList();
+    ValueMetaInterface[] valueMetas = new ValueMetaInterface[ list.size() ];
+    for ( int i = 0; i < valueMetas.length; i++ ) {
+      valueMetas[i] = list.get( i ).clone();
+    }
+    return valueMetas;
+  }
+
+  /**
+   * @return a frozen copy of the given row metadata or the row metadata itself if it's already frozen.
+   */
+  public static FrozenRowMeta freeze( RowMetaInterface rowMeta ) {
+    if ( rowMeta instanceof FrozenRowMeta ) {
+      return (FrozenRowMeta) rowMeta;
+    }
+    return new FrozenRowMeta( rowMeta );
+  }
+
+  @Override
+  public List<ValueMetaInterface> getValueMetaList() {
+    return valueMetaView;
+  }
+
+  /**
+   * Setting the list of value metadata this row already has is accepted and does nothing. Anything else isn't allowed.
+   */
+  @Override
+  public void setValueMetaList( List<ValueMetaInterface> valueMetaList ) {
+    if ( valueMetaList == null || valueMetaList.size() != valueMetas.length ) {
+      throw frozen();
+    }
+    for ( int i = 0; i < valueMetas.length; i++ ) {
+      if ( valueMetaList.get( i ) != valueMetas[i] ) {
+        throw frozen();
+      }
+    }
+  }
+
+  @Override
+  public int size() {
+    return valueMetas.length;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return valueMetas.length == 0;
+  }
+
+  @Override
+  public ValueMetaInterface getValueMeta( int index ) {
+    if ( index >= 0 && index < valueMetas.length ) {
+      return valueMetas[index];
+    }
+    return null;
+  }
+
+  @Override
+  public int indexOfValue( String valueName ) {
+    if ( valueName == null ) {
+      return -1;
+    }
+    Integer index = indexes.get( valueName );
+    if ( index == null ) {
+      index = indexes.get( valueName.toLowerCase() );
+    }
+    // The value metadata itself can still be renamed, so check the hit and search the hard way if it's stale
+    //
+    if ( index != null && valueName.equalsIgnoreCase( valueMetas[index].getName() ) ) {
+      return index;
+    }
+    for ( int i = 0; i < valueMetas.length; i++ ) {
+      if ( valueName.equalsIgnoreCase( valueMetas[i].getName() ) ) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public ValueMetaInterface searchValueMeta( String valueName ) {
+    int index = indexOfValue( valueName );
+    return index < 0 ? null : valueMetas[index];
+  }
+
+  @Override
+  public String[] getFieldNames() {
+    String[] names = new String[ valueMetas.length ];
+    for ( int i = 0; i < valueMetas.length; i++ ) {
+      String valueName = valueMetas[i].getName();
+      names[i] = valueName == null ? "" : valueName;
+    }
+    return names;
+  }
+
+  @Override
+  public Object[] cloneRow( Object[] objects, Object[] newObjects ) throws KettleValueException {
+    for ( int i : needRealCloneIndexes ) {
+      newObjects[i] = valueMetas[i].cloneValueData( objects[i] );
+    }
+    return newObjects;
+  }
+
+  @Override
+  public int compare( Object[] rowData1, Object[] rowData2, int[] fieldnrs ) throws KettleValueException {
+    for ( int fieldnr : fieldnrs ) {
+      int cmp = valueMetas[fieldnr].compare( rowData1[fieldnr], rowData2[fieldnr] );
+      if ( cmp != 0 ) {
+        return cmp;
+      }
+    }
+    return 0;
+  }
+
+  @Override
+  public boolean equals( Object[] rowData1, Object[] rowData2, int[] fieldnrs ) throws KettleValueException {
+    return compare( rowData1, rowData2, fieldnrs ) == 0;
+  }
+
+  @Override
+  public int compare( Object[] rowData1, Object[] rowData2 ) throws KettleValueException {
+    for ( int i = 0; i < valueMetas.length; i++ ) {
+      int cmp = valueMetas[i].compare( rowData1[i], rowData2[i] );
+      if ( cmp != 0 ) {
+        return cmp;
+      }
+    }
+    return 0;
+  }
+
+  @Override
+  public void writeData( DataOutputStream outputStream, Object[] data ) throws KettleFileException {
+    for ( int i = 0; i < valueMetas.length; i++ ) {
+      valueMetas[i].writeData( outputStream, data[i] );
+    }
+    if ( valueMetas.length == 0 ) {
+      try {
+        outputStream.writeBoolean( true );
+      } catch ( IOException e ) {
+        throw new KettleFileException( "Error writing marker flag", e );
+      }
+    }
+  }
+
+  @Override
+  public Object[] readData( DataInputStream inputStream ) throws KettleFileException, SocketTimeoutException {
+    Object[] data = new Object[ valueMetas.length ];
+    for ( int i = 0; i < valueMetas.length; i++ ) {
+      data[i] = valueMetas[i].readData( inputStream );
+    }
+    if ( valueMetas.length == 0 ) {
+      try {
+        inputStream.readBoolean();
+      } catch ( EOFException e ) {
+        throw new KettleEOFException( e );
+      } catch ( SocketTimeoutException e ) {
+        throw e;
+      } catch ( IOException e ) {
+        throw new KettleFileException( toString() + " : Unable to read the marker flag data from input stream", e );
+      }
+    }
+    return data;
+  }
+
+  @Override
+  public void addValueMeta( ValueMetaInterface meta ) {
+    throw frozen();
+  }
+
+  @Override
+  public void addValueMeta( int index, ValueMetaInterface meta ) {
+    throw frozen();
+  }
+
+  @Override
+  public void setValueMeta( int index, ValueMetaInterface valueMeta ) {
+    throw frozen();
+  }
+
+  @Override
+  public void addRowMeta( RowMetaInterface rowMeta ) {
+    throw frozen();
+  }
+
+  @Override
+  public void mergeRowMeta( RowMetaInterface r, String originStepName ) {
+    throw frozen();
+  }
+
+  @Override
+  public void clear() {
+    throw frozen();
+  }
+
+  @Override
+  public void removeValueMeta( String valueName ) {
+    throw frozen();
+  }
+
+  @Override
+  public void removeValueMeta( int index ) {
+    throw frozen();
+  }
+
+  private UnsupportedOperationException frozen() {
+    return new UnsupportedOperationException( "The row metadata is frozen, use a clone to change it: " + this );
+  }
+}
@@ -0,0 +1,178 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.core.row;
+
+/**
+ * A batch of rows stored column by column: one {@link ColumnVector} per field of the row metadata. Batch-aware steps
+ * pass row batches over the hops (see {@link org.pentaho.di.core.ColumnarRowSet}) and work on whole columns at once
+ * instead of on one Object[] row at a time. Steps that are not batch-aware receive the rows converted back one by one.
+ * <p>
+ * A row batch is not changed anymore once it is handed over to another step.
+ */
+public class RowBatch {
+  private final RowMetaInterface rowMeta;
+  private final ColumnVector[] columns;
+  private final int size;
+
+  /**
+   * @param rowMeta
+   *          the metadata of the rows
+   * @param columns
+   *          a column vector for each field in the row metadata
+   * @param size
+   *          the number of rows in the batch
+   */
+  public RowBatch( RowMetaInterface rowMeta, ColumnVector[] columns, int size ) {
+    this.rowMeta = rowMeta;
+    this.columns = columns;
+    this.size = size;
+  }
+
+  /**
+   * Store rows column by column.
+   *
+   * @param rowMeta
+   *          the metadata of the rows
+   * @param rows
+   *          the buffer holding the rows
+   * @param offset
+   *          the index of the first row in the buffer
+   * @param nrRows
+   *          the number of rows to store
+   * @return the row batch holding the rows
+   */
+  public static RowBatch fromRows( RowMetaInterface rowMeta, Object[][] rows, int offset, int nrRows ) {
+    int nrFields = rowMeta.size();
+    ColumnVector[] columns = new ColumnVector[ nrFields ];
+    for ( int c = 0; c < nrFields; c++ ) {
+      ColumnVector column = ColumnVector.forValueMeta( rowMeta.getValueMeta( c ), nrRows );
+      for ( int r = 0; r < nrRows; r++ ) {
+        Object[] row = rows[ offset + r ];
+        column.setObject( r, c < row.length ? row[ c ] : null );
+      }
+      columns[ c ] = column;
+    }
+    return new RowBatch( rowMeta, columns, nrRows );
+  }
+
+  public RowMetaInterface getRowMeta() {
+    return rowMeta;
+  }
+
+  /**
+   * @param rowMeta
+   *          the row metadata to check against
+   * @return true if the batch holds a column for every field of the row metadata, of the kind the field is stored in.
+   */
+  public boolean isStoredAs( RowMetaInterface rowMeta ) {
+    if ( columns.length < rowMeta.size() ) {
+      return false;
+    }
+    for ( int c = 0; c < rowMeta.size(); c++ ) {
+      if ( columns[ c ].getKind() != ColumnVector.getKind( rowMeta.getValueMeta( c ) ) ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int getColumnCount() {
+    return columns.length;
+  }
+
+  public ColumnVector getColumn( int index ) {
+    return columns[ index ];
+  }
+
+  public ColumnVector[] getColumns() {
+    return columns;
+  }
+
+  /**
+   * Convert a row of the batch back to an (over allocated) Object[] row.
+   */
+  public Object[] getRow( int index ) {
+    Object[] row = RowDataUtil.allocateRowData( columns.length );
+    for ( int c = 0; c < columns.length; c++ ) {
+      row[ c ] = columns[ c ].getObject( index );
+    }
+    return row;
+  }
+
+  /**
+   * @return all rows of the batch converted back to Object[] rows
+   */
+  public Object[][] toRows() {
+    Object[][] rows = new Object[ size ][];
+    for ( int r = 0; r < size; r++ ) {
+      rows[ r ] = getRow( r );
+    }
+    return rows;
+  }
+
+  /**
+   * Get the rows for which the selection has the given value.
+   *
+   * @param selection
+   *          a flag for each row in the batch
+   * @param value
+   *          the flag value of the rows to keep
+   * @return this batch if all rows are kept, a new batch with the selected rows otherwise.
+   */
+  public RowBatch select( boolean[] selection, boolean value ) {
+    int[] selected = new int[ size ];
+    int count = 0;
+    for ( int r = 0; r < size; r++ ) {
+      if ( selection[ r ] == value ) {
+        selected[ count++ ] = r;
+      }
+    }
+    return count == size ? this : copy( selected, count );
+  }
+
+  /**
+   * Get the rows from index from (inclusive) to index to (exclusive).
+   */
+  public RowBatch range( int from, int to ) {
+    if ( from == 0 && to == size ) {
+      return this;
+    }
+    int[] selected = new int[ to - from ];
+    for ( int r = from; r < to; r++ ) {
+      selected[ r - from ] = r;
+    }
+    return copy( selected, selected.length );
+  }
+
+  private RowBatch copy( int[] selected, int count ) {
+    ColumnVector[] copies = new ColumnVector[ columns.length ];
+    for ( int c = 0; c < columns.length; c++ ) {
+      copies[ c ] = columns[ c ].copy( selected, count );
+    }
+    return new RowBatch( rowMeta, copies, count );
+  }
+}
@@ -22,6 +22,8 @@
 
 package org.pentaho.di.core.row;
 
+import org.pentaho.di.core.RowArrayPool;
+
 /**
  * This class of static methods can be used to manipulate rows: add, delete, resize, etc... That way, when we want to go
  * for a metadata driven system with hiding deletes, over sized arrays etc, we can change these methods to find
@@ -53,6 +55,22 @@ public class RowDataUtil {
     return new Object[size + OVER_ALLOCATE_SIZE];
   }
 
+  /**
+   * Allocate a new Object array, reusing a recycled row array from the given pool if one is available.
+   *
+   * @param size
+   *          the minimum size to allocate.
+   * @param pool
+   *          the pool to take the array from, null to always allocate a new array
+   * @return the (over allocated) object array, all slots are null
+   */
+  public static Object[] allocateRowData( int size, RowArrayPool pool ) {
+    if ( pool == null ) {
+      return allocateRowData( size );
+    }
+    return pool.allocate( size );
+  }
+
   /**
    * Resize an object array making it bigger, over allocate, return the original array if there's enough room.
    *
@@ -98,6 +116,28 @@ public class RowDataUtil {
     return newObjects;
   }
 
+  /**
+   * Resize an object array making it bigger, always create a copy of the original array. The copy is taken from the
+   * given pool of recycled row arrays if possible.
+   *
+   * @param objects
+   *          the original row
+   * @param newSize
+   *          the new size
+   * @param pool
+   *          the pool to take the new array from, null to always allocate a new array
+   * @return A new object array, resized.
+   */
+  public static Object[] createResizedCopy( Object[] objects, int newSize, RowArrayPool pool ) {
+    if ( pool == null ) {
+      return createResizedCopy( objects, newSize );
+    }
+
+    Object[] newObjects = pool.allocate( Math.max( newSize, objects.length ) );
+    System.arraycopy( objects, 0, newObjects, 0, objects.length );
+    return newObjects;
+  }
+
   /**
    * This method concatenates data from an array of rows, each with their own specific length.
    *
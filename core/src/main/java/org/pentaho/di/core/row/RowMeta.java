@@ -61,6 +61,7 @@ public class RowMeta implements RowMetaInterface {
   private final RowMetaCache cache;
   List<ValueMetaInterface> valueMetaList;
   List<Integer> needRealClone;
+  private volatile long layoutVersion;
 
   public RowMeta() {
     this( new ArrayList<ValueMetaInterface>(), new RowMetaCache() );
@@ -81,7 +82,7 @@ public class RowMeta implements RowMetaInterface {
     this.needRealClone = rowMeta.needRealClone;
   }
 
-  private RowMeta( List<ValueMetaInterface> valueMetaList, RowMetaCache rowMetaCache ) {
+  RowMeta( List<ValueMetaInterface> valueMetaList, RowMetaCache rowMetaCache ) {
     lock = new ReentrantReadWriteLock();
     this.cache = rowMetaCache;
     this.valueMetaList = valueMetaList;
@@ -170,6 +171,7 @@ public class RowMeta implements RowMetaInterface {
         cache.storeMapping( valueMeta.getName(), i );
       }
       this.needRealClone = null;
+      layoutVersion++;
     } finally {
       lock.writeLock().unlock();
     }
@@ -227,6 +229,7 @@ public class RowMeta implements RowMetaInterface {
         valueMetaList.add( newMeta );
         cache.storeMapping( newMeta.getName(), sz );
         needRealClone = null;
+        layoutVersion++;
       } finally {
         lock.writeLock().unlock();
       }
@@ -256,6 +259,7 @@ public class RowMeta implements RowMetaInterface {
         cache.storeMapping( newMeta.getName(), index );
         cache.updateFrom( index + 1, valueMetaList );
         needRealClone = null;
+        layoutVersion++;
       } finally {
         lock.writeLock().unlock();
       }
@@ -306,6 +310,7 @@ public class RowMeta implements RowMetaInterface {
         valueMetaList.set( index, newMeta );
         cache.replaceMapping( old.getName(), newMeta.getName(), index );
         needRealClone = null;
+        layoutVersion++;
       } finally {
         lock.writeLock().unlock();
       }
@@ -786,6 +791,7 @@ public class RowMeta implements RowMetaInterface {
       valueMetaList.clear();
       cache.invalidate();
       needRealClone = null;
+      layoutVersion++;
     } finally {
       lock.writeLock().unlock();
     }
@@ -816,6 +822,7 @@ public class RowMeta implements RowMetaInterface {
         cache.updateFrom( index, valueMetaList );
       }
       needRealClone = null;
+      layoutVersion++;
     } finally {
       lock.writeLock().unlock();
     }
@@ -1261,6 +1268,11 @@ public class RowMeta implements RowMetaInterface {
     }
   }
 
+  @Override
+  public long getLayoutVersion() {
+    return layoutVersion;
+  }
+
   @VisibleForTesting
   static class RowMetaCache {
     @VisibleForTesting
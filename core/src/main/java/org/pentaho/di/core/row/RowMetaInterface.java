@@ -634,4 +634,14 @@ public interface RowMetaInterface extends Cloneable {
    */
   public Object[] getRow( Node node ) throws KettleException;
 
+  /**
+   * Gets the layout version. It changes every time a value metadata is added, replaced or removed. Changes made to the
+   * value metadata objects themselves are not tracked.
+   *
+   * @return the layout version or -1 if this row metadata doesn't keep track of layout changes
+   */
+  default long getLayoutVersion() {
+    return -1L;
+  }
+
 }
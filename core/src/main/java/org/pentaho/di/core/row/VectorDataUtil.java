@@ -0,0 +1,137 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.core.row;
+
+/**
+ * Vectorized versions of the arithmetic functions of {@link ValueDataUtil} working on whole {@link ColumnVector}s of
+ * Integer (long) or Number (double) values. The results are the same as those of the row by row functions: if either
+ * argument is null the result is null.
+ */
+public class VectorDataUtil {
+
+  private static final int OP_PLUS = 0;
+  private static final int OP_MINUS = 1;
+  private static final int OP_MULTIPLY = 2;
+  private static final int OP_DIVIDE = 3;
+
+  private VectorDataUtil() {
+  }
+
+  /**
+   * @return true if both vectors hold long values or both hold double values
+   */
+  public static boolean isNumeric( ColumnVector a, ColumnVector b ) {
+    return a.getKind() == b.getKind()
+      && ( a.getKind() == ColumnVector.KIND_LONG || a.getKind() == ColumnVector.KIND_DOUBLE );
+  }
+
+  /** A + B, see {@link ValueDataUtil#plus(ValueMetaInterface, Object, ValueMetaInterface, Object)} */
+  public static ColumnVector plus( ColumnVector a, ColumnVector b, int size ) {
+    return calculate( OP_PLUS, a, b, size );
+  }
+
+  /** A - B, see {@link ValueDataUtil#minus(ValueMetaInterface, Object, ValueMetaInterface, Object)} */
+  public static ColumnVector minus( ColumnVector a, ColumnVector b, int size ) {
+    return calculate( OP_MINUS, a, b, size );
+  }
+
+  /** A * B, see {@link ValueDataUtil#multiply(ValueMetaInterface, Object, ValueMetaInterface, Object)} */
+  public static ColumnVector multiply( ColumnVector a, ColumnVector b, int size ) {
+    return calculate( OP_MULTIPLY, a, b, size );
+  }
+
+  /**
+   * A / B, see {@link ValueDataUtil#divide(ValueMetaInterface, Object, ValueMetaInterface, Object)}. Like the row by row
+   * version an integer division by zero throws an ArithmeticException.
+   */
+  public static ColumnVector divide( ColumnVector a, ColumnVector b, int size ) {
+    return calculate( OP_DIVIDE, a, b, size );
+  }
+
+  private static ColumnVector calculate( int op, ColumnVector a, ColumnVector b, int size ) {
+    if ( !isNumeric( a, b ) ) {
+      throw new IllegalArgumentException( "Vectorized arithmetic needs two integer or two number vectors" );
+    }
+    ColumnVector result = new ColumnVector( a.getKind(), size );
+    result.setNullsFrom( a, b );
+
+    if ( a.getKind() == ColumnVector.KIND_LONG ) {
+      long[] x = a.getLongs();
+      long[] y = b.getLongs();
+      long[] z = result.getLongs();
+      switch ( op ) {
+        case OP_PLUS:
+          for ( int i = 0; i < size; i++ ) {
+            z[ i ] = x[ i ] + y[ i ];
+          }
+          break;
+        case OP_MINUS:
+          for ( int i = 0; i < size; i++ ) {
+            z[ i ] = x[ i ] - y[ i ];
+          }
+          break;
+        case OP_MULTIPLY:
+          for ( int i = 0; i < size; i++ ) {
+            z[ i ] = x[ i ] * y[ i ];
+          }
+          break;
+        default:
+          // Skip the null values, their (undefined) divisor could be zero
+          //
+          for ( int i = 0; i < size; i++ ) {
+            if ( !result.isNull( i ) ) {
+              z[ i ] = x[ i ] / y[ i ];
+            }
+          }
+          break;
+      }
+    } else {
+      double[] x = a.getDoubles();
+      double[] y = b.getDoubles();
+      double[] z = result.getDoubles();
+      switch ( op ) {
+        case OP_PLUS:
+          for ( int i = 0; i < size; i++ ) {
+            z[ i ] = x[ i ] + y[ i ];
+          }
+          break;
+        case OP_MINUS:
+          for ( int i = 0; i < size; i++ ) {
+            z[ i ] = x[ i ] - y[ i ];
+          }
+          break;
+        case OP_MULTIPLY:
+          for ( int i = 0; i < size; i++ ) {
+            z[ i ] = x[ i ] * y[ i ];
+          }
+          break;
+        default:
+          for ( int i = 0; i < size; i++ ) {
+            z[ i ] = x[ i ] / y[ i ];
+          }
+          break;
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,410 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.core.row.value;
+
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+/**
+ * Hand-written date to string and string to date conversion for the most common, purely numerical date masks like
+ * yyyy/MM/dd HH:mm:ss.SSS, yyyy-MM-dd or yyyy-MM-dd'T'HH:mm:ssXXX. The results are identical to those of the
+ * {@link SimpleDateFormat} the conversion is created from. Values that can't be handled with certainty (years before
+ * 1583 or after 9999, local times close to a daylight saving time transition, out of range or incomplete fields,
+ * ...) are left to that format: {@link #format(Date)} and {@link #parse(String)} return null for them.
+ * <p>
+ * Instances are immutable and can be shared by any number of threads.
+ */
+final class FastDateConversion {
+
+  private static final char YEAR = 'y';
+  private static final char MONTH = 'M';
+  private static final char DAY = 'd';
+  private static final char HOUR = 'H';
+  private static final char MINUTE = 'm';
+  private static final char SECOND = 's';
+  private static final char MILLISECOND = 'S';
+  private static final char OFFSET = 'X';
+  private static final char LITERAL = '\'';
+
+  private static final long MILLIS_PER_DAY = 86400000L;
+  private static final int DAYS_0000_TO_1970 = 719528;
+
+  /** The field type of each element of the mask */
+  private final char[] fields;
+  /** The literal character, for literal fields */
+  private final char[] literals;
+  /** The length of the strings the mask produces, without an offset */
+  private final int length;
+  private final boolean hasOffset;
+  private final TimeZone timeZone;
+
+  private FastDateConversion( char[] fields, char[] literals, int length, boolean hasOffset, TimeZone timeZone ) {
+    this.fields = fields;
+    this.literals = literals;
+    this.length = length;
+    this.hasOffset = hasOffset;
+    this.timeZone = timeZone;
+  }
+
+  /**
+   * @param format
+   *          the date format to mirror
+   * @return the fast conversion for the format or null if the format has a mask, calendar or locale that is not
+   *         supported.
+   */
+  static FastDateConversion create( SimpleDateFormat format ) {
+    if ( format.getCalendar().getClass() != GregorianCalendar.class ) {
+      return null;
+    }
+    NumberFormat numberFormat = format.getNumberFormat();
+    if ( !( numberFormat instanceof DecimalFormat )
+      || ( (DecimalFormat) numberFormat ).getDecimalFormatSymbols().getZeroDigit() != '0' ) {
+      return null;
+    }
+
+    String pattern = format.toPattern();
+    char[] fields = new char[ pattern.length() ];
+    char[] literals = new char[ pattern.length() ];
+    int nrFields = 0;
+    int length = 0;
+    boolean hasOffset = false;
+    String seen = "";
+
+    int i = 0;
+    while ( i < pattern.length() ) {
+      char c = pattern.charAt( i );
+      if ( c == '\'' ) {
+        // A quoted literal, only single characters like 'T' are supported
+        //
+        if ( i + 2 >= pattern.length() || pattern.charAt( i + 1 ) == '\'' || pattern.charAt( i + 2 ) != '\'' ) {
+          return null;
+        }
+        fields[ nrFields ] = LITERAL;
+        literals[ nrFields++ ] = pattern.charAt( i + 1 );
+        length++;
+        i += 3;
+        continue;
+      }
+      if ( ( c >= 'a' && c <= 'z' ) || ( c >= 'A' && c <= 'Z' ) ) {
+        int count = 1;
+        while ( i + count < pattern.length() && pattern.charAt( i + count ) == c ) {
+          count++;
+        }
+        int expected = fieldWidth( c );
+        if ( expected == 0 || count != expected || seen.indexOf( c ) >= 0 ) {
+          return null;
+        }
+        if ( c == OFFSET ) {
+          if ( i + count != pattern.length() ) {
+            return null; // the offset has to come last
+          }
+          hasOffset = true;
+        } else {
+          length += count;
+        }
+        seen += c;
+        fields[ nrFields++ ] = c;
+        i += count;
+        continue;
+      }
+      if ( c != '-' && c != '/' && c != ':' && c != '.' && c != ' ' ) {
+        return null;
+      }
+      fields[ nrFields ] = LITERAL;
+      literals[ nrFields++ ] = c;
+      length++;
+      i++;
+    }
+
+    // A date without year, month or day is not common enough to bother
+    //
+    if ( seen.indexOf( YEAR ) < 0 || seen.indexOf( MONTH ) < 0 || seen.indexOf( DAY ) < 0 ) {
+      return null;
+    }
+
+    char[] usedFields = new char[ nrFields ];
+    char[] usedLiterals = new char[ nrFields ];
+    System.arraycopy( fields, 0, usedFields, 0, nrFields );
+    System.arraycopy( literals, 0, usedLiterals, 0, nrFields );
+    return new FastDateConversion( usedFields, usedLiterals, length, hasOffset,
+      (TimeZone) format.getTimeZone().clone() );
+  }
+
+  private static int fieldWidth( char field ) {
+    switch ( field ) {
+      case YEAR:
+        return 4;
+      case MONTH:
+      case DAY:
+      case HOUR:
+      case MINUTE:
+      case SECOND:
+        return 2;
+      case MILLISECOND:
+      case OFFSET:
+        return 3;
+      default:
+        return 0;
+    }
+  }
+
+  /**
+   * @param date
+   *          the date to format
+   * @return the formatted date or null if the format has to take care of this date.
+   */
+  String format( Date date ) {
+    long millis = date.getTime();
+    int offset = timeZone.getOffset( millis );
+    long local = millis + offset;
+
+    long days = Math.floorDiv( local, MILLIS_PER_DAY );
+    int millisOfDay = (int) Math.floorMod( local, MILLIS_PER_DAY );
+
+    // Civil date from the number of days since 1970-01-01 (proleptic Gregorian calendar)
+    //
+    long z = days + DAYS_0000_TO_1970 - 60; // days since 0000-03-01
+    long era = Math.floorDiv( z, 146097 );
+    long dayOfEra = z - era * 146097;
+    long yearOfEra = ( dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096 ) / 365;
+    long dayOfYear = dayOfEra - ( 365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100 );
+    long mp = ( 5 * dayOfYear + 2 ) / 153;
+    int day = (int) ( dayOfYear - ( 153 * mp + 2 ) / 5 + 1 );
+    int month = (int) ( mp < 10 ? mp + 3 : mp - 9 );
+    long year = yearOfEra + era * 400 + ( month <= 2 ? 1 : 0 );
+    if ( year < 1583 || year > 9999 ) {
+      return null;
+    }
+
+    char[] buffer = new char[ length + ( hasOffset ? 6 : 0 ) ];
+    int pos = 0;
+    for ( int i = 0; i < fields.length; i++ ) {
+      switch ( fields[ i ] ) {
+        case YEAR:
+          pos = digits( buffer, pos, (int) year, 4 );
+          break;
+        case MONTH:
+          pos = digits( buffer, pos, month, 2 );
+          break;
+        case DAY:
+          pos = digits( buffer, pos, day, 2 );
+          break;
+        case HOUR:
+          pos = digits( buffer, pos, millisOfDay / 3600000, 2 );
+          break;
+        case MINUTE:
+          pos = digits( buffer, pos, ( millisOfDay / 60000 ) % 60, 2 );
+          break;
+        case SECOND:
+          pos = digits( buffer, pos, ( millisOfDay / 1000 ) % 60, 2 );
+          break;
+        case MILLISECOND:
+          pos = digits( buffer, pos, millisOfDay % 1000, 3 );
+          break;
+        case OFFSET:
+          if ( offset == 0 ) {
+            buffer[ pos++ ] = 'Z';
+          } else {
+            if ( offset % 60000 != 0 ) {
+              return null;
+            }
+            int minutes = Math.abs( offset ) / 60000;
+            buffer[ pos++ ] = offset < 0 ? '-' : '+';
+            pos = digits( buffer, pos, minutes / 60, 2 );
+            buffer[ pos++ ] = ':';
+            pos = digits( buffer, pos, minutes % 60, 2 );
+          }
+          break;
+        default:
+          buffer[ pos++ ] = literals[ i ];
+          break;
+      }
+    }
+    return new String( buffer, 0, pos );
+  }
+
+  private static int digits( char[] buffer, int pos, int value, int width ) {
+    for ( int i = pos + width - 1; i >= pos; i-- ) {
+      buffer[ i ] = (char) ( '0' + value % 10 );
+      value /= 10;
+    }
+    return pos + width;
+  }
+
+  /**
+   * @param string
+   *          the string to parse, trimmed and not empty
+   * @return the parsed date or null if the format has to parse this string.
+   */
+  Date parse( String string ) {
+    int offsetLength = string.length() - length;
+    if ( offsetLength < 0 || ( hasOffset ? ( offsetLength != 1 && offsetLength != 6 ) : offsetLength != 0 ) ) {
+      return null;
+    }
+
+    int year = -1;
+    int month = -1;
+    int day = -1;
+    int hour = 0;
+    int minute = 0;
+    int second = 0;
+    int millisecond = 0;
+    Integer offset = null;
+
+    int pos = 0;
+    for ( int i = 0; i < fields.length; i++ ) {
+      char field = fields[ i ];
+      if ( field == LITERAL ) {
+        if ( string.charAt( pos++ ) != literals[ i ] ) {
+          return null;
+        }
+        continue;
+      }
+      if ( field == OFFSET ) {
+        offset = parseOffset( string, pos );
+        if ( offset == null ) {
+          return null;
+        }
+        continue;
+      }
+      int width = fieldWidth( field );
+      int value = parseDigits( string, pos, width );
+      if ( value < 0 ) {
+        return null;
+      }
+      pos += width;
+      switch ( field ) {
+        case YEAR:
+          year = value;
+          break;
+        case MONTH:
+          month = value;
+          break;
+        case DAY:
+          day = value;
+          break;
+        case HOUR:
+          hour = value;
+          break;
+        case MINUTE:
+          minute = value;
+          break;
+        case SECOND:
+          second = value;
+          break;
+        default:
+          millisecond = value;
+          break;
+      }
+    }
+
+    // Only values that are valid as they are: lenient formats roll over the others, strict formats reject them.
+    //
+    if ( year < 1583 || month < 1 || month > 12 || day < 1 || day > daysInMonth( year, month )
+      || hour > 23 || minute > 59 || second > 59 ) {
+      return null;
+    }
+
+    long local = ( daysSinceEpoch( year, month, day ) * 24 + hour ) * 3600000L + minute * 60000L + second * 1000L
+      + millisecond;
+    if ( offset != null ) {
+      return new Date( local - offset );
+    }
+
+    // Without an explicit offset: leave local times around a daylight saving time transition to the format,
+    // the calendar has its own way of handling the skipped and repeated hours.
+    //
+    int before = timeZone.getOffset( local - MILLIS_PER_DAY );
+    if ( before != timeZone.getOffset( local + MILLIS_PER_DAY ) || before != timeZone.getOffset( local - before ) ) {
+      return null;
+    }
+    return new Date( local - before );
+  }
+
+  private static int parseDigits( String string, int pos, int width ) {
+    int value = 0;
+    for ( int i = pos; i < pos + width; i++ ) {
+      char c = string.charAt( i );
+      if ( c < '0' || c > '9' ) {
+        return -1;
+      }
+      value = value * 10 + ( c - '0' );
+    }
+    return value;
+  }
+
+  /**
+   * @return the offset in milliseconds of Z or +hh:mm / -hh:mm at the given position, null if there is none
+   */
+  private static Integer parseOffset( String string, int pos ) {
+    if ( string.length() == pos + 1 ) {
+      return string.charAt( pos ) == 'Z' ? 0 : null;
+    }
+    char sign = string.charAt( pos );
+    if ( ( sign != '+' && sign != '-' ) || string.charAt( pos + 3 ) != ':' ) {
+      return null;
+    }
+    int hours = parseDigits( string, pos + 1, 2 );
+    int minutes = parseDigits( string, pos + 4, 2 );
+    if ( hours < 0 || minutes < 0 || minutes > 59 || hours * 60 + minutes > 12 * 60 ) {
+      return null; // beyond the range of time zone offsets a strict format accepts
+    }
+    int offset = ( hours * 60 + minutes ) * 60000;
+    return sign == '-' ? -offset : offset;
+  }
+
+  private static boolean isLeapYear( int year ) {
+    return ( year % 4 == 0 && year % 100 != 0 ) || year % 400 == 0;
+  }
+
+  private static int daysInMonth( int year, int month ) {
+    switch ( month ) {
+      case 2:
+        return isLeapYear( year ) ? 29 : 28;
+      case 4:
+      case 6:
+      case 9:
+      case 11:
+        return 30;
+      default:
+        return 31;
+    }
+  }
+
+  /**
+   * @return the number of days between 1970-01-01 and the given date in the proleptic Gregorian calendar
+   */
+  private static long daysSinceEpoch( int year, int month, int day ) {
+    long y = month <= 2 ? year - 1 : year;
+    long era = Math.floorDiv( y, 400 );
+    long yearOfEra = y - era * 400;
+    long mp = month > 2 ? month - 3 : month + 9;
+    long dayOfYear = ( 153 * mp + 2 ) / 5 + day - 1;
+    long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097 + dayOfEra - ( DAYS_0000_TO_1970 - 60 );
+  }
+}
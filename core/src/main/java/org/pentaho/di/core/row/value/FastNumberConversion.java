@@ -0,0 +1,225 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.core.row.value;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+
+/**
+ * Hand-written number to string and string to number conversion for plain decimal masks without prefixes, suffixes
+ * or exponents like ####0, #.# or #,##0.00. The results are identical to those of the {@link DecimalFormat} the
+ * conversion is created from. Values that can't be handled with certainty (numbers that need rounding, NaN, strings
+ * with more than 18 digits or with anything but digits, a minus sign and a decimal separator, ...) are left to that
+ * format: the methods return null for them.
+ * <p>
+ * Instances are immutable and can be shared by any number of threads.
+ */
+final class FastNumberConversion {
+
+  private static final int MAX_PARSE_DIGITS = 18;
+
+  private final int minimumIntegerDigits;
+  private final int minimumFractionDigits;
+  private final int maximumFractionDigits;
+  private final int groupingSize;
+  private final char groupingSeparator;
+  private final char decimalSeparator;
+  private final boolean parseIntegerOnly;
+
+  private FastNumberConversion( DecimalFormat format ) {
+    DecimalFormatSymbols symbols = format.getDecimalFormatSymbols();
+    minimumIntegerDigits = format.getMinimumIntegerDigits();
+    minimumFractionDigits = format.getMinimumFractionDigits();
+    maximumFractionDigits = format.getMaximumFractionDigits();
+    groupingSize = format.isGroupingUsed() ? format.getGroupingSize() : 0;
+    groupingSeparator = symbols.getGroupingSeparator();
+    decimalSeparator = symbols.getDecimalSeparator();
+    parseIntegerOnly = format.isParseIntegerOnly();
+  }
+
+  /**
+   * @param format
+   *          the decimal format to mirror
+   * @return the fast conversion for the format or null if the format has a mask or symbols that are not supported.
+   */
+  static FastNumberConversion create( DecimalFormat format ) {
+    DecimalFormatSymbols symbols = format.getDecimalFormatSymbols();
+    if ( symbols.getZeroDigit() != '0' || format.getMultiplier() != 1 || format.isDecimalSeparatorAlwaysShown()
+      || format.getMaximumIntegerDigits() < 309 || format.getMinimumIntegerDigits() > 309
+      || format.getMinimumFractionDigits() > format.getMaximumFractionDigits()
+      || format.toPattern().indexOf( 'E' ) >= 0
+      || !format.getPositivePrefix().isEmpty() || !format.getPositiveSuffix().isEmpty()
+      || !"-".equals( format.getNegativePrefix() ) || !format.getNegativeSuffix().isEmpty()
+      || Character.isDigit( symbols.getDecimalSeparator() ) || symbols.getDecimalSeparator() == '-'
+      || ( format.isGroupingUsed() && format.getGroupingSize() > 0
+        && ( Character.isDigit( symbols.getGroupingSeparator() )
+          || symbols.getGroupingSeparator() == symbols.getDecimalSeparator() ) ) ) {
+      return null;
+    }
+    return new FastNumberConversion( format );
+  }
+
+  /**
+   * @return the formatted integer
+   */
+  String format( long value ) {
+    String digits = Long.toString( value );
+    boolean negative = value < 0;
+    return format( negative, negative ? digits.substring( 1 ) : digits, "" );
+  }
+
+  /**
+   * @return the formatted number or null if the format has to take care of this value.
+   */
+  String format( double value ) {
+    if ( Double.isNaN( value ) || Double.isInfinite( value ) || value == 0.0 && 1 / value < 0 ) {
+      return null;
+    }
+    boolean negative = value < 0;
+
+    // Split the shortest decimal representation that uniquely identifies the value (the digits the format starts
+    // from too) into the integer and the fraction digits.
+    //
+    String repr = Double.toString( Math.abs( value ) );
+    int exponentIndex = repr.indexOf( 'E' );
+    String mantissa = exponentIndex < 0 ? repr : repr.substring( 0, exponentIndex );
+    int exponent = exponentIndex < 0 ? 0 : Integer.parseInt( repr.substring( exponentIndex + 1 ) );
+    int dot = mantissa.indexOf( '.' );
+    String allDigits = mantissa.substring( 0, dot ) + mantissa.substring( dot + 1 );
+    int decimalAt = dot + exponent;
+
+    String integerDigits;
+    String fractionDigits;
+    if ( decimalAt <= 0 ) {
+      integerDigits = "";
+      fractionDigits = zeros( -decimalAt ) + allDigits;
+    } else if ( decimalAt >= allDigits.length() ) {
+      integerDigits = allDigits + zeros( decimalAt - allDigits.length() );
+      fractionDigits = "";
+    } else {
+      integerDigits = allDigits.substring( 0, decimalAt );
+      fractionDigits = allDigits.substring( decimalAt );
+    }
+
+    int end = fractionDigits.length();
+    while ( end > 0 && fractionDigits.charAt( end - 1 ) == '0' ) {
+      end--;
+    }
+    if ( end > maximumFractionDigits ) {
+      return null; // needs rounding
+    }
+    return format( negative, integerDigits, fractionDigits.substring( 0, end ) );
+  }
+
+  private String format( boolean negative, String integerDigits, String fractionDigits ) {
+    int start = 0;
+    while ( start < integerDigits.length() && integerDigits.charAt( start ) == '0' ) {
+      start++;
+    }
+    int nrIntegerDigits = Math.max( integerDigits.length() - start, minimumIntegerDigits );
+    int nrFractionDigits = Math.max( fractionDigits.length(), minimumFractionDigits );
+    if ( nrIntegerDigits == 0 && nrFractionDigits == 0 ) {
+      nrIntegerDigits = 1; // like the format: print a zero rather than nothing at all
+    }
+
+    StringBuilder builder = new StringBuilder( nrIntegerDigits * 2 + nrFractionDigits + 2 );
+    if ( negative ) {
+      builder.append( '-' );
+    }
+    for ( int i = nrIntegerDigits - 1; i >= 0; i-- ) {
+      int index = integerDigits.length() - 1 - i;
+      builder.append( index >= start ? integerDigits.charAt( index ) : '0' );
+      if ( groupingSize > 0 && i > 0 && i % groupingSize == 0 ) {
+        builder.append( groupingSeparator );
+      }
+    }
+    if ( nrFractionDigits > 0 ) {
+      builder.append( decimalSeparator );
+      builder.append( fractionDigits );
+      for ( int i = fractionDigits.length(); i < nrFractionDigits; i++ ) {
+        builder.append( '0' );
+      }
+    }
+    return builder.toString();
+  }
+
+  private static String zeros( int count ) {
+    StringBuilder builder = new StringBuilder( count );
+    for ( int i = 0; i < count; i++ ) {
+      builder.append( '0' );
+    }
+    return builder.toString();
+  }
+
+  /**
+   * @param string
+   *          the string to parse, trimmed and not empty
+   * @return the parsed integer or null if the format has to parse this string.
+   */
+  Long parseInteger( String string ) {
+    boolean negative = string.charAt( 0 ) == '-';
+    int start = negative ? 1 : 0;
+    int nrDigits = string.length() - start;
+    if ( nrDigits == 0 || nrDigits > MAX_PARSE_DIGITS ) {
+      return null;
+    }
+    long value = 0;
+    for ( int i = start; i < string.length(); i++ ) {
+      char c = string.charAt( i );
+      if ( c < '0' || c > '9' ) {
+        return null;
+      }
+      value = value * 10 + ( c - '0' );
+    }
+    return negative ? -value : value;
+  }
+
+  /**
+   * @param string
+   *          the string to parse, trimmed and not empty
+   * @return the parsed number or null if the format has to parse this string.
+   */
+  Double parseNumber( String string ) {
+    boolean negative = string.charAt( 0 ) == '-';
+    int start = negative ? 1 : 0;
+    int separator = -1;
+    int nrDigits = 0;
+    for ( int i = start; i < string.length(); i++ ) {
+      char c = string.charAt( i );
+      if ( c >= '0' && c <= '9' ) {
+        nrDigits++;
+      } else if ( c == decimalSeparator && separator < 0 && !parseIntegerOnly ) {
+        separator = i;
+      } else {
+        return null;
+      }
+    }
+    if ( nrDigits == 0 || nrDigits > MAX_PARSE_DIGITS || separator == start || separator == string.length() - 1 ) {
+      return null;
+    }
+    if ( separator < 0 || decimalSeparator == '.' ) {
+      return Double.parseDouble( string );
+    }
+    return Double.parseDouble( string.replace( decimalSeparator, '.' ) );
+  }
+}
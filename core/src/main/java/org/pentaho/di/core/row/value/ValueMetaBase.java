@@ -160,6 +160,9 @@ public class ValueMetaBase implements ValueMetaInterface {
   protected DecimalFormat decimalFormat;
   protected boolean decimalFormatChanged;
 
+  private transient volatile DateConversion dateConversion;
+  private transient volatile NumberConversion numberConversion;
+
   protected ValueMetaInterface storageMetadata;
   protected boolean identicalFormat;
 
@@ -439,6 +442,8 @@ public class ValueMetaBase implements ValueMetaInterface {
       ValueMetaBase valueMeta = (ValueMetaBase) super.clone();
       valueMeta.dateFormat = null;
       valueMeta.decimalFormat = null;
+      valueMeta.dateConversion = null;
+      valueMeta.numberConversion = null;
       if ( dateFormatLocale != null ) {
         valueMeta.dateFormatLocale = (Locale) dateFormatLocale.clone();
       }
@@ -900,12 +905,12 @@ public class ValueMetaBase implements ValueMetaInterface {
 
   // DATE + STRING
 
-  protected synchronized String convertDateToString( Date date ) {
+  protected String convertDateToString( Date date ) {
     if ( date == null ) {
       return null;
     }
 
-    return getDateFormat().format( date );
+    return getDateConversion( getType() ).format( date );
   }
 
   protected static SimpleDateFormat compatibleDateFormat = new SimpleDateFormat( COMPATIBLE_DATE_FORMAT_PATTERN );
@@ -917,7 +922,7 @@ public class ValueMetaBase implements ValueMetaInterface {
     return compatibleDateFormat.format( date );
   }
 
-  protected synchronized Date convertStringToDate( String string ) throws KettleValueException {
+  protected Date convertStringToDate( String string ) throws KettleValueException {
     string = Const.trimToType( string, getTrimType() ); // see if trimming needs
     // to be performed before
     // conversion
@@ -928,7 +933,7 @@ public class ValueMetaBase implements ValueMetaInterface {
 
     try {
       ParsePosition pp = new ParsePosition( 0 );
-      Date result = getDateFormat( TYPE_DATE ).parse( string, pp );
+      Date result = getDateConversion( TYPE_DATE ).parse( string, pp );
       if ( pp.getErrorIndex() >= 0 ) {
         // error happen
         throw new ParseException( string, pp.getErrorIndex() );
@@ -974,7 +979,7 @@ public class ValueMetaBase implements ValueMetaInterface {
     return new Date( number.longValue() );
   }
 
-  protected synchronized String convertNumberToString( Double number ) throws KettleValueException {
+  protected String convertNumberToString( Double number ) throws KettleValueException {
     if ( number == null ) {
       if ( !outputPaddingEnabled || length < 1 ) {
         return null;
@@ -993,14 +998,16 @@ public class ValueMetaBase implements ValueMetaInterface {
     }
 
     try {
-      DecimalFormat format = getDecimalFormat( false );
+      NumberConversion conversion = getNumberConversion();
 
       // When conversion masks are different, we must ensure the number precision is not lost
       if ( this.conversionMask != null && storageMetadata != null
               && !this.conversionMask.equals( storageMetadata.getConversionMask() ) ) {
+        DecimalFormat format = conversion.getFormat();
         format.setMaximumFractionDigits( 50 );
+        return format.format( number );
       }
-      return format.format( number );
+      return conversion.format( number );
     } catch ( Exception e ) {
       throw new KettleValueException( toString() + " : couldn't convert Number to String ", e );
     }
@@ -1013,7 +1020,7 @@ public class ValueMetaBase implements ValueMetaInterface {
     return Double.toString( number );
   }
 
-  protected synchronized Double convertStringToNumber( String string ) throws KettleValueException {
+  protected Double convertStringToNumber( String string ) throws KettleValueException {
     string = Const.trimToType( string, getTrimType() ); // see if trimming needs
     // to be performed before
     // conversion
@@ -1023,7 +1030,13 @@ public class ValueMetaBase implements ValueMetaInterface {
     }
 
     try {
-      DecimalFormat format = getDecimalFormat( false );
+      NumberConversion conversion = getNumberConversion();
+      Double fastNumber = conversion.fast == null ? null : conversion.fast.parseNumber( string );
+      if ( fastNumber != null ) {
+        return fastNumber;
+      }
+
+      DecimalFormat format = conversion.getFormat();
       Number number;
       if ( lenientStringToNumber ) {
         number = format.parse( string );
@@ -1147,6 +1160,137 @@ public class ValueMetaBase implements ValueMetaInterface {
     return decimalFormat;
   }
 
+  /**
+   * The conversions use the date format without locking: every thread gets its own copy, see {@link DateConversion}.
+   *
+   * @param valueMetaType
+   *          the type to get the date format mask for if the date format still needs to be created
+   */
+  private DateConversion getDateConversion( int valueMetaType ) {
+    if ( conversionMetadata instanceof ValueMetaBase ) {
+      return ( (ValueMetaBase) conversionMetadata ).getDateConversion( conversionMetadata.getType() );
+    }
+    DateConversion conversion = dateConversion;
+    if ( conversion == null || conversionMetadata != null || dateFormatChanged || conversion.source != dateFormat ) {
+      synchronized ( this ) {
+        SimpleDateFormat format = valueMetaType == getType() ? getDateFormat() : getDateFormat( valueMetaType );
+        conversion = dateConversion;
+        if ( conversion == null || conversion.source != format ) {
+          conversion = new DateConversion( format );
+          dateConversion = conversion;
+        }
+      }
+    }
+    return conversion;
+  }
+
+  /**
+   * The conversions use the decimal format without locking: every thread gets its own copy, see
+   * {@link NumberConversion}.
+   */
+  private NumberConversion getNumberConversion() {
+    if ( conversionMetadata instanceof ValueMetaBase ) {
+      return ( (ValueMetaBase) conversionMetadata ).getNumberConversion();
+    }
+    NumberConversion conversion = numberConversion;
+    if ( conversion == null || conversionMetadata != null || decimalFormatChanged
+      || conversion.source != decimalFormat ) {
+      synchronized ( this ) {
+        DecimalFormat format = getDecimalFormat( false );
+        conversion = numberConversion;
+        if ( conversion == null || conversion.source != format ) {
+          conversion = new NumberConversion( format );
+          numberConversion = conversion;
+        }
+      }
+    }
+    return conversion;
+  }
+
+  /**
+   * The date format of a value for use by several threads at once. The most common masks are handled by a
+   * {@link FastDateConversion}, everything else by a copy of the date format per thread. Subclasses of
+   * SimpleDateFormat (like {@link org.pentaho.di.core.row.value.timestamp.SimpleTimestampFormat}) don't necessarily
+   * copy well so these are shared and locked.
+   */
+  private static final class DateConversion {
+    private final SimpleDateFormat source;
+    private final FastDateConversion fast;
+    private final ThreadLocal<SimpleDateFormat> formats;
+
+    private DateConversion( SimpleDateFormat source ) {
+      this.source = source;
+      if ( source.getClass() == SimpleDateFormat.class ) {
+        final SimpleDateFormat template = (SimpleDateFormat) source.clone();
+        this.fast = FastDateConversion.create( template );
+        this.formats = ThreadLocal.withInitial( () -> (SimpleDateFormat) template.clone() );
+      } else {
+        this.fast = null;
+        this.formats = null;
+      }
+    }
+
+    private String format( Date date ) {
+      String string = fast == null ? null : fast.format( date );
+      if ( string != null ) {
+        return string;
+      }
+      if ( formats == null ) {
+        synchronized ( source ) {
+          return source.format( date );
+        }
+      }
+      return formats.get().format( date );
+    }
+
+    private Date parse( String string, ParsePosition pp ) {
+      Date date = fast == null ? null : fast.parse( string );
+      if ( date != null ) {
+        pp.setIndex( string.length() );
+        return date;
+      }
+      if ( formats == null ) {
+        synchronized ( source ) {
+          return source.parse( string, pp );
+        }
+      }
+      return formats.get().parse( string, pp );
+    }
+  }
+
+  /**
+   * The decimal format of a value for use by several threads at once. Plain masks are handled by a
+   * {@link FastNumberConversion}, everything else by a copy of the decimal format per thread.
+   */
+  private static final class NumberConversion {
+    private final DecimalFormat source;
+    private final FastNumberConversion fast;
+    private final ThreadLocal<DecimalFormat> formats;
+
+    private NumberConversion( DecimalFormat source ) {
+      final DecimalFormat template = (DecimalFormat) source.clone();
+      this.source = source;
+      this.fast = source.getClass() == DecimalFormat.class ? FastNumberConversion.create( template ) : null;
+      this.formats = ThreadLocal.withInitial( () -> (DecimalFormat) template.clone() );
+    }
+
+    /**
+     * @return the decimal format of the calling thread
+     */
+    private DecimalFormat getFormat() {
+      return formats.get();
+    }
+
+    private String format( long value ) {
+      return fast != null ? fast.format( value ) : formats.get().format( value );
+    }
+
+    private String format( double value ) {
+      String string = fast == null ? null : fast.format( value );
+      return string != null ? string : formats.get().format( value );
+    }
+  }
+
   @Override
   public String getFormatMask() {
     return getMask( getType() );
@@ -1294,7 +1438,7 @@ public class ValueMetaBase implements ValueMetaInterface {
     return numberPattern.toString();
   }
 
-  protected synchronized String convertIntegerToString( Long integer ) throws KettleValueException {
+  protected String convertIntegerToString( Long integer ) throws KettleValueException {
     if ( integer == null ) {
       if ( !outputPaddingEnabled || length < 1 ) {
         return null;
@@ -1313,7 +1457,7 @@ public class ValueMetaBase implements ValueMetaInterface {
     }
 
     try {
-      return getDecimalFormat( false ).format( integer );
+      return getNumberConversion().format( integer.longValue() );
     } catch ( Exception e ) {
       throw new KettleValueException( toString() + " : couldn't convert Long to String ", e );
     }
@@ -1326,7 +1470,7 @@ public class ValueMetaBase implements ValueMetaInterface {
     return Long.toString( integer );
   }
 
-  protected synchronized Long convertStringToInteger( String string ) throws KettleValueException {
+  protected Long convertStringToInteger( String string ) throws KettleValueException {
     string = Const.trimToType( string, getTrimType() ); // see if trimming needs
     // to be performed before
     // conversion
@@ -1336,12 +1480,18 @@ public class ValueMetaBase implements ValueMetaInterface {
     }
 
     try {
+      NumberConversion conversion = getNumberConversion();
+      Long fastInteger = conversion.fast == null ? null : conversion.fast.parseInteger( string );
+      if ( fastInteger != null ) {
+        return fastInteger;
+      }
+
       Number number;
       if ( lenientStringToNumber ) {
-        number = new Long( getDecimalFormat( false ).parse( string ).longValue() );
+        number = new Long( conversion.getFormat().parse( string ).longValue() );
       } else {
         ParsePosition parsePosition = new ParsePosition( 0 );
-        number = getDecimalFormat( false ).parse( string, parsePosition );
+        number = conversion.getFormat().parse( string, parsePosition );
 
         if ( parsePosition.getIndex() < string.length() ) {
           throw new KettleValueException( toString()
@@ -0,0 +1,109 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.core;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.row.RowBatch;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ColumnarRowSetTest {
+  RowMetaInterface rowMeta;
+  ColumnarRowSet rowSet;
+
+  @Before
+  public void setup() {
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    rowSet = new ColumnarRowSet( 5 );
+  }
+
+  private RowBatch batch( long from, int nrRows ) {
+    Object[][] rows = new Object[ nrRows ][];
+    for ( int i = 0; i < nrRows; i++ ) {
+      rows[ i ] = new Object[] { from + i, "name" + ( from + i ) };
+    }
+    return RowBatch.fromRows( rowMeta, rows, 0, nrRows );
+  }
+
+  @Test
+  public void testBatchesAreHandedOverAsTheyAre() {
+    RowBatch batch = batch( 1, 3 );
+    assertTrue( rowSet.isAcceptingRowBatches() );
+    assertTrue( rowSet.putRowBatch( rowMeta, batch ) );
+    assertEquals( 3, rowSet.size() );
+
+    assertSame( batch, rowSet.getRowBatchImmediate( 10 ) );
+    assertEquals( 0, rowSet.size() );
+    assertNull( rowSet.getRowBatchImmediate( 10 ) );
+  }
+
+  @Test
+  public void testBatchesCanBeReadRowByRow() {
+    rowSet.putRow( rowMeta, new Object[] { 0L, "name0" } );
+    rowSet.putRowBatch( rowMeta, batch( 1, 2 ) );
+    rowSet.putRow( rowMeta, new Object[] { 3L, "name3" } );
+
+    // A batch isn't returned before the rows that were put earlier
+    //
+    assertNull( rowSet.getRowBatchImmediate( 10 ) );
+    for ( long i = 0; i < 4; i++ ) {
+      assertArrayEquals( new Object[] { i, "name" + i }, rowSet.getRowImmediate() );
+      assertEquals( 3 - i, rowSet.size() );
+    }
+    assertNull( rowSet.getRowImmediate() );
+  }
+
+  @Test
+  public void testRestOfPartlyReadBatch() {
+    rowSet.putRowBatch( rowMeta, batch( 1, 3 ) );
+    assertArrayEquals( new Object[] { 1L, "name1" }, rowSet.getRowImmediate() );
+
+    RowBatch rest = rowSet.getRowBatchImmediate( 10 );
+    assertEquals( 2, rest.size() );
+    assertArrayEquals( new Object[] { 2L, "name2" }, rest.getRow( 0 ) );
+    assertArrayEquals( new Object[] { 3L, "name3" }, rest.getRow( 1 ) );
+    assertEquals( 0, rowSet.size() );
+  }
+
+  @Test
+  public void testFullRowSetTimesOut() {
+    assertTrue( rowSet.putRowBatch( rowMeta, batch( 1, 5 ) ) );
+    assertFalse( rowSet.putRowWait( rowMeta, new Object[] { 6L, "name6" }, 1, TimeUnit.MILLISECONDS ) );
+
+    rowSet.getRowBatchImmediate( 10 );
+    assertTrue( rowSet.putRowWait( rowMeta, new Object[] { 6L, "name6" }, 1, TimeUnit.MILLISECONDS ) );
+  }
+}
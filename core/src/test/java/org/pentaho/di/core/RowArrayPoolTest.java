@@ -0,0 +1,93 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RowArrayPoolTest {
+  RowArrayPool pool;
+
+  @Before
+  public void setup() {
+    pool = new RowArrayPool( 2 );
+  }
+
+  @Test
+  public void testRecycledArraysAreReused() {
+    Object[] row = pool.allocate( 3 );
+    row[ 0 ] = "value";
+    assertTrue( pool.recycle( row ) );
+
+    Object[] reused = pool.allocate( 3 );
+    assertSame( row, reused );
+    assertNull( reused[ 0 ] );
+    assertEquals( 1, pool.getAllocated() );
+    assertEquals( 1, pool.getReused() );
+    assertEquals( 1, pool.getRecycled() );
+  }
+
+  @Test
+  public void testNothingIsRecycledBeforeTheProducerUsesThePool() {
+    assertFalse( pool.isAccepting() );
+    assertFalse( pool.recycle( new Object[ 3 ] ) );
+    assertEquals( 0, pool.size() );
+  }
+
+  @Test
+  public void testTooSmallArraysAreNotReused() {
+    Object[] row = pool.allocate( 1 );
+    assertTrue( pool.recycle( row ) );
+
+    Object[] larger = pool.allocate( row.length + 1 );
+    assertNotSame( row, larger );
+    assertEquals( 0, pool.size() );
+  }
+
+  @Test
+  public void testPoolIsBounded() {
+    pool.allocate( 1 );
+    assertTrue( pool.recycle( new Object[ 1 ] ) );
+    assertTrue( pool.recycle( new Object[ 1 ] ) );
+    assertFalse( pool.recycle( new Object[ 1 ] ) );
+    assertEquals( 2, pool.size() );
+  }
+
+  @Test
+  public void testClosedPoolDoesNotAcceptRows() {
+    Object[] row = pool.allocate( 1 );
+    assertTrue( pool.recycle( row ) );
+    pool.close();
+
+    assertEquals( 0, pool.size() );
+    assertFalse( pool.isAccepting() );
+    assertFalse( pool.recycle( row ) );
+    assertNull( pool.reuse( 1 ) );
+  }
+}
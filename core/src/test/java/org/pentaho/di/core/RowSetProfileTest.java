@@ -0,0 +1,146 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.pentaho.di.core.row.RowMeta;
+
+public class RowSetProfileTest {
+
+  @Test
+  public void testOccupancyBuckets() {
+    RowSetProfile profile = new RowSetProfile();
+    profile.sampleOccupancy( 0 );
+    profile.sampleOccupancy( 1 );
+    profile.sampleOccupancy( 3 );
+    profile.sampleOccupancy( 10000 );
+    profile.sampleOccupancy( Integer.MAX_VALUE );
+
+    long[] histogram = profile.getOccupancyHistogram();
+    assertEquals( 1, histogram[ 0 ] );
+    assertEquals( 1, histogram[ 1 ] );
+    assertEquals( 1, histogram[ 2 ] );
+    assertEquals( 1, histogram[ 14 ] );
+    assertEquals( 1, histogram[ RowSetProfile.OCCUPANCY_BUCKETS - 1 ] );
+  }
+
+  @Test
+  public void testSamplesEvery64Rows() {
+    QueueRowSet rowSet = new QueueRowSet();
+    RowSetProfile profile = new RowSetProfile();
+    rowSet.setProfile( profile );
+    for ( int i = 0; i < 128; i++ ) {
+      rowSet.putRow( new RowMeta(), new Object[] { i } );
+    }
+
+    long[] expected = new long[ RowSetProfile.OCCUPANCY_BUCKETS ];
+    expected[ 7 ] = 1; // 64 rows
+    expected[ 8 ] = 1; // 128 rows
+    assertArrayEquals( expected, profile.getOccupancyHistogram() );
+    assertEquals( 96.0, profile.getAverageOccupancy(), 0.0 );
+  }
+
+  @Test
+  public void testSamplesBatchesEvery64Rows() {
+    SpscRowSet rowSet = new SpscRowSet( 256 );
+    RowSetProfile profile = new RowSetProfile();
+    rowSet.setProfile( profile );
+    Object[][] rows = new Object[ 100 ][];
+    for ( int i = 0; i < rows.length; i++ ) {
+      rows[ i ] = new Object[] { i };
+    }
+    rowSet.putRows( new RowMeta(), rows, 0, 50 );
+    rowSet.putRows( new RowMeta(), rows, 0, 100 );
+
+    long[] expected = new long[ RowSetProfile.OCCUPANCY_BUCKETS ];
+    expected[ 8 ] = 2; // 150 rows, passing 64 and 128
+    assertArrayEquals( expected, profile.getOccupancyHistogram() );
+    assertEquals( 150.0, profile.getAverageOccupancy(), 0.0 );
+  }
+
+  @Test
+  public void testBlockingRowSetRecordsWaits() {
+    BlockingRowSet rowSet = new BlockingRowSet( 1 );
+    RowSetProfile profile = new RowSetProfile();
+    rowSet.setProfile( profile );
+
+    assertTrue( rowSet.putRowWait( new RowMeta(), new Object[] { 1 }, 50, TimeUnit.MILLISECONDS ) );
+    assertEquals( 0L, profile.getPutWaitNanos() );
+    assertFalse( rowSet.putRowWait( new RowMeta(), new Object[] { 2 }, 50, TimeUnit.MILLISECONDS ) );
+    assertTrue( profile.getPutWaitNanos() >= TimeUnit.MILLISECONDS.toNanos( 40 ) );
+
+    assertArrayEquals( new Object[] { 1 }, rowSet.getRowWait( 50, TimeUnit.MILLISECONDS ) );
+    assertEquals( 0L, profile.getGetWaitNanos() );
+    assertNull( rowSet.getRowWait( 50, TimeUnit.MILLISECONDS ) );
+    assertTrue( profile.getGetWaitNanos() >= TimeUnit.MILLISECONDS.toNanos( 40 ) );
+  }
+
+  @Test
+  public void testBlockingBatchingRowSetRecordsWaits() {
+    BlockingBatchingRowSet rowSet = new BlockingBatchingRowSet( 2 );
+    RowSetProfile profile = new RowSetProfile();
+    rowSet.setProfile( profile );
+
+    assertTrue( rowSet.putRowWait( new RowMeta(), new Object[] { 1 }, 50, TimeUnit.MILLISECONDS ) );
+    assertTrue( rowSet.putRowWait( new RowMeta(), new Object[] { 2 }, 50, TimeUnit.MILLISECONDS ) );
+    assertEquals( 0L, profile.getPutWaitNanos() );
+    assertFalse( rowSet.putRowWait( new RowMeta(), new Object[] { 3 }, 50, TimeUnit.MILLISECONDS ) );
+    assertTrue( profile.getPutWaitNanos() >= TimeUnit.MILLISECONDS.toNanos( 40 ) );
+
+    assertArrayEquals( new Object[] { 1 }, rowSet.getRowWait( 50, TimeUnit.MILLISECONDS ) );
+    assertArrayEquals( new Object[] { 2 }, rowSet.getRowWait( 50, TimeUnit.MILLISECONDS ) );
+    assertEquals( 0L, profile.getGetWaitNanos() );
+    assertNull( rowSet.getRowWait( 50, TimeUnit.MILLISECONDS ) );
+    assertTrue( profile.getGetWaitNanos() >= TimeUnit.MILLISECONDS.toNanos( 40 ) );
+  }
+
+  @Test
+  public void testSpscRowSetRecordsWaits() {
+    SpscRowSet rowSet = new SpscRowSet( 1 );
+    RowSetProfile profile = new RowSetProfile();
+    rowSet.setProfile( profile );
+
+    assertTrue( rowSet.putRowWait( new RowMeta(), new Object[] { 1 }, 50, TimeUnit.MILLISECONDS ) );
+    assertFalse( rowSet.putRowWait( new RowMeta(), new Object[] { 2 }, 50, TimeUnit.MILLISECONDS ) );
+    assertTrue( profile.getPutWaitNanos() >= TimeUnit.MILLISECONDS.toNanos( 40 ) );
+
+    assertArrayEquals( new Object[] { 1 }, rowSet.getRowWait( 50, TimeUnit.MILLISECONDS ) );
+    assertNull( rowSet.getRowWait( 50, TimeUnit.MILLISECONDS ) );
+    assertTrue( profile.getGetWaitNanos() >= TimeUnit.MILLISECONDS.toNanos( 40 ) );
+  }
+
+  @Test
+  public void testNotProfiledByDefault() {
+    assertNull( new BlockingRowSet( 10 ).getProfile() );
+    assertNull( new BlockingBatchingRowSet( 10 ).getProfile() );
+    assertNull( new QueueRowSet().getProfile() );
+    assertNull( new SpscRowSet( 10 ).getProfile() );
+  }
+}
@@ -0,0 +1,156 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.core;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.row.RowMeta;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SpscRowSetTest {
+  Object[] row;
+  SpscRowSet rowSet;
+
+  @Before
+  public void setup() {
+    rowSet = new SpscRowSet( 3 );
+    row = new Object[]{};
+  }
+
+  @Test
+  public void testPutRow() throws Exception {
+    assertTrue( rowSet.putRow( new RowMeta(), row ) );
+    assertSame( row, rowSet.getRow() );
+  }
+
+  @Test
+  public void testGetRowImmediateOnEmpty() throws Exception {
+    assertNull( rowSet.getRowImmediate() );
+    assertNull( rowSet.getRowWait( 1, TimeUnit.MILLISECONDS ) );
+  }
+
+  @Test
+  public void testCapacityIsNotRoundedUp() throws Exception {
+    assertEquals( 3, rowSet.getCapacity() );
+    assertTrue( rowSet.putRowWait( new RowMeta(), row, 1, TimeUnit.MILLISECONDS ) );
+    assertTrue( rowSet.putRowWait( new RowMeta(), row, 1, TimeUnit.MILLISECONDS ) );
+    assertTrue( rowSet.putRowWait( new RowMeta(), row, 1, TimeUnit.MILLISECONDS ) );
+    assertFalse( rowSet.putRowWait( new RowMeta(), row, 1, TimeUnit.MILLISECONDS ) );
+    assertEquals( 3, rowSet.size() );
+  }
+
+  @Test
+  public void testWrapAroundKeepsOrder() throws Exception {
+    for ( long i = 0; i < 20; i++ ) {
+      assertTrue( rowSet.putRow( new RowMeta(), new Object[] { i } ) );
+      assertEquals( i, rowSet.getRowImmediate()[0] );
+    }
+    assertEquals( 0, rowSet.size() );
+  }
+
+  @Test
+  public void testPutRowsAndGetRowsImmediate() throws Exception {
+    Object[][] rows = new Object[][] { { 0L }, { 1L }, { 2L }, { 3L }, { 4L } };
+    assertEquals( 3, rowSet.putRows( new RowMeta(), rows, 0, rows.length ) );
+    assertEquals( 3, rowSet.size() );
+
+    Object[][] target = new Object[ 5 ][];
+    assertEquals( 3, rowSet.getRowsImmediate( target, 1, 4 ) );
+    assertNull( target[ 0 ] );
+    assertSame( rows[ 0 ], target[ 1 ] );
+    assertSame( rows[ 2 ], target[ 3 ] );
+
+    assertEquals( 2, rowSet.putRows( new RowMeta(), rows, 3, 2 ) );
+    assertEquals( 2, rowSet.getRowsImmediate( target, 0, 5 ) );
+    assertSame( rows[ 4 ], target[ 1 ] );
+    assertEquals( 0, rowSet.getRowsImmediate( target, 0, 5 ) );
+  }
+
+  @Test
+  public void testPutRowsSkipsNullRows() throws Exception {
+    Object[][] rows = new Object[][] { null, { 1L }, null, { 2L } };
+    assertEquals( 4, rowSet.putRows( new RowMeta(), rows, 0, rows.length ) );
+    assertEquals( 2, rowSet.size() );
+    assertSame( rows[ 1 ], rowSet.getRowImmediate() );
+    assertSame( rows[ 3 ], rowSet.getRowImmediate() );
+    assertEquals( 1, rowSet.putRows( new RowMeta(), rows, 0, 1 ) );
+    assertEquals( 0, rowSet.size() );
+  }
+
+  @Test
+  public void testClear() throws Exception {
+    rowSet.putRow( new RowMeta(), row );
+    rowSet.setDone();
+    rowSet.clear();
+    assertEquals( 0, rowSet.size() );
+    assertFalse( rowSet.isDone() );
+    assertNull( rowSet.getRowImmediate() );
+  }
+
+  @Test
+  public void testProducerConsumer() throws Exception {
+    final int nrRows = 100000;
+    final SpscRowSet set = new SpscRowSet( 16 );
+    final AtomicReference<String> error = new AtomicReference<>();
+
+    Thread producer = new Thread( () -> {
+      for ( long i = 0; i < nrRows; i++ ) {
+        Object[] r = new Object[] { i };
+        while ( !set.putRow( new RowMeta(), r ) ) {
+          // retry, just like BaseStep.handlePutRow
+        }
+      }
+      set.setDone();
+    } );
+    producer.start();
+
+    long expected = 0;
+    Object[] r = set.getRow();
+    while ( r != null || !set.isDone() ) {
+      if ( r != null ) {
+        if ( !Long.valueOf( expected ).equals( r[0] ) ) {
+          error.set( "Expected " + expected + " but got " + r[0] );
+          break;
+        }
+        expected++;
+      }
+      r = set.getRow();
+    }
+    r = set.getRowImmediate();
+    while ( r != null ) {
+      expected++;
+      r = set.getRowImmediate();
+    }
+    producer.join();
+
+    assertNull( error.get() );
+    assertEquals( nrRows, expected );
+  }
+}
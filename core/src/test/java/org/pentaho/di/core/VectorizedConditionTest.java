@@ -0,0 +1,125 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.core;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.row.RowBatch;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaAndData;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class VectorizedConditionTest {
+  RowMetaInterface rowMeta;
+  Object[][] rows;
+  RowBatch batch;
+
+  @Before
+  public void setup() {
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "amount" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "limit" ) );
+
+    rows = new Object[][] {
+      { 1L, 0.5, "a", 2L },
+      { 2L, 2.5, "b", 2L },
+      { null, 3.0, "c", 1L },
+      { 4L, null, null, null },
+      { 5L, -1.0, "e", 9L },
+      { -6L, 7.25, "f", -6L },
+    };
+    batch = RowBatch.fromRows( rowMeta, rows, 0, rows.length );
+  }
+
+  private Condition compare( String left, int function, String right, Object constant ) {
+    ValueMetaAndData exact = null;
+    if ( constant instanceof Long ) {
+      exact = new ValueMetaAndData( new ValueMetaInteger( "constant" ), constant );
+    } else if ( constant instanceof Double ) {
+      exact = new ValueMetaAndData( new ValueMetaNumber( "constant" ), constant );
+    } else if ( constant != null ) {
+      exact = new ValueMetaAndData( new ValueMetaString( "constant" ), constant );
+    }
+    return new Condition( left, function, right, exact );
+  }
+
+  private void assertSameOutcome( Condition condition ) {
+    VectorizedCondition vectorized = VectorizedCondition.compile( condition, rowMeta );
+    assertNotNull( vectorized );
+    boolean[] result = vectorized.evaluate( batch, null );
+    for ( int i = 0; i < rows.length; i++ ) {
+      assertEquals( "row " + i + " for " + condition, condition.evaluate( rowMeta, rows[ i ] ), result[ i ] );
+    }
+  }
+
+  @Test
+  public void testCompareWithConstant() {
+    for ( int function = Condition.FUNC_EQUAL; function <= Condition.FUNC_LARGER_EQUAL; function++ ) {
+      assertSameOutcome( compare( "id", function, null, 2L ) );
+      assertSameOutcome( compare( "amount", function, null, 2.5 ) );
+      assertSameOutcome( compare( "id", function, null, 2.5 ) );
+    }
+  }
+
+  @Test
+  public void testCompareFields() {
+    for ( int function = Condition.FUNC_EQUAL; function <= Condition.FUNC_LARGER_EQUAL; function++ ) {
+      assertSameOutcome( compare( "id", function, "limit", null ) );
+    }
+  }
+
+  @Test
+  public void testNullChecks() {
+    assertSameOutcome( compare( "id", Condition.FUNC_NULL, null, null ) );
+    assertSameOutcome( compare( "amount", Condition.FUNC_NOT_NULL, null, null ) );
+  }
+
+  @Test
+  public void testCompositeCondition() {
+    Condition condition = new Condition();
+    condition.addCondition( compare( "id", Condition.FUNC_LARGER, null, 1L ) );
+    Condition second = compare( "amount", Condition.FUNC_SMALLER, null, 4.0 );
+    second.setOperator( Condition.OPERATOR_AND_NOT );
+    condition.addCondition( second );
+    Condition third = compare( "limit", Condition.FUNC_NULL, null, null );
+    third.setOperator( Condition.OPERATOR_OR );
+    condition.addCondition( third );
+    assertSameOutcome( condition );
+
+    condition.setNegated( true );
+    assertSameOutcome( condition );
+  }
+
+  @Test
+  public void testStringConditionsAreNotVectorized() {
+    assertNull( VectorizedCondition.compile( compare( "name", Condition.FUNC_EQUAL, null, "a" ), rowMeta ) );
+  }
+}
@@ -0,0 +1,132 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.core.database;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.pentaho.di.core.KettleClientEnvironment;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+import java.sql.ResultSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading wide rows with Database.getRow(), which picks a reader per column once, with the previous way of
+ * reading them: through the dialect and a switch on the data type for every value. The rows come from an in-memory H2
+ * database. Run with the main method, from the test class path.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class DatabaseGetRowBenchmark {
+
+  private static final int NR_ROWS = 10000;
+
+  /** The number of columns of each of the types integer, string, big number and timestamp */
+  @Param( { "5", "25" } )
+  public int columnsPerType;
+
+  private DatabaseMeta databaseMeta;
+  private Database database;
+  private String sql;
+
+  @Setup
+  public void setup() throws KettleException {
+    KettleClientEnvironment.init();
+    databaseMeta = new DatabaseMeta( "benchmark", "H2", "Native", null, "mem:getrow_benchmark", null, "sa", "" );
+    database = new Database( null, databaseMeta );
+    database.connect();
+
+    StringBuilder create = new StringBuilder( "CREATE TABLE wide ( id INTEGER" );
+    StringBuilder insert = new StringBuilder( "INSERT INTO wide SELECT x" );
+    for ( int i = 0; i < columnsPerType; i++ ) {
+      create.append( ", i" ).append( i ).append( " BIGINT" );
+      create.append( ", s" ).append( i ).append( " VARCHAR(50)" );
+      create.append( ", n" ).append( i ).append( " DECIMAL(18,4)" );
+      create.append( ", d" ).append( i ).append( " TIMESTAMP" );
+      insert.append( ", x * " ).append( i );
+      insert.append( ", 'value ' || x" );
+      insert.append( ", x / 7.0" );
+      insert.append( ", DATEADD('SECOND', x, TIMESTAMP '2020-01-01 00:00:00')" );
+    }
+    create.append( " )" );
+    insert.append( " FROM SYSTEM_RANGE(1, " ).append( NR_ROWS ).append( ")" );
+
+    database.execStatement( "DROP TABLE IF EXISTS wide" );
+    database.execStatement( create.toString() );
+    database.execStatement( insert.toString() );
+    sql = "SELECT * FROM wide";
+  }
+
+  @TearDown
+  public void tearDown() throws KettleException {
+    database.execStatement( "DROP TABLE wide" );
+    database.disconnect();
+  }
+
+  @Benchmark
+  public void readRows( Blackhole blackhole ) throws KettleException {
+    ResultSet resultSet = database.openQuery( sql );
+    Object[] row = database.getRow( resultSet );
+    while ( row != null ) {
+      blackhole.consume( row );
+      row = database.getRow( resultSet );
+    }
+    database.closeQuery( resultSet );
+  }
+
+  @Benchmark
+  public void readRowsPerValue( Blackhole blackhole ) throws Exception {
+    ResultSet resultSet = database.openQuery( sql );
+    RowMetaInterface rowMeta = database.getReturnRowMeta();
+    while ( resultSet.next() ) {
+      Object[] row = new Object[ rowMeta.size() ];
+      for ( int i = 0; i < row.length; i++ ) {
+        row[ i ] = databaseMeta.getValueFromResultSet( resultSet, rowMeta.getValueMeta( i ), i );
+      }
+      blackhole.consume( row );
+    }
+    database.closeQuery( resultSet );
+  }
+
+  public static void main( String[] args ) throws RunnerException {
+    new Runner( new OptionsBuilder().include( DatabaseGetRowBenchmark.class.getSimpleName() ).build() ).run();
+  }
+}
@@ -77,6 +77,7 @@ import org.pentaho.di.core.exception.KettleDatabaseBatchException;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.logging.LogLevel;
 import org.pentaho.di.core.logging.LoggingObjectInterface;
+import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.row.value.ValueMetaNumber;
@@ -863,6 +864,20 @@ public class DatabaseTest {
     verify( db, times( 0 ) ).getTableFieldsMetaByDbMeta( any(), any() );
   }
 
+  @Test
+  public void testGetMultiRowInsertStatement() throws Exception {
+    when( dbMetaMock.getQuotedSchemaTableCombination( "S", "T" ) ).thenReturn( "S.T" );
+    when( dbMetaMock.quoteField( anyString() ) ).thenAnswer( invocation -> invocation.getArguments()[ 0 ] );
+    RowMetaInterface fields = new RowMeta();
+    fields.addValueMeta( new ValueMetaNumber( "A" ) );
+    fields.addValueMeta( new ValueMetaNumber( "B" ) );
+    Database db = new Database( log, dbMetaMock );
+
+    assertEquals( "INSERT INTO S.T (A, B) VALUES ( ?,  ?)", db.getInsertStatement( "S", "T", fields ) );
+    assertEquals( "INSERT INTO S.T (A, B) VALUES ( ?,  ?), ( ?,  ?), ( ?,  ?)",
+      db.getMultiRowInsertStatement( "S", "T", fields, 3 ) );
+  }
+
   @Test
   public void testGetTableFieldsMetaFalseProperty() throws Exception {
     DatabaseMeta databaseMeta = new DatabaseMeta();
@@ -0,0 +1,121 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.core.database;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBigNumber;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.row.value.ValueMetaTimestamp;
+
+public class ResultSetRowReaderTest {
+
+  private DatabaseMeta databaseMeta;
+  private ResultSet resultSet;
+  private RowMetaInterface rowMeta;
+
+  @Before
+  public void setUp() throws Exception {
+    databaseMeta = mock( DatabaseMeta.class );
+    resultSet = mock( ResultSet.class );
+
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    rowMeta.addValueMeta( new ValueMetaBigNumber( "amount" ) );
+    rowMeta.addValueMeta( new ValueMetaTimestamp( "updated" ) );
+    ValueMetaInterface lazy = new ValueMetaString( "code" );
+    lazy.setStorageType( ValueMetaInterface.STORAGE_TYPE_BINARY_STRING );
+    lazy.setStorageMetadata( new ValueMetaString( "code" ) );
+    rowMeta.addValueMeta( lazy );
+
+    when( resultSet.getLong( 1 ) ).thenReturn( 42L );
+    when( resultSet.getString( 2 ) ).thenReturn( "Kettle" );
+    when( resultSet.getBigDecimal( 3 ) ).thenReturn( new BigDecimal( "12.50" ) );
+    when( resultSet.getTimestamp( 4 ) ).thenReturn( new Timestamp( 1000L ) );
+    when( resultSet.getBytes( 5 ) ).thenReturn( new byte[] { 'A', 'B' } );
+  }
+
+  @Test
+  public void testReadRowWithColumnReaders() throws Exception {
+    when( databaseMeta.getDatabaseInterface() ).thenReturn( new H2DatabaseMeta() );
+
+    ResultSetRowReader reader = new ResultSetRowReader( databaseMeta, rowMeta );
+    Object[] row = reader.readRow( resultSet );
+
+    assertArrayEquals( new Object[] { 42L, "Kettle", new BigDecimal( "12.50" ), new Timestamp( 1000L ),
+      new byte[] { 'A', 'B' } }, Arrays.copyOf( row, rowMeta.size() ) );
+    verify( databaseMeta, never() ).getValueFromResultSet( any( ResultSet.class ), any( ValueMetaInterface.class ),
+      anyInt() );
+  }
+
+  @Test
+  public void testReadNullInteger() throws Exception {
+    when( databaseMeta.getDatabaseInterface() ).thenReturn( new H2DatabaseMeta() );
+    when( resultSet.getLong( 1 ) ).thenReturn( 0L );
+    when( resultSet.wasNull() ).thenReturn( true );
+
+    Object[] row = new ResultSetRowReader( databaseMeta, rowMeta ).readRow( resultSet );
+
+    assertNull( row[ 0 ] );
+  }
+
+  @Test
+  public void testDialectReadingValuesItsOwnWay() throws Exception {
+    when( databaseMeta.getDatabaseInterface() ).thenReturn( new Vertica5DatabaseMeta() );
+    when( databaseMeta.getValueFromResultSet( resultSet, rowMeta.getValueMeta( 0 ), 0 ) ).thenReturn( 7L );
+
+    Object[] row = new ResultSetRowReader( databaseMeta, rowMeta ).readRow( resultSet );
+
+    assertArrayEquals( new Object[] { 7L }, Arrays.copyOf( row, 1 ) );
+    verify( databaseMeta ).getValueFromResultSet( resultSet, rowMeta.getValueMeta( 0 ), 0 );
+  }
+
+  @Test
+  public void testIsReaderFor() {
+    when( databaseMeta.getDatabaseInterface() ).thenReturn( new H2DatabaseMeta() );
+    ResultSetRowReader reader = new ResultSetRowReader( databaseMeta, rowMeta );
+
+    assertTrue( reader.isReaderFor( rowMeta ) );
+    assertFalse( reader.isReaderFor( rowMeta.clone() ) );
+  }
+}
@@ -0,0 +1,128 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.core.hash;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+import org.pentaho.di.core.exception.KettleFileException;
+
+public class OffHeapHashIndexTest {
+
+  private OffHeapHashIndex index;
+
+  @After
+  public void tearDown() {
+    if ( index != null ) {
+      index.close();
+    }
+  }
+
+  @Test
+  public void testGetAndPut() throws KettleFileException {
+    index = new OffHeapHashIndex();
+    assertTrue( index.isEmpty() );
+    assertNull( index.get( new byte[] { 10 } ) );
+
+    index.put( new byte[] { 10 }, new byte[] { 53, 12 } );
+    index.put( new byte[] {}, new byte[] { 1 } );
+    assertArrayEquals( new byte[] { 53, 12 }, index.get( new byte[] { 10 } ) );
+    assertArrayEquals( new byte[] { 1 }, index.get( new byte[] {} ) );
+    assertNull( index.get( new byte[] { 10, 0 } ) );
+    assertEquals( 2, index.getSize() );
+  }
+
+  @Test
+  public void testReplaceValue() throws KettleFileException {
+    index = new OffHeapHashIndex();
+    index.put( new byte[] { 1, 2 }, new byte[] { 3 } );
+    index.put( new byte[] { 1, 2 }, new byte[] { 4 } );
+    assertArrayEquals( new byte[] { 4 }, index.get( new byte[] { 1, 2 } ) );
+    index.put( new byte[] { 1, 2 }, new byte[] { 5, 6, 7 } );
+    assertArrayEquals( new byte[] { 5, 6, 7 }, index.get( new byte[] { 1, 2 } ) );
+    index.put( new byte[] { 1, 2 }, new byte[0] );
+    assertArrayEquals( new byte[0], index.get( new byte[] { 1, 2 } ) );
+    assertEquals( 1, index.getSize() );
+  }
+
+  @Test
+  public void testResizeAndSpill() throws KettleFileException {
+    // Too small a budget for anything but the first table: everything else is memory-mapped
+    index = new OffHeapHashIndex( 8 * 1024, null );
+    int nrKeys = 200000;
+    for ( int i = 0; i < nrKeys; i++ ) {
+      index.put( key( i ), value( i ) );
+    }
+    assertEquals( nrKeys, index.getSize() );
+    assertTrue( index.getBytesMapped() > 0 );
+    assertTrue( index.getMemoryUsed() <= 8 * 1024 );
+
+    Random random = new Random( 42 );
+    for ( int n = 0; n < 10000; n++ ) {
+      int i = random.nextInt( nrKeys );
+      assertArrayEquals( value( i ), index.get( key( i ) ) );
+    }
+    assertNull( index.get( key( nrKeys ) ) );
+  }
+
+  @Test
+  public void testResizeReleasesTheOldTable() throws KettleFileException {
+    index = new OffHeapHashIndex();
+    for ( int i = 0; i < 200000; i++ ) {
+      index.put( key( i ), value( i ) );
+    }
+    // Only the live table of 2^19 slots and the chunks of 1, 2 and 4MB count, not the tables left behind by resizes
+    assertEquals( ( 4L + 7L ) * 1024 * 1024, index.getMemoryUsed() );
+    assertEquals( 0L, index.getBytesMapped() );
+  }
+
+  @Test
+  public void testResizeReusesTheSpillFile() throws KettleFileException {
+    index = new OffHeapHashIndex( 8 * 1024, null );
+    for ( int i = 0; i < 200000; i++ ) {
+      index.put( key( i ), value( i ) );
+    }
+    assertEquals( 0L, index.getMemoryUsed() );
+    assertEquals( ( 4L + 7L ) * 1024 * 1024, index.getBytesMapped() );
+    // The released ranges never add up to more than the live table
+    assertTrue( index.getSpillFileSize() - index.getBytesMapped() <= 4L * 1024 * 1024 );
+  }
+
+  private static byte[] key( int i ) {
+    return ByteBuffer.allocate( 4 ).putInt( i ).array();
+  }
+
+  private static byte[] value( int i ) {
+    byte[] value = new byte[i % 17];
+    for ( int j = 0; j < value.length; j++ ) {
+      value[j] = (byte) ( i + j );
+    }
+    return value;
+  }
+}
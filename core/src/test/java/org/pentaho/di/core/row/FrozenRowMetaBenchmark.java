@@ -0,0 +1,111 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.core.row;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-row cost of reading a wide (200 column) row layout from a regular {@link RowMeta} with the cost on
+ * a {@link FrozenRowMeta}. Every "row" does what a typical step does: get the size, visit every value metadata, look
+ * up a few fields by name and clone the row. Several threads share the same row metadata, like the copies of a step
+ * reading from the same hop would. Run with the main method, from the test class path.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@Threads( 4 )
+public class FrozenRowMetaBenchmark {
+
+  private static final int COLUMNS = 200;
+  private static final int LOOKUPS = 10;
+
+  private RowMeta rowMeta;
+  private FrozenRowMeta frozenRowMeta;
+  private Object[] row;
+  private String[] lookups;
+
+  @Setup
+  public void setup() {
+    rowMeta = new RowMeta();
+    row = new Object[ COLUMNS ];
+    for ( int i = 0; i < COLUMNS; i++ ) {
+      if ( i % 2 == 0 ) {
+        rowMeta.addValueMeta( new ValueMetaString( "field_" + i ) );
+        row[i] = "value " + i;
+      } else {
+        rowMeta.addValueMeta( new ValueMetaInteger( "field_" + i ) );
+        row[i] = (long) i;
+      }
+    }
+    lookups = new String[ LOOKUPS ];
+    for ( int i = 0; i < LOOKUPS; i++ ) {
+      lookups[i] = "FIELD_" + ( i * COLUMNS / LOOKUPS );
+    }
+    frozenRowMeta = new FrozenRowMeta( rowMeta );
+  }
+
+  @Benchmark
+  public void processRowRowMeta( Blackhole blackhole ) throws KettleValueException {
+    processRow( rowMeta, blackhole );
+  }
+
+  @Benchmark
+  public void processRowFrozenRowMeta( Blackhole blackhole ) throws KettleValueException {
+    processRow( frozenRowMeta, blackhole );
+  }
+
+  private void processRow( RowMetaInterface meta, Blackhole blackhole ) throws KettleValueException {
+    for ( int i = 0; i < meta.size(); i++ ) {
+      blackhole.consume( meta.getValueMeta( i ).getType() );
+    }
+    for ( String lookup : lookups ) {
+      blackhole.consume( meta.indexOfValue( lookup ) );
+    }
+    blackhole.consume( meta.cloneRow( row ) );
+  }
+
+  public static void main( String[] args ) throws RunnerException {
+    new Runner( new OptionsBuilder().include( FrozenRowMetaBenchmark.class.getSimpleName() ).build() ).run();
+  }
+}
@@ -0,0 +1,134 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.core.row;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FrozenRowMetaTest {
+
+  private RowMeta rowMeta;
+  private FrozenRowMeta frozen;
+
+  @Before
+  public void setUp() {
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "Age" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "city" ) );
+    frozen = new FrozenRowMeta( rowMeta );
+  }
+
+  @Test
+  public void copiesTheLayout() {
+    assertEquals( 3, frozen.size() );
+    assertFalse( frozen.isEmpty() );
+    assertArrayEquals( rowMeta.getFieldNames(), frozen.getFieldNames() );
+    assertNotSame( rowMeta.getValueMeta( 0 ), frozen.getValueMeta( 0 ) );
+    assertNull( frozen.getValueMeta( 3 ) );
+    assertNull( frozen.getValueMeta( -1 ) );
+  }
+
+  @Test
+  public void indexOfValueIgnoresCase() {
+    assertEquals( 1, frozen.indexOfValue( "Age" ) );
+    assertEquals( 1, frozen.indexOfValue( "age" ) );
+    assertEquals( 2, frozen.indexOfValue( "CITY" ) );
+    assertEquals( -1, frozen.indexOfValue( "country" ) );
+    assertEquals( -1, frozen.indexOfValue( null ) );
+    assertSame( frozen.getValueMeta( 0 ), frozen.searchValueMeta( "NAME" ) );
+  }
+
+  @Test
+  public void indexOfValueFollowsRenamedValues() {
+    frozen.getValueMeta( 2 ).setName( "town" );
+    assertEquals( 2, frozen.indexOfValue( "town" ) );
+    assertEquals( -1, frozen.indexOfValue( "city" ) );
+  }
+
+  @Test( expected = UnsupportedOperationException.class )
+  public void addValueMetaIsNotAllowed() {
+    frozen.addValueMeta( new ValueMetaString( "country" ) );
+  }
+
+  @Test( expected = UnsupportedOperationException.class )
+  public void removeValueMetaIsNotAllowed() {
+    frozen.removeValueMeta( 0 );
+  }
+
+  @Test( expected = UnsupportedOperationException.class )
+  public void getValueMetaListIsNotModifiable() {
+    frozen.getValueMetaList().clear();
+  }
+
+  @Test
+  public void settingTheSameValueMetaListIsAllowed() {
+    frozen.setValueMetaList( frozen.getValueMetaList() );
+    assertEquals( 3, frozen.size() );
+  }
+
+  @Test
+  public void cloneIsMutable() {
+    RowMeta clone = frozen.clone();
+    assertFalse( clone instanceof FrozenRowMeta );
+    clone.addValueMeta( new ValueMetaString( "country" ) );
+    assertEquals( 4, clone.size() );
+    assertEquals( 3, clone.indexOfValue( "country" ) );
+    assertEquals( 3, frozen.size() );
+  }
+
+  @Test
+  public void freezeKeepsFrozenRowMeta() {
+    assertSame( frozen, FrozenRowMeta.freeze( frozen ) );
+    assertTrue( FrozenRowMeta.freeze( rowMeta ) != rowMeta );
+  }
+
+  @Test
+  public void rowsAreComparedAndSerialized() throws Exception {
+    Object[] row1 = new Object[] { "Ann", 30L, "Ghent" };
+    Object[] row2 = new Object[] { "Ann", 31L, "Ghent" };
+    assertTrue( frozen.compare( row1, row2 ) < 0 );
+    assertEquals( 0, frozen.compare( row1, row2, new int[] { 0, 2 } ) );
+    assertTrue( frozen.equals( row1, row2, new int[] { 0, 2 } ) );
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    frozen.writeData( new DataOutputStream( bytes ), row1 );
+    Object[] read = frozen.readData( new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ) );
+    assertArrayEquals( row1, read );
+  }
+}
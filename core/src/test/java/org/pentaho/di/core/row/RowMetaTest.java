@@ -125,6 +125,25 @@ public class RowMetaTest {
     assertTrue( list.contains( date ) );
   }
 
+  @Test
+  public void testLayoutVersionChangesWithTheLayout() throws KettleValueException {
+    long version = rowMeta.getLayoutVersion();
+    rowMeta.getValueMeta( 0 );
+    rowMeta.indexOfValue( "date" );
+    assertEquals( version, rowMeta.getLayoutVersion() );
+
+    rowMeta.addValueMeta( charly );
+    assertTrue( rowMeta.getLayoutVersion() > version );
+    version = rowMeta.getLayoutVersion();
+
+    rowMeta.removeValueMeta( "charly" );
+    assertTrue( rowMeta.getLayoutVersion() > version );
+    version = rowMeta.getLayoutVersion();
+
+    rowMeta.setValueMeta( 0, dup );
+    assertTrue( rowMeta.getLayoutVersion() > version );
+  }
+
   @Test
   public void testSetValueMetaList() throws KettlePluginException {
     List<ValueMetaInterface> setList = this.generateVList( new String[] { "alpha", "bravo" }, new int[] { 2, 2 } );
@@ -0,0 +1,101 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.core.row.value;
+
+import org.junit.Test;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class FastDateConversionTest {
+
+  private static final String[] MASKS = {
+    "yyyy/MM/dd HH:mm:ss.SSS", "yyyy/MM/dd HH:mm:ss", "yyyy-MM-dd", "yyyyMMdd", "yyyy-MM-dd'T'HH:mm:ss",
+    "yyyy-MM-dd'T'HH:mm:ss.SSSXXX" };
+
+  private static final String[] TIME_ZONES = { "UTC", "Europe/Brussels", "America/New_York", "Asia/Kolkata" };
+
+  private static SimpleDateFormat createFormat( String mask, String timeZone, boolean lenient ) {
+    SimpleDateFormat format = new SimpleDateFormat( mask );
+    format.setTimeZone( TimeZone.getTimeZone( timeZone ) );
+    format.setLenient( lenient );
+    return format;
+  }
+
+  @Test
+  public void testSameResultsAsSimpleDateFormat() {
+    Random random = new Random( 1234 );
+    for ( String mask : MASKS ) {
+      for ( String timeZone : TIME_ZONES ) {
+        for ( boolean lenient : new boolean[] { true, false } ) {
+          SimpleDateFormat format = createFormat( mask, timeZone, lenient );
+          FastDateConversion conversion = FastDateConversion.create( format );
+          assertNotNull( mask, conversion );
+
+          for ( int i = 0; i < 2000; i++ ) {
+            Date date = new Date( (long) ( ( random.nextDouble() * 2 - 1 ) * 4e12 ) );
+            String expected = format.format( date );
+            String formatted = conversion.format( date );
+            if ( formatted != null ) {
+              assertEquals( mask + " in " + timeZone, expected, formatted );
+            }
+
+            Date parsed = conversion.parse( expected );
+            if ( parsed != null ) {
+              assertEquals( mask + " in " + timeZone + " : " + expected,
+                format.parse( expected, new ParsePosition( 0 ) ), parsed );
+            }
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testValuesLeftToTheFormat() {
+    FastDateConversion conversion =
+      FastDateConversion.create( createFormat( "yyyy/MM/dd HH:mm:ss", "Europe/Brussels", true ) );
+
+    assertNull( conversion.parse( "2019/02/29 10:00:00" ) ); // rolled over by a lenient format
+    assertNull( conversion.parse( "2019/3/1 10:00:00" ) );
+    assertNull( conversion.parse( "2019/03/31 02:30:00" ) ); // skipped by daylight saving time
+    assertNull( conversion.parse( "2019/03/01 10:00:00 trailing" ) );
+    assertNull( conversion.parse( "1500/03/01 10:00:00" ) ); // Julian calendar
+    assertEquals( new Date( 1551430800000L ), conversion.parse( "2019/03/01 10:00:00" ) );
+  }
+
+  @Test
+  public void testUnsupportedMasks() {
+    assertNull( FastDateConversion.create( new SimpleDateFormat( "dd MMM yyyy" ) ) );
+    assertNull( FastDateConversion.create( new SimpleDateFormat( "yy/MM/dd" ) ) );
+    assertNull( FastDateConversion.create( new SimpleDateFormat( "HH:mm:ss" ) ) );
+    assertNull( FastDateConversion.create( new SimpleDateFormat( "yyyy-MM-dd", new Locale( "th", "TH", "TH" ) ) ) );
+  }
+}
@@ -0,0 +1,106 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.core.row.value;
+
+import org.junit.Test;
+
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.text.ParsePosition;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class FastNumberConversionTest {
+
+  private static final String[] MASKS = {
+    ValueMetaBase.DEFAULT_INTEGER_FORMAT_MASK, ValueMetaBase.DEFAULT_NUMBER_FORMAT_MASK,
+    ValueMetaBase.DEFAULT_NUMBER_PARSE_MASK, "#.#", "#", "0.00", "#,##0.00", "000", "##0.00;-##0.00" };
+
+  private static DecimalFormat createFormat( String mask, Locale locale ) {
+    DecimalFormat format = (DecimalFormat) NumberFormat.getInstance( locale );
+    format.applyPattern( mask );
+    return format;
+  }
+
+  @Test
+  public void testSameResultsAsDecimalFormat() {
+    Random random = new Random( 1234 );
+    for ( String mask : MASKS ) {
+      for ( Locale locale : new Locale[] { Locale.US, Locale.GERMANY } ) {
+        DecimalFormat format = createFormat( mask, locale );
+        FastNumberConversion conversion = FastNumberConversion.create( format );
+        assertNotNull( mask, conversion );
+
+        for ( int i = 0; i < 5000; i++ ) {
+          long integer = random.nextLong() >> random.nextInt( 64 );
+          assertEquals( mask, format.format( integer ), conversion.format( integer ) );
+
+          double number = i % 2 == 0 ? random.nextGaussian() * 1e6 : Math.round( random.nextGaussian() * 1e4 ) / 100.0;
+          String expected = format.format( number );
+          String formatted = conversion.format( number );
+          if ( formatted != null ) {
+            assertEquals( mask + " : " + number, expected, formatted );
+          }
+
+          Double parsed = conversion.parseNumber( expected );
+          if ( parsed != null ) {
+            assertEquals( mask + " : " + expected,
+              format.parse( expected, new ParsePosition( 0 ) ).doubleValue(), parsed, 0.0 );
+          }
+          String digits = Long.toString( integer );
+          Long parsedInteger = conversion.parseInteger( digits );
+          if ( parsedInteger != null ) {
+            assertEquals( mask + " : " + digits,
+              format.parse( digits, new ParsePosition( 0 ) ).longValue(), parsedInteger.longValue() );
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testValuesLeftToTheFormat() {
+    FastNumberConversion conversion = FastNumberConversion.create( createFormat( "#.##", Locale.US ) );
+
+    assertNull( conversion.format( 1.005 ) ); // needs rounding
+    assertNull( conversion.format( Double.NaN ) );
+    assertNull( conversion.format( -0.0 ) );
+    assertNull( conversion.parseNumber( "1,000.5" ) );
+    assertNull( conversion.parseNumber( "1e5" ) );
+    assertNull( conversion.parseNumber( "12345678901234567890" ) );
+    assertNull( conversion.parseInteger( "+5" ) );
+    assertEquals( "1.5", conversion.format( 1.5 ) );
+    assertEquals( -12.25, conversion.parseNumber( "-12.25" ), 0.0 );
+  }
+
+  @Test
+  public void testUnsupportedMasks() {
+    assertNull( FastNumberConversion.create( createFormat( "#.##%", Locale.US ) ) );
+    assertNull( FastNumberConversion.create( createFormat( "0.###E0", Locale.US ) ) );
+    assertNull( FastNumberConversion.create( createFormat( "$#.##", Locale.US ) ) );
+    assertNull( FastNumberConversion.create( createFormat( "#.##;(#.##)", Locale.US ) ) );
+  }
+}
@@ -0,0 +1,144 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.core.row.value;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.pentaho.di.core.exception.KettleValueException;
+
+import java.text.ParsePosition;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the string conversions of ValueMetaBase with the previous way of converting: one shared, locked JDK format
+ * per value meta-data object. Several threads use the same value meta-data like step copies sharing conversion
+ * meta-data do. Run with the main method, from the test class path.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@Threads( 4 )
+public class ValueMetaBaseConversionBenchmark {
+
+  private ValueMetaDate dateMeta;
+  private ValueMetaInteger integerMeta;
+  private ValueMetaNumber numberMeta;
+
+  private Date date;
+  private String dateString;
+  private String integerString;
+  private String numberString;
+
+  @Setup
+  public void setup() throws KettleValueException {
+    dateMeta = new ValueMetaDate( "date" );
+    dateMeta.setConversionMask( "yyyy/MM/dd HH:mm:ss" );
+    integerMeta = new ValueMetaInteger( "integer" );
+    numberMeta = new ValueMetaNumber( "number" );
+    numberMeta.setConversionMask( "#.##" );
+
+    date = new Date( 1563452735000L );
+    dateString = dateMeta.getString( date );
+    integerString = "1234567";
+    numberString = "12345.67";
+  }
+
+  @Benchmark
+  public String formatDate() {
+    return dateMeta.convertDateToString( date );
+  }
+
+  @Benchmark
+  public String formatDateLocked() {
+    synchronized ( dateMeta ) {
+      return dateMeta.getDateFormat().format( date );
+    }
+  }
+
+  @Benchmark
+  public Date parseDate() throws KettleValueException {
+    return dateMeta.convertStringToDate( dateString );
+  }
+
+  @Benchmark
+  public Date parseDateLocked() {
+    synchronized ( dateMeta ) {
+      return dateMeta.getDateFormat().parse( dateString, new ParsePosition( 0 ) );
+    }
+  }
+
+  @Benchmark
+  public Long parseInteger() throws KettleValueException {
+    return integerMeta.convertStringToInteger( integerString );
+  }
+
+  @Benchmark
+  public Long parseIntegerLocked() {
+    synchronized ( integerMeta ) {
+      return integerMeta.getDecimalFormat( false ).parse( integerString, new ParsePosition( 0 ) ).longValue();
+    }
+  }
+
+  @Benchmark
+  public String formatNumber() throws KettleValueException {
+    return numberMeta.convertNumberToString( 12345.67 );
+  }
+
+  @Benchmark
+  public String formatNumberLocked() {
+    synchronized ( numberMeta ) {
+      return numberMeta.getDecimalFormat( false ).format( 12345.67 );
+    }
+  }
+
+  @Benchmark
+  public Double parseNumber() throws KettleValueException {
+    return numberMeta.convertStringToNumber( numberString );
+  }
+
+  @Benchmark
+  public Double parseNumberLocked() {
+    synchronized ( numberMeta ) {
+      return numberMeta.getDecimalFormat( false ).parse( numberString, new ParsePosition( 0 ) ).doubleValue();
+    }
+  }
+
+  public static void main( String[] args ) throws RunnerException {
+    new Runner( new OptionsBuilder().include( ValueMetaBaseConversionBenchmark.class.getSimpleName() ).build() ).run();
+  }
+}
@@ -0,0 +1,221 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.base;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.vfs2.FileObject;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.variables.VariableSpace;
+import org.pentaho.di.core.vfs.KettleVFS;
+import org.pentaho.di.repository.ObjectId;
+import org.pentaho.di.repository.Repository;
+import org.pentaho.di.repository.RepositoryObject;
+import org.pentaho.di.repository.RepositoryObjectType;
+import org.pentaho.di.shared.SharedObjects;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * A process-wide cache of transformation or job meta-data loaded from files or a repository. Loading a file or
+ * repository object that didn't change since it was cached hands out a copy of the parsed meta-data instead of
+ * reading and parsing it again.<br>
+ * <br>
+ * Files are cached by URI, modification time and the repository they are loaded with, repository objects by
+ * repository, object ID and modification date. An entry is loaded again once the shared objects file it was loaded
+ * with changes.
+ * The least recently used entries are evicted once the maximum size, set by the KETTLE_META_CACHE_SIZE system
+ * property, is reached. The cache is off when it's 0, the default.
+ *
+ * @param <T> the type of meta-data
+ */
+public abstract class MetaCache<T extends AbstractMeta> {
+
+  /**
+   * Cached meta-data, with the shared objects file it was loaded with.
+   */
+  private static class Entry<T> {
+    private final T meta;
+    private final String sharedObjectsKey;
+
+    Entry( T meta, String sharedObjectsKey ) {
+      this.meta = meta;
+      this.sharedObjectsKey = sharedObjectsKey;
+    }
+  }
+
+  private final Cache<String, Entry<T>> cache;
+
+  /** Entries found with a changed shared objects file: a hit for the cache, a miss for the caller */
+  private final LongAdder staleCount = new LongAdder();
+
+  /**
+   * @param maximumSize the maximum number of entries, 0 to disable the cache
+   */
+  protected MetaCache( int maximumSize ) {
+    if ( maximumSize > 0 ) {
+      cache = CacheBuilder.newBuilder().maximumSize( maximumSize ).recordStats().build();
+    } else {
+      cache = null;
+    }
+  }
+
+  /**
+   * @return the cache size configured with the KETTLE_META_CACHE_SIZE system property
+   */
+  protected static int getConfiguredSize() {
+    return Const.toInt( System.getProperty( Const.KETTLE_META_CACHE_SIZE ), 0 );
+  }
+
+  /**
+   * Creates a copy of the meta-data that can be changed and executed without affecting the cached meta-data.
+   */
+  protected abstract T copy( T meta );
+
+  /**
+   * @return true if meta-data is cached
+   */
+  public boolean isEnabled() {
+    return cache != null;
+  }
+
+  /**
+   * @param key the key of the file or repository object, see {@link #getFileKey(String, Repository, VariableSpace)}
+   * @return a copy of the cached meta-data, or null if it's not cached or its shared objects file changed
+   */
+  public T get( String key ) {
+    if ( cache == null || key == null ) {
+      return null;
+    }
+    Entry<T> entry = cache.getIfPresent( key );
+    if ( entry == null ) {
+      return null;
+    }
+    if ( !Objects.equals( entry.sharedObjectsKey, getSharedObjectsKey( entry.meta ) ) ) {
+      cache.invalidate( key );
+      staleCount.increment();
+      return null;
+    }
+    return copy( entry.meta );
+  }
+
+  /**
+   * Caches a copy of the meta-data, so the meta-data itself can still be changed by the caller.
+   *
+   * @param key  the key of the file or repository object, nothing is cached if it's null
+   * @param meta the meta-data loaded from the file or repository object
+   */
+  public void put( String key, T meta ) {
+    if ( cache != null && key != null && meta != null ) {
+      cache.put( key, new Entry<>( copy( meta ), getSharedObjectsKey( meta ) ) );
+    }
+  }
+
+  public void clear() {
+    if ( cache != null ) {
+      cache.invalidateAll();
+    }
+  }
+
+  public long getHitCount() {
+    return getStats().hitCount() - staleCount.sum();
+  }
+
+  public long getMissCount() {
+    return getStats().missCount() + staleCount.sum();
+  }
+
+  public long getEvictionCount() {
+    return getStats().evictionCount();
+  }
+
+  public long getSize() {
+    return cache == null ? 0L : cache.size();
+  }
+
+  private CacheStats getStats() {
+    return cache == null ? new CacheStats( 0, 0, 0, 0, 0, 0 ) : cache.stats();
+  }
+
+  /**
+   * @return the key of a file: its URI, modification time and the repository it's loaded with, null if the cache is
+   *         off or the file can't be found
+   */
+  public String getFileKey( String filename, Repository rep, VariableSpace space ) {
+    if ( cache == null ) {
+      return null;
+    }
+    try {
+      FileObject file = KettleVFS.getFileObject( filename, space );
+      if ( !file.exists() ) {
+        return null;
+      }
+      // Connections and other shared objects are read from the repository if there is one
+      //
+      return file.getName().getURI() + "@" + file.getContent().getLastModifiedTime()
+        + ( rep == null ? " without repository" : " in repository " + rep.getName() );
+    } catch ( Exception e ) {
+      // Not something we can cache, let the loading report the problem
+      return null;
+    }
+  }
+
+  /**
+   * @return the URI and modification time of the shared objects file of the meta-data, just the URI if the file doesn't
+   *         exist, null if it can't be resolved
+   */
+  protected String getSharedObjectsKey( T meta ) {
+    try {
+      String filename = SharedObjects.createFilename( meta.environmentSubstitute( meta.getSharedObjectsFile() ) );
+      FileObject file = KettleVFS.getFileObject( filename, meta );
+      if ( !file.exists() ) {
+        return file.getName().getURI();
+      }
+      return file.getName().getURI() + "@" + file.getContent().getLastModifiedTime();
+    } catch ( Exception e ) {
+      return null;
+    }
+  }
+
+  /**
+   * @return the key of a repository object: the repository, object ID and modification date, null if the cache is
+   *         off or the object can't be found
+   */
+  public String getRepositoryKey( Repository rep, ObjectId objectId, RepositoryObjectType objectType ) {
+    if ( cache == null || rep == null || objectId == null ) {
+      return null;
+    }
+    try {
+      RepositoryObject object = rep.getObjectInformation( objectId, objectType );
+      if ( object == null || object.getModifiedDate() == null ) {
+        return null;
+      }
+      return rep.getName() + ":" + objectId.getId() + "@" + object.getModifiedDate().getTime();
+    } catch ( Exception e ) {
+      return null;
+    }
+  }
+}
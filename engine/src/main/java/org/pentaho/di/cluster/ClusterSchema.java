@@ -85,6 +85,13 @@ public class ClusterSchema extends ChangedFlag implements Cloneable, SharedObjec
   /** flag to compress data over the sockets or not */
   private boolean socketsCompressed;
 
+  /**
+   * The compression plugin (GZip, Snappy, None, ...) to compress batches of rows with. When specified, rows are sent
+   * over the sockets in compressed batches rather than as a single gzip stream. It's stored in XML and the Pentaho
+   * repository, the database repository has no column for it in R_CLUSTER.
+   */
+  private String socketsCompressionType;
+
   /**
    * Flag to indicate that this cluster schema is dynamic.<br>
    * This means that the slave server configuration is taken from one of the defined master servers.<br>
@@ -131,6 +138,7 @@ public class ClusterSchema extends ChangedFlag implements Cloneable, SharedObjec
     this.basePort = clusterSchema.basePort;
     this.socketsBufferSize = clusterSchema.socketsBufferSize;
     this.socketsCompressed = clusterSchema.socketsCompressed;
+    this.socketsCompressionType = clusterSchema.socketsCompressionType;
     this.socketsFlushInterval = clusterSchema.socketsFlushInterval;
     this.dynamic = clusterSchema.dynamic;
 
@@ -167,6 +175,7 @@ public class ClusterSchema extends ChangedFlag implements Cloneable, SharedObjec
     xml.append( "        " ).append( XMLHandler.addTagValue( "sockets_buffer_size", socketsBufferSize ) );
     xml.append( "        " ).append( XMLHandler.addTagValue( "sockets_flush_interval", socketsFlushInterval ) );
     xml.append( "        " ).append( XMLHandler.addTagValue( "sockets_compressed", socketsCompressed ) );
+    xml.append( "        " ).append( XMLHandler.addTagValue( "sockets_compression_type", socketsCompressionType ) );
     xml.append( "        " ).append( XMLHandler.addTagValue( "dynamic", dynamic ) );
 
     xml.append( "        " ).append( XMLHandler.openTag( "slaveservers" ) ).append( Const.CR );
@@ -187,6 +196,7 @@ public class ClusterSchema extends ChangedFlag implements Cloneable, SharedObjec
     socketsBufferSize = XMLHandler.getTagValue( clusterSchemaNode, "sockets_buffer_size" );
     socketsFlushInterval = XMLHandler.getTagValue( clusterSchemaNode, "sockets_flush_interval" );
     socketsCompressed = "Y".equalsIgnoreCase( XMLHandler.getTagValue( clusterSchemaNode, "sockets_compressed" ) );
+    socketsCompressionType = XMLHandler.getTagValue( clusterSchemaNode, "sockets_compression_type" );
     dynamic = "Y".equalsIgnoreCase( XMLHandler.getTagValue( clusterSchemaNode, "dynamic" ) );
 
     Node slavesNode = XMLHandler.getSubNode( clusterSchemaNode, "slaveservers" );
@@ -344,6 +354,21 @@ public class ClusterSchema extends ChangedFlag implements Cloneable, SharedObjec
     this.socketsCompressed = socketsCompressed;
   }
 
+  /**
+   * @return the compression plugin to compress batches of rows with, null or empty to send a single stream
+   */
+  public String getSocketsCompressionType() {
+    return socketsCompressionType;
+  }
+
+  /**
+   * @param socketsCompressionType
+   *          the compression plugin to compress batches of rows with, null or empty to send a single stream
+   */
+  public void setSocketsCompressionType( String socketsCompressionType ) {
+    this.socketsCompressionType = socketsCompressionType;
+  }
+
   public SlaveServer findSlaveServer( String slaveServerName ) {
     for ( int i = 0; i < slaveServers.size(); i++ ) {
       SlaveServer slaveServer = slaveServers.get( i );
@@ -0,0 +1,135 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.job;
+
+import org.pentaho.di.base.MetaCache;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.variables.VariableSpace;
+import org.pentaho.di.core.variables.Variables;
+import org.pentaho.di.job.entry.JobEntryCopy;
+import org.pentaho.di.repository.ObjectId;
+import org.pentaho.di.repository.Repository;
+import org.pentaho.di.repository.RepositoryDirectoryInterface;
+import org.pentaho.di.repository.RepositoryObjectType;
+import org.pentaho.metastore.api.IMetaStore;
+
+/**
+ * The process-wide cache of jobs loaded by job entries and steps executing them, see {@link MetaCache}.
+ */
+public class JobMetaCache extends MetaCache<JobMeta> {
+
+  private static JobMetaCache instance;
+
+  JobMetaCache( int maximumSize ) {
+    super( maximumSize );
+  }
+
+  public static synchronized JobMetaCache getInstance() {
+    if ( instance == null ) {
+      instance = new JobMetaCache( getConfiguredSize() );
+    }
+    return instance;
+  }
+
+  /**
+   * Loads a job from a file, like new JobMeta( space, filename, rep, metaStore, null ) does.
+   */
+  public JobMeta loadJobMeta( VariableSpace space, String filename, Repository rep, IMetaStore metaStore )
+    throws KettleException {
+    String key = getFileKey( filename, rep, space );
+    JobMeta jobMeta = get( key );
+    if ( jobMeta == null ) {
+      jobMeta = new JobMeta( space, filename, rep, metaStore, null );
+      put( key, jobMeta );
+    } else {
+      // A loaded job starts with the variables of the parent
+      //
+      jobMeta.setMetaStore( metaStore );
+      jobMeta.setRepository( rep );
+      jobMeta.initializeVariablesFrom( space );
+      jobMeta.setInternalKettleVariables();
+    }
+    return jobMeta;
+  }
+
+  /**
+   * Loads the last revision of a job from a repository by name.
+   */
+  public JobMeta loadJobMeta( Repository rep, String name, RepositoryDirectoryInterface directory )
+    throws KettleException {
+    String key = isEnabled()
+      ? getRepositoryKey( rep, rep.getJobId( name, directory ), RepositoryObjectType.JOB ) : null;
+    JobMeta jobMeta = get( key );
+    if ( jobMeta == null ) {
+      jobMeta = rep.loadJob( name, directory, null, null );
+      put( key, jobMeta );
+    } else {
+      initializeRepositoryCopy( jobMeta, rep );
+    }
+    return jobMeta;
+  }
+
+  /**
+   * Loads the last revision of a job from a repository by reference.
+   */
+  public JobMeta loadJobMeta( Repository rep, ObjectId objectId ) throws KettleException {
+    String key = getRepositoryKey( rep, objectId, RepositoryObjectType.JOB );
+    JobMeta jobMeta = get( key );
+    if ( jobMeta == null ) {
+      jobMeta = rep.loadJob( objectId, null );
+      put( key, jobMeta );
+    } else {
+      initializeRepositoryCopy( jobMeta, rep );
+    }
+    return jobMeta;
+  }
+
+  /**
+   * Gives a copy the variables a job loaded from a repository starts with.
+   */
+  private static void initializeRepositoryCopy( JobMeta jobMeta, Repository rep ) {
+    jobMeta.setRepository( rep );
+    jobMeta.initializeVariablesFrom( null );
+    jobMeta.setInternalKettleVariables();
+  }
+
+  /**
+   * Copies the job: the hops of the copy connect the copied job entries. The copy starts without variables, they are
+   * initialized for every load.
+   */
+  @Override
+  protected JobMeta copy( JobMeta jobMeta ) {
+    JobMeta copy = (JobMeta) jobMeta.realClone( false );
+    for ( JobHopMeta hop : copy.getJobhops() ) {
+      hop.setFromEntry( findCopiedEntry( copy, hop.getFromEntry() ) );
+      hop.setToEntry( findCopiedEntry( copy, hop.getToEntry() ) );
+    }
+
+    copy.shareVariablesWith( new Variables() );
+    return copy;
+  }
+
+  private static JobEntryCopy findCopiedEntry( JobMeta copy, JobEntryCopy entry ) {
+    return entry == null ? null : copy.findJobEntry( entry.getName(), entry.getNr(), true );
+  }
+}
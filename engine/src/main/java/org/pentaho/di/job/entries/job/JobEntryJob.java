@@ -56,6 +56,7 @@ import org.pentaho.di.job.DelegationListener;
 import org.pentaho.di.job.Job;
 import org.pentaho.di.job.JobExecutionConfiguration;
 import org.pentaho.di.job.JobMeta;
+import org.pentaho.di.job.JobMetaCache;
 import org.pentaho.di.job.entry.JobEntryBase;
 import org.pentaho.di.job.entry.JobEntryInterface;
 import org.pentaho.di.job.entry.JobEntryRunConfigurableInterface;
@@ -1391,7 +1392,7 @@ public class JobEntryJob extends JobEntryBase implements Cloneable, JobEntryInte
     if ( repositoryDirectory == null ) {
       throw new KettleException( "Unable to find repository directory [" + Const.NVL( realDirectory, "" ) + "]" );
     }
-    JobMeta jobMeta = rep.loadJob( realJobName, repositoryDirectory, null, null ); //reads
+    JobMeta jobMeta = JobMetaCache.getInstance().loadJobMeta( rep, realJobName, repositoryDirectory ); //reads
     if ( jobMeta != null ) {
       jobMeta.initializeVariablesFrom( tmpSpace );
     }
@@ -1409,7 +1410,7 @@ public class JobEntryJob extends JobEntryBase implements Cloneable, JobEntryInte
           String realFilename = tmpSpace.environmentSubstitute( getFilename() );
 
           try {
-            jobMeta = new JobMeta( tmpSpace, realFilename, rep, metaStore, null );
+            jobMeta = JobMetaCache.getInstance().loadJobMeta( tmpSpace, realFilename, rep, metaStore );
           } catch ( KettleException e ) {
             // try to load from repository, this job may have been developed locally and later uploaded to the repository
             jobMeta = getJobMetaFromRepository( rep, r, realFilename, tmpSpace );
@@ -1425,7 +1426,7 @@ public class JobEntryJob extends JobEntryBase implements Cloneable, JobEntryInte
             if ( !transPath.endsWith( RepositoryObjectType.JOB.getExtension() ) ) {
               transPath = transPath + RepositoryObjectType.JOB.getExtension();
             }
-            jobMeta = new JobMeta( tmpSpace, transPath, rep, metaStore, null );
+            jobMeta = JobMetaCache.getInstance().loadJobMeta( tmpSpace, transPath, rep, metaStore );
           } else {
             jobMeta = getJobMetaFromRepository( rep, r, transPath, tmpSpace );
           }
@@ -1434,7 +1435,7 @@ public class JobEntryJob extends JobEntryBase implements Cloneable, JobEntryInte
           if ( rep != null ) {
             // Load the last version...
             //
-            jobMeta = rep.loadJob( jobObjectId, null );
+            jobMeta = JobMetaCache.getInstance().loadJobMeta( rep, jobObjectId );
             break;
           } else {
             throw new KettleException(
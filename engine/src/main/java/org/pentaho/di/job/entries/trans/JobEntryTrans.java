@@ -78,6 +78,7 @@ import org.pentaho.di.trans.StepWithMappingMeta;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransExecutionConfiguration;
 import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.TransMetaCache;
 import org.pentaho.di.trans.TransSupplier;
 import org.pentaho.di.trans.cluster.TransSplitter;
 import org.pentaho.di.trans.step.StepMeta;
@@ -1300,7 +1301,7 @@ public class JobEntryTrans extends JobEntryBase implements Cloneable, JobEntryIn
     if ( repositoryDirectory == null ) {
       throw new KettleException( "Unable to find repository directory [" + Const.NVL( realDirectory, "" ) + "]" );
     }
-    return rep.loadTransformation( realTransName, repositoryDirectory, null, true, null );
+    return TransMetaCache.getInstance().loadTransMeta( rep, realTransName, repositoryDirectory );
   }
 
   public TransMeta getTransMeta( Repository rep, IMetaStore metaStore, VariableSpace space ) throws KettleException {
@@ -1314,11 +1315,13 @@ public class JobEntryTrans extends JobEntryBase implements Cloneable, JobEntryIn
           String realFilename = tmpSpace.environmentSubstitute( getFilename() );
 
           try {
-            transMeta = new TransMeta( realFilename, metaStore, null, true, null, null );
+            transMeta = TransMetaCache.getInstance().loadTransMeta( realFilename, metaStore, null, null );
           } catch ( KettleException e ) {
             // try to load from repository, this trans may have been developed locally and later uploaded to the
             // repository
-            transMeta = rep == null ? new TransMeta( realFilename, metaStore, null, true, this, null ) : getTransMetaFromRepository( rep, r, realFilename );
+            transMeta = rep == null
+              ? TransMetaCache.getInstance().loadTransMeta( realFilename, metaStore, null, this )
+              : getTransMetaFromRepository( rep, r, realFilename );
           }
           break;
         case REPOSITORY_BY_NAME:
@@ -1333,9 +1336,11 @@ public class JobEntryTrans extends JobEntryBase implements Cloneable, JobEntryIn
             if ( !transPath.endsWith( RepositoryObjectType.TRANSFORMATION.getExtension() ) ) {
               transPath = transPath + RepositoryObjectType.TRANSFORMATION.getExtension();
             }
-            transMeta = new TransMeta( transPath, metaStore, null, true, this, null );
+            transMeta = TransMetaCache.getInstance().loadTransMeta( transPath, metaStore, null, this );
           } else {
-            transMeta = rep == null ? new TransMeta( transPath, metaStore, null, true, this, null ) : getTransMetaFromRepository( rep, r, transPath );
+            transMeta = rep == null
+              ? TransMetaCache.getInstance().loadTransMeta( transPath, metaStore, null, this )
+              : getTransMetaFromRepository( rep, r, transPath );
           }
           break;
         case REPOSITORY_BY_REFERENCE:
@@ -1347,7 +1352,7 @@ public class JobEntryTrans extends JobEntryBase implements Cloneable, JobEntryIn
           if ( rep != null ) {
             // Load the last revision
             //
-            transMeta = rep.loadTransformation( transObjectId, null );
+            transMeta = TransMetaCache.getInstance().loadTransMeta( rep, transObjectId );
           }
           break;
         default:
@@ -465,6 +465,8 @@ public class RepositoryImporter implements IRepositoryImporter, CanLimitDirs {
       return false;
     } else if ( !equals( clusterSchema.isSocketsCompressed(), clusterSchema2.isSocketsCompressed() ) ) {
       return false;
+    } else if ( !equals( clusterSchema.getSocketsCompressionType(), clusterSchema2.getSocketsCompressionType() ) ) {
+      return false;
     } else if ( !equals( clusterSchema.isDynamic(), clusterSchema2.isDynamic() ) ) {
       return false;
     } else if ( !equals( clusterSchema.getSlaveServers(), clusterSchema2.getSlaveServers() ) ) {
@@ -128,7 +128,7 @@ public abstract class StepWithMappingMeta extends BaseSerializingMeta implements
               String dirStr = realFilename.substring( 0, realFilename.lastIndexOf( "/" ) );
               String tmpFilename = realFilename.substring( realFilename.lastIndexOf( "/" ) + 1 );
               RepositoryDirectoryInterface dir = rep.findDirectory( dirStr );
-              mappingTransMeta = rep.loadTransformation( tmpFilename, dir, null, true, null );
+              mappingTransMeta = TransMetaCache.getInstance().loadTransMeta( rep, tmpFilename, dir );
             } catch ( KettleException ke ) {
               // try without extension
               if ( realFilename.endsWith( Const.STRING_TRANS_DEFAULT_EXT ) ) {
@@ -136,7 +136,7 @@ public abstract class StepWithMappingMeta extends BaseSerializingMeta implements
                   String tmpFilename = realFilename.substring( realFilename.lastIndexOf( "/" ) + 1, realFilename.indexOf( "." + Const.STRING_TRANS_DEFAULT_EXT ) );
                   String dirStr = realFilename.substring( 0, realFilename.lastIndexOf( "/" ) );
                   RepositoryDirectoryInterface dir = rep.findDirectory( dirStr );
-                  mappingTransMeta = rep.loadTransformation( tmpFilename, dir, null, true, null );
+                  mappingTransMeta = TransMetaCache.getInstance().loadTransMeta( rep, tmpFilename, dir );
                 } catch ( KettleException ke2 ) {
                   // fall back to try loading from file system (transMeta is going to be null)
                 }
@@ -144,7 +144,7 @@ public abstract class StepWithMappingMeta extends BaseSerializingMeta implements
             }
           }
           if ( mappingTransMeta == null ) {
-            mappingTransMeta = new TransMeta( realFilename, metaStore, rep, true, tmpSpace, null );
+            mappingTransMeta = TransMetaCache.getInstance().loadTransMeta( realFilename, metaStore, rep, tmpSpace );
             LogChannel.GENERAL.logDetailed( "Loading transformation from repository", "Transformation was loaded from XML file [" + realFilename + "]" );
           }
         } catch ( Exception e ) {
@@ -176,7 +176,7 @@ public abstract class StepWithMappingMeta extends BaseSerializingMeta implements
             if ( repdir != null ) {
               try {
                 // reads the last revision in the repository...
-                mappingTransMeta = rep.loadTransformation( realTransname, repdir, null, true, null );
+                mappingTransMeta = TransMetaCache.getInstance().loadTransMeta( rep, realTransname, repdir );
                 // TODO: FIXME: pass in metaStore to repository?
 
                 LogChannel.GENERAL.logDetailed( "Loading transformation from repository", "Executor transformation [" + realTransname + "] was loaded from the repository" );
@@ -188,12 +188,13 @@ public abstract class StepWithMappingMeta extends BaseSerializingMeta implements
         } else {
           // rep is null, let's try loading by filename
           try {
-            mappingTransMeta = new TransMeta( realDirectory + "/" + realTransname, metaStore, null, true, tmpSpace, null );
+            mappingTransMeta = TransMetaCache.getInstance().loadTransMeta(
+              realDirectory + "/" + realTransname, metaStore, null, tmpSpace );
           } catch ( KettleException ke ) {
             try {
               // add .ktr extension and try again
-              mappingTransMeta =
-                new TransMeta( realDirectory + "/" + realTransname + "." + Const.STRING_TRANS_DEFAULT_EXT, metaStore, null, true, tmpSpace, null );
+              mappingTransMeta = TransMetaCache.getInstance().loadTransMeta(
+                realDirectory + "/" + realTransname + "." + Const.STRING_TRANS_DEFAULT_EXT, metaStore, null, tmpSpace );
             } catch ( KettleException ke2 ) {
               throw new KettleException( BaseMessages.getString( PKG, "StepWithMappingMeta.Exception.UnableToLoadTrans",
                 realTransname ) + realDirectory );
@@ -204,7 +205,7 @@ public abstract class StepWithMappingMeta extends BaseSerializingMeta implements
 
       case REPOSITORY_BY_REFERENCE:
         // Read the last revision by reference...
-        mappingTransMeta = rep.loadTransformation( executorMeta.getTransObjectId(), null );
+        mappingTransMeta = TransMetaCache.getInstance().loadTransMeta( rep, executorMeta.getTransObjectId() );
         break;
       default:
         break;
@@ -59,6 +59,7 @@ import org.apache.commons.vfs2.FileObject;
 import org.pentaho.di.cluster.SlaveServer;
 import org.pentaho.di.core.BlockingBatchingRowSet;
 import org.pentaho.di.core.BlockingRowSet;
+import org.pentaho.di.core.ColumnarRowSet;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.util.ConnectionUtil;
 import org.pentaho.di.core.util.Utils;
@@ -69,9 +70,12 @@ import org.pentaho.di.core.KettleEnvironment;
 import org.pentaho.di.core.QueueRowSet;
 import org.pentaho.di.core.Result;
 import org.pentaho.di.core.ResultFile;
+import org.pentaho.di.core.RowArrayPool;
 import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.RowSetProfile;
 import org.pentaho.di.core.SingleRowRowSet;
+import org.pentaho.di.core.SpscRowSet;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.database.DatabaseTransactionListener;
@@ -130,6 +134,7 @@ import org.pentaho.di.trans.performance.StepPerformanceSnapShot;
 import org.pentaho.di.trans.step.BaseStep;
 import org.pentaho.di.trans.step.BaseStepData.StepExecutionStatus;
 import org.pentaho.di.trans.step.RunThread;
+import org.pentaho.di.trans.step.ScheduledStep;
 import org.pentaho.di.trans.step.StepAdapter;
 import org.pentaho.di.trans.step.StepDataInterface;
 import org.pentaho.di.trans.step.StepInitThread;
@@ -138,6 +143,7 @@ import org.pentaho.di.trans.step.StepListener;
 import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepMetaDataCombi;
 import org.pentaho.di.trans.step.StepPartitioningMeta;
+import org.pentaho.di.trans.step.StepScheduler;
 import org.pentaho.di.trans.steps.mappinginput.MappingInput;
 import org.pentaho.di.trans.steps.mappingoutput.MappingOutput;
 import org.pentaho.di.www.PrepareExecutionTransServlet;
@@ -277,11 +283,21 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
    */
   public List<RowSet> rowsets;
 
+  /**
+   * Indicates if the row sets record how long the steps wait on them (KETTLE_ROWSET_PROFILING).
+   */
+  private boolean profilingRowSets;
+
   /**
    * A list of all the steps.
    */
   private List<StepMetaDataCombi> steps;
 
+  /**
+   * The step copies run by the step scheduler when using pooled step execution.
+   */
+  private List<ScheduledStep> scheduledSteps = new ArrayList<>();
+
   /**
    * Indicates if the result rows have been set
    */
@@ -837,9 +853,22 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
     //
     steps = new ArrayList<>();
     rowsets = new ArrayList<>();
+    scheduledSteps = new ArrayList<>();
 
     List<StepMeta> hopsteps = transMeta.getTransHopSteps( false );
 
+    // Optionally give every hop a pool so that consumers can hand back the row arrays they're done with.
+    //
+    boolean recycleRowArrays = "Y".equalsIgnoreCase( getVariable( Const.KETTLE_RECYCLE_ROW_ARRAYS, "N" ) );
+
+    // Optionally let the hops of batch-aware steps carry columnar row batches.
+    //
+    boolean columnarRowBatches = "Y".equalsIgnoreCase( getVariable( Const.KETTLE_COLUMNAR_ROW_BATCHES, "N" ) );
+
+    // Optionally record how long the steps wait on every hop.
+    //
+    profilingRowSets = "Y".equalsIgnoreCase( getVariable( Const.KETTLE_ROWSET_PROFILING, "N" ) );
+
     if ( log.isDetailed() ) {
       log.logDetailed( BaseMessages.getString( PKG, "Trans.Log.FoundDefferentSteps", String.valueOf( hopsteps
         .size() ) ) );
@@ -882,6 +911,13 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
         // How many times do we start the target step?
         int nextCopies = nextStep.getCopies();
 
+        // Steps run by the step scheduler must never block a worker on a full row set.
+        // The scheduler holds them back at the row set size, their row sets have room for the rows of one more call.
+        //
+        boolean scheduledProducer = transMeta.isUsingPooledStepExecution() && StepScheduler.canSchedule( thisStep );
+        int rowSetCapacity = scheduledProducer
+          ? StepScheduler.getRowSetCapacity( transMeta.getSizeRowset() ) : transMeta.getSizeRowset();
+
         // Are we re-partitioning?
         boolean repartitioning;
         if ( thisStep.isPartitioned() ) {
@@ -928,10 +964,18 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
                 //
                 Boolean batchingRowSet =
                   ValueMetaString.convertStringToBoolean( System.getProperty( Const.KETTLE_BATCHING_ROWSET ) );
-                if ( batchingRowSet != null && batchingRowSet.booleanValue() ) {
-                  rowSet = new BlockingBatchingRowSet( transMeta.getSizeRowset() );
+                if ( columnarRowBatches && ( thisStep.getStepMetaInterface().supportsColumnarRowBatches()
+                  || nextStep.getStepMetaInterface().supportsColumnarRowBatches() ) ) {
+                  rowSet = new ColumnarRowSet( rowSetCapacity );
+                } else if ( transMeta.isUsingLockFreeRowSets() ) {
+                  // Outside of N:M re-partitioning every row set connects exactly one source copy with exactly one
+                  // target copy so a single producer/single consumer ring buffer can be used.
+                  //
+                  rowSet = new SpscRowSet( rowSetCapacity );
+                } else if ( batchingRowSet != null && batchingRowSet.booleanValue() ) {
+                  rowSet = new BlockingBatchingRowSet( rowSetCapacity );
                 } else {
-                  rowSet = new BlockingRowSet( transMeta.getSizeRowset() );
+                  rowSet = new BlockingRowSet( rowSetCapacity );
                 }
                 break;
 
@@ -963,6 +1007,12 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
               default:
                 break;
             }
+            if ( recycleRowArrays ) {
+              rowSet.setRowArrayPool( new RowArrayPool( transMeta.getSizeRowset() ) );
+            }
+            if ( profilingRowSets ) {
+              rowSet.setProfile( new RowSetProfile() );
+            }
             rowsets.add( rowSet );
             if ( log.isDetailed() ) {
               log.logDetailed( BaseMessages.getString( PKG, "Trans.TransformationAllocatedNewRowset", rowSet
@@ -977,8 +1027,14 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
           // distribution...
           for ( int s = 0; s < thisCopies; s++ ) {
             for ( int t = 0; t < nextCopies; t++ ) {
-              BlockingRowSet rowSet = new BlockingRowSet( transMeta.getSizeRowset() );
+              BlockingRowSet rowSet = new BlockingRowSet( rowSetCapacity );
               rowSet.setThreadNameFromToCopy( thisStep.getName(), s, nextStep.getName(), t );
+              if ( recycleRowArrays ) {
+                rowSet.setRowArrayPool( new RowArrayPool( transMeta.getSizeRowset() ) );
+              }
+              if ( profilingRowSets ) {
+                rowSet.setProfile( new RowSetProfile() );
+              }
               rowsets.add( rowSet );
               if ( log.isDetailed() ) {
                 log.logDetailed( BaseMessages.getString( PKG, "Trans.TransformationAllocatedNewRowset", rowSet
@@ -1357,6 +1413,13 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
               //
               addStepPerformanceSnapShot();
 
+              // Report where the rows waited (if the hops are profiled)
+              //
+              String bottleneckReport = getBottleneckReport();
+              if ( bottleneckReport != null ) {
+                log.logBasic( bottleneckReport );
+              }
+
               try {
                 fireTransFinishedListeners();
               } catch ( Exception e ) {
@@ -1486,9 +1549,6 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
         //
         for ( int i = 0; i < steps.size(); i++ ) {
           final StepMetaDataCombi combi = steps.get( i );
-          RunThread runThread = new RunThread( combi );
-          Thread thread = new Thread( runThread );
-          thread.setName( getName() + " - " + combi.stepname );
           ExtensionPointHandler.callExtensionPoint( log, KettleExtensionPoint.StepBeforeStart.id, combi );
           // Call an extension point at the end of the step
           //
@@ -1505,7 +1565,14 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
 
           } );
 
-          thread.start();
+          if ( transMeta.isUsingPooledStepExecution() && StepScheduler.canSchedule( combi.stepMeta ) ) {
+            scheduledSteps.add( StepScheduler.getInstance().schedule( combi, transMeta.getSizeRowset() ) );
+          } else {
+            RunThread runThread = new RunThread( combi );
+            Thread thread = new Thread( runThread );
+            thread.setName( getName() + " - " + combi.stepname );
+            thread.start();
+          }
         }
         break;
 
@@ -3215,6 +3282,46 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
     return rowsets;
   }
 
+  /**
+   * @return true if the row sets record how long the steps wait on them (KETTLE_ROWSET_PROFILING)
+   */
+  public boolean isProfilingRowSets() {
+    return profilingRowSets;
+  }
+
+  /**
+   * Describes how long the steps waited on the profiled hops (KETTLE_ROWSET_PROFILING), the hops with the most blocked
+   * producers first. A blocked producer points at a slow target step, a waiting consumer at a slow source step.
+   *
+   * @return the report or null if no hop is profiled
+   */
+  public String getBottleneckReport() {
+    if ( !profilingRowSets || rowsets == null ) {
+      return null;
+    }
+    List<RowSet> profiled = new ArrayList<>();
+    for ( RowSet rowSet : rowsets ) {
+      if ( rowSet.getProfile() != null ) {
+        profiled.add( rowSet );
+      }
+    }
+    if ( profiled.isEmpty() ) {
+      return null;
+    }
+    profiled.sort( Comparator.comparingLong( ( RowSet rowSet ) -> rowSet.getProfile().getPutWaitNanos() ).reversed() );
+
+    StringBuilder report = new StringBuilder( BaseMessages.getString( PKG, "Trans.Log.BottleneckReport" ) );
+    for ( RowSet rowSet : profiled ) {
+      RowSetProfile profile = rowSet.getProfile();
+      report.append( Const.CR ).append( BaseMessages.getString( PKG, "Trans.Log.BottleneckReport.Hop",
+        rowSet.getName(),
+        String.valueOf( TimeUnit.NANOSECONDS.toMillis( profile.getPutWaitNanos() ) ),
+        String.valueOf( TimeUnit.NANOSECONDS.toMillis( profile.getGetWaitNanos() ) ),
+        String.valueOf( Math.round( profile.getAverageOccupancy() ) ) ) );
+    }
+    return report.toString();
+  }
+
   /**
    * Gets a list of steps in the transformation.
    *
@@ -3224,6 +3331,16 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
     return steps;
   }
 
+  /**
+   * Gets the step copies that are run by the step scheduler. This list is empty unless the transformation uses pooled
+   * step execution.
+   *
+   * @return the scheduled step copies, which report the time they spent processing rows and waiting
+   */
+  public List<ScheduledStep> getScheduledSteps() {
+    return scheduledSteps;
+  }
+
   protected void setSteps( List<StepMetaDataCombi> steps ) {
     this.steps = steps;
   }
@@ -268,6 +268,17 @@ public class TransMeta extends AbstractMeta
    */
   protected boolean usingThreadPriorityManagment;
 
+  /**
+   * Flag to indicate that hops between a single producing and a single consuming step copy should use a lock-free
+   * ring buffer instead of a blocking queue.
+   */
+  protected boolean usingLockFreeRowSets;
+
+  /**
+   * Flag to indicate that step copies should be run by the shared step scheduler instead of a thread per step copy.
+   */
+  protected boolean usingPooledStepExecution;
+
   /** The slave-step-copy/partition distribution. Only used for slave transformations in a clustering environment. */
   protected SlaveStepCopyPartitionDistribution slaveStepCopyPartitionDistribution;
 
@@ -692,6 +703,8 @@ public class TransMeta extends AbstractMeta
     // - re-enabling in version 3.0.1 to prevent excessive locking (PDI-491)
     //
     usingThreadPriorityManagment = true;
+    usingLockFreeRowSets = false;
+    usingPooledStepExecution = false;
 
     // The performance monitoring options
     //
@@ -2483,6 +2496,8 @@ public class TransMeta extends AbstractMeta
     retval.append( "    " ).append( XMLHandler.addTagValue( "feedback_shown", feedbackShown ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "feedback_size", feedbackSize ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "using_thread_priorities", usingThreadPriorityManagment ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "lock_free_rowsets", usingLockFreeRowSets ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "pooled_step_execution", usingPooledStepExecution ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "shared_objects_file", sharedObjectsFile ) );
 
     // Performance monitoring
@@ -3392,6 +3407,9 @@ public class TransMeta extends AbstractMeta
         feedbackSize = Const.toInt( XMLHandler.getTagValue( infonode, "feedback_size" ), Const.ROWS_UPDATE );
         usingThreadPriorityManagment =
             !"N".equalsIgnoreCase( XMLHandler.getTagValue( infonode, "using_thread_priorities" ) );
+        usingLockFreeRowSets = "Y".equalsIgnoreCase( XMLHandler.getTagValue( infonode, "lock_free_rowsets" ) );
+        usingPooledStepExecution =
+          "Y".equalsIgnoreCase( XMLHandler.getTagValue( infonode, "pooled_step_execution" ) );
 
         // Performance monitoring for steps...
         //
@@ -5594,6 +5612,46 @@ public class TransMeta extends AbstractMeta
     this.usingThreadPriorityManagment = usingThreadPriorityManagment;
   }
 
+  /**
+   * Checks whether hops between a single producing and a single consuming step copy use lock-free row sets.
+   *
+   * @return true if lock-free row sets are used for single producer/single consumer hops, false otherwise
+   */
+  public boolean isUsingLockFreeRowSets() {
+    return usingLockFreeRowSets;
+  }
+
+  /**
+   * Sets whether hops between a single producing and a single consuming step copy use lock-free row sets.
+   *
+   * @param usingLockFreeRowSets
+   *          true to use lock-free row sets for single producer/single consumer hops, false otherwise
+   */
+  public void setUsingLockFreeRowSets( boolean usingLockFreeRowSets ) {
+    this.usingLockFreeRowSets = usingLockFreeRowSets;
+  }
+
+  /**
+   * Checks whether the step copies are run by the shared step scheduler, a bounded pool of worker threads, instead of
+   * a thread per step copy. Steps that can't be scheduled still get a thread of their own.
+   *
+   * @return true if the step copies are run by the step scheduler, false otherwise
+   * @see org.pentaho.di.trans.step.StepScheduler
+   */
+  public boolean isUsingPooledStepExecution() {
+    return usingPooledStepExecution;
+  }
+
+  /**
+   * Sets whether the step copies are run by the shared step scheduler instead of a thread per step copy.
+   *
+   * @param usingPooledStepExecution
+   *          true to run the step copies with the step scheduler, false otherwise
+   */
+  public void setUsingPooledStepExecution( boolean usingPooledStepExecution ) {
+    this.usingPooledStepExecution = usingPooledStepExecution;
+  }
+
   /**
    * Check a step to see if there are no multiple steps to read from. If so, check to see if the receiving rows are all
    * the same in layout. We only want to ONLY use the DBCache for this to prevent GUI stalls.
@@ -6383,6 +6441,8 @@ public class TransMeta extends AbstractMeta
         .append( this.isFeedbackShown() )
         .append( this.getFeedbackSize() )
         .append( this.isUsingThreadPriorityManagment() )
+        .append( this.isUsingLockFreeRowSets() )
+        .append( this.isUsingPooledStepExecution() )
         .append( this.getSharedObjectsFile() )
         .append( this.isCapturingStepPerformanceSnapShots() )
         .append( this.getStepPerformanceCapturingDelay() )
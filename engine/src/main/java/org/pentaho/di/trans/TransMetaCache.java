@@ -0,0 +1,139 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.trans;
+
+import java.util.HashMap;
+
+import org.pentaho.di.base.MetaCache;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.variables.VariableSpace;
+import org.pentaho.di.core.variables.Variables;
+import org.pentaho.di.repository.ObjectId;
+import org.pentaho.di.repository.Repository;
+import org.pentaho.di.repository.RepositoryDirectoryInterface;
+import org.pentaho.di.repository.RepositoryObjectType;
+import org.pentaho.metastore.api.IMetaStore;
+
+/**
+ * The process-wide cache of transformations loaded by job entries and steps executing them, see {@link MetaCache}.
+ */
+public class TransMetaCache extends MetaCache<TransMeta> {
+
+  private static TransMetaCache instance;
+
+  TransMetaCache( int maximumSize ) {
+    super( maximumSize );
+  }
+
+  public static synchronized TransMetaCache getInstance() {
+    if ( instance == null ) {
+      instance = new TransMetaCache( getConfiguredSize() );
+    }
+    return instance;
+  }
+
+  /**
+   * Loads a transformation from a file, like new TransMeta( filename, metaStore, rep, true, space, null ) does.
+   */
+  public TransMeta loadTransMeta( String filename, IMetaStore metaStore, Repository rep, VariableSpace space )
+    throws KettleException {
+    String key = getFileKey( filename, rep, space );
+    TransMeta transMeta = get( key );
+    if ( transMeta == null ) {
+      transMeta = new TransMeta( filename, metaStore, rep, true, space, null );
+      put( key, transMeta );
+    } else {
+      // A loaded transformation starts with the variables of the parent
+      //
+      transMeta.setMetaStore( metaStore );
+      transMeta.setRepository( rep );
+      transMeta.initializeVariablesFrom( space );
+      transMeta.setInternalKettleVariables();
+    }
+    return transMeta;
+  }
+
+  /**
+   * Loads the last revision of a transformation from a repository by name.
+   */
+  public TransMeta loadTransMeta( Repository rep, String name, RepositoryDirectoryInterface directory )
+    throws KettleException {
+    String key = isEnabled()
+      ? getRepositoryKey( rep, rep.getTransformationID( name, directory ), RepositoryObjectType.TRANSFORMATION ) : null;
+    TransMeta transMeta = get( key );
+    if ( transMeta == null ) {
+      transMeta = rep.loadTransformation( name, directory, null, true, null );
+      put( key, transMeta );
+    } else {
+      initializeRepositoryCopy( transMeta, rep );
+    }
+    return transMeta;
+  }
+
+  /**
+   * Loads the last revision of a transformation from a repository by reference.
+   */
+  public TransMeta loadTransMeta( Repository rep, ObjectId objectId ) throws KettleException {
+    String key = getRepositoryKey( rep, objectId, RepositoryObjectType.TRANSFORMATION );
+    TransMeta transMeta = get( key );
+    if ( transMeta == null ) {
+      transMeta = rep.loadTransformation( objectId, null );
+      put( key, transMeta );
+    } else {
+      initializeRepositoryCopy( transMeta, rep );
+    }
+    return transMeta;
+  }
+
+  /**
+   * Gives a copy the variables a transformation loaded from a repository starts with.
+   */
+  private static void initializeRepositoryCopy( TransMeta transMeta, Repository rep ) {
+    transMeta.setRepository( rep );
+    transMeta.initializeVariablesFrom( null );
+    transMeta.setInternalKettleVariables();
+  }
+
+  /**
+   * Copies the transformation: the hops of the copy connect the copied steps, and the copy has caches of its own. The
+   * copy starts without variables, they are initialized for every load.
+   */
+  @Override
+  protected TransMeta copy( TransMeta transMeta ) {
+    TransMeta copy = (TransMeta) transMeta.realClone( false );
+    for ( TransHopMeta hop : copy.getTransHops() ) {
+      if ( hop.getFromStep() != null ) {
+        hop.setFromStep( copy.findStep( hop.getFromStep().getName() ) );
+      }
+      if ( hop.getToStep() != null ) {
+        hop.setToStep( copy.findStep( hop.getToStep().getName() ) );
+      }
+    }
+    copy.stepsFieldsCache = new HashMap<>();
+    copy.loopCache = new HashMap<>();
+    copy.previousStepCache = new HashMap<>();
+
+    copy.shareVariablesWith( new Variables() );
+    return copy;
+  }
+}
@@ -89,6 +89,7 @@ public class TransSplitter {
     new SlaveStepCopyPartitionDistribution();
   private int socketsBufferSize;
   private boolean compressingSocketStreams;
+  private String socketsCompressionType;
 
   private Map<String, Integer> portCache;
 
@@ -195,6 +196,8 @@ public class TransSplitter {
           Const.toInt(
             originalTransformation.environmentSubstitute( clusterSchema.getSocketsBufferSize() ), 50000 );
         compressingSocketStreams = clusterSchema.isSocketsCompressed();
+        socketsCompressionType =
+          originalTransformation.environmentSubstitute( clusterSchema.getSocketsCompressionType() );
 
         // Validate the number of slaves. We need at least one to have a valid cluster
         //
@@ -605,6 +608,7 @@ public class TransSplitter {
                           .getStepFields( previousStep ) );
                     remoteMasterStep.setEncryptingStreams( encrypt );
                     remoteMasterStep.setKey( transformationKey );
+                    remoteMasterStep.setCompressionType( socketsCompressionType );
                     masterStep.getRemoteInputSteps().add( remoteMasterStep );
 
                     RemoteStep remoteSlaveStep =
@@ -616,6 +620,7 @@ public class TransSplitter {
                           .getStepFields( previousStep ) );
                     remoteSlaveStep.setEncryptingStreams( encrypt );
                     remoteSlaveStep.setKey( transformationKey );
+                    remoteSlaveStep.setCompressionType( socketsCompressionType );
                     slaveStep.getRemoteOutputSteps().add( remoteSlaveStep );
 
                     // OK, create a partition number for the target step in the partition distribution...
@@ -751,6 +756,7 @@ public class TransSplitter {
                           .getStepFields( previousStep ) );
                     remoteMasterStep.setEncryptingStreams( encrypt );
                     remoteMasterStep.setKey( transformationKey );
+                    remoteMasterStep.setCompressionType( socketsCompressionType );
                     sourceStep.getRemoteOutputSteps().add( remoteMasterStep );
 
                     RemoteStep remoteSlaveStep =
@@ -762,6 +768,7 @@ public class TransSplitter {
                           .getStepFields( previousStep ) );
                     remoteSlaveStep.setEncryptingStreams( encrypt );
                     remoteSlaveStep.setKey( transformationKey );
+                    remoteSlaveStep.setCompressionType( socketsCompressionType );
                     targetStep.getRemoteInputSteps().add( remoteSlaveStep );
 
                     // OK, create a partition number for the target step in the partition distribution...
@@ -965,6 +972,7 @@ public class TransSplitter {
                                   originalTransformation.getStepFields( previousStep ) );
                               remoteOutputStep.setEncryptingStreams( encrypt );
                               remoteOutputStep.setKey( transformationKey );
+                              remoteOutputStep.setCompressionType( socketsCompressionType );
                               sourceStep.getRemoteOutputSteps().add( remoteOutputStep );
 
                               // OK, so the source step is sending rows out on the reserved ports
@@ -983,6 +991,7 @@ public class TransSplitter {
                                   originalTransformation.getStepFields( previousStep ) );
                               remoteInputStep.setEncryptingStreams( encrypt );
                               remoteInputStep.setKey( transformationKey );
+                              remoteInputStep.setCompressionType( socketsCompressionType );
                               targetStep.getRemoteInputSteps().add( remoteInputStep );
                             }
                             // OK, save the partition number for the target step in the partition distribution...
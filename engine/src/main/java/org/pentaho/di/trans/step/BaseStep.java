@@ -39,6 +39,7 @@ import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -51,6 +52,7 @@ import org.pentaho.di.core.Const;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.ExtensionDataInterface;
 import org.pentaho.di.core.ResultFile;
+import org.pentaho.di.core.RowArrayPool;
 import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.exception.KettleException;
@@ -62,6 +64,8 @@ import org.pentaho.di.core.logging.LogChannelInterface;
 import org.pentaho.di.core.logging.LogLevel;
 import org.pentaho.di.core.logging.LoggingObjectInterface;
 import org.pentaho.di.core.logging.LoggingObjectType;
+import org.pentaho.di.core.row.FrozenRowMeta;
+import org.pentaho.di.core.row.RowBatch;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -165,7 +169,24 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
 
   private Trans trans;
 
-  private final Object statusCountersLock = new Object();
+  //
+  // The line counters are bumped from the step thread and read concurrently by the status and metrics servlets,
+  // so they are updated with compare-and-set on the (volatile) deprecated fields rather than under a lock.
+  //
+  private static final AtomicLongFieldUpdater<BaseStep> LINES_READ =
+    AtomicLongFieldUpdater.newUpdater( BaseStep.class, "linesRead" );
+  private static final AtomicLongFieldUpdater<BaseStep> LINES_WRITTEN =
+    AtomicLongFieldUpdater.newUpdater( BaseStep.class, "linesWritten" );
+  private static final AtomicLongFieldUpdater<BaseStep> LINES_INPUT =
+    AtomicLongFieldUpdater.newUpdater( BaseStep.class, "linesInput" );
+  private static final AtomicLongFieldUpdater<BaseStep> LINES_OUTPUT =
+    AtomicLongFieldUpdater.newUpdater( BaseStep.class, "linesOutput" );
+  private static final AtomicLongFieldUpdater<BaseStep> LINES_UPDATED =
+    AtomicLongFieldUpdater.newUpdater( BaseStep.class, "linesUpdated" );
+  private static final AtomicLongFieldUpdater<BaseStep> LINES_SKIPPED =
+    AtomicLongFieldUpdater.newUpdater( BaseStep.class, "linesSkipped" );
+  private static final AtomicLongFieldUpdater<BaseStep> LINES_REJECTED =
+    AtomicLongFieldUpdater.newUpdater( BaseStep.class, "linesRejected" );
 
   /**
    * nr of lines read from previous step(s)
@@ -173,7 +194,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @deprecated use {@link #getLinesRead()}, {@link #incrementLinesRead()}, or {@link #decrementLinesRead()}
    */
   @Deprecated
-  public long linesRead;
+  public volatile long linesRead;
 
   /**
    * nr of lines written to next step(s)
@@ -181,7 +202,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @deprecated use {@link #getLinesWritten()}, {@link #incrementLinesWritten()}, or {@link #decrementLinesWritten()}
    */
   @Deprecated
-  public long linesWritten;
+  public volatile long linesWritten;
 
   /**
    * nr of lines read from file or database
@@ -189,7 +210,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @deprecated use {@link #getLinesInput()} or {@link #incrementLinesInput()}
    */
   @Deprecated
-  public long linesInput;
+  public volatile long linesInput;
 
   /**
    * nr of lines written to file or database
@@ -197,7 +218,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @deprecated use {@link #getLinesOutput()} or {@link #incrementLinesOutput()}
    */
   @Deprecated
-  public long linesOutput;
+  public volatile long linesOutput;
 
   /**
    * nr of updates in a database table or file
@@ -205,7 +226,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @deprecated use {@link #getLinesUpdated()} or {@link #incrementLinesUpdated()}
    */
   @Deprecated
-  public long linesUpdated;
+  public volatile long linesUpdated;
 
   /**
    * nr of lines skipped
@@ -213,7 +234,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @deprecated use {@link #getLinesSkipped()} or {@link #incrementLinesSkipped()}
    */
   @Deprecated
-  public long linesSkipped;
+  public volatile long linesSkipped;
 
   /**
    * total sleep time in ns caused by an empty input buffer (previous step is slow)
@@ -221,7 +242,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @deprecated use {@link #getLinesRejected()} or {@link #incrementLinesRejected()}
    */
   @Deprecated
-  public long linesRejected;
+  public volatile long linesRejected;
 
   private boolean distributed;
 
@@ -375,6 +396,8 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
 
   private int blockPointer;
 
+  private int rowBatchSize;
+
   /**
    * A flag to indicate that clustered partitioning was not yet initialized
    */
@@ -424,6 +447,28 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    */
   private boolean allowEmptyFieldNamesAndTypes = false;
 
+  /**
+   * The last output row metadata that passed the field name and type check and its layout version at the time
+   */
+  private RowMetaInterface verifiedRowMeta;
+
+  private long verifiedRowMetaVersion;
+
+  private long rowMetaVerifications;
+
+  /**
+   * The row set the last row(s) were read from, the rows can be handed back to its pool of row arrays
+   */
+  private RowSet lastReadRowSet;
+
+  private long rowArraysAllocated;
+
+  private long rowArraysReused;
+
+  private long rowArraysRecycled;
+
+  private Boolean usingColumnarRowBatches;
+
   /**
    * Keeps track of the number of rows read for input deadlock verification.
    */
@@ -486,15 +531,13 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
 
     init = false;
 
-    synchronized ( statusCountersLock ) {
-      linesRead = 0L; // new AtomicLong(0L); // Keep some statistics!
-      linesWritten = 0L; // new AtomicLong(0L);
-      linesUpdated = 0L; // new AtomicLong(0L);
-      linesSkipped = 0L; // new AtomicLong(0L);
-      linesRejected = 0L; // new AtomicLong(0L);
-      linesInput = 0L; // new AtomicLong(0L);
-      linesOutput = 0L; // new AtomicLong(0L);
-    }
+    linesRead = 0L; // new AtomicLong(0L); // Keep some statistics!
+    linesWritten = 0L; // new AtomicLong(0L);
+    linesUpdated = 0L; // new AtomicLong(0L);
+    linesSkipped = 0L; // new AtomicLong(0L);
+    linesRejected = 0L; // new AtomicLong(0L);
+    linesInput = 0L; // new AtomicLong(0L);
+    linesOutput = 0L; // new AtomicLong(0L);
 
     inputRowSets = null;
     outputRowSets = null;
@@ -912,9 +955,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    */
   @Override
   public long getLinesRead() {
-    synchronized ( statusCountersLock ) {
-      return linesRead;
-    }
+    return linesRead;
   }
 
   /**
@@ -923,9 +964,17 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @return Returns the new value
    */
   public long incrementLinesRead() {
-    synchronized ( statusCountersLock ) {
-      return ++linesRead;
-    }
+    return LINES_READ.incrementAndGet( this );
+  }
+
+  /**
+   * Increments the number of lines read from previous steps
+   *
+   * @param nrLines the number of lines to add
+   * @return Returns the new value
+   */
+  public long incrementLinesRead( long nrLines ) {
+    return LINES_READ.addAndGet( this, nrLines );
   }
 
   /**
@@ -934,18 +983,14 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @return Returns the new value
    */
   public long decrementLinesRead() {
-    synchronized ( statusCountersLock ) {
-      return --linesRead;
-    }
+    return LINES_READ.decrementAndGet( this );
   }
 
   /**
    * @param newLinesReadValue the new number of lines read from previous steps
    */
   public void setLinesRead( long newLinesReadValue ) {
-    synchronized ( statusCountersLock ) {
-      linesRead = newLinesReadValue;
-    }
+    linesRead = newLinesReadValue;
   }
 
   /**
@@ -953,9 +998,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    */
   @Override
   public long getLinesInput() {
-    synchronized ( statusCountersLock ) {
-      return linesInput;
-    }
+    return linesInput;
   }
 
   /**
@@ -964,18 +1007,14 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @return the new incremented value
    */
   public long incrementLinesInput() {
-    synchronized ( statusCountersLock ) {
-      return ++linesInput;
-    }
+    return LINES_INPUT.incrementAndGet( this );
   }
 
   /**
    * @param newLinesInputValue the new number of lines read from an input source: database, file, socket, etc.
    */
   public void setLinesInput( long newLinesInputValue ) {
-    synchronized ( statusCountersLock ) {
-      linesInput = newLinesInputValue;
-    }
+    linesInput = newLinesInputValue;
   }
 
   /**
@@ -983,9 +1022,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    */
   @Override
   public long getLinesOutput() {
-    synchronized ( statusCountersLock ) {
-      return linesOutput;
-    }
+    return linesOutput;
   }
 
   /**
@@ -994,18 +1031,24 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @return the new incremented value
    */
   public long incrementLinesOutput() {
-    synchronized ( statusCountersLock ) {
-      return ++linesOutput;
-    }
+    return LINES_OUTPUT.incrementAndGet( this );
+  }
+
+  /**
+   * Increments the number of lines written to an output target: database, file, socket, etc.
+   *
+   * @param nrLines the number of lines to add
+   * @return the new incremented value
+   */
+  public long incrementLinesOutput( long nrLines ) {
+    return LINES_OUTPUT.addAndGet( this, nrLines );
   }
 
   /**
    * @param newLinesOutputValue the new number of lines written to an output target: database, file, socket, etc.
    */
   public void setLinesOutput( long newLinesOutputValue ) {
-    synchronized ( statusCountersLock ) {
-      linesOutput = newLinesOutputValue;
-    }
+    linesOutput = newLinesOutputValue;
   }
 
   /**
@@ -1013,9 +1056,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    */
   @Override
   public long getLinesWritten() {
-    synchronized ( statusCountersLock ) {
-      return linesWritten;
-    }
+    return linesWritten;
   }
 
   /**
@@ -1024,9 +1065,17 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @return Returns the new value
    */
   public long incrementLinesWritten() {
-    synchronized ( statusCountersLock ) {
-      return ++linesWritten;
-    }
+    return LINES_WRITTEN.incrementAndGet( this );
+  }
+
+  /**
+   * Increments the number of lines written to next steps
+   *
+   * @param nrLines the number of lines to add
+   * @return Returns the new value
+   */
+  public long incrementLinesWritten( long nrLines ) {
+    return LINES_WRITTEN.addAndGet( this, nrLines );
   }
 
   /**
@@ -1035,18 +1084,14 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @return Returns the new value
    */
   public long decrementLinesWritten() {
-    synchronized ( statusCountersLock ) {
-      return --linesWritten;
-    }
+    return LINES_WRITTEN.decrementAndGet( this );
   }
 
   /**
    * @param newLinesWrittenValue the new number of lines written to next steps
    */
   public void setLinesWritten( long newLinesWrittenValue ) {
-    synchronized ( statusCountersLock ) {
-      linesWritten = newLinesWrittenValue;
-    }
+    linesWritten = newLinesWrittenValue;
   }
 
   /**
@@ -1054,9 +1099,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    */
   @Override
   public long getLinesUpdated() {
-    synchronized ( statusCountersLock ) {
-      return linesUpdated;
-    }
+    return linesUpdated;
   }
 
   /**
@@ -1065,18 +1108,14 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @return the new incremented value
    */
   public long incrementLinesUpdated() {
-    synchronized ( statusCountersLock ) {
-      return ++linesUpdated;
-    }
+    return LINES_UPDATED.incrementAndGet( this );
   }
 
   /**
    * @param newLinesUpdatedValue the new number of lines updated in an output target: database, file, socket, etc.
    */
   public void setLinesUpdated( long newLinesUpdatedValue ) {
-    synchronized ( statusCountersLock ) {
-      linesUpdated = newLinesUpdatedValue;
-    }
+    linesUpdated = newLinesUpdatedValue;
   }
 
   /**
@@ -1084,9 +1123,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    */
   @Override
   public long getLinesRejected() {
-    synchronized ( statusCountersLock ) {
-      return linesRejected;
-    }
+    return linesRejected;
   }
 
   /**
@@ -1095,9 +1132,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @return the new incremented value
    */
   public long incrementLinesRejected() {
-    synchronized ( statusCountersLock ) {
-      return ++linesRejected;
-    }
+    return LINES_REJECTED.incrementAndGet( this );
   }
 
   /**
@@ -1105,18 +1140,14 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    */
   @Override
   public void setLinesRejected( long newLinesRejectedValue ) {
-    synchronized ( statusCountersLock ) {
-      linesRejected = newLinesRejectedValue;
-    }
+    linesRejected = newLinesRejectedValue;
   }
 
   /**
    * @return the number of lines skipped
    */
   public long getLinesSkipped() {
-    synchronized ( statusCountersLock ) {
-      return linesSkipped;
-    }
+    return linesSkipped;
   }
 
   /**
@@ -1125,18 +1156,14 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * @return the new incremented value
    */
   public long incrementLinesSkipped() {
-    synchronized ( statusCountersLock ) {
-      return ++linesSkipped;
-    }
+    return LINES_SKIPPED.incrementAndGet( this );
   }
 
   /**
    * @param newLinesSkippedValue lines number of lines skipped
    */
   public void setLinesSkipped( long newLinesSkippedValue ) {
-    synchronized ( statusCountersLock ) {
-      linesSkipped = newLinesSkippedValue;
-    }
+    linesSkipped = newLinesSkippedValue;
   }
 
   /*
@@ -1252,9 +1279,50 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    */
   @Override
   public void putRow( RowMetaInterface rowMeta, Object[] row ) throws KettleStepException {
+    verifyOutputRowMeta( rowMeta );
+    getRowHandler().putRow( rowMeta, row );
+  }
+
+  /**
+   * putRows is the batch version of {@link #putRow(RowMetaInterface, Object[])}. The first nrRows rows of the buffer
+   * are passed on in order, the pause/stop checks, row set locking and row meta verification are done once per batch
+   * instead of once per row.
+   *
+   * @param rowMeta The row meta-data of the rows
+   * @param rows    The buffer holding the rows to put to the destination rowset(s).
+   * @param nrRows  The number of rows in the buffer to put
+   * @throws KettleStepException if one of the first nrRows rows is null
+   */
+  public void putRows( RowMetaInterface rowMeta, Object[][] rows, int nrRows ) throws KettleStepException {
+    if ( nrRows <= 0 ) {
+      return;
+    }
+    for ( int i = 0; i < nrRows; i++ ) {
+      if ( rows[i] == null ) {
+        throw new KettleStepException( BaseMessages.getString( PKG, "BaseStep.Exception.NullRowInBatch", i ) );
+      }
+    }
+    if ( nrRows == 1 ) {
+      // A batch of one is just a row
+      putRow( rowMeta, rows[0] );
+      return;
+    }
+    verifyOutputRowMeta( rowMeta );
+    getRowHandler().putRows( rowMeta, rows, nrRows );
+  }
+
+  private void verifyOutputRowMeta( RowMetaInterface rowMeta ) throws KettleStepException {
     if ( rowMeta != null ) {
       if ( !allowEmptyFieldNamesAndTypes ) {
+        // The same row metadata with the same layout was checked before, no need to do it for every row
+        //
+        long layoutVersion = rowMeta.getLayoutVersion();
+        if ( rowMeta == verifiedRowMeta && layoutVersion >= 0 && layoutVersion == verifiedRowMetaVersion ) {
+          return;
+        }
+
         // check row meta for empty field name (BACKLOG-18004)
+        rowMetaVerifications++;
         for ( ValueMetaInterface vmi : rowMeta.getValueMetaList() ) {
           if ( StringUtils.isBlank( vmi.getName() ) ) {
             throw new KettleStepException( "Please set a field name for all field(s) that have 'null'." );
@@ -1263,9 +1331,18 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
             throw new KettleStepException( "Please set a value for the missing field(s) type." );
           }
         }
+        verifiedRowMeta = rowMeta;
+        verifiedRowMetaVersion = layoutVersion;
       }
     }
-    getRowHandler().putRow( rowMeta, row );
+  }
+
+  /**
+   * @return the number of times the field names and types of the output row metadata were actually checked. The
+   * result of the check is kept as long as the same row metadata is passed with the same layout.
+   */
+  public long getRowMetaVerifications() {
+    return rowMetaVerifications;
   }
 
   private void handlePutRow( RowMetaInterface rowMeta, Object[] row ) throws KettleStepException {
@@ -1332,29 +1409,95 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
         return; // we're done here!
       }
 
-      // Repartitioning happens when the current step is not partitioned, but the next one is.
-      // That means we need to look up the partitioning information in the next step..
-      // If there are multiple steps, we need to look at the first (they should be all the same)
-      //
-      switch ( repartitioning ) {
-        case StepPartitioningMeta.PARTITIONING_METHOD_NONE:
-          noPartitioning( rowMeta, row );
-          break;
+      dispatchRow( rowMeta, row );
+    } finally {
+      outputRowSetsLock.readLock().unlock();
+    }
+  }
 
-        case StepPartitioningMeta.PARTITIONING_METHOD_SPECIAL:
-          specialPartitioning( rowMeta, row );
-          break;
-        case StepPartitioningMeta.PARTITIONING_METHOD_MIRROR:
-          mirrorPartitioning( rowMeta, row );
-          break;
-        default:
-          throw new KettleStepException( "Internal error: invalid repartitioning type: " + repartitioning );
+  private void handlePutRows( RowMetaInterface rowMeta, Object[][] rows, int nrRows ) throws KettleStepException {
+    // Are we pausing the step? If so, stall forever...
+    //
+    while ( paused.get() && !stopped.get() ) {
+      try {
+        Thread.sleep( 1 );
+      } catch ( InterruptedException e ) {
+        throw new KettleStepException( e );
+      }
+    }
+
+    if ( stopped.get() && !safeStopped.get() ) {
+      if ( log.isDebug() ) {
+        logDebug( BaseMessages.getString( PKG, "BaseStep.Log.StopPuttingARow" ) );
+      }
+      stopAll();
+      return;
+    }
+
+    waitUntilTransformationIsStarted();
+
+    if ( !rowListeners.isEmpty() ) {
+      for ( int i = 0; i < nrRows; i++ ) {
+        for ( RowListener listener : rowListeners ) {
+          listener.rowWrittenEvent( rowMeta, rows[i] );
+        }
+      }
+    }
+
+    if ( terminator && terminator_rows != null ) {
+      try {
+        for ( int i = 0; i < nrRows; i++ ) {
+          terminator_rows.add( rowMeta.cloneRow( rows[i] ) );
+        }
+      } catch ( KettleValueException e ) {
+        throw new KettleStepException( "Unable to clone row while adding rows to the terminator rows.", e );
+      }
+    }
+
+    outputRowSetsLock.readLock().lock();
+    try {
+      if ( outputRowSets.isEmpty() ) {
+        incrementLinesWritten( nrRows );
+        return;
+      }
+
+      // A single target without partitioning or a plugin distribution: hand over the whole batch at once.
+      //
+      if ( repartitioning == StepPartitioningMeta.PARTITIONING_METHOD_NONE && outputRowSets.size() == 1
+        && ( !distributed || rowDistribution == null ) ) {
+        putRowsToRowSet( outputRowSets.get( 0 ), rowMeta, rows, nrRows );
+        incrementLinesWritten( nrRows );
+      } else {
+        for ( int i = 0; i < nrRows; i++ ) {
+          dispatchRow( rowMeta, rows[i] );
+        }
       }
     } finally {
       outputRowSetsLock.readLock().unlock();
     }
   }
 
+  private void dispatchRow( RowMetaInterface rowMeta, Object[] row ) throws KettleStepException {
+    // Repartitioning happens when the current step is not partitioned, but the next one is.
+    // That means we need to look up the partitioning information in the next step..
+    // If there are multiple steps, we need to look at the first (they should be all the same)
+    //
+    switch ( repartitioning ) {
+      case StepPartitioningMeta.PARTITIONING_METHOD_NONE:
+        noPartitioning( rowMeta, row );
+        break;
+
+      case StepPartitioningMeta.PARTITIONING_METHOD_SPECIAL:
+        specialPartitioning( rowMeta, row );
+        break;
+      case StepPartitioningMeta.PARTITIONING_METHOD_MIRROR:
+        mirrorPartitioning( rowMeta, row );
+        break;
+      default:
+        throw new KettleStepException( "Internal error: invalid repartitioning type: " + repartitioning );
+    }
+  }
+
   /**
    * Copy always to all target steps/copies
    */
@@ -1591,7 +1734,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
     RowMetaInterface metaFromRs = rs.getRowMeta();
     if ( metaFromRs == null ) {
       // RowSet is not initialised so far
-      toBeSent = rowMeta.clone();
+      toBeSent = copyRowMetaForRowSet( rowMeta );
     } else {
       // use the existing
       toBeSent = metaFromRs;
@@ -1604,6 +1747,175 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
     }
   }
 
+  /**
+   * The row set keeps its own copy of the row metadata, the layout doesn't change anymore once rows are flowing. If
+   * KETTLE_FROZEN_ROW_META is set that copy is immutable so the next step can read it without any locking.
+   */
+  private RowMetaInterface copyRowMetaForRowSet( RowMetaInterface rowMeta ) {
+    if ( "Y".equalsIgnoreCase( getVariable( Const.KETTLE_FROZEN_ROW_META, "N" ) ) ) {
+      return new FrozenRowMeta( rowMeta );
+    }
+    return rowMeta.clone();
+  }
+
+  private void putRowsToRowSet( RowSet rs, RowMetaInterface rowMeta, Object[][] rows, int nrRows ) {
+    RowMetaInterface metaFromRs = rs.getRowMeta();
+    RowMetaInterface toBeSent = metaFromRs == null ? copyRowMetaForRowSet( rowMeta ) : metaFromRs;
+
+    int offset = 0;
+    while ( offset < nrRows ) {
+      int added = rs.putRows( toBeSent, rows, offset, nrRows - offset );
+      offset += added;
+      if ( added == 0 && isStopped() && !safeStopped.get() ) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * @return true if batch-aware steps pass columnar row batches over their hops (KETTLE_COLUMNAR_ROW_BATCHES), see
+   * {@link #getRowBatch(int)} and {@link #putRowBatch(RowMetaInterface, RowBatch)}
+   */
+  public boolean isUsingColumnarRowBatches() {
+    if ( usingColumnarRowBatches == null ) {
+      usingColumnarRowBatches = "Y".equalsIgnoreCase( getVariable( Const.KETTLE_COLUMNAR_ROW_BATCHES, "N" ) );
+    }
+    return usingColumnarRowBatches;
+  }
+
+  /**
+   * Row batches are only handed over as they are if nothing needs to see the individual rows.
+   */
+  private boolean canPassRowBatches() {
+    return isUsingColumnarRowBatches() && rowListeners.isEmpty() && getRowHandler() instanceof DefaultRowHandler
+      && !trans.isSafeModeEnabled();
+  }
+
+  /**
+   * Read the next rows as a columnar row batch. If the previous step put the rows as a batch it is returned as it is,
+   * otherwise the rows are read with {@link #getRows(int)} and stored column by column.
+   *
+   * @param maxRows the number of rows to read, a batch put by the previous step can hold more rows
+   * @return the rows read (at least one) or null if there is no more input.
+   * @throws KettleException
+   */
+  public RowBatch getRowBatch( int maxRows ) throws KettleException {
+    if ( canPassRowBatches() && !paused.get() && !stopped.get() ) {
+      inputRowSetsLock.readLock().lock();
+      try {
+        if ( !inputRowSets.isEmpty() ) {
+          RowSet inputRowSet = currentInputStream();
+          RowBatch batch = inputRowSet.getRowBatchImmediate( maxRows );
+          if ( batch != null ) {
+            if ( inputRowMeta == null || prevSteps.length > 1 ) {
+              inputRowMeta = inputRowSet.getRowMeta();
+            }
+            lastReadRowSet = null; // there are no row arrays to recycle
+            incrementLinesRead( batch.size() );
+            blockPointer += batch.size();
+            return batch;
+          }
+        }
+      } finally {
+        inputRowSetsLock.readLock().unlock();
+      }
+    }
+
+    Object[][] rows = getRows( maxRows );
+    if ( rows == null ) {
+      return null;
+    }
+    return RowBatch.fromRows( getInputRowMeta(), rows, 0, rows.length );
+  }
+
+  /**
+   * Put a columnar batch of rows. If there is a single output row set that can hold row batches the batch is handed
+   * over as it is, otherwise the rows are converted back and put with
+   * {@link #putRows(RowMetaInterface, Object[][], int)}.
+   *
+   * @param rowMeta The row meta-data of the rows
+   * @param batch   The rows to put to the destination rowset(s).
+   * @throws KettleStepException
+   */
+  public void putRowBatch( RowMetaInterface rowMeta, RowBatch batch ) throws KettleStepException {
+    if ( batch.size() == 0 ) {
+      return;
+    }
+    RowSet rowSet = null;
+    if ( canPassRowBatches() && !terminator && repartitioning == StepPartitioningMeta.PARTITIONING_METHOD_NONE
+      && ( !distributed || rowDistribution == null ) ) {
+      outputRowSetsLock.readLock().lock();
+      try {
+        if ( outputRowSets.size() == 1 && outputRowSets.get( 0 ).isAcceptingRowBatches() ) {
+          rowSet = outputRowSets.get( 0 );
+        }
+      } finally {
+        outputRowSetsLock.readLock().unlock();
+      }
+    }
+
+    if ( rowSet == null ) {
+      putRows( rowMeta, batch.toRows(), batch.size() );
+    } else {
+      verifyOutputRowMeta( rowMeta );
+      putRowBatchToRowSet( rowMeta, batch, rowSet );
+    }
+  }
+
+  /**
+   * putRowBatchTo is the batch version of {@link #putRowTo(RowMetaInterface, Object[], RowSet)}: put a columnar batch
+   * of rows in a certain specific RowSet.
+   *
+   * @param rowMeta The row meta-data to put to the destination RowSet.
+   * @param batch   the rows to put in the RowSet
+   * @param rowSet  the RowSet to put the rows into.
+   * @throws KettleStepException
+   */
+  public void putRowBatchTo( RowMetaInterface rowMeta, RowBatch batch, RowSet rowSet ) throws KettleStepException {
+    if ( batch.size() == 0 ) {
+      return;
+    }
+    if ( !canPassRowBatches() || terminator || !rowSet.isAcceptingRowBatches() ) {
+      for ( int i = 0; i < batch.size(); i++ ) {
+        putRowTo( rowMeta, batch.getRow( i ), rowSet );
+      }
+      return;
+    }
+    putRowBatchToRowSet( rowMeta, batch, rowSet );
+  }
+
+  private void putRowBatchToRowSet( RowMetaInterface rowMeta, RowBatch batch, RowSet rowSet )
+    throws KettleStepException {
+    // Are we pausing the step? If so, stall forever...
+    //
+    while ( paused.get() && !stopped.get() ) {
+      try {
+        Thread.sleep( 1 );
+      } catch ( InterruptedException e ) {
+        throw new KettleStepException( e );
+      }
+    }
+
+    if ( stopped.get() && !safeStopped.get() ) {
+      if ( log.isDebug() ) {
+        logDebug( BaseMessages.getString( PKG, "BaseStep.Log.StopPuttingARow" ) );
+      }
+      stopAll();
+      return;
+    }
+
+    waitUntilTransformationIsStarted();
+
+    RowMetaInterface metaFromRs = rowSet.getRowMeta();
+    RowMetaInterface toBeSent = metaFromRs == null ? copyRowMetaForRowSet( rowMeta ) : metaFromRs;
+    while ( !rowSet.putRowBatch( toBeSent, batch ) ) {
+      if ( isStopped() && !safeStopped.get() ) {
+        return;
+      }
+    }
+    incrementLinesWritten( batch.size() );
+  }
+
   /**
    * putRowTo is used to put a row in a certain specific RowSet.
    *
@@ -1825,6 +2137,49 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
     return getRowHandler().getRow();
   }
 
+  /**
+   * getRows is the batch version of {@link #getRow()}. It reads the next row with getRow() and then adds the rows that
+   * are immediately available on the same input row set, up to maxRows.
+   *
+   * @param maxRows the maximum number of rows to return
+   * @return the rows read (at least one) or null if there is no more input.
+   * @throws KettleException
+   */
+  public Object[][] getRows( int maxRows ) throws KettleException {
+    return getRowHandler().getRows( maxRows );
+  }
+
+  private Object[][] handleGetRows( int maxRows ) throws KettleException {
+    lastReadRowSet = null;
+    Object[] first = getRow();
+    if ( first == null ) {
+      return null;
+    }
+    // Only take more rows from the row set the first row was read from, getRow() might have switched to the next one
+    // already. It has the layout the first row was read with, and rows of a single origin can be recycled.
+    //
+    RowSet inputRowSet = lastReadRowSet;
+    if ( maxRows <= 1 || inputRowSet == null || stopped.get() ) {
+      return new Object[][] { first };
+    }
+
+    Object[][] rows = new Object[ maxRows ][];
+    rows[0] = first;
+    int nrRows = 1 + inputRowSet.getRowsImmediate( rows, 1, maxRows - 1 );
+
+    if ( nrRows > 1 ) {
+      incrementLinesRead( nrRows - 1 );
+      blockPointer += nrRows - 1;
+      for ( int i = 1; i < nrRows; i++ ) {
+        for ( RowListener listener : rowListeners ) {
+          listener.rowReadEvent( inputRowMeta, rows[i] );
+        }
+      }
+    }
+
+    return nrRows == maxRows ? rows : Arrays.copyOf( rows, nrRows );
+  }
+
 
   private Object[] handleGetRow() throws KettleException {
 
@@ -1952,8 +2307,10 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
               incrementLinesRead();
             }
           }
-          nextInputStream();
-          inputRowSet = currentInputStream();
+          if ( row == null ) {
+            nextInputStream();
+            inputRowSet = currentInputStream();
+          }
         }
       }
 
@@ -1982,6 +2339,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
     if ( inputRowMeta == null || prevSteps.length > 1 ) {
       inputRowMeta = inputRowSet.getRowMeta();
     }
+    lastReadRowSet = inputRowSet;
 
     if ( row != null ) {
       // OK, before we return the row, let's see if we need to check on mixing
@@ -2002,6 +2360,141 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
     return row;
   }
 
+  /**
+   * @return the maximum number of rows to read or write at once, see {@link #getRows(int)} and
+   * {@link #putRows(RowMetaInterface, Object[][], int)}
+   */
+  public int getRowBatchSize() {
+    if ( rowBatchSize <= 0 ) {
+      rowBatchSize = Math.max( 1, Const.toInt( getVariable( Const.KETTLE_ROW_BATCH_SIZE ), Const.ROWS_IN_BATCH ) );
+    }
+    return rowBatchSize;
+  }
+
+  /**
+   * Allocate a new row array for an output row. If row arrays are recycled (KETTLE_RECYCLE_ROW_ARRAYS) the array is
+   * taken from the pool of the output hop.
+   * <p>
+   * A step using this method (or {@link #resizeRowData(Object[], int)}) declares that it only puts rows it allocated
+   * itself, that it puts each of them once and that it doesn't keep them around afterwards. The next step is then free
+   * to recycle the rows once it's done with them, see {@link #recycleRow(Object[])}.
+   *
+   * @param size
+   *          the minimum size of the row array
+   * @return the (over allocated) row array, all slots are null
+   */
+  public Object[] allocateRowData( int size ) {
+    RowArrayPool pool = getOutputRowArrayPool();
+    if ( pool != null ) {
+      Object[] row = pool.reuse( size );
+      if ( row != null ) {
+        rowArraysReused++;
+        return row;
+      }
+    }
+    rowArraysAllocated++;
+    return RowDataUtil.allocateRowData( size );
+  }
+
+  /**
+   * Get an output row array with room for at least the given number of values, holding the values of the given input
+   * row. If row arrays are recycled this is always a copy taken from the pool of the output hop and the input row can
+   * be handed back with {@link #recycleRow(Object[])} when it's not passed on. Otherwise this is
+   * {@link RowDataUtil#resizeArray(Object[], int)}: the input row itself if it's large enough.
+   * <p>
+   * The same ownership rules as for {@link #allocateRowData(int)} apply.
+   *
+   * @param row
+   *          the input row
+   * @param size
+   *          the minimum size of the row array
+   * @return the output row array
+   */
+  public Object[] resizeRowData( Object[] row, int size ) {
+    RowArrayPool pool = getOutputRowArrayPool();
+    if ( pool == null ) {
+      Object[] resized = RowDataUtil.resizeArray( row, size );
+      if ( resized != row ) {
+        rowArraysAllocated++;
+      }
+      return resized;
+    }
+
+    Object[] copy = pool.reuse( Math.max( size, row.length ) );
+    if ( copy != null ) {
+      rowArraysReused++;
+    } else {
+      rowArraysAllocated++;
+      copy = RowDataUtil.allocateRowData( Math.max( size, row.length ) );
+    }
+    System.arraycopy( row, 0, copy, 0, row.length );
+    return copy;
+  }
+
+  /**
+   * Hand a row read with {@link #getRow()} or {@link #getRows(int)} back to the pool of the hop it came from. Only do
+   * this for a row from the last call that the step doesn't keep a reference to: it was not passed on with putRow(),
+   * putError() or otherwise, not cached and not referenced by another row. Once recycled the row must not be used
+   * anymore.
+   * <p>
+   * Nothing happens if row arrays are not recycled, if the previous step doesn't take its rows from the pool or if a
+   * row listener might be looking at the rows.
+   *
+   * @param row
+   *          the row to recycle
+   * @return true if the row array was recycled
+   */
+  public boolean recycleRow( Object[] row ) {
+    RowSet rowSet = lastReadRowSet;
+    if ( row == null || rowSet == null || !rowListeners.isEmpty() ) {
+      return false;
+    }
+    RowArrayPool pool = rowSet.getRowArrayPool();
+    if ( pool == null || !pool.recycle( row ) ) {
+      return false;
+    }
+    rowArraysRecycled++;
+    return true;
+  }
+
+  /**
+   * Rows can only be taken from the pool of the output hop if they go to a single row set and no row listener sees
+   * them.
+   */
+  private RowArrayPool getOutputRowArrayPool() {
+    if ( !rowListeners.isEmpty() ) {
+      return null;
+    }
+    outputRowSetsLock.readLock().lock();
+    try {
+      return outputRowSets != null && outputRowSets.size() == 1 ? outputRowSets.get( 0 ).getRowArrayPool() : null;
+    } finally {
+      outputRowSetsLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return the number of row arrays this step allocated with {@link #allocateRowData(int)} and
+   *         {@link #resizeRowData(Object[], int)}
+   */
+  public long getRowArraysAllocated() {
+    return rowArraysAllocated;
+  }
+
+  /**
+   * @return the number of recycled row arrays this step reused for its output rows
+   */
+  public long getRowArraysReused() {
+    return rowArraysReused;
+  }
+
+  /**
+   * @return the number of input rows this step handed back to the pool of the previous step
+   */
+  public long getRowArraysRecycled() {
+    return rowArraysRecycled;
+  }
+
   /**
    * RowHandler controls how getRow/putRow are handled.
    * The default RowHandler will simply call
@@ -3384,22 +3877,20 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    * Log summary.
    */
   public void logSummary() {
-    synchronized ( statusCountersLock ) {
-      long li = getLinesInput();
-      long lo = getLinesOutput();
-      long lr = getLinesRead();
-      long lw = getLinesWritten();
-      long lu = getLinesUpdated();
-      long lj = getLinesRejected();
-      if ( li > 0 || lo > 0 || lr > 0 || lw > 0 || lu > 0 || lj > 0 || errors > 0 ) {
-        logBasic( BaseMessages.getString( PKG, "BaseStep.Log.SummaryInfo", String.valueOf( li ), String
-          .valueOf( lo ), String.valueOf( lr ), String.valueOf( lw ), String.valueOf( lw ), String
-          .valueOf( errors + lj ) ) );
-      } else {
-        logDetailed( BaseMessages.getString( PKG, "BaseStep.Log.SummaryInfo", String.valueOf( li ), String
-          .valueOf( lo ), String.valueOf( lr ), String.valueOf( lw ), String.valueOf( lw ), String
-          .valueOf( errors + lj ) ) );
-      }
+    long li = getLinesInput();
+    long lo = getLinesOutput();
+    long lr = getLinesRead();
+    long lw = getLinesWritten();
+    long lu = getLinesUpdated();
+    long lj = getLinesRejected();
+    if ( li > 0 || lo > 0 || lr > 0 || lw > 0 || lu > 0 || lj > 0 || errors > 0 ) {
+      logBasic( BaseMessages.getString( PKG, "BaseStep.Log.SummaryInfo", String.valueOf( li ), String
+        .valueOf( lo ), String.valueOf( lr ), String.valueOf( lw ), String.valueOf( lw ), String
+        .valueOf( errors + lj ) ) );
+    } else {
+      logDetailed( BaseMessages.getString( PKG, "BaseStep.Log.SummaryInfo", String.valueOf( li ), String
+        .valueOf( lo ), String.valueOf( lr ), String.valueOf( lw ), String.valueOf( lw ), String
+        .valueOf( errors + lj ) ) );
     }
   }
 
@@ -3553,6 +4044,22 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
   @Override
   public void addRowListener( RowListener rowListener ) {
     rowListeners.add( rowListener );
+
+    // The listener can keep the rows we write: the next steps must not recycle them anymore.
+    //
+    outputRowSetsLock.readLock().lock();
+    try {
+      if ( outputRowSets != null ) {
+        for ( RowSet rowSet : outputRowSets ) {
+          RowArrayPool pool = rowSet.getRowArrayPool();
+          if ( pool != null ) {
+            pool.close();
+          }
+        }
+      }
+    } finally {
+      outputRowSetsLock.readLock().unlock();
+    }
   }
 
   /*
@@ -3734,6 +4241,17 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
       && ( lines % getTransMeta().getFeedbackSize() ) == 0;
   }
 
+  /**
+   * The batch version of {@link #checkFeedback(long)}: is feedback needed for any of the lines after fromLines up to
+   * and including toLines?
+   */
+  protected boolean checkFeedback( long fromLines, long toLines ) {
+    long feedbackSize = getTransMeta().getFeedbackSize();
+    return getTransMeta().isFeedbackShown()
+      && ( toLines > 0 ) && ( feedbackSize > 0 )
+      && ( toLines / feedbackSize ) > ( fromLines / feedbackSize );
+  }
+
   /**
    * @return the rowMeta
    */
@@ -4397,6 +4915,15 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
       handlePutRow( rowMeta, row );
     }
 
+    @Override public void putRows( RowMetaInterface rowMeta, Object[][] rows, int nrRows )
+      throws KettleStepException {
+      handlePutRows( rowMeta, rows, nrRows );
+    }
+
+    @Override public Object[][] getRows( int maxRows ) throws KettleException {
+      return handleGetRows( maxRows );
+    }
+
     @Override public void putError( RowMetaInterface rowMeta, Object[] row, long nrErrors, String errorDescriptions,
                                     String fieldNames, String errorCodes ) throws KettleStepException {
       handlePutError( rowMeta, row, nrErrors, errorDescriptions, fieldNames, errorCodes );
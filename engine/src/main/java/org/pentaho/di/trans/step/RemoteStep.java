@@ -46,12 +46,16 @@ import javax.crypto.CipherOutputStream;
 
 import org.pentaho.di.core.BlockingRowSet;
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.compress.CompressionProvider;
+import org.pentaho.di.core.compress.CompressionProviderFactory;
+import org.pentaho.di.core.compress.NoneCompressionProvider;
 import org.pentaho.di.core.encryption.CertificateGenEncryptUtil;
 import org.pentaho.di.core.exception.KettleEOFException;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleFileException;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.xml.XMLHandler;
 import org.pentaho.di.core.xml.XMLInterface;
 import org.pentaho.di.www.SocketRepository;
@@ -105,6 +109,12 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
   private int bufferSize;
   private boolean compressingStreams;
 
+  /**
+   * The compression plugin to send the rows in compressed batches with, see {@link RowBatchWriter}. When empty, the
+   * rows are sent one by one in a single (optionally gzip compressed) stream.
+   */
+  private String compressionType;
+
   private boolean encryptingStreams;
   private byte[] key;
   private CipherInputStream cipherInputStream;
@@ -180,6 +190,7 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
     xml.append( XMLHandler.addTagValue( "port", port, false ) );
     xml.append( XMLHandler.addTagValue( "buffer_size", bufferSize, false ) );
     xml.append( XMLHandler.addTagValue( "compressed_streams", compressingStreams, false ) );
+    xml.append( XMLHandler.addTagValue( "compression_type", compressionType, false ) );
 
     xml.append( XMLHandler.addTagValue( "source_step_name", sourceStep, false ) );
     xml.append( XMLHandler.addTagValue( "source_step_copy", sourceStepCopyNr, false ) );
@@ -213,6 +224,7 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
     port = XMLHandler.getTagValue( node, "port" );
     bufferSize = Integer.parseInt( XMLHandler.getTagValue( node, "buffer_size" ) );
     compressingStreams = "Y".equalsIgnoreCase( XMLHandler.getTagValue( node, "compressed_streams" ) );
+    compressionType = XMLHandler.getTagValue( node, "compression_type" );
 
     sourceStep = XMLHandler.getTagValue( node, "source_step_name" );
     sourceStepCopyNr = Integer.parseInt( XMLHandler.getTagValue( node, "source_step_copy" ) );
@@ -356,7 +368,9 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
           // Create the output stream...
           OutputStream socketOut = socket.getOutputStream();
 
-          if ( compressingStreams ) {
+          boolean batching = isBatchingRows();
+          CompressionProvider compressionProvider = batching ? getCompressionProvider() : null;
+          if ( compressingStreams && !batching ) {
             gzipOutputStream = new GZIPOutputStream( socketOut, 50000 );
             bufferedOutputStream = new BufferedOutputStream( gzipOutputStream, bufferSize );
           } else {
@@ -393,8 +407,12 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
 
           // get a row of data...
           Object[] rowData = baseStep.getRowFrom( rowSet );
+          RowBatchWriter batchWriter = null;
           if ( rowData != null ) {
             rowSet.getRowMeta().writeMeta( outputStream );
+            if ( batching ) {
+              batchWriter = new RowBatchWriter( outputStream, rowSet.getRowMeta(), compressionProvider, bufferSize );
+            }
           }
 
           // Send that row to the remote step
@@ -406,7 +424,11 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
 
             // Write the row to the remote step via the output stream....
             //
-            rowSet.getRowMeta().writeData( outputStream, rowData );
+            if ( batchWriter != null ) {
+              batchWriter.writeRow( rowData );
+            } else {
+              rowSet.getRowMeta().writeData( outputStream, rowData );
+            }
             baseStep.incrementLinesOutput();
 
             if ( baseStep.log.isDebug() ) {
@@ -415,7 +437,9 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
             rowData = baseStep.getRowFrom( rowSet );
           }
 
-          if ( compressingStreams ) {
+          if ( batchWriter != null ) {
+            batchWriter.close();
+          } else if ( compressingStreams ) {
             outputStream.flush();
             gzipOutputStream.finish();
           } else {
@@ -544,6 +568,24 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
     return rowData;
   }
 
+  private boolean isBatchingRows() {
+    return !Utils.isEmpty( compressionType );
+  }
+
+  /**
+   * @return the compression plugin for the batches of rows, null if they're not compressed
+   * @throws KettleException if the compression plugin can't be found
+   */
+  private CompressionProvider getCompressionProvider() throws KettleException {
+    CompressionProvider provider =
+      CompressionProviderFactory.getInstance().createCompressionProviderInstance( compressionType );
+    if ( provider == null ) {
+      throw new KettleException( "Unable to find compression plugin [" + compressionType
+        + "] to send rows to remote step " + toString() );
+    }
+    return provider instanceof NoneCompressionProvider ? null : provider;
+  }
+
   public synchronized BlockingRowSet openReaderSocket( final BaseStep baseStep ) throws IOException,
     KettleException {
     this.baseStep = baseStep;
@@ -558,6 +600,8 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
 
     final int portNumber = Integer.parseInt( baseStep.environmentSubstitute( port ) );
     final String realHostname = baseStep.environmentSubstitute( hostname );
+    final boolean batching = isBatchingRows();
+    final CompressionProvider compressionProvider = batching ? getCompressionProvider() : null;
 
     // Connect to the server socket (started during BaseStep.init())
     // Because the accept() call on the server socket can be called after we
@@ -583,7 +627,7 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
         connected = true;
 
         InputStream socketStream = socket.getInputStream();
-        if ( compressingStreams ) {
+        if ( compressingStreams && !batching ) {
           gzipInputStream = new GZIPInputStream( socketStream );
           bufferedInputStream = new BufferedInputStream( gzipInputStream, bufferSize );
         } else {
@@ -688,7 +732,9 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
 
           // And a first row of data...
           //
-          Object[] rowData = getRowOfData( rowMeta );
+          RowBatchReader batchReader =
+            batching ? new RowBatchReader( inputStream, rowMeta, compressionProvider ) : null;
+          Object[] rowData = batchReader != null ? batchReader.readRow() : getRowOfData( rowMeta );
 
           // Now get the data itself, row by row...
           //
@@ -702,7 +748,7 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
 
             baseStep.putRowTo( rowMeta, rowData, rowSet );
             baseStep.decrementLinesWritten();
-            rowData = getRowOfData( rowMeta );
+            rowData = batchReader != null ? batchReader.readRow() : getRowOfData( rowMeta );
           }
         } catch ( KettleEOFException e ) {
           // Nothing, we're simply done reading...
@@ -891,6 +937,21 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
     this.compressingStreams = compressingStreams;
   }
 
+  /**
+   * @return the compression plugin to send the rows in compressed batches with, empty to send a single stream
+   */
+  public String getCompressionType() {
+    return compressionType;
+  }
+
+  /**
+   * @param compressionType
+   *          the compression plugin to send the rows in compressed batches with, empty to send a single stream
+   */
+  public void setCompressionType( String compressionType ) {
+    this.compressionType = compressionType;
+  }
+
   /**
    * @return the remoteHostname
    */
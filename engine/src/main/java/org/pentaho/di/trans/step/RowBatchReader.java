@@ -0,0 +1,104 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.trans.step;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.pentaho.di.core.compress.CompressionProvider;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * Reads the frames of rows sent by a {@link RowBatchWriter}.
+ */
+class RowBatchReader {
+
+  private final DataInputStream inputStream;
+  private final RowMetaInterface rowMeta;
+  private final CompressionProvider compressionProvider;
+
+  private byte[] frame = new byte[0];
+  private DataInputStream frameData;
+  private int frameRows;
+  private boolean finished;
+
+  /**
+   * @param inputStream         the stream from the remote step
+   * @param rowMeta             the layout of the rows to read
+   * @param compressionProvider the compression of the frames, null if they're sent as they are
+   */
+  RowBatchReader( DataInputStream inputStream, RowMetaInterface rowMeta, CompressionProvider compressionProvider ) {
+    this.inputStream = inputStream;
+    this.rowMeta = rowMeta;
+    this.compressionProvider = compressionProvider;
+  }
+
+  /**
+   * @return the next row or null if the stream has ended
+   * @throws KettleFileException if the stream ends before the end marker of the writer
+   */
+  public Object[] readRow() throws KettleException, IOException {
+    while ( frameRows == 0 ) {
+      if ( finished || !readFrame() ) {
+        finished = true;
+        return null;
+      }
+    }
+    frameRows--;
+    return rowMeta.readData( frameData );
+  }
+
+  private boolean readFrame() throws KettleFileException, IOException {
+    int rows;
+    try {
+      rows = inputStream.readInt();
+    } catch ( EOFException e ) {
+      // The writer went away without ending the stream, the rows it didn't send are lost
+      //
+      throw new KettleFileException( "The stream from the remote step ended before its end marker", e );
+    }
+    if ( rows == 0 ) {
+      return false;
+    }
+
+    int length = inputStream.readInt();
+    if ( frame.length < length ) {
+      frame = new byte[ length ];
+    }
+    inputStream.readFully( frame, 0, length );
+
+    InputStream data = new ByteArrayInputStream( frame, 0, length );
+    if ( compressionProvider != null ) {
+      data = new BufferedInputStream( compressionProvider.createInputStream( data ) );
+    }
+    frameData = new DataInputStream( data );
+    frameRows = rows;
+    return true;
+  }
+}
@@ -0,0 +1,115 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.trans.step;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.pentaho.di.core.compress.CompressionProvider;
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * Writes rows to a remote step in frames rather than one by one. Each frame holds a batch of rows and is compressed on
+ * its own:<br>
+ * <br>
+ * [number of rows] [length of the data] [data]<br>
+ * <br>
+ * A frame with zero rows marks the end of the stream. See {@link RowBatchReader} for the other side.
+ */
+class RowBatchWriter {
+
+  private final DataOutputStream outputStream;
+  private final RowMetaInterface rowMeta;
+  private final CompressionProvider compressionProvider;
+  private final int batchSize;
+
+  private final ByteArrayOutputStream batch;
+  private final DataOutputStream batchData;
+  private final ByteArrayOutputStream compressed;
+  private int batchRows;
+
+  /**
+   * @param outputStream        the stream to the remote step
+   * @param rowMeta             the layout of the rows to write
+   * @param compressionProvider the compression of the frames, null to send them as they are
+   * @param batchSize           the number of bytes of row data to collect before a frame is sent
+   */
+  RowBatchWriter( DataOutputStream outputStream, RowMetaInterface rowMeta, CompressionProvider compressionProvider,
+    int batchSize ) {
+    this.outputStream = outputStream;
+    this.rowMeta = rowMeta;
+    this.compressionProvider = compressionProvider;
+    this.batchSize = Math.max( 1, batchSize );
+
+    batch = new ByteArrayOutputStream( this.batchSize + 1024 );
+    batchData = new DataOutputStream( batch );
+    compressed = compressionProvider == null ? null : new ByteArrayOutputStream( this.batchSize );
+  }
+
+  public void writeRow( Object[] row ) throws KettleFileException, IOException {
+    rowMeta.writeData( batchData, row );
+    batchRows++;
+    if ( batch.size() >= batchSize ) {
+      flush();
+    }
+  }
+
+  /**
+   * Sends the rows collected so far as a frame.
+   */
+  public void flush() throws IOException {
+    if ( batchRows == 0 ) {
+      return;
+    }
+    batchData.flush();
+
+    outputStream.writeInt( batchRows );
+    if ( compressionProvider == null ) {
+      outputStream.writeInt( batch.size() );
+      batch.writeTo( outputStream );
+    } else {
+      compressed.reset();
+      OutputStream compressing = compressionProvider.createOutputStream( compressed );
+      batch.writeTo( compressing );
+      compressing.close();
+      outputStream.writeInt( compressed.size() );
+      compressed.writeTo( outputStream );
+    }
+    outputStream.flush();
+
+    batch.reset();
+    batchRows = 0;
+  }
+
+  /**
+   * Sends the remaining rows and the end of the stream.
+   */
+  public void close() throws IOException {
+    flush();
+    outputStream.writeInt( 0 );
+    outputStream.flush();
+  }
+}
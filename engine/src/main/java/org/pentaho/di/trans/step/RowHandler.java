@@ -59,6 +59,24 @@ public interface RowHandler {
         this.getClass().getName() ) );
   }
 
+  /**
+   * Puts a batch of rows.  By default every row is handed to {@link #putRow(RowMetaInterface, Object[])}.
+   */
+  default void putRows( RowMetaInterface rowMeta, Object[][] rows, int nrRows ) throws KettleStepException {
+    for ( int i = 0; i < nrRows; i++ ) {
+      putRow( rowMeta, rows[i] );
+    }
+  }
+
+  /**
+   * Gets a batch of at most maxRows rows, null if there is no more input.
+   * By default the batch only holds the single row returned by {@link #getRow()}.
+   */
+  default Object[][] getRows( int maxRows ) throws KettleException {
+    Object[] row = getRow();
+    return row == null ? null : new Object[][] { row };
+  }
+
   default Object[] getRowFrom( RowSet rowSet ) throws KettleStepException {
     throw new UnsupportedOperationException(
       BaseMessages.getString( PKG, "BaseStep.RowHandler.GetRowFromNotSupported",
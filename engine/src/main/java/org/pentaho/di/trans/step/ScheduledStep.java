@@ -0,0 +1,180 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.trans.step;
+
+import org.pentaho.di.core.RowSet;
+import org.pentaho.di.i18n.BaseMessages;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A step copy run by the {@link StepScheduler}. Every time it gets a worker it runs processRow() for as long as the
+ * step can make progress, up to a short time slice. It keeps track of the time spent processing rows (busy) and the
+ * time spent waiting for input, output room or a free worker (idle).
+ */
+public class ScheduledStep implements Runnable {
+
+  private static Class<?> PKG = StepScheduler.class; // for i18n purposes, needed by Translator2!!
+
+  private final StepScheduler scheduler;
+  private final RunThread runThread;
+  private final StepInterface step;
+  private final StepMetaInterface meta;
+  private final StepDataInterface data;
+  private final int rowSetSize;
+
+  private boolean started;
+  private int idleRounds;
+  private long lastRunEnd;
+
+  private volatile long busyNanos;
+  private volatile long idleNanos;
+  private volatile long bursts;
+  private volatile boolean finished;
+
+  ScheduledStep( StepScheduler scheduler, StepMetaDataCombi combi, int rowSetSize ) {
+    this.scheduler = scheduler;
+    this.runThread = new RunThread( combi );
+    this.step = combi.step;
+    this.meta = combi.meta;
+    this.data = combi.data;
+    this.rowSetSize = rowSetSize;
+  }
+
+  @Override
+  public void run() {
+    long runStart = System.nanoTime();
+    if ( started ) {
+      idleNanos += runStart - lastRunEnd;
+    } else {
+      started = true;
+      runThread.startRunning();
+    }
+
+    boolean done = false;
+    boolean worked = false;
+    try {
+      if ( canMakeProgress() ) {
+        worked = true;
+        long deadline = runStart + scheduler.getBurstNanos();
+        do {
+          if ( !step.processRow( meta, data ) || step.isStopped() ) {
+            done = true;
+          }
+        } while ( !done && System.nanoTime() < deadline && canMakeProgress() );
+      }
+    } catch ( Throwable t ) {
+      runThread.handleError( t );
+      done = true;
+    }
+
+    lastRunEnd = System.nanoTime();
+    if ( worked ) {
+      busyNanos += lastRunEnd - runStart;
+      bursts++;
+      idleRounds = 0;
+      scheduler.burstCompleted();
+    } else {
+      idleNanos += lastRunEnd - runStart;
+      idleRounds++;
+    }
+
+    if ( done ) {
+      finished = true;
+      if ( step.getLogChannel().isDetailed() ) {
+        step.getLogChannel().logDetailed( BaseMessages.getString( PKG, "StepScheduler.Log.BusyIdleTime",
+          String.valueOf( getBusyTime() ), String.valueOf( getIdleTime() ), String.valueOf( bursts ) ) );
+      }
+      runThread.finishRunning();
+    } else if ( worked ) {
+      scheduler.runAgain( this );
+    } else {
+      scheduler.runLater( this, idleRounds );
+    }
+  }
+
+  /**
+   * A step can make progress if it isn't paused, all its output row sets have room and there are rows waiting on input
+   * or all input is done. A stopped step always runs to wind down.
+   */
+  boolean canMakeProgress() {
+    if ( step.isStopped() ) {
+      return true;
+    }
+    if ( step.isPaused() ) {
+      return false;
+    }
+    List<RowSet> outputRowSets = step.getOutputRowSets();
+    for ( int i = 0; i < outputRowSets.size(); i++ ) {
+      if ( outputRowSets.get( i ).size() >= rowSetSize ) {
+        return false;
+      }
+    }
+    List<RowSet> inputRowSets = step.getInputRowSets();
+    boolean allDone = true;
+    for ( int i = 0; i < inputRowSets.size(); i++ ) {
+      RowSet rowSet = inputRowSets.get( i );
+      if ( rowSet.size() > 0 ) {
+        return true;
+      }
+      allDone &= rowSet.isDone();
+    }
+    return allDone;
+  }
+
+  /**
+   * @return the step copy that is run
+   */
+  public StepInterface getStep() {
+    return step;
+  }
+
+  /**
+   * @return the time in ms spent processing rows
+   */
+  public long getBusyTime() {
+    return TimeUnit.NANOSECONDS.toMillis( busyNanos );
+  }
+
+  /**
+   * @return the time in ms spent waiting for input, room on output or a free worker
+   */
+  public long getIdleTime() {
+    return TimeUnit.NANOSECONDS.toMillis( idleNanos );
+  }
+
+  /**
+   * @return the number of times the step copy got a worker and processed rows
+   */
+  public long getBursts() {
+    return bursts;
+  }
+
+  /**
+   * @return true if the step copy has finished running
+   */
+  public boolean isFinished() {
+    return finished;
+  }
+}
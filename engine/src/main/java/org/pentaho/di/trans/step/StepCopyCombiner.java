@@ -0,0 +1,155 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.trans.step;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransAdapter;
+
+/**
+ * Collects the partial results of the copies of a step running in the same transformation. Every copy offers its
+ * partial result once its input is exhausted; the copy that comes last receives the partial results of all copies,
+ * ordered by copy number, and combines them into the final result. No copy ever waits for another one.
+ * <p>
+ * The combiners of a transformation are kept in its extension data and dropped when it finishes, so the partial
+ * results of a failed or stopped run never outlive it.
+ *
+ * @param <T>
+ *          the type of the partial results
+ */
+public class StepCopyCombiner<T> {
+
+  private static final String EXTENSION_DATA_KEY = "StepCopyCombiners";
+
+  private final Trans trans;
+  private final String stepname;
+  private final Object[] partials;
+  private int nrOffered;
+
+  private StepCopyCombiner( Trans trans, String stepname, int nrCopies ) {
+    this.trans = trans;
+    this.stepname = stepname;
+    this.partials = new Object[nrCopies];
+  }
+
+  /**
+   * @return the number of copies of the step in its transformation, 1 if the copies can't be determined
+   */
+  public static int getNrCopies( StepInterface step ) {
+    Trans trans = step.getTrans();
+    List<StepInterface> copies = trans == null ? null : trans.findStepInterfaces( step.getStepname() );
+    return copies == null || copies.isEmpty() ? 1 : copies.size();
+  }
+
+  /**
+   * Gets the combiner shared by all copies of a step.
+   *
+   * @param step
+   *          any copy of the step
+   * @return the shared combiner
+   */
+  @SuppressWarnings( "unchecked" )
+  public static synchronized <T> StepCopyCombiner<T> getCombiner( StepInterface step ) {
+    Trans trans = step.getTrans();
+    if ( trans == null ) {
+      // A step on its own: it is the only copy
+      return new StepCopyCombiner<T>( null, step.getStepname(), 1 );
+    }
+    Map<String, StepCopyCombiner<?>> stepCombiners =
+      (Map<String, StepCopyCombiner<?>>) trans.getExtensionDataMap().get( EXTENSION_DATA_KEY );
+    if ( stepCombiners == null ) {
+      stepCombiners = new HashMap<String, StepCopyCombiner<?>>();
+      trans.getExtensionDataMap().put( EXTENSION_DATA_KEY, stepCombiners );
+      trans.addTransListener( new TransAdapter() {
+        @Override
+        public void transFinished( Trans trans ) {
+          removeAll( trans );
+        }
+      } );
+    }
+    StepCopyCombiner<?> combiner = stepCombiners.get( step.getStepname() );
+    if ( combiner == null ) {
+      combiner = new StepCopyCombiner<T>( trans, step.getStepname(), getNrCopies( step ) );
+      stepCombiners.put( step.getStepname(), combiner );
+    }
+    return (StepCopyCombiner<T>) combiner;
+  }
+
+  @SuppressWarnings( "unchecked" )
+  private static synchronized void remove( StepCopyCombiner<?> combiner ) {
+    if ( combiner.trans == null ) {
+      return;
+    }
+    Map<String, StepCopyCombiner<?>> stepCombiners =
+      (Map<String, StepCopyCombiner<?>>) combiner.trans.getExtensionDataMap().get( EXTENSION_DATA_KEY );
+    if ( stepCombiners != null && stepCombiners.get( combiner.stepname ) == combiner ) {
+      stepCombiners.remove( combiner.stepname );
+    }
+  }
+
+  /**
+   * Drops the combiners of a transformation, with the partial results of copies that never got to combine them.
+   */
+  static synchronized void removeAll( Trans trans ) {
+    trans.getExtensionDataMap().remove( EXTENSION_DATA_KEY );
+  }
+
+  /**
+   * Offers the partial result of a copy.
+   *
+   * @param copyNr
+   *          the copy number of the offering step copy
+   * @param partial
+   *          its partial result
+   * @return the partial results of all copies ordered by copy number if this was the last copy to offer, null
+   *         otherwise
+   */
+  @SuppressWarnings( "unchecked" )
+  public List<T> offer( int copyNr, T partial ) {
+    Object[] all;
+    synchronized ( this ) {
+      if ( partials[copyNr] == null ) {
+        nrOffered++;
+      }
+      partials[copyNr] = partial;
+      if ( nrOffered < partials.length ) {
+        return null;
+      }
+      all = partials.clone();
+      Arrays.fill( partials, null );
+      nrOffered = 0;
+    }
+    remove( this );
+
+    List<T> result = new ArrayList<T>( all.length );
+    for ( Object object : all ) {
+      result.add( (T) object );
+    }
+    return result;
+  }
+}
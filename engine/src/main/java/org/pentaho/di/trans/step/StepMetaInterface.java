@@ -768,4 +768,14 @@ public interface StepMetaInterface {
   default TransMeta fetchTransMeta( StepMetaInterface stepMeta, Repository rep, IMetaStore metastore, VariableSpace space ) throws KettleException {
     return null; // default
   }
+
+  /**
+   * True if the step reads or writes columnar row batches (see {@link BaseStep#getRowBatch(int)}). When
+   * KETTLE_COLUMNAR_ROW_BATCHES is enabled the hops of these steps are given row sets that can carry the batches.
+   *
+   * @return True if the step can make use of columnar row batches, false otherwise
+   */
+  default boolean supportsColumnarRowBatches() {
+    return false;
+  }
 }
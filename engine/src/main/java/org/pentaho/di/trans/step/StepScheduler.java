@@ -0,0 +1,192 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.trans.step;
+
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.logging.LogChannel;
+import org.pentaho.di.i18n.BaseMessages;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs step copies on a bounded pool of worker threads shared by all transformations in the JVM, instead of giving
+ * every step copy a thread of its own. A step copy is picked up by a worker when it can make progress: it has rows
+ * waiting on input (or all input is done) and room on its output. It then calls processRow() for a short burst and
+ * gives the worker back. A step copy that can't make progress is looked at again after a short, growing delay.
+ * <p>
+ * Only the steps of an explicit list are scheduled: steps that handle their rows in memory and never wait for another
+ * step, a database or a file within processRow(). All other steps keep a thread of their own. The scheduler holds a
+ * step back once an output row set holds the configured row set size; the row sets written by a scheduled step have
+ * some room beyond that for the rows put by the last call of processRow(), see {@link #getRowSetCapacity(int)}. If
+ * all workers are still busy without finishing a burst (a step that waits for room after all), a worker is added until
+ * things move again.
+ *
+ * @see org.pentaho.di.trans.TransMeta#isUsingPooledStepExecution()
+ */
+public class StepScheduler {
+
+  private static Class<?> PKG = StepScheduler.class; // for i18n purposes, needed by Translator2!!
+
+  private static final long BURST_NANOS = TimeUnit.MILLISECONDS.toNanos( 10 );
+  private static final long MIN_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos( 50 );
+  private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos( 10 );
+  private static final long WATCHDOG_MILLIS = 200;
+
+  /**
+   * The IDs of the steps that are scheduled.
+   */
+  private static final Set<String> SCHEDULED_STEP_IDS = Collections.unmodifiableSet( new HashSet<>( Arrays.asList(
+    "Dummy", "SelectValues", "Calculator", "Constant", "FilterRows", "JavaFilter", "SwitchCase", "NullIf", "IfNull",
+    "SetValueConstant", "SetValueField", "StringOperations", "StringCut", "ReplaceString", "ValueMapper",
+    "NumberRange", "FieldSplitter", "FieldsChangeSequence", "Formula", "Janino", "RegexEval", "Unique" ) ) );
+
+  private static StepScheduler instance;
+
+  private final int poolSize;
+  private final ScheduledThreadPoolExecutor workers;
+  private final ScheduledExecutorService watchdog;
+  private final AtomicLong bursts = new AtomicLong();
+  private long lastBursts;
+
+  /**
+   * @return the scheduler shared by all transformations, the number of workers is taken from the
+   *         KETTLE_STEP_SCHEDULER_POOL_SIZE system property and defaults to the number of processors.
+   */
+  public static synchronized StepScheduler getInstance() {
+    if ( instance == null ) {
+      int poolSize = Const.toInt( System.getProperty( Const.KETTLE_STEP_SCHEDULER_POOL_SIZE ),
+        Runtime.getRuntime().availableProcessors() );
+      instance = new StepScheduler( Math.max( 1, poolSize ) );
+    }
+    return instance;
+  }
+
+  StepScheduler( int poolSize ) {
+    this.poolSize = poolSize;
+    workers = new ScheduledThreadPoolExecutor( poolSize, new NamedThreadFactory( "Step scheduler worker" ) );
+    workers.setKeepAliveTime( 1, TimeUnit.MINUTES );
+    workers.allowCoreThreadTimeOut( true );
+    watchdog = new ScheduledThreadPoolExecutor( 1, new NamedThreadFactory( "Step scheduler watchdog" ) );
+    watchdog.scheduleWithFixedDelay( this::checkProgress, WATCHDOG_MILLIS, WATCHDOG_MILLIS, TimeUnit.MILLISECONDS );
+  }
+
+  /**
+   * Checks if a step can run on the scheduler: it needs to be one of the steps that never wait within processRow() and
+   * can't have info streams, as reading those waits for another step.
+   *
+   * @param stepMeta the step to check
+   * @return true if the copies of the step can be run by the scheduler
+   */
+  public static boolean canSchedule( StepMeta stepMeta ) {
+    return SCHEDULED_STEP_IDS.contains( stepMeta.getStepID() )
+      && stepMeta.getStepMetaInterface().getStepIOMeta().getInfoStreams().isEmpty();
+  }
+
+  /**
+   * @param rowSetSize the row set size of the transformation, where the scheduler holds a step back
+   * @return the capacity of a row set written by a scheduled step: the row set size plus room for the rows put by one
+   *         call of processRow(), so that the step doesn't wait for room in the middle of it
+   */
+  public static int getRowSetCapacity( int rowSetSize ) {
+    return rowSetSize + Math.max( rowSetSize, Const.ROWS_IN_BATCH );
+  }
+
+  /**
+   * Starts running a step copy on the scheduler.
+   *
+   * @param combi      the step copy to run
+   * @param rowSetSize the number of rows a step copy can have waiting on each output row set before it is held back
+   * @return the scheduled step, which keeps track of the time it spent processing rows and waiting
+   */
+  public ScheduledStep schedule( StepMetaDataCombi combi, int rowSetSize ) {
+    combi.step.setUsingThreadPriorityManagment( false );
+    ScheduledStep scheduledStep = new ScheduledStep( this, combi, rowSetSize );
+    workers.execute( scheduledStep );
+    return scheduledStep;
+  }
+
+  void burstCompleted() {
+    bursts.incrementAndGet();
+  }
+
+  void runAgain( ScheduledStep scheduledStep ) {
+    workers.execute( scheduledStep );
+  }
+
+  void runLater( ScheduledStep scheduledStep, int idleRounds ) {
+    long delay = Math.min( MAX_WAIT_NANOS, MIN_WAIT_NANOS << Math.min( idleRounds, 10 ) );
+    workers.schedule( scheduledStep, delay, TimeUnit.NANOSECONDS );
+  }
+
+  long getBurstNanos() {
+    return BURST_NANOS;
+  }
+
+  /**
+   * @return the number of workers that are currently available, this is larger than the configured pool size while
+   *         workers are blocked.
+   */
+  public int getWorkerCount() {
+    return workers.getCorePoolSize();
+  }
+
+  private synchronized void checkProgress() {
+    long currentBursts = bursts.get();
+    int workerCount = workers.getCorePoolSize();
+    if ( currentBursts == lastBursts && workers.getActiveCount() >= workerCount ) {
+      // No burst finished while every worker was busy: they're all blocked, add one to keep things moving
+      //
+      workers.setCorePoolSize( workerCount + 1 );
+      LogChannel.GENERAL.logBasic( BaseMessages.getString( PKG, "StepScheduler.Log.WorkerAdded",
+        String.valueOf( workerCount ) ) );
+    } else if ( workerCount > poolSize && workers.getActiveCount() < workerCount - 1 ) {
+      workers.setCorePoolSize( workerCount - 1 );
+    }
+    lastBursts = currentBursts;
+  }
+
+  private static class NamedThreadFactory implements ThreadFactory {
+    private final String name;
+    private final AtomicInteger threadNr = new AtomicInteger();
+
+    NamedThreadFactory( String name ) {
+      this.name = name;
+    }
+
+    @Override
+    public Thread newThread( Runnable runnable ) {
+      Thread thread = new Thread( runnable, name + " " + threadNr.incrementAndGet() );
+      thread.setDaemon( true );
+      return thread;
+    }
+  }
+}
@@ -28,15 +28,19 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import javax.xml.bind.annotation.XmlRootElement;
 
 import org.owasp.encoder.Encode;
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.RowSetProfile;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.xml.XMLHandler;
+import org.pentaho.di.trans.Trans;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
@@ -62,6 +66,12 @@ public class StepStatus {
   private boolean paused;
   private long accumlatedRuntime;
 
+  /** The time in ms this step waited for rows on its input hops, only recorded when the hops are profiled. */
+  private long inputWaitTime;
+
+  /** The time in ms this step was blocked on full output hops, only recorded when the hops are profiled. */
+  private long outputWaitTime;
+
   private RowMetaInterface sampleRowMeta;
   private List<Object[]> sampleRows;
   private final DecimalFormat speedDf = new DecimalFormat( "#,###,###,###,##0" );
@@ -109,6 +119,26 @@ public class StepStatus {
       baseStep.isRunning() ? "   " + baseStep.rowsetInputSize() + "/" + baseStep.rowsetOutputSize() : "-";
     this.stopped = baseStep.isStopped();
     this.paused = baseStep.isPaused();
+
+    Trans trans = baseStep.getTrans();
+    if ( trans != null && trans.isProfilingRowSets() && trans.getRowsets() != null ) {
+      long inputWaitNanos = 0L;
+      long outputWaitNanos = 0L;
+      for ( RowSet rowSet : trans.getRowsets() ) {
+        RowSetProfile profile = rowSet.getProfile();
+        if ( profile == null ) {
+          continue;
+        }
+        if ( stepname.equals( rowSet.getDestinationStepName() ) && copy == rowSet.getDestinationStepCopy() ) {
+          inputWaitNanos += profile.getGetWaitNanos();
+        }
+        if ( stepname.equals( rowSet.getOriginStepName() ) && copy == rowSet.getOriginStepCopy() ) {
+          outputWaitNanos += profile.getPutWaitNanos();
+        }
+      }
+      this.inputWaitTime = TimeUnit.NANOSECONDS.toMillis( inputWaitNanos );
+      this.outputWaitTime = TimeUnit.NANOSECONDS.toMillis( outputWaitNanos );
+    }
   }
 
   public String getHTMLTableRow( boolean urlInStepname ) {
@@ -141,6 +171,8 @@ public class StepStatus {
       xml.append( XMLHandler.addTagValue( "priority", priority, false ) );
       xml.append( XMLHandler.addTagValue( "stopped", stopped, false ) );
       xml.append( XMLHandler.addTagValue( "paused", paused, false ) );
+      xml.append( XMLHandler.addTagValue( "inputWaitTime", inputWaitTime, false ) );
+      xml.append( XMLHandler.addTagValue( "outputWaitTime", outputWaitTime, false ) );
 
       if ( sampleRowMeta != null ) {
         xml.append( XMLHandler.openTag( "samples" ) );
@@ -182,6 +214,8 @@ public class StepStatus {
     priority = XMLHandler.getTagValue( node, "priority" );
     stopped = "Y".equalsIgnoreCase( XMLHandler.getTagValue( node, "stopped" ) );
     paused = "Y".equalsIgnoreCase( XMLHandler.getTagValue( node, "paused" ) );
+    inputWaitTime = Const.toLong( XMLHandler.getTagValue( node, "inputWaitTime" ), 0L );
+    outputWaitTime = Const.toLong( XMLHandler.getTagValue( node, "outputWaitTime" ), 0L );
 
     Node samplesNode = XMLHandler.getSubNode( node, "samples" );
     if ( samplesNode != null ) {
@@ -508,4 +542,26 @@ public class StepStatus {
     this.sampleRows = sampleRows;
   }
 
+  /**
+   * @return the time in ms this step waited for rows on its input hops (KETTLE_ROWSET_PROFILING)
+   */
+  public long getInputWaitTime() {
+    return inputWaitTime;
+  }
+
+  public void setInputWaitTime( long inputWaitTime ) {
+    this.inputWaitTime = inputWaitTime;
+  }
+
+  /**
+   * @return the time in ms this step was blocked on full output hops (KETTLE_ROWSET_PROFILING)
+   */
+  public long getOutputWaitTime() {
+    return outputWaitTime;
+  }
+
+  public void setOutputWaitTime( long outputWaitTime ) {
+    this.outputWaitTime = outputWaitTime;
+  }
+
 }
@@ -29,10 +29,13 @@ import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleFileNotFoundException;
 import org.pentaho.di.core.exception.KettleStepException;
 import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.ColumnVector;
+import org.pentaho.di.core.row.RowBatch;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueDataUtil;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.VectorDataUtil;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
@@ -72,6 +75,10 @@ public class Calculator extends BaseStep implements StepInterface {
     meta = (CalculatorMeta) smi;
     data = (CalculatorData) sdi;
 
+    if ( data.isVectorized() ) {
+      return processRowBatch();
+    }
+
     Object[] r = getRow(); // get row, set busy!
     if ( r == null ) { // no more input to be expected...
       setOutputDone();
@@ -153,6 +160,10 @@ public class Calculator extends BaseStep implements StepInterface {
       for ( int i = 0; i < data.getTempIndexes().length; i++ ) {
         data.getTempIndexes()[i] = tempIndexes.get( i );
       }
+
+      // After this first row the remaining rows can be calculated a batch at a time if all calculations can be.
+      //
+      data.setVectorized( isUsingColumnarRowBatches() && !log.isRowLevel() && canVectorize() );
     }
 
     if ( log.isRowLevel() ) {
@@ -172,6 +183,9 @@ public class Calculator extends BaseStep implements StepInterface {
           logBasic( BaseMessages.getString( PKG, "Calculator.Log.Linenr", "" + getLinesRead() ) );
         }
       }
+      if ( row != r ) {
+        recycleRow( r );
+      }
     } catch ( KettleFileNotFoundException e ) {
       if ( meta.isFailIfNoFile() ) {
         logError( BaseMessages.getString( PKG, "Calculator.Log.NoFile" ) + " : " + e.getFilepath() );
@@ -185,6 +199,122 @@ public class Calculator extends BaseStep implements StepInterface {
     return true;
   }
 
+  /**
+   * @return true if all calculations are simple arithmetic on integer or number fields of the same type without a type
+   *         conversion of the result.
+   */
+  private boolean canVectorize() {
+    for ( int i = 0; i < meta.getCalculation().length; i++ ) {
+      CalculatorMetaFunction fn = meta.getCalculation()[i];
+      FieldIndexes indexes = data.getFieldIndexes()[i];
+      switch ( fn.getCalcType() ) {
+        case CalculatorMetaFunction.CALC_ADD:
+        case CalculatorMetaFunction.CALC_SUBTRACT:
+        case CalculatorMetaFunction.CALC_MULTIPLY:
+        case CalculatorMetaFunction.CALC_DIVIDE:
+          if ( indexes.indexB < 0 || getVectorKind( indexes.indexB ) != getVectorKind( indexes.indexA ) ) {
+            return false;
+          }
+          break;
+        case CalculatorMetaFunction.CALC_SQUARE:
+        case CalculatorMetaFunction.CALC_COPY_OF_FIELD:
+          break;
+        default:
+          return false;
+      }
+      int kind = getVectorKind( indexes.indexA );
+      if ( kind == ColumnVector.KIND_OBJECT ) {
+        return false;
+      }
+      ValueMetaInterface targetMeta = data.getCalcRowMeta().getValueMeta( getInputRowMeta().size() + i );
+      if ( targetMeta.getType() != data.getCalcRowMeta().getValueMeta( indexes.indexA ).getType() ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int getVectorKind( int index ) {
+    return index < 0 ? ColumnVector.KIND_OBJECT : ColumnVector.getKind( data.getCalcRowMeta().getValueMeta( index ) );
+  }
+
+  /**
+   * Calculates a batch of rows a column at a time.
+   */
+  private boolean processRowBatch() throws KettleException {
+    RowBatch batch = getRowBatch( getRowBatchSize() );
+    if ( batch == null ) { // no more input to be expected...
+      setOutputDone();
+      data.clearValuesMetaMapping();
+      return false;
+    }
+
+    long linesRead = getLinesRead() - batch.size();
+    int nrInput = getInputRowMeta().size();
+    ColumnVector[] calcColumns = new ColumnVector[data.getCalcRowMeta().size()];
+    for ( int i = 0; i < nrInput; i++ ) {
+      calcColumns[i] = batch.getColumn( i );
+    }
+
+    for ( int i = 0; i < meta.getCalculation().length; i++ ) {
+      FieldIndexes indexes = data.getFieldIndexes()[i];
+      ColumnVector a = calcColumns[indexes.indexA];
+      ColumnVector b = indexes.indexB < 0 ? null : calcColumns[indexes.indexB];
+      if ( a.getKind() != getVectorKind( indexes.indexA ) || ( b != null && !VectorDataUtil.isNumeric( a, b ) ) ) {
+        // The batch doesn't hold the values as expected, calculate it row by row.
+        //
+        processRowsOfBatch( batch );
+        return true;
+      }
+
+      switch ( meta.getCalculation()[i].getCalcType() ) {
+        case CalculatorMetaFunction.CALC_COPY_OF_FIELD:
+          calcColumns[nrInput + i] = a;
+          break;
+        case CalculatorMetaFunction.CALC_ADD:
+          calcColumns[nrInput + i] = VectorDataUtil.plus( a, b, batch.size() );
+          break;
+        case CalculatorMetaFunction.CALC_SUBTRACT:
+          calcColumns[nrInput + i] = VectorDataUtil.minus( a, b, batch.size() );
+          break;
+        case CalculatorMetaFunction.CALC_MULTIPLY:
+          calcColumns[nrInput + i] = VectorDataUtil.multiply( a, b, batch.size() );
+          break;
+        case CalculatorMetaFunction.CALC_DIVIDE:
+          calcColumns[nrInput + i] = VectorDataUtil.divide( a, b, batch.size() );
+          break;
+        default: // CALC_SQUARE
+          calcColumns[nrInput + i] = VectorDataUtil.multiply( a, a, batch.size() );
+          break;
+      }
+    }
+
+    // Leave out the temporary fields
+    //
+    ColumnVector[] outputColumns = new ColumnVector[calcColumns.length - data.getTempIndexes().length];
+    for ( int i = 0, t = 0, o = 0; i < calcColumns.length; i++ ) {
+      if ( t < data.getTempIndexes().length && data.getTempIndexes()[t] == i ) {
+        t++;
+      } else {
+        outputColumns[o++] = calcColumns[i];
+      }
+    }
+    putRowBatch( data.getOutputRowMeta(), new RowBatch( data.getOutputRowMeta(), outputColumns, batch.size() ) );
+
+    if ( checkFeedback( linesRead, getLinesRead() ) ) {
+      if ( log.isBasic() ) {
+        logBasic( BaseMessages.getString( PKG, "Calculator.Log.Linenr", "" + getLinesRead() ) );
+      }
+    }
+    return true;
+  }
+
+  private void processRowsOfBatch( RowBatch batch ) throws KettleException {
+    for ( int i = 0; i < batch.size(); i++ ) {
+      putRow( data.getOutputRowMeta(), calcFields( getInputRowMeta(), batch.getRow( i ) ) );
+    }
+  }
+
   /**
    * @param inputRowMeta
    *          the input row metadata
@@ -197,7 +327,7 @@ public class Calculator extends BaseStep implements StepInterface {
   private Object[] calcFields( RowMetaInterface inputRowMeta, Object[] r ) throws KettleValueException,
           KettleFileNotFoundException {
     // First copy the input data to the new result...
-    Object[] calcData = RowDataUtil.resizeArray( r, data.getCalcRowMeta().size() );
+    Object[] calcData = resizeRowData( r, data.getCalcRowMeta().size() );
 
     for ( int i = 0, index = inputRowMeta.size() + i; i < meta.getCalculation().length; i++, index++ ) {
       CalculatorMetaFunction fn = meta.getCalculation()[i];
@@ -640,8 +770,11 @@ public class Calculator extends BaseStep implements StepInterface {
     }
 
     // OK, now we should refrain from adding the temporary fields to the result.
-    // So we remove them.
+    // So we remove them. Without temporary fields a new row array can be passed on as it is.
     //
+    if ( data.getTempIndexes().length == 0 && calcData != r ) {
+      return calcData;
+    }
     return RowDataUtil.removeItems( calcData, data.getTempIndexes() );
   }
 
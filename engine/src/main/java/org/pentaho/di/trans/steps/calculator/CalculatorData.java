@@ -44,6 +44,8 @@ public class CalculatorData extends BaseStepData implements StepDataInterface {
 
   private int[] tempIndexes;
 
+  private boolean vectorized;
+
   private final Map<Integer, ValueMetaInterface> resultMetaMapping;
 
   public CalculatorData() {
@@ -83,6 +85,17 @@ public class CalculatorData extends BaseStepData implements StepDataInterface {
     this.tempIndexes = tempIndexes;
   }
 
+  /**
+   * @return true if the rows are calculated a batch at a time, see {@link org.pentaho.di.core.row.RowBatch}
+   */
+  public boolean isVectorized() {
+    return vectorized;
+  }
+
+  public void setVectorized( boolean vectorized ) {
+    this.vectorized = vectorized;
+  }
+
   public ValueMetaInterface getValueMetaFor( int resultType, String name ) throws KettlePluginException {
     // don't need any synchronization as data instance belongs only to one step instance
     ValueMetaInterface meta = resultMetaMapping.get( resultType );
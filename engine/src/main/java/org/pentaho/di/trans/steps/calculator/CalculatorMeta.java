@@ -259,4 +259,9 @@ public class CalculatorMeta extends BaseStepMeta implements StepMetaInterface {
   public StepDataInterface getStepData() {
     return new CalculatorData();
   }
+
+  @Override
+  public boolean supportsColumnarRowBatches() {
+    return true;
+  }
 }
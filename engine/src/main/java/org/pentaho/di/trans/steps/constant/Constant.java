@@ -31,7 +31,6 @@ import org.pentaho.di.core.CheckResult;
 import org.pentaho.di.core.CheckResultInterface;
 import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.exception.KettleException;
-import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
@@ -238,13 +237,19 @@ public class Constant extends BaseStep implements StepInterface {
     }
 
     // Add the constant data to the end of the row.
-    r = RowDataUtil.addRowData( r, getInputRowMeta().size(), data.getConstants().getData() );
+    Object[] constants = data.getConstants().getData();
+    int inputSize = getInputRowMeta().size();
+    Object[] outputRow = resizeRowData( r, inputSize + constants.length );
+    System.arraycopy( constants, 0, outputRow, inputSize, constants.length );
 
-    putRow( data.outputMeta, r );
+    putRow( data.outputMeta, outputRow );
 
     if ( log.isRowLevel() ) {
       logRowlevel( BaseMessages.getString(
-        PKG, "Constant.Log.Wrote.Row", Long.toString( getLinesWritten() ), getInputRowMeta().getString( r ) ) );
+        PKG, "Constant.Log.Wrote.Row", Long.toString( getLinesWritten() ), getInputRowMeta().getString( outputRow ) ) );
+    }
+    if ( outputRow != r ) {
+      recycleRow( r );
     }
 
     if ( checkFeedback( getLinesWritten() ) ) {
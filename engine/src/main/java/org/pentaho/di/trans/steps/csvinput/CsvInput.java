@@ -29,6 +29,7 @@ import java.io.UnsupportedEncodingException;
 import java.io.BufferedInputStream;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.io.ByteOrderMark;
@@ -41,6 +42,7 @@ import org.pentaho.di.core.ResultFile;
 import org.pentaho.di.core.exception.KettleConversionException;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.exception.KettleStepException;
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.logging.LogChannelInterface;
 import org.pentaho.di.core.row.RowDataUtil;
@@ -140,59 +142,79 @@ public class CsvInput extends BaseStep implements StepInterface {
       }
     }
 
-    // If we are running in parallel, make sure we don't read too much in this step copy...
-    //
-    if ( data.parallel ) {
-      if ( data.totalBytesRead >= data.blockToRead ) {
-        setOutputDone(); // stop reading
-        return false;
-      }
+    if ( data.outputRows == null ) {
+      data.outputRows = new Object[ getRowBatchSize() ][];
     }
+    int nrRows = 0;
 
-    try {
-      Object[] outputRowData = readOneRow( false, false ); // get row, set busy!
-      // no more input to be expected...
-      if ( outputRowData == null ) {
-        if ( openNextFile() ) {
-          return true; // try again on the next loop...
-        } else {
-          setOutputDone(); // last file, end here
+    while ( nrRows < data.outputRows.length ) {
+      // If we are running in parallel, make sure we don't read too much in this step copy...
+      //
+      if ( data.parallel ) {
+        if ( data.totalBytesRead >= data.blockToRead ) {
+          putOutputRows( nrRows );
+          setOutputDone(); // stop reading
           return false;
         }
-      } else {
-        putRow( data.outputRowMeta, outputRowData ); // copy row to possible alternate rowset(s).
-        if ( checkFeedback( getLinesInput() ) ) {
-          if ( log.isBasic() ) {
-            logBasic( BaseMessages.getString( PKG, "CsvInput.Log.LineNumber", Long.toString( getLinesInput() ) ) );
-          }
-        }
       }
-    } catch ( KettleConversionException e ) {
-      if ( getStepMeta().isDoingErrorHandling() ) {
-        StringBuilder errorDescriptions = new StringBuilder( 100 );
-        StringBuilder errorFields = new StringBuilder( 50 );
-        for ( int i = 0; i < e.getCauses().size(); i++ ) {
-          if ( i > 0 ) {
-            errorDescriptions.append( ", " );
-            errorFields.append( ", " );
+
+      try {
+        Object[] outputRowData = readOneRow( false, false ); // get row, set busy!
+        // no more input to be expected...
+        if ( outputRowData == null ) {
+          putOutputRows( nrRows );
+          if ( openNextFile() ) {
+            return true; // try again on the next loop...
+          } else {
+            setOutputDone(); // last file, end here
+            return false;
+          }
+        } else {
+          data.outputRows[ nrRows++ ] = outputRowData; // copied to possible alternate rowset(s) per batch.
+          if ( checkFeedback( getLinesInput() ) ) {
+            if ( log.isBasic() ) {
+              logBasic( BaseMessages.getString( PKG, "CsvInput.Log.LineNumber", Long.toString( getLinesInput() ) ) );
+            }
           }
-          errorDescriptions.append( e.getCauses().get( i ).getMessage() );
-          errorFields.append( e.getFields().get( i ).toStringMeta() );
         }
+      } catch ( KettleConversionException e ) {
+        if ( getStepMeta().isDoingErrorHandling() ) {
+          StringBuilder errorDescriptions = new StringBuilder( 100 );
+          StringBuilder errorFields = new StringBuilder( 50 );
+          for ( int i = 0; i < e.getCauses().size(); i++ ) {
+            if ( i > 0 ) {
+              errorDescriptions.append( ", " );
+              errorFields.append( ", " );
+            }
+            errorDescriptions.append( e.getCauses().get( i ).getMessage() );
+            errorFields.append( e.getFields().get( i ).toStringMeta() );
+          }
 
-        putError(
-          data.outputRowMeta, e.getRowData(), e.getCauses().size(), errorDescriptions.toString(), errorFields
-            .toString(), "CSVINPUT001" );
-      } else {
-        // Only forward the first cause.
-        //
-        throw new KettleException( e.getMessage(), e.getCauses().get( 0 ) );
+          // The rows before this one go first, in the order they were read
+          //
+          putOutputRows( nrRows );
+          nrRows = 0;
+          putError(
+            data.outputRowMeta, e.getRowData(), e.getCauses().size(), errorDescriptions.toString(), errorFields
+              .toString(), "CSVINPUT001" );
+        } else {
+          putOutputRows( nrRows );
+          // Only forward the first cause.
+          //
+          throw new KettleException( e.getMessage(), e.getCauses().get( 0 ) );
+        }
       }
     }
 
+    putOutputRows( nrRows );
     return true;
   }
 
+  private void putOutputRows( int nrRows ) throws KettleStepException {
+    putRows( data.outputRowMeta, data.outputRows, nrRows );
+    Arrays.fill( data.outputRows, 0, nrRows, null );
+  }
+
   private void prepareToRunInParallel() throws KettleException {
     try {
       // At this point it doesn't matter if we have 1 or more files.
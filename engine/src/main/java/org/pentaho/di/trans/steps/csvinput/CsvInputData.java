@@ -44,6 +44,9 @@ public class CsvInputData extends BaseStepData implements StepDataInterface {
   public RowMetaInterface convertRowMeta;
   public RowMetaInterface outputRowMeta;
 
+  /** Buffer holding the rows read in the current batch */
+  public Object[][] outputRows;
+
   private byte[] byteBuffer;
   private int startBuffer;
   private int endBuffer;
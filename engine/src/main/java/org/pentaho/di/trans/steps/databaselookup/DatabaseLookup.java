@@ -22,11 +22,20 @@
 
 package org.pentaho.di.trans.steps.databaselookup;
 
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.row.value.ValueMetaBase;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.database.Database;
@@ -34,6 +43,7 @@ import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.logging.Metrics;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -80,44 +90,7 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
   synchronized Object[] lookupValues( RowMetaInterface inputRowMeta, Object[] row ) throws KettleException {
     Object[] outputRow = RowDataUtil.resizeArray( row, data.outputRowMeta.size() );
 
-    Object[] lookupRow = new Object[ data.lookupMeta.size() ];
-    int lookupIndex = 0;
-
-    for ( int i = 0; i < meta.getStreamKeyField1().length; i++ ) {
-      if ( data.keynrs[ i ] >= 0 ) {
-        ValueMetaInterface input = inputRowMeta.getValueMeta( data.keynrs[ i ] );
-        ValueMetaInterface value = data.lookupMeta.getValueMeta( lookupIndex );
-        lookupRow[ lookupIndex ] = row[ data.keynrs[ i ] ];
-
-        // Try to convert type if needed
-        if ( input.getType() != value.getType()
-          || ValueMetaInterface.STORAGE_TYPE_BINARY_STRING == input.getStorageType() ) {
-          lookupRow[ lookupIndex ] = value.convertData( input, lookupRow[ lookupIndex ] );
-          value.setStorageType( ValueMetaInterface.STORAGE_TYPE_NORMAL );
-        }
-
-        //If input is of type date and its mask does not contain time then we should trim the time part from the date
-        //otherwise we will clog the database lookup cache with to many entries
-        if ( input.getType() == ValueMetaInterface.TYPE_DATE && isTimelessMask( input.getConversionMask() ) ) {
-          lookupRow[lookupIndex] = Const.trimDate( (Date) lookupRow[lookupIndex] );
-        }
-
-        lookupIndex++;
-      }
-      if ( data.keynrs2[ i ] >= 0 ) {
-        ValueMetaInterface input = inputRowMeta.getValueMeta( data.keynrs2[ i ] );
-        ValueMetaInterface value = data.lookupMeta.getValueMeta( lookupIndex );
-        lookupRow[ lookupIndex ] = row[ data.keynrs2[ i ] ];
-
-        // Try to convert type if needed
-        if ( input.getType() != value.getType()
-          || ValueMetaInterface.STORAGE_TYPE_BINARY_STRING == input.getStorageType() ) {
-          lookupRow[ lookupIndex ] = value.convertData( input, lookupRow[ lookupIndex ] );
-          value.setStorageType( ValueMetaInterface.STORAGE_TYPE_NORMAL );
-        }
-        lookupIndex++;
-      }
-    }
+    Object[] lookupRow = getLookupRow( inputRowMeta, row );
 
     Object[] add;
     boolean cache_now = false;
@@ -128,6 +101,9 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
       add = data.cache.getRowFromCache( data.lookupMeta, lookupRow );
       if ( add != null ) {
         cacheHit = true;
+        data.cacheHits++;
+      } else {
+        data.cacheMisses++;
       }
     } else {
       add = null;
@@ -145,8 +121,21 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
             + data.lookupMeta.getString( lookupRow ) );
         }
 
-        data.db.setValuesLookup( data.lookupMeta, lookupRow );
-        add = data.db.getLookup( meta.isFailingOnMultipleResults() );
+        if ( data.batchResults != null ) {
+          RowMetaAndData key = getBatchKey( lookupRow );
+          if ( meta.isFailingOnMultipleResults() && data.batchMultipleResults.contains( key ) ) {
+            throw new KettleDatabaseException(
+              "Only 1 row was expected as a result of a lookup, and at least 2 were found!" );
+          }
+          add = data.batchResults.get( key );
+          if ( add != null ) {
+            // Rows with the same key share the result, the type conversion below works on a copy
+            add = add.clone();
+          }
+        } else {
+          data.db.setValuesLookup( data.lookupMeta, lookupRow );
+          add = data.db.getLookup( meta.isFailingOnMultipleResults() );
+        }
         cache_now = true;
       }
     }
@@ -185,13 +174,14 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
       if ( !cacheHit ) {
         incrementLines();
         int[] types = meta.getReturnValueDefaultType();
+        RowMetaInterface returnedMeta = data.batchResults != null ? data.batchReturnMeta : data.db.getReturnRowMeta();
 
         // The assumption here is that the types are in the same order
         // as the returned lookup row, but since we make the lookup row
         // that should not be a problem.
         //
         for ( int i = 0; i < types.length; i++ ) {
-          ValueMetaInterface returned = data.db.getReturnRowMeta().getValueMeta( i );
+          ValueMetaInterface returned = returnedMeta.getValueMeta( i );
           ValueMetaInterface expected = data.returnMeta.getValueMeta( i );
 
           if ( returned != null && types[ i ] > 0 && types[ i ] != returned.getType() ) {
@@ -216,6 +206,51 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
     return outputRow;
   }
 
+  /**
+   * Converts the key values of an input row to the lookup key.
+   */
+  private Object[] getLookupRow( RowMetaInterface inputRowMeta, Object[] row ) throws KettleException {
+    Object[] lookupRow = new Object[ data.lookupMeta.size() ];
+    int lookupIndex = 0;
+
+    for ( int i = 0; i < meta.getStreamKeyField1().length; i++ ) {
+      if ( data.keynrs[ i ] >= 0 ) {
+        ValueMetaInterface input = inputRowMeta.getValueMeta( data.keynrs[ i ] );
+        ValueMetaInterface value = data.lookupMeta.getValueMeta( lookupIndex );
+        lookupRow[ lookupIndex ] = row[ data.keynrs[ i ] ];
+
+        // Try to convert type if needed
+        if ( input.getType() != value.getType()
+          || ValueMetaInterface.STORAGE_TYPE_BINARY_STRING == input.getStorageType() ) {
+          lookupRow[ lookupIndex ] = value.convertData( input, lookupRow[ lookupIndex ] );
+          value.setStorageType( ValueMetaInterface.STORAGE_TYPE_NORMAL );
+        }
+
+        //If input is of type date and its mask does not contain time then we should trim the time part from the date
+        //otherwise we will clog the database lookup cache with to many entries
+        if ( input.getType() == ValueMetaInterface.TYPE_DATE && isTimelessMask( input.getConversionMask() ) ) {
+          lookupRow[lookupIndex] = Const.trimDate( (Date) lookupRow[lookupIndex] );
+        }
+
+        lookupIndex++;
+      }
+      if ( data.keynrs2[ i ] >= 0 ) {
+        ValueMetaInterface input = inputRowMeta.getValueMeta( data.keynrs2[ i ] );
+        ValueMetaInterface value = data.lookupMeta.getValueMeta( lookupIndex );
+        lookupRow[ lookupIndex ] = row[ data.keynrs2[ i ] ];
+
+        // Try to convert type if needed
+        if ( input.getType() != value.getType()
+          || ValueMetaInterface.STORAGE_TYPE_BINARY_STRING == input.getStorageType() ) {
+          lookupRow[ lookupIndex ] = value.convertData( input, lookupRow[ lookupIndex ] );
+          value.setStorageType( ValueMetaInterface.STORAGE_TYPE_NORMAL );
+        }
+        lookupIndex++;
+      }
+    }
+    return lookupRow;
+  }
+
   @VisibleForTesting
   boolean isTimelessMask( String dateMask ) {
     if ( dateMask == null ) {
@@ -357,6 +392,9 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
   public boolean processRow( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
     Object[] r = getRow(); // Get row from input rowset & set row busy!
     if ( r == null ) { // no more input to be expected...
+      if ( data.batchRows != null && !data.batchRows.isEmpty() && !lookupBatch() ) {
+        return false;
+      }
       setOutputDone();
       return false;
     }
@@ -413,7 +451,9 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
         }
       }
 
-      if ( meta.isCached() ) {
+      if ( data.sharedCache != null ) {
+        data.cache = data.sharedCache;
+      } else if ( meta.isCached() ) {
         data.cache = DefaultCache.newCache( data, meta.getCacheSize() );
       }
 
@@ -428,7 +468,21 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
       // If the user selected to load all data into the cache at startup, that's what we do now...
       //
       if ( meta.isCached() && meta.isLoadingAllDataInCache() ) {
-        loadAllTableDataIntoTheCache();
+        if ( data.sharedCache != null ) {
+          // The first copy to get here reads the table for all of them
+          //
+          data.sharedCache.loadAll( this::loadSharedCache );
+        } else {
+          loadAllTableDataIntoTheCache();
+        }
+      } else if ( meta.getLookupBatchSize() > 1 ) {
+        if ( isBatchLookupPossible() ) {
+          data.batchRows = new ArrayList<>( meta.getLookupBatchSize() );
+          data.batchStatements = new HashMap<>();
+          data.batchParameterMetas = new HashMap<>();
+        } else {
+          logBasic( BaseMessages.getString( PKG, "DatabaseLookup.Log.BatchLookupNotPossible" ) );
+        }
       }
 
     }
@@ -438,6 +492,23 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
         + getInputRowMeta().getString( r ) );
     }
 
+    if ( data.batchRows != null ) {
+      data.batchRows.add( r );
+      if ( data.batchRows.size() >= meta.getLookupBatchSize() ) {
+        return lookupBatch();
+      }
+      return true;
+    }
+
+    return lookupRow( r );
+  }
+
+  /**
+   * Looks up a single row and passes it on.
+   *
+   * @return false if the step has to stop
+   */
+  private boolean lookupRow( Object[] r ) throws KettleException {
     try {
       // add new lookup values to the row
       Object[] outputRow = lookupValues( getInputRowMeta(), r );
@@ -455,21 +526,295 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
         }
       }
     } catch ( KettleException e ) {
-      if ( getStepMeta().isDoingErrorHandling() ) {
-        putError( getInputRowMeta(), r, 1, e.getMessage(), null, "DBLOOKUPD001" );
-      } else {
-        logError( BaseMessages.getString( PKG, "DatabaseLookup.ERROR003.UnexpectedErrorDuringProcessing" )
-          + e.getMessage() );
-        setErrors( 1 );
-        stopAll();
-        setOutputDone(); // signal end to receiver(s)
+      return handleLookupError( r, e );
+    }
+
+    return true;
+  }
+
+  /**
+   * Sends a row that couldn't be looked up to the error handling or stops the step.
+   *
+   * @return false if the step has to stop
+   */
+  private boolean handleLookupError( Object[] r, KettleException e ) throws KettleException {
+    if ( getStepMeta().isDoingErrorHandling() ) {
+      putError( getInputRowMeta(), r, 1, e.getMessage(), null, "DBLOOKUPD001" );
+      return true;
+    }
+    logError( BaseMessages.getString( PKG, "DatabaseLookup.ERROR003.UnexpectedErrorDuringProcessing" )
+      + e.getMessage() );
+    setErrors( 1 );
+    stopAll();
+    setOutputDone(); // signal end to receiver(s)
+    return false;
+  }
+
+  /**
+   * Batched lookups need plain equality conditions, every key field in one stream field, so that the keys of many rows
+   * can be combined in a single IN list.<br>
+   * The rows that come back are matched to their keys with the equality of Kettle values. For strings that is not the
+   * comparison of the database: case insensitive collations and padded CHAR columns match values that Kettle considers
+   * different. The same goes for floating point numbers and dates, which the database compares at the precision of the
+   * column. Keys with such a field are therefore looked up row by row. Big numbers are matched at any scale, see
+   * {@link #getBatchKey(Object[])}.
+   */
+  @VisibleForTesting
+  boolean isBatchLookupPossible() {
+    if ( !data.allEquals || data.lookupMeta.size() == 0 ) {
+      return false;
+    }
+    for ( ValueMetaInterface keyMeta : data.lookupMeta.getValueMetaList() ) {
+      if ( keyMeta.isString() || keyMeta.isDate() || keyMeta.getType() == ValueMetaInterface.TYPE_NUMBER ) {
+        return false;
+      }
+    }
+    for ( int i = 0; i < meta.getKeyCondition().length; i++ ) {
+      if ( data.keynrs2[ i ] >= 0 ) {
+        return false;
+      }
+      boolean isNull = data.conditions[ i ] == DatabaseLookupMeta.CONDITION_IS_NULL;
+      if ( isNull == data.keynrs[ i ] >= 0 ) {
         return false;
       }
     }
+    return true;
+  }
+
+  /**
+   * Looks up the distinct uncached keys of all buffered rows with as few queries as possible, then passes the rows on
+   * in their original order.
+   *
+   * @return false if the step has to stop
+   */
+  private boolean lookupBatch() throws KettleException {
+    List<Object[]> rows = data.batchRows;
+    data.batchRows = new ArrayList<>( meta.getLookupBatchSize() );
+
+    try {
+      queryBatch( rows );
+    } catch ( KettleException e ) {
+      // The keys of all rows were looked up together, so all of them failed
+      //
+      for ( Object[] r : rows ) {
+        if ( !handleLookupError( r, e ) ) {
+          return false;
+        }
+      }
+      return true;
+    }
 
+    try {
+      for ( Object[] r : rows ) {
+        if ( !lookupRow( r ) ) {
+          return false;
+        }
+      }
+    } finally {
+      data.batchResults = null;
+      data.batchMultipleResults = null;
+    }
     return true;
   }
 
+  private void queryBatch( List<Object[]> rows ) throws KettleException {
+    Map<RowMetaAndData, Object[]> keys = new LinkedHashMap<>();
+    for ( Object[] r : rows ) {
+      Object[] lookupRow;
+      try {
+        lookupRow = getLookupRow( getInputRowMeta(), r );
+      } catch ( KettleException e ) {
+        // Reported when the row itself is looked up
+        continue;
+      }
+      // A limited cache might evict the key before its row is looked up, so only an unlimited one is trusted here
+      //
+      if ( meta.isCached() && meta.getCacheSize() <= 0
+        && data.cache.getRowFromCache( data.lookupMeta, lookupRow ) != null ) {
+        continue;
+      }
+      RowMetaAndData key = getBatchKey( lookupRow );
+      if ( !keys.containsKey( key ) ) {
+        keys.put( key, lookupRow );
+      }
+    }
+
+    data.batchResults = new HashMap<>();
+    data.batchMultipleResults = new HashSet<>();
+
+    int keysPerQuery = getKeysPerQuery();
+    List<Object[]> queryKeys = new ArrayList<>( Math.min( keysPerQuery, keys.size() ) );
+    for ( Object[] lookupRow : keys.values() ) {
+      queryKeys.add( lookupRow );
+      if ( queryKeys.size() == keysPerQuery ) {
+        queryKeys( queryKeys );
+        queryKeys.clear();
+      }
+    }
+    if ( !queryKeys.isEmpty() ) {
+      queryKeys( queryKeys );
+    }
+  }
+
+  private int getKeysPerQuery() {
+    return Math.max( 1, meta.getDatabaseMeta().getMaxStatementParameters() / data.lookupMeta.size() );
+  }
+
+  /**
+   * @return the number of keys in the query for the given number of keys: the next power of two, at most the number
+   * of keys per query. Only these few statements are ever prepared.
+   */
+  @VisibleForTesting
+  static int getPaddedNrKeys( int nrKeys, int keysPerQuery ) {
+    int padded = Integer.highestOneBit( nrKeys );
+    if ( padded < nrKeys ) {
+      padded <<= 1;
+    }
+    return Math.min( padded, keysPerQuery );
+  }
+
+  /**
+   * Runs a single batched lookup query for the given keys and adds the results to the batch results. The key list is
+   * padded to a fixed size by repeating the last key, which doesn't change the rows that come back.
+   */
+  private void queryKeys( List<Object[]> keys ) throws KettleException {
+    int nrKeys = getPaddedNrKeys( keys.size(), getKeysPerQuery() );
+    int nrKeyFields = data.lookupMeta.size();
+
+    PreparedStatement ps = data.batchStatements.get( nrKeys );
+    RowMetaInterface parameterMeta = data.batchParameterMetas.get( nrKeys );
+    if ( ps == null ) {
+      String sql = getBatchLookupSQL( nrKeys );
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "DatabaseLookup.Log.PreparingBatchLookup", sql ) );
+      }
+      ps = data.db.prepareSQL( sql );
+      parameterMeta = new RowMeta();
+      for ( int k = 0; k < nrKeys; k++ ) {
+        for ( int i = 0; i < nrKeyFields; i++ ) {
+          parameterMeta.addValueMeta( data.lookupMeta.getValueMeta( i ).clone() );
+        }
+      }
+      data.batchStatements.put( nrKeys, ps );
+      data.batchParameterMetas.put( nrKeys, parameterMeta );
+    }
+
+    Object[] parameters = new Object[ nrKeys * nrKeyFields ];
+    for ( int k = 0; k < nrKeys; k++ ) {
+      Object[] key = keys.get( Math.min( k, keys.size() - 1 ) );
+      System.arraycopy( key, 0, parameters, k * nrKeyFields, nrKeyFields );
+    }
+
+    ResultSet resultSet = data.db.openQuery( ps, parameterMeta, parameters );
+    try {
+      RowMetaInterface resultMeta = data.db.getReturnRowMeta();
+      if ( data.batchReturnMeta == null ) {
+        data.batchReturnMeta = new RowMeta();
+        for ( int i = nrKeyFields; i < resultMeta.size(); i++ ) {
+          data.batchReturnMeta.addValueMeta( resultMeta.getValueMeta( i ) );
+        }
+      }
+
+      Object[] row;
+      while ( ( row = data.db.getRow( resultSet ) ) != null ) {
+        Object[] keyData = new Object[ nrKeyFields ];
+        for ( int i = 0; i < nrKeyFields; i++ ) {
+          keyData[ i ] = data.lookupMeta.getValueMeta( i ).convertData( resultMeta.getValueMeta( i ), row[ i ] );
+        }
+        RowMetaAndData key = getBatchKey( keyData );
+        if ( data.batchResults.containsKey( key ) ) {
+          // Only the first row counts, as with a single lookup
+          data.batchMultipleResults.add( key );
+        } else {
+          Object[] add = new Object[ resultMeta.size() - nrKeyFields ];
+          System.arraycopy( row, nrKeyFields, add, 0, add.length );
+          data.batchResults.put( key, add );
+        }
+      }
+    } finally {
+      data.db.closeQuery( resultSet );
+    }
+  }
+
+  /**
+   * @return the key to match the results of a batched lookup by. Big numbers lose their trailing zeros: they are equal
+   * at any scale, but their hash codes are not, so 1.00 would never find 1.
+   */
+  @VisibleForTesting
+  RowMetaAndData getBatchKey( Object[] keyData ) {
+    Object[] normalized = keyData;
+    for ( int i = 0; i < data.lookupMeta.size(); i++ ) {
+      if ( keyData[ i ] instanceof BigDecimal ) {
+        if ( normalized == keyData ) {
+          normalized = keyData.clone();
+        }
+        normalized[ i ] = ( (BigDecimal) keyData[ i ] ).stripTrailingZeros();
+      }
+    }
+    return new RowMetaAndData( data.lookupMeta, normalized );
+  }
+
+  /**
+   * Builds the query to look up the given number of keys at once: an IN list for a single key field, a disjunction of
+   * the key combinations otherwise.
+   */
+  @VisibleForTesting
+  String getBatchLookupSQL( int nrKeys ) {
+    DatabaseMeta dbMeta = meta.getDatabaseMeta();
+    List<String> keyFields = new ArrayList<>();
+    List<String> nullFields = new ArrayList<>();
+    for ( int i = 0; i < meta.getTableKeyField().length; i++ ) {
+      if ( data.conditions[ i ] == DatabaseLookupMeta.CONDITION_IS_NULL ) {
+        nullFields.add( dbMeta.quoteField( meta.getTableKeyField()[ i ] ) );
+      } else {
+        keyFields.add( dbMeta.quoteField( meta.getTableKeyField()[ i ] ) );
+      }
+    }
+
+    StringBuilder sql = new StringBuilder( "SELECT " );
+    for ( int i = 0; i < keyFields.size(); i++ ) {
+      if ( i > 0 ) {
+        sql.append( ", " );
+      }
+      sql.append( keyFields.get( i ) );
+    }
+    for ( String returnField : meta.getReturnValueField() ) {
+      sql.append( ", " ).append( dbMeta.quoteField( returnField ) );
+    }
+    sql.append( " FROM " ).append( dbMeta.getQuotedSchemaTableCombination(
+      environmentSubstitute( meta.getSchemaName() ), environmentSubstitute( meta.getTablename() ) ) );
+    sql.append( " WHERE " );
+    for ( String nullField : nullFields ) {
+      sql.append( nullField ).append( " IS NULL AND " );
+    }
+
+    if ( keyFields.size() == 1 ) {
+      sql.append( keyFields.get( 0 ) ).append( " IN (" );
+      for ( int k = 0; k < nrKeys; k++ ) {
+        sql.append( k > 0 ? ", ?" : "?" );
+      }
+      sql.append( ")" );
+    } else {
+      sql.append( "(" );
+      for ( int k = 0; k < nrKeys; k++ ) {
+        sql.append( k > 0 ? " OR (" : "(" );
+        for ( int i = 0; i < keyFields.size(); i++ ) {
+          if ( i > 0 ) {
+            sql.append( " AND " );
+          }
+          sql.append( keyFields.get( i ) ).append( " = ?" );
+        }
+        sql.append( ")" );
+      }
+      sql.append( ")" );
+    }
+
+    if ( !Utils.isEmpty( meta.getOrderByClause() ) ) {
+      sql.append( " ORDER BY " ).append( meta.getOrderByClause() );
+    }
+    return sql.toString();
+  }
+
   private void loadAllTableDataIntoTheCache() throws KettleException {
     DatabaseMeta dbMeta = meta.getDatabaseMeta();
 
@@ -524,6 +869,30 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
     }
   }
 
+  private DatabaseLookupData.Cache loadSharedCache() throws KettleException {
+    data.cache = DefaultCache.newCache( data, 0 );
+    try {
+      loadAllTableDataIntoTheCache();
+      return data.cache;
+    } finally {
+      data.cache = data.sharedCache;
+    }
+  }
+
+  /**
+   * The steps sharing a cache need to look up the same values from the same table with the same conditions.
+   *
+   * @return the key of the cache shared by this step
+   */
+  @VisibleForTesting
+  String getSharedCacheKey() {
+    return Arrays.deepToString( new Object[] {
+      meta.getDatabaseMeta().getName(), environmentSubstitute( meta.getSchemaName() ),
+      environmentSubstitute( meta.getTablename() ), meta.getTableKeyField(), meta.getKeyCondition(),
+      meta.getReturnValueField(), meta.getReturnValueDefault(), meta.getReturnValueDefaultType(),
+      meta.getOrderByClause(), meta.isLoadingAllDataInCache(), meta.getCacheSize() } );
+  }
+
   private void putToDefaultCache( Database db, List<Object[]> rows ) {
     final int keysAmount = meta.getStreamKeyField1().length;
     RowMetaInterface prototype = copyValueMetasFrom( db.getReturnRowMeta(), keysAmount );
@@ -634,6 +1003,11 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
           }
         }
 
+        if ( meta.isCached() && meta.isSharingCache() ) {
+          data.sharedCache = SharedCache.acquire( getTrans(), getSharedCacheKey(),
+            meta.isLoadingAllDataInCache() ? 0 : meta.getCacheSize() );
+        }
+
         return true;
       } catch ( Exception e ) {
         logError( BaseMessages.getString( PKG, "DatabaseLookup.ERROR0004.UnexpectedErrorDuringInit" )
@@ -652,9 +1026,23 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
     data = (DatabaseLookupData) sdi;
 
     if ( data.db != null ) {
+      if ( data.batchStatements != null ) {
+        for ( PreparedStatement ps : data.batchStatements.values() ) {
+          try {
+            data.db.closePreparedStatement( ps );
+          } catch ( KettleDatabaseException e ) {
+            logError( BaseMessages.getString( PKG, "DatabaseLookup.Log.UnableToCloseBatchLookup" ), e );
+          }
+        }
+        data.batchStatements = null;
+      }
       data.db.disconnect();
     }
 
+    if ( meta.isCached() ) {
+      snapCacheMetrics();
+    }
+
     // Recover memory immediately, allow in-memory data to be garbage collected
     //
     data.cache = null;
@@ -662,6 +1050,22 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
     super.dispose( smi, sdi );
   }
 
+  private void snapCacheMetrics() {
+    long evictions = 0;
+    if ( data.sharedCache != null ) {
+      evictions = data.sharedCache.takeEvictions();
+      data.sharedCache.release( getTrans() );
+      data.sharedCache = null;
+    }
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "DatabaseLookup.Log.CacheStatistics",
+        String.valueOf( data.cacheHits ), String.valueOf( data.cacheMisses ), String.valueOf( evictions ) ) );
+    }
+    log.snap( Metrics.METRIC_STEP_LOOKUP_CACHE_HITS, data.cacheHits );
+    log.snap( Metrics.METRIC_STEP_LOOKUP_CACHE_MISSES, data.cacheMisses );
+    log.snap( Metrics.METRIC_STEP_LOOKUP_CACHE_EVICTIONS, evictions );
+  }
+
   /*
    * this method is required in order to
    * provide ability for unit tests to
@@ -22,6 +22,12 @@
 
 package org.pentaho.di.trans.steps.databaselookup;
 
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -49,6 +55,23 @@ public class DatabaseLookupData extends BaseStepData implements StepDataInterfac
   public int[] conditions;
   public boolean hasDBCondition;
 
+  /** The rows buffered for a batched lookup, null if the keys are looked up row by row */
+  public List<Object[]> batchRows;
+  /** The return values found by the current batched lookup by key, and the keys with more than one result */
+  public Map<RowMetaAndData, Object[]> batchResults;
+  public Set<RowMetaAndData> batchMultipleResults;
+  /** The layout of the return values of the batched lookup queries */
+  public RowMetaInterface batchReturnMeta;
+  /** The prepared batched lookup queries and their parameter layouts by number of keys */
+  public Map<Integer, PreparedStatement> batchStatements;
+  public Map<Integer, RowMetaInterface> batchParameterMetas;
+
+  /** The cache shared with other step copies, null if this copy has a cache of its own */
+  public SharedCache sharedCache;
+  /** The lookups answered from the cache and the ones that were not */
+  public long cacheHits;
+  public long cacheMisses;
+
   public DatabaseLookupData() {
     super();
 
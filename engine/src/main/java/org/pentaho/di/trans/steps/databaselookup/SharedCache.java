@@ -0,0 +1,177 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.trans.steps.databaselookup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.trans.Trans;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+
+/**
+ * A lookup cache shared by all copies of a {@linkplain DatabaseLookup} step and by the steps of the same
+ * transformation that look up the same values in the same table. Looked up rows are kept in a concurrent map which
+ * evicts the least recently used entries once the cache size is reached. When all data is loaded in the cache, the
+ * first copy to get there reads the table and the others wait for it and use the same (read-only) cache.
+ * <p>
+ * The caches of a transformation are kept in its extension data and are dropped when their last user releases them.
+ */
+public class SharedCache implements DatabaseLookupData.Cache {
+
+  static final String EXTENSION_DATA_KEY = "DatabaseLookup.SharedCaches";
+
+  /**
+   * Reads all rows of the lookup table in a cache.
+   */
+  public interface Loader {
+    DatabaseLookupData.Cache load() throws KettleException;
+  }
+
+  private final String key;
+  private final Cache<RowMetaAndData, Object[]> map;
+  private final AtomicLong evictions = new AtomicLong();
+
+  private volatile DatabaseLookupData.Cache loadedCache;
+
+  // guarded by the extension data map of the transformation
+  private int users;
+
+  SharedCache( String key, int cacheSize ) {
+    this.key = key;
+
+    CacheBuilder<RowMetaAndData, Object[]> builder =
+      CacheBuilder.newBuilder().removalListener( new RemovalListener<RowMetaAndData, Object[]>() {
+        @Override
+        public void onRemoval( RemovalNotification<RowMetaAndData, Object[]> notification ) {
+          if ( notification.wasEvicted() ) {
+            evictions.incrementAndGet();
+          }
+        }
+      } );
+    if ( cacheSize > 0 ) {
+      builder.maximumSize( cacheSize );
+    }
+    map = builder.build();
+  }
+
+  /**
+   * Returns the cache registered under {@code key} in the transformation, creating it if this is the first user.
+   * Every call needs to be matched by a call to {@linkplain #release(Trans)}.
+   *
+   * @param trans     the transformation sharing the cache
+   * @param key       identifies the table, the lookup conditions and the returned values
+   * @param cacheSize the maximum number of looked up rows to keep, 0 or less keeps all of them
+   * @return the shared cache
+   */
+  @SuppressWarnings( "unchecked" )
+  public static SharedCache acquire( Trans trans, String key, int cacheSize ) {
+    Map<String, Object> extensionData = trans.getExtensionDataMap();
+    synchronized ( extensionData ) {
+      Map<String, SharedCache> caches = (Map<String, SharedCache>) extensionData.get( EXTENSION_DATA_KEY );
+      if ( caches == null ) {
+        caches = new HashMap<>();
+        extensionData.put( EXTENSION_DATA_KEY, caches );
+      }
+      SharedCache cache = caches.get( key );
+      if ( cache == null ) {
+        cache = new SharedCache( key, cacheSize );
+        caches.put( key, cache );
+      }
+      cache.users++;
+      return cache;
+    }
+  }
+
+  /**
+   * Releases the cache for a step copy that is done with it.
+   *
+   * @param trans the transformation sharing the cache
+   * @return true if this was the last user and the cache has been dropped
+   */
+  @SuppressWarnings( "unchecked" )
+  public boolean release( Trans trans ) {
+    Map<String, Object> extensionData = trans.getExtensionDataMap();
+    synchronized ( extensionData ) {
+      if ( --users > 0 ) {
+        return false;
+      }
+      Map<String, SharedCache> caches = (Map<String, SharedCache>) extensionData.get( EXTENSION_DATA_KEY );
+      if ( caches != null ) {
+        caches.remove( key );
+      }
+      loadedCache = null;
+      map.invalidateAll();
+      return true;
+    }
+  }
+
+  /**
+   * Loads all data in the cache unless another user already did.
+   *
+   * @param loader reads the lookup table
+   * @throws KettleException in case the table can't be read
+   */
+  public synchronized void loadAll( Loader loader ) throws KettleException {
+    if ( loadedCache == null ) {
+      loadedCache = loader.load();
+    }
+  }
+
+  @Override
+  public Object[] getRowFromCache( RowMetaInterface lookupMeta, Object[] lookupRow ) throws KettleException {
+    DatabaseLookupData.Cache cache = loadedCache;
+    if ( cache != null ) {
+      return cache.getRowFromCache( lookupMeta, lookupRow );
+    }
+    return map.getIfPresent( new RowMetaAndData( lookupMeta, lookupRow ) );
+  }
+
+  @Override
+  public void storeRowInCache( DatabaseLookupMeta meta, RowMetaInterface lookupMeta, Object[] lookupRow,
+                               Object[] add ) {
+    // the first row stored for a key wins, like in the default cache
+    map.asMap().putIfAbsent( new RowMetaAndData( lookupMeta, lookupRow ), add );
+  }
+
+  /**
+   * @return the number of looked up rows in the cache, not counting the loaded table
+   */
+  public long size() {
+    return map.size();
+  }
+
+  /**
+   * @return the number of looked up rows evicted because the cache was full since the previous call
+   */
+  public long takeEvictions() {
+    return evictions.getAndSet( 0 );
+  }
+}
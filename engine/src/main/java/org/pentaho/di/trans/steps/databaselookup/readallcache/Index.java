@@ -39,8 +39,12 @@ abstract class Index {
   final ValueMetaInterface valueMeta;
   final IndexedValue[] values;
 
+  // the position of the looked up value in the lookup row, which is shifted by preceding BETWEEN conditions
+  private int lookupColumn;
+
   Index( int column, ValueMetaInterface valueMeta, int rowsAmount ) {
     this.column = column;
+    this.lookupColumn = column;
     this.valueMeta = valueMeta;
     this.values = new IndexedValue[ rowsAmount ];
   }
@@ -74,6 +78,14 @@ abstract class Index {
     return column;
   }
 
+  public int getLookupColumn() {
+    return lookupColumn;
+  }
+
+  void setLookupColumn( int lookupColumn ) {
+    this.lookupColumn = lookupColumn;
+  }
+
   public void applyRestrictionsTo( SearchingContext context, ValueMetaInterface lookupMeta, Object lookupValue ) {
     try {
       doApply( context, lookupMeta, lookupValue );
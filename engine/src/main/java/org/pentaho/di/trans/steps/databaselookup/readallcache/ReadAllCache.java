@@ -24,12 +24,10 @@ package org.pentaho.di.trans.steps.databaselookup.readallcache;
 
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowMetaInterface;
-import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.trans.steps.databaselookup.DatabaseLookupData;
 import org.pentaho.di.trans.steps.databaselookup.DatabaseLookupMeta;
 
 import java.util.ArrayList;
-import java.util.BitSet;
 import java.util.List;
 import java.util.PriorityQueue;
 
@@ -45,7 +43,6 @@ public class ReadAllCache implements DatabaseLookupData.Cache {
   private final DatabaseLookupData stepData;
 
   private final Object[][] keys;
-  private final RowMetaInterface keysMeta;
 
   private final Object[][] data;
 
@@ -58,7 +55,6 @@ public class ReadAllCache implements DatabaseLookupData.Cache {
   ReadAllCache( DatabaseLookupData stepData, Object[][] keys, RowMetaInterface keysMeta, Object[][] data ) {
     this.stepData = stepData;
     this.keys = keys;
-    this.keysMeta = keysMeta;
     this.data = data;
 
     Object[] pair = createIndexes( stepData, keysMeta, keys );
@@ -75,6 +71,7 @@ public class ReadAllCache implements DatabaseLookupData.Cache {
     // Index.restrictionComparator() uses heuristic "restriction power" of each index
     PriorityQueue<Index> indexes = new PriorityQueue<>( conditions.length, Index.restrictionComparator() );
     List<int[]> otherConditions = new ArrayList<>();
+    int lookupShift = 0;
     for ( int i = 0, len = conditions.length; i < len; i++ ) {
       int condition = conditions[ i ];
       Index index = null;
@@ -103,10 +100,21 @@ public class ReadAllCache implements DatabaseLookupData.Cache {
         case DatabaseLookupMeta.CONDITION_IS_NOT_NULL:
           index = new IsNullIndex( i, keysMeta.getValueMeta( i ), rowsAmount, false );
           break;
+        case DatabaseLookupMeta.CONDITION_BETWEEN:
+          // BETWEEN is just a short form of (a <= b) && (b <= c), that is a pair of sorted indexes,
+          // the lower bound is the first of its two lookup values and the upper bound is the second one
+          Index lowerBound = LtIndex.greaterOrEqualCache( i, keysMeta.getValueMeta( i ), rowsAmount );
+          lowerBound.setLookupColumn( i + lookupShift );
+          lowerBound.performIndexingOf( keys );
+          indexes.add( lowerBound );
+          lookupShift++;
+          index = GtIndex.lessOrEqualCache( i, keysMeta.getValueMeta( i ), rowsAmount );
+          break;
       }
       if ( index == null ) {
         otherConditions.add( new int[] { i, condition } );
       } else {
+        index.setLookupColumn( i + lookupShift );
         index.performIndexingOf( keys );
         indexes.add( index );
       }
@@ -131,7 +139,7 @@ public class ReadAllCache implements DatabaseLookupData.Cache {
     context.init( keys.length );
 
     for ( Index index : indexes ) {
-      int column = index.getColumn();
+      int column = index.getLookupColumn();
       // IS (NOT) NULL operation does not require second argument
       // hence, lookupValue can be absent
       // basically, the index ignores both meta and value, so we can pass everything there
@@ -143,54 +151,16 @@ public class ReadAllCache implements DatabaseLookupData.Cache {
       }
     }
 
-    // iterate through all elements survived after filtering stage
-    // and find the first matching
-    BitSet candidates = context.getCandidates();
-    int candidate = candidates.nextSetBit( 0 );
-    while ( candidate != -1 ) {
-      Object[] dataKeys = keys[ candidate ];
-
-      boolean matches = true;
-      int lookupShift = 0;
-      for ( int i = 0, len = otherConditions.length; i < len && matches; i++ ) {
-        int[] columnConditionPair = otherConditions[ i ];
-
-        final int column = columnConditionPair[ 0 ];
-        Object keyData = dataKeys[ column ];
-        ValueMetaInterface keyMeta = keysMeta.getValueMeta( column );
-
-        int lookupIndex = column + lookupShift;
-        Object cmpData = lookupRow[ lookupIndex ];
-        ValueMetaInterface cmpMeta = lookupMeta.getValueMeta( lookupIndex );
-
-        int condition = columnConditionPair[ 1 ];
-        if ( condition == DatabaseLookupMeta.CONDITION_BETWEEN ) {
-          // BETWEEN is a special condition demanding two arguments
-          // technically there are no obstacles to implement it,
-          // as it is just a short form of: (a <= b) && (b <= c)
-          // however, let it be so for now
-          matches = ( keyMeta.compare( keyData, cmpMeta, cmpData ) >= 0 );
-          if ( matches ) {
-            lookupShift++;
-            lookupIndex++;
-            ValueMetaInterface cmpMeta2 = lookupMeta.getValueMeta( lookupIndex );
-            Object cmpData2 = lookupRow[ lookupIndex ];
-            matches = ( keyMeta.compare( keyData, cmpMeta2, cmpData2 ) <= 0 );
-          }
-        } else {
-          // if not BETWEEN, than it is LIKE (or some new operator)
-          // for now, LIKE is not supported here
-          matches = false;
-          stepData.hasDBCondition = true;
-        }
-      }
-      if ( matches ) {
-        return data[ candidate ];
-      } else {
-        candidate = candidates.nextSetBit( candidate + 1 );
-      }
+    if ( otherConditions.length > 0 ) {
+      // the conditions not covered by indexes are LIKE (or some new operator)
+      // for now, LIKE is not supported here
+      stepData.hasDBCondition = true;
+      return null;
     }
-    return null;
+
+    // all elements survived after filtering stage are matching, return the first one
+    int candidate = context.getCandidates().nextSetBit( 0 );
+    return ( candidate == -1 ) ? null : data[ candidate ];
   }
 
   @Override
@@ -40,7 +40,10 @@ import org.pentaho.di.core.row.ValueMetaInterface;
  *
  * @author matt
  *
+ * @deprecated The pre-loaded cache of the dimension lookup step now hashes the versions by natural key, see
+ *             {@link DimensionVersionCache}.
  */
+@Deprecated
 public class DimensionCache implements Comparator<Object[]> {
   private RowMetaInterface rowMeta;
   private List<Object[]> rowCache;
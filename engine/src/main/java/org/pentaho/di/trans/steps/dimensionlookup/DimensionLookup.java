@@ -22,12 +22,15 @@
 
 package org.pentaho.di.trans.steps.dimensionlookup;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 
 import org.pentaho.di.core.Const;
@@ -117,6 +120,9 @@ public class DimensionLookup extends BaseStep implements StepInterface {
     Object[] r = getRow(); // Get row from input rowset & set row busy!
     if ( r == null ) { // no more input to be expected...
 
+      if ( data.batchUpdates ) {
+        flushBatches();
+      }
       setOutputDone(); // signal end to receiver(s)
       return false;
     }
@@ -180,7 +186,7 @@ public class DimensionLookup extends BaseStep implements StepInterface {
 
       }
 
-      if ( !meta.isUpdate() && meta.isPreloadingCache() ) {
+      if ( meta.isUpdate() ? meta.isMaintenanceMode() : meta.isPreloadingCache() ) {
         preloadCache();
       } else {
         // Caching...
@@ -219,6 +225,14 @@ public class DimensionLookup extends BaseStep implements StepInterface {
       }
 
       setDimLookup( data.outputRowMeta );
+
+      // With all versions in memory, nothing needs to be read back from the dimension: write it in batches
+      //
+      if ( meta.isUpdate() && meta.isMaintenanceMode() ) {
+        data.batchUpdates =
+          meta.getCommitSize() > 0 && !data.db.isAutoCommit() && data.db.getUseBatchInsert( true );
+        data.batchedStatements = new HashSet<>();
+      }
     }
 
     // convert row to normal storage...
@@ -230,6 +244,9 @@ public class DimensionLookup extends BaseStep implements StepInterface {
 
     try {
       Object[] outputRow = lookupValues( data.inputRowMeta, r ); // add new values to the row in rowset[0].
+      if ( data.batchUpdates && data.batchedRows >= meta.getCommitSize() ) {
+        flushBatches();
+      }
       putRow( data.outputRowMeta, outputRow ); // copy row to output rowset(s);
 
       if ( checkFeedback( getLinesRead() ) ) {
@@ -271,66 +288,116 @@ public class DimensionLookup extends BaseStep implements StepInterface {
   }
 
   /**
-   * Pre-load the cache by reading the whole dimension table from disk...
+   * Pre-load the cache by reading all versions of the whole dimension table from disk...
    *
    * @throws KettleException in case there is a database or cache problem.
    */
   private void preloadCache() throws KettleException {
+    ResultSet resultSet = null;
     try {
       DatabaseMeta databaseMeta = meta.getDatabaseMeta();
 
-      // tk, version, from, to, natural keys, retrieval fields...
+      // The values to cache, like in the lookup query: tk, version, retrieval fields, from, to.
+      // The natural key fields follow.
       //
-      String sql = "SELECT " + databaseMeta.quoteField( meta.getKeyField() );
-      // sql+=", "+databaseMeta.quoteField(meta.getVersionField());
+      String sql = "SELECT " + getLookupFieldsSql( true );
       for ( int i = 0; i < meta.getKeyLookup().length; i++ ) {
-        sql += ", " + meta.getKeyLookup()[ i ]; // the natural key field in the table
+        sql += ", " + databaseMeta.quoteField( meta.getKeyLookup()[ i ] ); // the natural key field in the table
       }
-      for ( int i = 0; i < meta.getFieldLookup().length; i++ ) {
-        sql += ", " + meta.getFieldLookup()[ i ]; // the extra fields to retrieve...
-      }
-      sql += ", " + databaseMeta.quoteField( meta.getDateFrom() ); // extra info in cache
-      sql += ", " + databaseMeta.quoteField( meta.getDateTo() ); // extra info in cache
-
       sql += " FROM " + data.schemaTable;
       logDetailed( "Pre-loading cache by reading from database with: " + Const.CR + sql + Const.CR );
 
-      List<Object[]> rows = data.db.getRows( sql, -1 );
+      resultSet = data.db.openQuery( sql );
       RowMetaInterface rowMeta = data.db.getReturnRowMeta();
 
-      data.preloadKeyIndexes = new int[ meta.getKeyLookup().length ];
-      for ( int i = 0; i < data.preloadKeyIndexes.length; i++ ) {
-        data.preloadKeyIndexes[ i ] = rowMeta.indexOfValue( meta.getKeyLookup()[ i ] ); // the field in the table
+      int keyCount = meta.getKeyLookup().length;
+      int valueCount = rowMeta.size() - keyCount;
+      // The technical key and the version are kept as integers, the way new versions are written
+      //
+      RowMetaInterface valueMeta = new RowMeta();
+      for ( int i = 0; i < valueCount; i++ ) {
+        ValueMetaInterface columnMeta = rowMeta.getValueMeta( i );
+        if ( i < 2 && !columnMeta.isInteger() ) {
+          columnMeta = ValueMetaFactory.cloneValueMeta( columnMeta, ValueMetaInterface.TYPE_INTEGER );
+        }
+        valueMeta.addValueMeta( columnMeta );
       }
-      data.preloadFromDateIndex = rowMeta.indexOfValue( meta.getDateFrom() );
-      data.preloadToDateIndex = rowMeta.indexOfValue( meta.getDateTo() );
-
-      data.preloadCache =
-        new DimensionCache( rowMeta, data.preloadKeyIndexes, data.preloadFromDateIndex, data.preloadToDateIndex );
-      data.preloadCache.setRowCache( rows );
-
-      logDetailed( "Sorting the cache rows..." );
-      data.preloadCache.sortRows();
-      logDetailed( "Sorting of cached rows finished." );
+      RowMetaInterface keyMeta = new RowMeta();
+      for ( int i = valueCount; i < rowMeta.size(); i++ ) {
+        keyMeta.addValueMeta( rowMeta.getValueMeta( i ) );
+      }
+      data.versionCache = new DimensionVersionCache( keyMeta, valueMeta );
 
-      // Also see what indexes to take to populate the lookup row...
-      // We only ever compare indexes and the lookup date in the cache, the rest is not needed...
+      // Where to find the retrieval fields in the cached values, -1 if they are not retrieved
       //
-      data.preloadIndexes = new ArrayList<Integer>();
-      for ( int i = 0; i < meta.getKeyStream().length; i++ ) {
-        int index = data.inputRowMeta.indexOfValue( meta.getKeyStream()[ i ] );
-        if ( index < 0 ) {
-          // Just to be safe...
-          //
-          throw new KettleStepException( BaseMessages.getString(
-            PKG, "DimensionLookup.Exception.KeyFieldNotFound", meta.getFieldStream()[ i ] ) );
-        }
-        data.preloadIndexes.add( index );
+      data.versionFieldIndexes = new int[ meta.getFieldLookup().length ];
+      int valueIndex = 2;
+      for ( int i = 0; i < meta.getFieldLookup().length; i++ ) {
+        data.versionFieldIndexes[ i ] = isRetrievedField( i ) ? valueIndex++ : -1;
+      }
+
+      Object[] row = data.db.getRow( resultSet );
+      while ( row != null ) {
+        Object[] values = Arrays.copyOf( row, valueCount );
+        values[ 0 ] = valueMeta.getInteger( values, 0 );
+        values[ 1 ] = valueMeta.getInteger( values, 1 );
+        data.versionCache.addVersion( Arrays.copyOfRange( row, valueCount, valueCount + keyCount ), values );
+        row = data.db.getRow( resultSet );
       }
 
-      // This is all for now...
+      logDetailed( BaseMessages.getString( PKG, "DimensionLookup.Log.PreloadedVersions",
+        String.valueOf( data.versionCache.size() ), String.valueOf( data.versionCache.getKeyCount() ) ) );
     } catch ( Exception e ) {
       throw new KettleException( "Error encountered during cache pre-load", e );
+    } finally {
+      if ( resultSet != null ) {
+        data.db.closeQuery( resultSet );
+      }
+    }
+  }
+
+  /**
+   * @return the natural key of the input row, converted to the data types of the pre-loaded cache
+   */
+  private Object[] getVersionKey( RowMetaInterface rowMeta, Object[] row ) throws KettleValueException {
+    RowMetaInterface keyMeta = data.versionCache.getKeyMeta();
+    Object[] key = new Object[ keyMeta.size() ];
+    for ( int i = 0; i < key.length; i++ ) {
+      int index = data.keynrs[ i ];
+      key[ i ] = keyMeta.getValueMeta( i ).convertData( rowMeta.getValueMeta( index ), row[ index ] );
+    }
+    return key;
+  }
+
+  /**
+   * @return a new version to store in the pre-loaded cache, with the values written to the dimension table
+   */
+  private Object[] getVersionRow( RowMetaInterface rowMeta, Object[] row, Long technicalKey, Long versionNr,
+                                  Date dateFrom, Date dateTo ) throws KettleValueException {
+    Object[] versionRow = new Object[ data.versionCache.getRowMeta().size() ];
+    versionRow[ 0 ] = technicalKey;
+    versionRow[ 1 ] = versionNr;
+    setVersionFields( versionRow, rowMeta, row, false );
+    versionRow[ versionRow.length - 2 ] = dateFrom;
+    versionRow[ versionRow.length - 1 ] = dateTo;
+    return versionRow;
+  }
+
+  /**
+   * Copies the field values of the input row into a version in the pre-loaded cache, like an update does in the
+   * dimension table.
+   */
+  private void setVersionFields( Object[] versionRow, RowMetaInterface rowMeta, Object[] row,
+                                 boolean punchThroughOnly ) throws KettleValueException {
+    RowMetaInterface valueMeta = data.versionCache.getRowMeta();
+    for ( int i = 0; i < data.versionFieldIndexes.length; i++ ) {
+      int index = data.versionFieldIndexes[ i ];
+      if ( index >= 0 && data.fieldnrs[ i ] >= 0
+        && ( !punchThroughOnly || meta.getFieldUpdate()[ i ] == DimensionLookupMeta.TYPE_UPDATE_DIM_PUNCHTHROUGH ) ) {
+        int fieldIndex = data.fieldnrs[ i ];
+        versionRow[ index ] =
+          valueMeta.getValueMeta( index ).convertData( rowMeta.getValueMeta( fieldIndex ), row[ fieldIndex ] );
+      }
     }
   }
 
@@ -354,58 +421,13 @@ public class DimensionLookup extends BaseStep implements StepInterface {
     //
     valueDate = determineDimensionUpdatedDate( row );
 
-    if ( !meta.isUpdate() && meta.isPreloadingCache() ) {
+    if ( data.versionCache != null ) {
       // Obtain a result row from the pre-load cache...
       //
-      // Create a row to compare with
-      //
-      RowMetaInterface preloadRowMeta = data.preloadCache.getRowMeta();
-
-      // In this case it's all the same. (simple)
-      //
-      data.returnRowMeta = data.preloadCache.getRowMeta();
-      lookupRowMeta = preloadRowMeta;
-      lookupRow = new Object[ preloadRowMeta.size() ];
-
-      // Assemble the lookup row, convert data if needed...
-      //
-      for ( int i = 0; i < data.preloadIndexes.size(); i++ ) {
-        int from = data.preloadIndexes.get( i ); // Input row index
-        int to = data.preloadCache.getKeyIndexes()[ i ]; // Lookup row index
-
-        // From data type...
-        //
-        ValueMetaInterface fromValueMeta = rowMeta.getValueMeta( from );
-
-        // to date type...
-        //
-        ValueMetaInterface toValueMeta = data.preloadCache.getRowMeta().getValueMeta( to );
-
-        // From value:
-        //
-        Object fromData = row[ from ];
-
-        // To value:
-        //
-        Object toData = toValueMeta.convertData( fromValueMeta, fromData );
-
-        // Set the key in the row...
-        //
-        lookupRow[ to ] = toData;
-      }
-
-      // Also set the lookup date on the "end of date range" (toDate) position
-      //
-      lookupRow[ data.preloadFromDateIndex ] = valueDate;
-
-      // Look up the row in the pre-load cache...
-      //
-      int index = data.preloadCache.lookupRow( lookupRow );
-      if ( index >= 0 ) {
-        returnRow = data.preloadCache.getRow( index );
-      } else {
-        returnRow = null; // Nothing found!
-      }
+      data.returnRowMeta = data.versionCache.getRowMeta();
+      lookupRowMeta = data.versionCache.getKeyMeta();
+      lookupRow = getVersionKey( rowMeta, row );
+      returnRow = data.versionCache.lookup( lookupRow, valueDate );
 
     } else {
       lookupRow = new Object[ data.lookupRowMeta.size() ];
@@ -695,9 +717,12 @@ public class DimensionLookup extends BaseStep implements StepInterface {
              */
             dimUpdate( rowMeta, row, technicalKey, valueDate );
             incrementLinesUpdated();
+            if ( data.versionCache != null ) {
+              setVersionFields( returnRow, rowMeta, row, false );
+            }
 
             // We need to capture this change in the cache as well...
-            if ( meta.getCacheSize() >= 0 ) {
+            if ( data.versionCache == null && meta.getCacheSize() >= 0 ) {
               Object[] values =
                 getCacheValues( rowMeta, row, technicalKey, valueVersion, valueDateFrom, valueDateTo );
               addToCache( lookupRow, values );
@@ -748,7 +773,7 @@ public class DimensionLookup extends BaseStep implements StepInterface {
           incrementLinesOutput();
 
           // We need to capture this change in the cache as well...
-          if ( meta.getCacheSize() >= 0 ) {
+          if ( data.versionCache == null && meta.getCacheSize() >= 0 ) {
             Object[] values =
               getCacheValues( rowMeta, row, technicalKey, valueNewVersion, valueDateFrom, valueDateTo );
             addToCache( lookupRow, values );
@@ -762,8 +787,18 @@ public class DimensionLookup extends BaseStep implements StepInterface {
            *
            * --> update ALL versions in the dimension table.
            */
+          if ( data.batchUpdates ) {
+            // The punch through needs to see all earlier changes, including the new version of this entry
+            //
+            flushBatches();
+          }
           dimPunchThrough( rowMeta, row );
           incrementLinesUpdated();
+          if ( data.versionCache != null ) {
+            for ( Object[] versionRow : data.versionCache.getVersions( lookupRow ) ) {
+              setVersionFields( versionRow, rowMeta, row, true );
+            }
+          }
         }
 
         returnRow = new Object[ data.returnRowMeta.size() ];
@@ -848,29 +883,7 @@ public class DimensionLookup extends BaseStep implements StepInterface {
      * SELECT <tk>, <version>, ... , FROM <table> WHERE key1=keys[1] AND key2=keys[2] ... AND ( <datefrom> is null OR
      * <datefrom> <= <datefield> ) AND <dateto> >= <datefield>
      */
-    String sql =
-      "SELECT "
-        + databaseMeta.quoteField( meta.getKeyField() ) + ", "
-        + databaseMeta.quoteField( meta.getVersionField() );
-
-    if ( !Utils.isEmpty( meta.getFieldLookup() ) ) {
-      for ( int i = 0; i < meta.getFieldLookup().length; i++ ) {
-        // Don't retrieve the fields without input
-        if ( !Utils.isEmpty( meta.getFieldLookup()[ i ] )
-          && !DimensionLookupMeta.isUpdateTypeWithoutArgument( meta.isUpdate(), meta.getFieldUpdate()[ i ] ) ) {
-          sql += ", " + databaseMeta.quoteField( meta.getFieldLookup()[ i ] );
-
-          if ( !Utils.isEmpty( meta.getFieldStream()[ i ] )
-            && !meta.getFieldLookup()[ i ].equals( meta.getFieldStream()[ i ] ) ) {
-            sql += " AS " + databaseMeta.quoteField( meta.getFieldStream()[ i ] );
-          }
-        }
-      }
-    }
-    if ( meta.getCacheSize() >= 0 ) {
-      sql +=
-        ", " + databaseMeta.quoteField( meta.getDateFrom() ) + ", " + databaseMeta.quoteField( meta.getDateTo() );
-    }
+    String sql = "SELECT " + getLookupFieldsSql( meta.getCacheSize() >= 0 );
 
     sql += " FROM " + data.schemaTable + " WHERE ";
 
@@ -920,6 +933,42 @@ public class DimensionLookup extends BaseStep implements StepInterface {
     }
   }
 
+  /**
+   * @param withDateRange
+   *          true to retrieve the date range of the version as well
+   * @return the fields retrieved by the lookup: tk, version, the retrieval fields and optionally from, to
+   */
+  private String getLookupFieldsSql( boolean withDateRange ) {
+    DatabaseMeta databaseMeta = meta.getDatabaseMeta();
+
+    String sql =
+      databaseMeta.quoteField( meta.getKeyField() ) + ", " + databaseMeta.quoteField( meta.getVersionField() );
+
+    if ( !Utils.isEmpty( meta.getFieldLookup() ) ) {
+      for ( int i = 0; i < meta.getFieldLookup().length; i++ ) {
+        if ( isRetrievedField( i ) ) {
+          sql += ", " + databaseMeta.quoteField( meta.getFieldLookup()[ i ] );
+
+          if ( !Utils.isEmpty( meta.getFieldStream()[ i ] )
+            && !meta.getFieldLookup()[ i ].equals( meta.getFieldStream()[ i ] ) ) {
+            sql += " AS " + databaseMeta.quoteField( meta.getFieldStream()[ i ] );
+          }
+        }
+      }
+    }
+    if ( withDateRange ) {
+      sql +=
+        ", " + databaseMeta.quoteField( meta.getDateFrom() ) + ", " + databaseMeta.quoteField( meta.getDateTo() );
+    }
+    return sql;
+  }
+
+  private boolean isRetrievedField( int fieldIndex ) {
+    // Don't retrieve the fields without input
+    return !Utils.isEmpty( meta.getFieldLookup()[ fieldIndex ] )
+      && !DimensionLookupMeta.isUpdateTypeWithoutArgument( meta.isUpdate(), meta.getFieldUpdate()[ fieldIndex ] );
+  }
+
   protected boolean isAutoIncrement() {
     return techKeyCreation == CREATION_METHOD_AUTOINC;
   }
@@ -1142,6 +1191,7 @@ public class DimensionLookup extends BaseStep implements StepInterface {
           PKG, "DimensionLookup.Exception.IllegalStartDateSelection", Integer.toString( data.startDateChoice ) ) );
     }
 
+    Date insertedDateFrom = (Date) insertRow[ insertIndex - 1 ];
     insertRow[ insertIndex++ ] = dateTo;
 
     for ( int i = 0; i < data.keynrs.length; i++ ) {
@@ -1175,8 +1225,9 @@ public class DimensionLookup extends BaseStep implements StepInterface {
     }
 
     // INSERT NEW VALUE!
+    // Only batch the insert if we don't need to read back the generated technical key
     data.db.setValues( data.insertRowMeta, insertRow, data.prepStatementInsert );
-    data.db.insertRow( data.prepStatementInsert );
+    executeUpdate( data.prepStatementInsert, technicalKey != null );
 
     if ( isDebug() ) {
       logDebug( "Row inserted!" );
@@ -1261,10 +1312,21 @@ public class DimensionLookup extends BaseStep implements StepInterface {
       if ( isDebug() ) {
         logDebug( "Values set for update (" + data.updateRowMeta.size() + ")" );
       }
-      data.db.insertRow( data.prepStatementUpdate ); // do the actual update
+      executeUpdate( data.prepStatementUpdate, true ); // do the actual update
       if ( isDebug() ) {
         logDebug( "Row updated!" );
       }
+
+      if ( data.versionCache != null ) {
+        data.versionCache.closeVersion( getVersionKey( inputRowMeta, row ), versionNr - 1, (Date) updateRow[ 0 ] );
+      }
+    }
+
+    // Keep the pre-loaded versions in line with the dimension table
+    //
+    if ( data.versionCache != null ) {
+      data.versionCache.addVersion( getVersionKey( inputRowMeta, row ),
+        getVersionRow( inputRowMeta, row, technicalKey, versionNr, insertedDateFrom, dateTo ) );
     }
 
     return technicalKey;
@@ -1370,7 +1432,48 @@ public class DimensionLookup extends BaseStep implements StepInterface {
     dimensionUpdateRow[ updateIndex++ ] = dimkey;
 
     data.db.setValues( data.dimensionUpdateRowMeta, dimensionUpdateRow, data.prepStatementDimensionUpdate );
-    data.db.insertRow( data.prepStatementDimensionUpdate );
+    executeUpdate( data.prepStatementDimensionUpdate, true );
+  }
+
+  /**
+   * Executes an insert or update, or adds it to the batch of its statement when writing the dimension in batches.
+   *
+   * @param ps        the statement with all values set
+   * @param batchable false if the statement needs to be executed right away
+   */
+  private void executeUpdate( PreparedStatement ps, boolean batchable ) throws KettleDatabaseException {
+    if ( data.batchUpdates && batchable ) {
+      data.db.insertRow( ps, true, false );
+      data.batchedStatements.add( ps );
+      data.batchedRows++;
+    } else {
+      data.db.insertRow( ps );
+    }
+  }
+
+  /**
+   * Executes the batched statements and commits. New versions are inserted first, so the updates of the same batch
+   * find them, then the updates of versions and finally the end dates of the previous versions.
+   */
+  private void flushBatches() throws KettleDatabaseException {
+    if ( data.batchedRows == 0 ) {
+      return;
+    }
+    PreparedStatement[] statements =
+      { data.prepStatementInsert, data.prepStatementDimensionUpdate, data.prepStatementUpdate };
+    for ( PreparedStatement ps : statements ) {
+      if ( ps != null && data.batchedStatements.contains( ps ) ) {
+        try {
+          ps.executeBatch();
+          ps.clearBatch();
+        } catch ( SQLException e ) {
+          throw Database.createKettleDatabaseBatchException( "Error updating batch", e );
+        }
+      }
+    }
+    data.db.commit();
+    data.batchedStatements.clear();
+    data.batchedRows = 0;
   }
 
   // This updates all versions of a dimension entry.
@@ -1744,6 +1847,11 @@ public class DimensionLookup extends BaseStep implements StepInterface {
     data = (DimensionLookupData) sdi;
     if ( data.db != null ) {
       try {
+        if ( getErrors() == 0 ) {
+          // The step might have stopped before the last batch was full
+          //
+          flushBatches();
+        }
         if ( !data.db.isAutoCommit() ) {
           if ( getErrors() == 0 ) {
             data.db.commit();
@@ -1753,6 +1861,12 @@ public class DimensionLookup extends BaseStep implements StepInterface {
         }
       } catch ( KettleDatabaseException e ) {
         logError( BaseMessages.getString( PKG, "DimensionLookup.Log.ErrorOccurredInProcessing" ) + e.getMessage() );
+        setErrors( 1 );
+        try {
+          data.db.rollback();
+        } catch ( KettleDatabaseException re ) {
+          logError( BaseMessages.getString( PKG, "DimensionLookup.Log.ErrorOccurredInProcessing" ) + re.getMessage() );
+        }
       } finally {
         data.db.disconnect();
       }
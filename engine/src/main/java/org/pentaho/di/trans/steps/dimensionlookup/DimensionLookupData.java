@@ -25,6 +25,7 @@ package org.pentaho.di.trans.steps.dimensionlookup;
 import java.sql.PreparedStatement;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.hash.ByteArrayHashMap;
@@ -82,14 +83,16 @@ public class DimensionLookupData extends BaseStepData implements StepDataInterfa
 
   public int startDateFieldIndex;
 
-  public int[] preloadKeyIndexes;
+  /** All versions of the dimension, null if the cache isn't pre-loaded */
+  public DimensionVersionCache versionCache;
 
-  public int preloadFromDateIndex;
-  public int preloadToDateIndex;
+  /** Where to find the retrieval fields in the pre-loaded versions, -1 if they are not retrieved */
+  public int[] versionFieldIndexes;
 
-  public DimensionCache preloadCache;
-
-  public List<Integer> preloadIndexes;
+  /** True if the dimension is written in batches: with the pre-loaded versions nothing is read back */
+  public boolean batchUpdates;
+  public Set<PreparedStatement> batchedStatements;
+  public int batchedRows;
 
   public List<Integer> lazyList;
 
@@ -239,6 +239,10 @@ public class DimensionLookupMeta extends BaseStepMeta implements StepMetaInterfa
   @Injection( name = "PRELOAD_CACHE" )
   private boolean preloadingCache;
 
+  /** Flag to maintain the dimension from a pre-loaded cache, writing the changes in batches */
+  @Injection( name = "MAINTENANCE_MODE" )
+  private boolean maintenanceMode;
+
   public DimensionLookupMeta() {
     super(); // allocate BaseStepMeta
   }
@@ -743,6 +747,7 @@ public class DimensionLookupMeta extends BaseStepMeta implements StepMetaInterfa
 
     cacheSize = 5000;
     preloadingCache = false;
+    maintenanceMode = false;
   }
 
   @Override
@@ -882,6 +887,7 @@ public class DimensionLookupMeta extends BaseStepMeta implements StepMetaInterfa
 
     retval.append( "      " ).append( XMLHandler.addTagValue( "cache_size", cacheSize ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "preload_cache", preloadingCache ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "maintenance_mode", maintenanceMode ) );
 
     retval.append( "      " ).append( XMLHandler.addTagValue( "use_start_date_alternative",
         usingStartDateAlternative ) );
@@ -961,6 +967,7 @@ public class DimensionLookupMeta extends BaseStepMeta implements StepMetaInterfa
 
       cacheSize = Const.toInt( XMLHandler.getTagValue( stepnode, "cache_size" ), -1 );
       preloadingCache = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "preload_cache" ) );
+      maintenanceMode = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "maintenance_mode" ) );
       useBatchUpdate = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "useBatch" ) );
 
       usingStartDateAlternative =
@@ -1021,6 +1028,7 @@ public class DimensionLookupMeta extends BaseStepMeta implements StepMetaInterfa
 
       cacheSize = (int) rep.getStepAttributeInteger( id_step, "cache_size" );
       preloadingCache = rep.getStepAttributeBoolean( id_step, "preload_cache" );
+      maintenanceMode = rep.getStepAttributeBoolean( id_step, "maintenance_mode" );
       useBatchUpdate = rep.getStepAttributeBoolean( id_step, "useBatch" );
 
       usingStartDateAlternative = rep.getStepAttributeBoolean( id_step, "use_start_date_alternative" );
@@ -1076,6 +1084,7 @@ public class DimensionLookupMeta extends BaseStepMeta implements StepMetaInterfa
 
       rep.saveStepAttribute( id_transformation, id_step, "cache_size", cacheSize );
       rep.saveStepAttribute( id_transformation, id_step, "preload_cache", preloadingCache );
+      rep.saveStepAttribute( id_transformation, id_step, "maintenance_mode", maintenanceMode );
       rep.saveStepAttribute( id_transformation, id_step, "useBatch", useBatchUpdate );
 
       rep.saveStepAttribute( id_transformation, id_step, "use_start_date_alternative", usingStartDateAlternative );
@@ -1895,6 +1904,21 @@ public class DimensionLookupMeta extends BaseStepMeta implements StepMetaInterfa
     this.preloadingCache = preloadingCache;
   }
 
+  /**
+   * @return true if the dimension is updated from a pre-loaded cache, writing the changes in batches
+   */
+  public boolean isMaintenanceMode() {
+    return maintenanceMode;
+  }
+
+  /**
+   * @param maintenanceMode
+   *          true to update the dimension from a pre-loaded cache, writing the changes in batches
+   */
+  public void setMaintenanceMode( boolean maintenanceMode ) {
+    this.maintenanceMode = maintenanceMode;
+  }
+
   /**
    * @return the useBatchUpdate
    */
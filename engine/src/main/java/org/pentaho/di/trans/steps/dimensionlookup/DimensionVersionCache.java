@@ -0,0 +1,230 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.trans.steps.dimensionlookup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * Keeps all versions of all dimension entries in memory, hashed by natural key. The versions of a natural key are
+ * kept sorted on the start of their date range, next to the ranges themselves as plain longs, so a lookup is a hash
+ * lookup followed by a binary search over a few numbers.
+ *
+ * The cached rows have the layout of the dimension lookup query: technical key, version, the lookup fields, the start
+ * and the end of the date range. A null start of the date range means -Infinity, a null end means +Infinity.
+ */
+public class DimensionVersionCache {
+
+  private final RowMetaInterface keyMeta;
+  private final RowMetaInterface rowMeta;
+  private final int fromDateIndex;
+  private final int toDateIndex;
+
+  private final Map<RowMetaAndData, Versions> entries = new HashMap<>();
+  private long size;
+
+  /**
+   * @param keyMeta the layout of the natural keys
+   * @param rowMeta the layout of the cached rows, the date range is expected in the last two fields
+   */
+  public DimensionVersionCache( RowMetaInterface keyMeta, RowMetaInterface rowMeta ) {
+    this.keyMeta = keyMeta;
+    this.rowMeta = rowMeta;
+    this.toDateIndex = rowMeta.size() - 1;
+    this.fromDateIndex = toDateIndex - 1;
+  }
+
+  /**
+   * Adds a version of a dimension entry.
+   *
+   * @param key the natural key, in the layout of the key metadata
+   * @param row the cached row
+   * @throws KettleValueException in case the date range can't be read
+   */
+  public void addVersion( Object[] key, Object[] row ) throws KettleValueException {
+    RowMetaAndData entryKey = new RowMetaAndData( keyMeta, key );
+    Versions versions = entries.get( entryKey );
+    if ( versions == null ) {
+      versions = new Versions();
+      entries.put( entryKey, versions );
+    }
+    versions.add( getFrom( row ), getTo( row ), row );
+    size++;
+  }
+
+  /**
+   * Looks up the version of a dimension entry that is valid on a date.
+   *
+   * @param key  the natural key, in the layout of the key metadata
+   * @param date the date to look up the version for
+   * @return the cached row, or null if there is no valid version on that date
+   */
+  public Object[] lookup( Object[] key, Date date ) {
+    Versions versions = entries.get( new RowMetaAndData( keyMeta, key ) );
+    if ( versions == null ) {
+      return null;
+    }
+    return versions.lookup( date == null ? Long.MIN_VALUE : date.getTime() );
+  }
+
+  /**
+   * Returns all versions of a dimension entry. The rows are the cached ones, changing them changes the cache, except
+   * for the date range.
+   *
+   * @param key the natural key, in the layout of the key metadata
+   * @return the cached rows, sorted on the start of the date range
+   */
+  public List<Object[]> getVersions( Object[] key ) {
+    Versions versions = entries.get( new RowMetaAndData( keyMeta, key ) );
+    if ( versions == null ) {
+      return new ArrayList<>();
+    }
+    return Arrays.asList( versions.rows ).subList( 0, versions.size );
+  }
+
+  /**
+   * Ends the date range of a version of a dimension entry, like updating the end date of a previous version does in
+   * the dimension table.
+   *
+   * @param key       the natural key, in the layout of the key metadata
+   * @param versionNr the version to close
+   * @param dateTo    the new end of the date range
+   * @throws KettleValueException in case the version numbers can't be read
+   */
+  public void closeVersion( Object[] key, long versionNr, Date dateTo ) throws KettleValueException {
+    Versions versions = entries.get( new RowMetaAndData( keyMeta, key ) );
+    if ( versions == null ) {
+      return;
+    }
+    for ( int i = 0; i < versions.size; i++ ) {
+      Long version = rowMeta.getInteger( versions.rows[ i ], 1 );
+      if ( version != null && version == versionNr ) {
+        versions.rows[ i ][ toDateIndex ] = dateTo;
+        versions.to[ i ] = dateTo == null ? Long.MAX_VALUE : dateTo.getTime();
+      }
+    }
+  }
+
+  /**
+   * @return the layout of the natural keys
+   */
+  public RowMetaInterface getKeyMeta() {
+    return keyMeta;
+  }
+
+  /**
+   * @return the layout of the cached rows
+   */
+  public RowMetaInterface getRowMeta() {
+    return rowMeta;
+  }
+
+  /**
+   * @return the number of natural keys in the cache
+   */
+  public int getKeyCount() {
+    return entries.size();
+  }
+
+  /**
+   * @return the number of versions in the cache
+   */
+  public long size() {
+    return size;
+  }
+
+  private long getFrom( Object[] row ) throws KettleValueException {
+    Date from = rowMeta.getDate( row, fromDateIndex );
+    return from == null ? Long.MIN_VALUE : from.getTime();
+  }
+
+  private long getTo( Object[] row ) throws KettleValueException {
+    Date to = rowMeta.getDate( row, toDateIndex );
+    return to == null ? Long.MAX_VALUE : to.getTime();
+  }
+
+  /**
+   * The versions of a single natural key, most keys only have one.
+   */
+  private static class Versions {
+    private long[] from = new long[ 1 ];
+    private long[] to = new long[ 1 ];
+    private Object[][] rows = new Object[ 1 ][];
+    private int size;
+
+    void add( long versionFrom, long versionTo, Object[] row ) {
+      if ( size == rows.length ) {
+        int capacity = size * 2;
+        from = Arrays.copyOf( from, capacity );
+        to = Arrays.copyOf( to, capacity );
+        rows = Arrays.copyOf( rows, capacity );
+      }
+      // New versions usually start after all others, keep the versions sorted in the rare case they don't
+      //
+      int index = size;
+      while ( index > 0 && from[ index - 1 ] > versionFrom ) {
+        index--;
+      }
+      System.arraycopy( from, index, from, index + 1, size - index );
+      System.arraycopy( to, index, to, index + 1, size - index );
+      System.arraycopy( rows, index, rows, index + 1, size - index );
+      from[ index ] = versionFrom;
+      to[ index ] = versionTo;
+      rows[ index ] = row;
+      size++;
+    }
+
+    Object[] lookup( long date ) {
+      // Find the last version starting on or before the date...
+      //
+      int low = 0;
+      int high = size - 1;
+      int found = -1;
+      while ( low <= high ) {
+        int middle = ( low + high ) >>> 1;
+        if ( from[ middle ] <= date ) {
+          found = middle;
+          low = middle + 1;
+        } else {
+          high = middle - 1;
+        }
+      }
+      // ... that doesn't end before it. Ranges can overlap in a damaged dimension, take the latest valid one.
+      //
+      for ( int i = found; i >= 0; i-- ) {
+        if ( date < to[ i ] ) {
+          return rows[ i ];
+        }
+      }
+      return null;
+    }
+  }
+}
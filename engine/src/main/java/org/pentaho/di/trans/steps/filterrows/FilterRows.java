@@ -25,8 +25,11 @@ package org.pentaho.di.trans.steps.filterrows;
 import java.util.List;
 
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.VectorizedCondition;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowBatch;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
@@ -74,6 +77,10 @@ public class FilterRows extends BaseStep implements StepInterface {
 
     boolean keep;
 
+    if ( data.vectorizedCondition != null ) {
+      return processRowBatch();
+    }
+
     Object[] r = getRow(); // Get next usable row from input rowset(s)!
     if ( r == null ) { // no more input to be expected...
 
@@ -114,6 +121,12 @@ public class FilterRows extends BaseStep implements StepInterface {
           data.falseRowSet = null;
         }
       }
+
+      // After this first row the remaining rows can be filtered a batch at a time if the condition allows it.
+      //
+      if ( isUsingColumnarRowBatches() && !log.isRowLevel() ) {
+        data.vectorizedCondition = VectorizedCondition.compile( meta.getCondition(), getInputRowMeta() );
+      }
     }
 
     keep = keepRow( getInputRowMeta(), r ); // Keep this row?
@@ -148,6 +161,59 @@ public class FilterRows extends BaseStep implements StepInterface {
     return true;
   }
 
+  /**
+   * Filters a batch of rows at once with the compiled condition.
+   */
+  private boolean processRowBatch() throws KettleException {
+    RowBatch batch = getRowBatch( getRowBatchSize() );
+    if ( batch == null ) { // no more input to be expected...
+      setOutputDone();
+      return false;
+    }
+    long linesRead = getLinesRead() - batch.size();
+
+    if ( !batch.isStoredAs( getInputRowMeta() ) ) {
+      // The values are not stored as the condition expects them, filter these rows one at a time.
+      //
+      for ( int i = 0; i < batch.size(); i++ ) {
+        Object[] r = batch.getRow( i );
+        putRowToTarget( r, keepRow( getInputRowMeta(), r ) );
+      }
+    } else {
+      data.keep = data.vectorizedCondition.evaluate( batch, data.keep );
+      if ( !data.chosesTargetSteps ) {
+        putRowBatch( data.outputRowMeta, batch.select( data.keep, true ) );
+      } else {
+        if ( data.trueRowSet != null ) {
+          putRowBatchTo( data.outputRowMeta, batch.select( data.keep, true ), data.trueRowSet );
+        }
+        if ( data.falseRowSet != null ) {
+          putRowBatchTo( data.outputRowMeta, batch.select( data.keep, false ), data.falseRowSet );
+        }
+      }
+    }
+
+    if ( checkFeedback( linesRead, getLinesRead() ) ) {
+      if ( log.isBasic() ) {
+        logBasic( BaseMessages.getString( PKG, "FilterRows.Log.LineNumber" ) + getLinesRead() );
+      }
+    }
+    return true;
+  }
+
+  private void putRowToTarget( Object[] r, boolean keep ) throws KettleException {
+    if ( !data.chosesTargetSteps ) {
+      if ( keep ) {
+        putRow( data.outputRowMeta, r );
+      }
+    } else {
+      RowSet rowSet = keep ? data.trueRowSet : data.falseRowSet;
+      if ( rowSet != null ) {
+        putRowTo( data.outputRowMeta, r, rowSet );
+      }
+    }
+  }
+
   /**
    * @see StepInterface#init(org.pentaho.di.trans.step.StepMetaInterface , org.pentaho.di.trans.step.StepDataInterface)
    */
@@ -23,6 +23,7 @@
 package org.pentaho.di.trans.steps.filterrows;
 
 import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.VectorizedCondition;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
@@ -41,6 +42,10 @@ public class FilterRowsData extends BaseStepData implements StepDataInterface {
   public String trueStepname;
   public String falseStepname;
 
+  /** The condition compiled for the input rows, null if the rows are filtered one at a time */
+  public VectorizedCondition vectorizedCondition;
+  public boolean[] keep;
+
   public FilterRowsData() {
     super();
   }
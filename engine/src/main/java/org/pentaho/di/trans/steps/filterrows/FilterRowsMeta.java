@@ -464,4 +464,9 @@ public class FilterRowsMeta extends BaseStepMeta implements StepMetaInterface {
       log.logError( e.getMessage() );
     }
   }
+
+  @Override
+  public boolean supportsColumnarRowBatches() {
+    return true;
+  }
 }
@@ -34,6 +34,8 @@ import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.PriorityQueue;
 
 import org.apache.commons.math.stat.descriptive.rank.Percentile;
 import org.apache.commons.vfs2.FileObject;
@@ -59,6 +61,7 @@ import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
 import org.pentaho.di.trans.step.BaseStep;
+import org.pentaho.di.trans.step.StepCopyCombiner;
 import org.pentaho.di.trans.step.StepDataInterface;
 import org.pentaho.di.trans.step.StepInterface;
 import org.pentaho.di.trans.step.StepMeta;
@@ -252,6 +255,8 @@ public class GroupBy extends BaseStep implements StepInterface {
           row = getRowFromBuffer();
         }
         closeInput();
+      } else if ( data.twoPhase ) {
+        data.partials.add( getGroupAggregate( data.previous ) );
       } else {
         Object[] result = buildResult( data.previous );
         if ( result != null ) {
@@ -314,6 +319,13 @@ public class GroupBy extends BaseStep implements StepInterface {
       if ( data.previous != null ) {
         calcAggregate( data.previous );
       }
+      if ( data.twoPhase ) {
+        if ( data.previous != null ) {
+          data.partials.add( getGroupAggregate( data.previous ) );
+        }
+        combinePartials();
+        return;
+      }
       Object[] result = buildResult( data.previous );
       if ( result != null ) {
         putRow( data.groupAggMeta, result );
@@ -321,6 +333,267 @@ public class GroupBy extends BaseStep implements StepInterface {
     }
   }
 
+  /**
+   * Keeps the aggregation state of the group that just ended for the combination of the step copies.
+   */
+  private GroupAggregate getGroupAggregate( Object[] r ) {
+    GroupAggregate aggregate = new GroupAggregate();
+    aggregate.groupData = new Object[ data.groupnrs.length ];
+    for ( int i = 0; i < data.groupnrs.length; i++ ) {
+      aggregate.groupData[ i ] = r[ data.groupnrs[ i ] ];
+    }
+    // newAggregate() allocates new arrays for all of the state except for the counts
+    aggregate.agg = data.agg;
+    aggregate.counts = data.counts.clone();
+    aggregate.distinctObjs = data.distinctObjs;
+    aggregate.mean = data.mean;
+    return aggregate;
+  }
+
+  /**
+   * Hands the groups of this copy over. The copy that finishes last merges the groups of all copies, which are each
+   * in sort order, and writes the combined results.
+   */
+  private void combinePartials() throws KettleException {
+    StepCopyCombiner<List<GroupAggregate>> combiner = StepCopyCombiner.getCombiner( this );
+    List<List<GroupAggregate>> partials = combiner.offer( getCopy(), data.partials );
+    data.partials = new ArrayList<>();
+    if ( partials == null ) {
+      return;
+    }
+
+    // Merge the next groups of all copies: the smallest one first and within a group the copies in copy number order
+    //
+    PriorityQueue<PartialCursor> heads =
+      new PriorityQueue<>( Math.max( 1, partials.size() ), new Comparator<PartialCursor>() {
+        @Override
+        public int compare( PartialCursor c1, PartialCursor c2 ) {
+          try {
+            int cmp = data.groupMeta.compare( c1.head().groupData, c2.head().groupData );
+            return cmp != 0 ? cmp : Integer.compare( c1.copyNr, c2.copyNr );
+          } catch ( KettleValueException e ) {
+            throw new RuntimeException( e );
+          }
+        }
+      } );
+
+    GroupAggregate current = null;
+    try {
+      for ( int copyNr = 0; copyNr < partials.size(); copyNr++ ) {
+        if ( !partials.get( copyNr ).isEmpty() ) {
+          heads.add( new PartialCursor( copyNr, partials.get( copyNr ) ) );
+        }
+      }
+      while ( !heads.isEmpty() ) {
+        PartialCursor cursor = heads.poll();
+        GroupAggregate aggregate = cursor.next();
+        if ( cursor.hasNext() ) {
+          heads.add( cursor );
+        }
+
+        if ( current != null && data.groupMeta.compare( current.groupData, aggregate.groupData ) == 0 ) {
+          mergeGroupAggregate( current, aggregate );
+        } else {
+          if ( current != null ) {
+            putGroupAggregate( current );
+          }
+          current = aggregate;
+        }
+      }
+    } catch ( RuntimeException e ) {
+      if ( e.getCause() instanceof KettleValueException ) {
+        throw (KettleValueException) e.getCause();
+      }
+      throw e;
+    }
+    if ( current != null ) {
+      putGroupAggregate( current );
+    } else if ( meta.isAlwaysGivingBackOneRow() ) {
+      newAggregate( null );
+      putRow( data.groupAggMeta, buildResult( null ) );
+    }
+  }
+
+  /**
+   * Walks through the groups of a step copy, releasing the groups it went past.
+   */
+  private static class PartialCursor {
+    private final int copyNr;
+    private final List<GroupAggregate> groups;
+    private int index;
+
+    PartialCursor( int copyNr, List<GroupAggregate> groups ) {
+      this.copyNr = copyNr;
+      this.groups = groups;
+    }
+
+    GroupAggregate head() {
+      return groups.get( index );
+    }
+
+    GroupAggregate next() {
+      GroupAggregate head = groups.set( index++, null );
+      if ( !hasNext() ) {
+        groups.clear();
+      }
+      return head;
+    }
+
+    boolean hasNext() {
+      return index < groups.size();
+    }
+  }
+
+  private void putGroupAggregate( GroupAggregate aggregate ) throws KettleException {
+    data.agg = aggregate.agg;
+    data.counts = aggregate.counts;
+    data.distinctObjs = aggregate.distinctObjs;
+    data.mean = aggregate.mean;
+
+    Object[] result = RowDataUtil.allocateRowData( data.groupnrs.length );
+    System.arraycopy( aggregate.groupData, 0, result, 0, data.groupnrs.length );
+    result = RowDataUtil.addRowData( result, data.groupnrs.length, getAggregateResult() );
+    putRow( data.groupAggMeta, result );
+  }
+
+  /**
+   * Used for junits in GroupByTwoPhaseTest
+   *
+   * Merges the aggregation state of a group calculated by a later step copy into the state of an earlier one.
+   *
+   * @param aggregate
+   *          the state to merge into
+   * @param other
+   *          the state of the same group in a later step copy
+   * @throws KettleValueException
+   */
+  @SuppressWarnings( "unchecked" ) void mergeGroupAggregate( GroupAggregate aggregate, GroupAggregate other )
+    throws KettleValueException {
+    for ( int i = 0; i < data.subjectnrs.length; i++ ) {
+      ValueMetaInterface valueMeta = data.aggMeta.getValueMeta( i );
+      Object value = aggregate.agg[ i ];
+      Object otherValue = other.agg[ i ];
+
+      switch ( meta.getAggregateType()[ i ] ) {
+        case GroupByMeta.TYPE_GROUP_SUM:
+          aggregate.agg[ i ] = ValueDataUtil.sum( valueMeta, value, valueMeta, otherValue );
+          break;
+        case GroupByMeta.TYPE_GROUP_AVERAGE:
+          aggregate.agg[ i ] = ValueDataUtil.sum( valueMeta, value, valueMeta, otherValue );
+          aggregate.counts[ i ] += other.counts[ i ];
+          break;
+        case GroupByMeta.TYPE_GROUP_MEDIAN:
+        case GroupByMeta.TYPE_GROUP_PERCENTILE:
+        case GroupByMeta.TYPE_GROUP_PERCENTILE_NEAREST_RANK:
+          ( (List<Double>) value ).addAll( (List<Double>) otherValue );
+          break;
+        case GroupByMeta.TYPE_GROUP_STANDARD_DEVIATION:
+        case GroupByMeta.TYPE_GROUP_STANDARD_DEVIATION_SAMPLE:
+          // Combine the means and the sums of squared deviations of both parts (Chan et al.)
+          //
+          if ( other.counts[ i ] == 0 ) {
+            break;
+          }
+          if ( aggregate.counts[ i ] == 0 ) {
+            aggregate.mean[ i ] = other.mean[ i ];
+            aggregate.agg[ i ] = otherValue;
+            aggregate.counts[ i ] = other.counts[ i ];
+            break;
+          }
+          double n1 = aggregate.counts[ i ];
+          double n2 = other.counts[ i ];
+          double n = n1 + n2;
+          double delta = other.mean[ i ] - aggregate.mean[ i ];
+
+          aggregate.mean[ i ] = aggregate.mean[ i ] + delta * n2 / n;
+          aggregate.agg[ i ] = (Double) value + (Double) otherValue + delta * delta * n1 * n2 / n;
+          aggregate.counts[ i ] += other.counts[ i ];
+          break;
+        case GroupByMeta.TYPE_GROUP_COUNT_DISTINCT:
+          if ( other.distinctObjs == null || other.distinctObjs[ i ] == null ) {
+            break;
+          }
+          if ( aggregate.distinctObjs == null ) {
+            aggregate.distinctObjs = new Set[ meta.getSubjectField().length ];
+          }
+          if ( aggregate.distinctObjs[ i ] == null ) {
+            aggregate.distinctObjs[ i ] = new TreeSet<Object>();
+          }
+          aggregate.distinctObjs[ i ].addAll( other.distinctObjs[ i ] );
+          aggregate.agg[ i ] = Long.valueOf( aggregate.distinctObjs[ i ].size() );
+          break;
+        case GroupByMeta.TYPE_GROUP_COUNT_ALL:
+        case GroupByMeta.TYPE_GROUP_COUNT_ANY:
+          aggregate.counts[ i ] += other.counts[ i ];
+          break;
+        case GroupByMeta.TYPE_GROUP_MIN: {
+          if ( otherValue == null && !minNullIsValued ) {
+            break;
+          }
+          if ( value == null && !minNullIsValued ) {
+            aggregate.agg[ i ] = otherValue;
+            break;
+          }
+          if ( valueMeta.isSortedDescending() ) {
+            // Account for negation in ValueMeta.compare() - See PDI-2302
+            if ( valueMeta.compare( value, otherValue ) < 0 ) {
+              aggregate.agg[ i ] = otherValue;
+            }
+          } else {
+            if ( valueMeta.compare( otherValue, value ) < 0 ) {
+              aggregate.agg[ i ] = otherValue;
+            }
+          }
+          break;
+        }
+        case GroupByMeta.TYPE_GROUP_MAX:
+          if ( valueMeta.isSortedDescending() ) {
+            // Account for negation in ValueMeta.compare() - See PDI-2302
+            if ( valueMeta.compare( value, otherValue ) > 0 ) {
+              aggregate.agg[ i ] = otherValue;
+            }
+          } else {
+            if ( valueMeta.compare( otherValue, value ) > 0 ) {
+              aggregate.agg[ i ] = otherValue;
+            }
+          }
+          break;
+        case GroupByMeta.TYPE_GROUP_FIRST:
+          if ( otherValue != null && value == null ) {
+            aggregate.agg[ i ] = otherValue;
+          }
+          break;
+        case GroupByMeta.TYPE_GROUP_LAST:
+          if ( otherValue != null ) {
+            aggregate.agg[ i ] = otherValue;
+          }
+          break;
+        case GroupByMeta.TYPE_GROUP_FIRST_INCL_NULL:
+          break;
+        case GroupByMeta.TYPE_GROUP_LAST_INCL_NULL:
+          aggregate.agg[ i ] = otherValue;
+          break;
+        case GroupByMeta.TYPE_GROUP_CONCAT_COMMA:
+        case GroupByMeta.TYPE_GROUP_CONCAT_STRING:
+          StringBuilder sb = (StringBuilder) value;
+          StringBuilder otherSb = (StringBuilder) otherValue;
+          if ( otherSb.length() > 0 ) {
+            if ( sb.length() > 0 ) {
+              if ( meta.getAggregateType()[ i ] == GroupByMeta.TYPE_GROUP_CONCAT_COMMA ) {
+                sb.append( ", " );
+              } else if ( !Utils.isEmpty( meta.getValueField()[ i ] ) ) {
+                sb.append( environmentSubstitute( meta.getValueField()[ i ] ) );
+              }
+            }
+            sb.append( otherSb );
+          }
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
   private void addCumulativeSums( Object[] row ) throws KettleValueException {
 
     // We need to adjust this row with cumulative averages?
@@ -896,6 +1169,24 @@ public class GroupBy extends BaseStep implements StepInterface {
 
       data.rowsOnFile = 0;
 
+      data.twoPhase = meta.isTwoPhaseAggregation() && StepCopyCombiner.getNrCopies( this ) > 1;
+      if ( data.twoPhase ) {
+        // Passing all rows and cumulative aggregates need every row of a group in the same copy
+        //
+        boolean supported = !meta.passAllRows();
+        for ( int aggregateType : meta.getAggregateType() ) {
+          if ( aggregateType == GroupByMeta.TYPE_GROUP_CUMULATIVE_SUM
+            || aggregateType == GroupByMeta.TYPE_GROUP_CUMULATIVE_AVERAGE ) {
+            supported = false;
+          }
+        }
+        if ( !supported ) {
+          logError( BaseMessages.getString( PKG, "GroupBy.Log.TwoPhaseAggregationNotSupported" ) );
+          return false;
+        }
+        data.partials = new ArrayList<>();
+      }
+
       return true;
     }
     return false;
@@ -103,6 +103,12 @@ public class GroupByData extends BaseStepData implements StepDataInterface {
 
   public boolean newBatch;
 
+  /** Every copy aggregates its own rows, the copy that finishes last combines them */
+  public boolean twoPhase;
+
+  /** The aggregates of the groups seen by this copy in two-phase mode */
+  public List<GroupAggregate> partials;
+
   public GroupByData() {
     super();
 
@@ -198,6 +198,11 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
    */
   private boolean alwaysGivingBackOneRow;
 
+  /**
+   * Flag to let every step copy pre-aggregate its own rows, the copy that finishes last combines the partial results.
+   */
+  private boolean twoPhaseAggregation;
+
   public GroupByMeta() {
     super(); // allocate BaseStepMeta
   }
@@ -395,6 +400,8 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
       } else {
         alwaysGivingBackOneRow = "Y".equalsIgnoreCase( giveBackRow );
       }
+
+      twoPhaseAggregation = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "two_phase_aggregation" ) );
     } catch ( Exception e ) {
       throw new KettleXMLException( BaseMessages.getString(
         PKG, "GroupByMeta.Exception.UnableToLoadStepInfoFromXML" ), e );
@@ -437,6 +444,7 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
     passAllRows = false;
     aggregateIgnored = false;
     aggregateIgnoredField = null;
+    twoPhaseAggregation = false;
 
     int sizeGroup = 0;
     int numberOfFields = 0;
@@ -579,6 +587,7 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
     retval.append( "      " ).append( XMLHandler.addTagValue( "add_linenr", addingLineNrInGroup ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "linenr_fieldname", lineNrInGroupField ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "give_back_row", alwaysGivingBackOneRow ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "two_phase_aggregation", twoPhaseAggregation ) );
 
     retval.append( "      <group>" ).append( Const.CR );
     for ( int i = 0; i < groupField.length; i++ ) {
@@ -637,6 +646,7 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
       }
 
       alwaysGivingBackOneRow = rep.getStepAttributeBoolean( id_step, 0, "give_back_row", hasNumberOfValues );
+      twoPhaseAggregation = rep.getStepAttributeBoolean( id_step, "two_phase_aggregation" );
     } catch ( Exception e ) {
       throw new KettleException( BaseMessages.getString(
         PKG, "GroupByMeta.Exception.UnexpectedErrorInReadingStepInfoFromRepository" ), e );
@@ -655,6 +665,7 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
       rep.saveStepAttribute( id_transformation, id_step, "add_linenr", addingLineNrInGroup );
       rep.saveStepAttribute( id_transformation, id_step, "linenr_fieldname", lineNrInGroupField );
       rep.saveStepAttribute( id_transformation, id_step, "give_back_row", alwaysGivingBackOneRow );
+      rep.saveStepAttribute( id_transformation, id_step, "two_phase_aggregation", twoPhaseAggregation );
 
       for ( int i = 0; i < groupField.length; i++ ) {
         rep.saveStepAttribute( id_transformation, id_step, i, "group_name", groupField[ i ] );
@@ -773,6 +784,20 @@ public class GroupByMeta extends BaseStepMeta implements StepMetaInterface {
     this.alwaysGivingBackOneRow = alwaysGivingBackOneRow;
   }
 
+  /**
+   * @return true if every step copy pre-aggregates its own rows and the copy that finishes last combines them
+   */
+  public boolean isTwoPhaseAggregation() {
+    return twoPhaseAggregation;
+  }
+
+  /**
+   * @param twoPhaseAggregation true to let every step copy pre-aggregate its own rows and combine them at the end
+   */
+  public void setTwoPhaseAggregation( boolean twoPhaseAggregation ) {
+    this.twoPhaseAggregation = twoPhaseAggregation;
+  }
+
   @Override
   public StepMetaInjectionInterface getStepMetaInjectionInterface() {
     return new GroupByMetaInjection( this );
@@ -44,7 +44,8 @@ public class GroupByMetaInjection implements StepMetaInjectionInterface {
       ValueMetaInterface.TYPE_STRING, "The temporary file prefix" ), GROUP_LINE_NUMBER_ENABLED(
       ValueMetaInterface.TYPE_STRING, "Group line number enabled? (Y/N)" ), GROUP_LINE_NUMBER_FIELDNAME(
       ValueMetaInterface.TYPE_STRING, "Group line number field name" ), ALLWAYS_PASS_A_ROW(
-      ValueMetaInterface.TYPE_STRING, "Always give back a row? (Y/N)" ),
+      ValueMetaInterface.TYPE_STRING, "Always give back a row? (Y/N)" ), TWO_PHASE_AGGREGATION(
+      ValueMetaInterface.TYPE_STRING, "Pre-aggregate in every step copy and combine at the end? (Y/N)" ),
 
       GROUP_FIELDS( ValueMetaInterface.TYPE_NONE, "The group definition fields" ), GROUP_FIELD(
         ValueMetaInterface.TYPE_NONE, "One group definition field" ), GROUP_FIELDNAME(
@@ -98,7 +99,7 @@ public class GroupByMetaInjection implements StepMetaInjectionInterface {
     Entry[] topEntries =
       new Entry[] {
         Entry.PASS_ALL_ROWS, Entry.TEMP_DIRECTORY, Entry.TEMP_FILE_PREFIX, Entry.GROUP_LINE_NUMBER_ENABLED,
-        Entry.GROUP_LINE_NUMBER_FIELDNAME, Entry.ALLWAYS_PASS_A_ROW, };
+        Entry.GROUP_LINE_NUMBER_FIELDNAME, Entry.ALLWAYS_PASS_A_ROW, Entry.TWO_PHASE_AGGREGATION, };
     for ( Entry topEntry : topEntries ) {
       all.add( new StepInjectionMetaEntry( topEntry.name(), topEntry.getValueType(), topEntry.getDescription() ) );
     }
@@ -245,6 +246,9 @@ public class GroupByMetaInjection implements StepMetaInjectionInterface {
         case ALLWAYS_PASS_A_ROW:
           meta.setAlwaysGivingBackOneRow( "Y".equalsIgnoreCase( lookValue ) );
           break;
+        case TWO_PHASE_AGGREGATION:
+          meta.setTwoPhaseAggregation( "Y".equalsIgnoreCase( lookValue ) );
+          break;
         default:
           break;
       }
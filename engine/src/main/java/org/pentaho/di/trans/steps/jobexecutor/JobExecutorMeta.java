@@ -45,6 +45,7 @@ import org.pentaho.di.core.variables.VariableSpace;
 import org.pentaho.di.core.xml.XMLHandler;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.job.JobMeta;
+import org.pentaho.di.job.JobMetaCache;
 import org.pentaho.di.repository.HasRepositoryDirectories;
 import org.pentaho.di.repository.HasRepositoryInterface;
 import org.pentaho.di.repository.ObjectId;
@@ -629,7 +630,7 @@ public class JobExecutorMeta extends BaseStepMeta implements StepMetaInterface,
               String dirStr = realFilename.substring( 0, realFilename.lastIndexOf( "/" ) );
               String tmpFilename = realFilename.substring( realFilename.lastIndexOf( "/" ) + 1 );
               RepositoryDirectoryInterface dir = rep.findDirectory( dirStr );
-              mappingJobMeta = rep.loadJob( tmpFilename, dir, null, null );
+              mappingJobMeta = JobMetaCache.getInstance().loadJobMeta( rep, tmpFilename, dir );
             } catch ( KettleException ke ) {
               // try without extension
               if ( realFilename.endsWith( Const.STRING_JOB_DEFAULT_EXT ) ) {
@@ -638,7 +639,7 @@ public class JobExecutorMeta extends BaseStepMeta implements StepMetaInterface,
                       realFilename.indexOf( "." + Const.STRING_JOB_DEFAULT_EXT ) );
                   String dirStr = realFilename.substring( 0, realFilename.lastIndexOf( "/" ) );
                   RepositoryDirectoryInterface dir = rep.findDirectory( dirStr );
-                  mappingJobMeta = rep.loadJob( tmpFilename, dir, null, null );
+                  mappingJobMeta = JobMetaCache.getInstance().loadJobMeta( rep, tmpFilename, dir );
                 } catch ( KettleException ke2 ) {
                   // fall back to try loading from file system (mappingJobMeta is going to be null)
                 }
@@ -646,7 +647,7 @@ public class JobExecutorMeta extends BaseStepMeta implements StepMetaInterface,
             }
           }
           if ( mappingJobMeta == null ) {
-            mappingJobMeta = new JobMeta( null, realFilename, rep, metaStore, null );
+            mappingJobMeta = JobMetaCache.getInstance().loadJobMeta( null, realFilename, rep, metaStore );
             LogChannel.GENERAL.logDetailed( "Loading job from repository", "Job was loaded from XML file ["
               + realFilename + "]" );
           }
@@ -667,9 +668,8 @@ public class JobExecutorMeta extends BaseStepMeta implements StepMetaInterface,
               try {
                 // reads the last revision in the repository...
                 //
-                mappingJobMeta = rep.loadJob( realJobname, repdir, null, null ); // TODO: FIXME: should we also pass an
-                                                                                 // external MetaStore into the
-                                                                                 // repository?
+                // TODO: FIXME: should we also pass an external MetaStore into the repository?
+                mappingJobMeta = JobMetaCache.getInstance().loadJobMeta( rep, realJobname, repdir );
                 LogChannel.GENERAL.logDetailed( "Loading job from repository", "Executor job ["
                   + realJobname + "] was loaded from the repository" );
               } catch ( Exception e ) {
@@ -680,12 +680,13 @@ public class JobExecutorMeta extends BaseStepMeta implements StepMetaInterface,
         } else {
           // rep is null, let's try loading by filename
           try {
-            mappingJobMeta = new JobMeta( null, realDirectory + "/" + realJobname, rep, metaStore, null );
+            mappingJobMeta =
+              JobMetaCache.getInstance().loadJobMeta( null, realDirectory + "/" + realJobname, rep, metaStore );
           } catch ( KettleException ke ) {
             try {
               // add .kjb extension and try again
-              mappingJobMeta = new JobMeta( null,
-                  realDirectory + "/" + realJobname + "." + Const.STRING_JOB_DEFAULT_EXT, rep, metaStore, null );
+              mappingJobMeta = JobMetaCache.getInstance().loadJobMeta( null,
+                  realDirectory + "/" + realJobname + "." + Const.STRING_JOB_DEFAULT_EXT, rep, metaStore );
             } catch ( KettleException ke2 ) {
               throw new KettleException( BaseMessages.getString(
                   PKG, "JobExecutorMeta.Exception.UnableToLoadJob", realJobname )
@@ -697,7 +698,7 @@ public class JobExecutorMeta extends BaseStepMeta implements StepMetaInterface,
 
       case REPOSITORY_BY_REFERENCE:
         // Read the last revision by reference...
-        mappingJobMeta = rep.loadJob( executorMeta.getJobObjectId(), null );
+        mappingJobMeta = JobMetaCache.getInstance().loadJobMeta( rep, executorMeta.getJobObjectId() );
         break;
       default:
         break;
@@ -29,5 +29,7 @@ public class Aggregate {
   public long[] counts;
   public Set<Object>[] distinctObjs;
   public double[] mean;
+  /** Primitive SUM/AVERAGE/MIN/MAX accumulators, doubles are stored as their raw long bits */
+  public long[] values;
 
 }
@@ -22,9 +22,11 @@
 
 package org.pentaho.di.trans.steps.memgroupby;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -47,6 +49,7 @@ import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
 import org.pentaho.di.trans.step.BaseStep;
+import org.pentaho.di.trans.step.StepCopyCombiner;
 import org.pentaho.di.trans.step.StepDataInterface;
 import org.pentaho.di.trans.step.StepInterface;
 import org.pentaho.di.trans.step.StepMeta;
@@ -86,7 +89,7 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
     Object[] r = getRow(); // get row!
 
     if ( first ) {
-      if ( ( r == null ) && ( !meta.isAlwaysGivingBackOneRow() ) ) {
+      if ( ( r == null ) && ( !meta.isAlwaysGivingBackOneRow() ) && !data.twoPhase ) {
         setOutputDone();
         return false;
       }
@@ -120,32 +123,32 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
       data.subjectnrs = new int[meta.getSubjectField().length];
       data.groupnrs = new int[meta.getGroupField().length];
 
-      // If the step does not receive any rows, we can not lookup field position indexes
-      if ( r != null ) {
-        for ( int i = 0; i < meta.getSubjectField().length; i++ ) {
-          if ( meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY ) {
-            data.subjectnrs[i] = 0;
-          } else {
-            data.subjectnrs[i] = data.inputRowMeta.indexOfValue( meta.getSubjectField()[i] );
-          }
-          if ( data.subjectnrs[i] < 0 ) {
-            logError( BaseMessages.getString( PKG, "MemoryGroupBy.Log.AggregateSubjectFieldCouldNotFound", meta
-              .getSubjectField()[i] ) );
-            setErrors( 1 );
-            stopAll();
-            return false;
-          }
+      // Without any rows the indexes come from the metadata of the previous steps. They are needed all the same: a
+      // copy without rows can be the one combining the groups of all copies.
+      //
+      for ( int i = 0; i < meta.getSubjectField().length; i++ ) {
+        if ( meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY ) {
+          data.subjectnrs[i] = 0;
+        } else {
+          data.subjectnrs[i] = data.inputRowMeta.indexOfValue( meta.getSubjectField()[i] );
+        }
+        if ( ( r != null ) && ( data.subjectnrs[i] < 0 ) ) {
+          logError( BaseMessages.getString( PKG, "MemoryGroupBy.Log.AggregateSubjectFieldCouldNotFound", meta
+            .getSubjectField()[i] ) );
+          setErrors( 1 );
+          stopAll();
+          return false;
         }
+      }
 
-        for ( int i = 0; i < meta.getGroupField().length; i++ ) {
-          data.groupnrs[i] = data.inputRowMeta.indexOfValue( meta.getGroupField()[i] );
-          if ( data.groupnrs[i] < 0 ) {
-            logError( BaseMessages.getString(
-              PKG, "MemoryGroupBy.Log.GroupFieldCouldNotFound", meta.getGroupField()[i] ) );
-            setErrors( 1 );
-            stopAll();
-            return false;
-          }
+      for ( int i = 0; i < meta.getGroupField().length; i++ ) {
+        data.groupnrs[i] = data.inputRowMeta.indexOfValue( meta.getGroupField()[i] );
+        if ( ( r != null ) && ( data.groupnrs[i] < 0 ) ) {
+          logError( BaseMessages.getString(
+            PKG, "MemoryGroupBy.Log.GroupFieldCouldNotFound", meta.getGroupField()[i] ) );
+          setErrors( 1 );
+          stopAll();
+          return false;
         }
       }
 
@@ -170,6 +173,15 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
       data.groupAggMeta = new RowMeta();
       data.groupAggMeta.addRowMeta( data.groupMeta );
       data.groupAggMeta.addRowMeta( data.aggMeta );
+
+      // Aggregate numeric SUM, AVERAGE, MIN and MAX into primitives and spill new groups beyond the memory limit
+      //
+      data.accumulatorTypes = getAccumulatorTypes();
+      data.memoryLimit = Const.toLong( environmentSubstitute( meta.getMemoryLimit() ), 0L ) * 1024 * 1024;
+      if ( data.twoPhase && data.memoryLimit > 0 ) {
+        logBasic( BaseMessages.getString( PKG, "MemoryGroupBy.Log.TwoPhaseAggregationWithoutSpilling" ) );
+        data.memoryLimit = 0;
+      }
     }
 
     // Here is where we start to do the real work...
@@ -177,6 +189,17 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
     if ( r == null ) { // no more input to be expected... (or none received in the first place)
 
       updateValueMeta();
+      if ( data.twoPhase ) {
+        StepCopyCombiner<HashMap<HashEntry, Aggregate>> combiner = StepCopyCombiner.getCombiner( this );
+        List<HashMap<HashEntry, Aggregate>> partials = combiner.offer( getCopy(), data.map );
+        if ( partials == null ) {
+          // The copy that finishes last writes the combined groups
+          //
+          setOutputDone();
+          return false;
+        }
+        data.map = combinePartials( partials );
+      }
       handleLastOfGroup();
 
       setOutputDone();
@@ -202,20 +225,7 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
   private void handleLastOfGroup() throws KettleException {
     // Dump the content of the map...
     //
-    for ( HashEntry entry : data.map.keySet() ) {
-      Aggregate aggregate = data.map.get( entry );
-      Object[] aggregateResult = getAggregateResult( aggregate );
-
-      Object[] outputRowData = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
-      int index = 0;
-      for ( int i = 0; i < data.groupMeta.size(); i++ ) {
-        outputRowData[index++] = data.groupMeta.getValueMeta( i ).convertToNormalStorageType( entry.getGroupData()[i] );
-      }
-      for ( int i = 0; i < data.aggMeta.size(); i++ ) {
-        outputRowData[index++] = data.aggMeta.getValueMeta( i ).convertToNormalStorageType( aggregateResult[i] );
-      }
-      putRow( data.outputRowMeta, outputRowData );
-    }
+    writeGroups();
 
     // What if we always need to give back one row?
     // This means we give back 0 for count all, count distinct, null for everything else
@@ -237,6 +247,327 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
       }
       putRow( data.outputRowMeta, outputRowData );
     }
+
+    // Then aggregate the groups that didn't fit in memory, one partition at a time
+    //
+    aggregateSpilledRows();
+  }
+
+  private void writeGroups() throws KettleException {
+    for ( HashEntry entry : data.map.keySet() ) {
+      Aggregate aggregate = data.map.get( entry );
+      Object[] aggregateResult = getAggregateResult( aggregate );
+
+      Object[] outputRowData = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
+      int index = 0;
+      for ( int i = 0; i < data.groupMeta.size(); i++ ) {
+        outputRowData[index++] = data.groupMeta.getValueMeta( i ).convertToNormalStorageType( entry.getGroupData()[i] );
+      }
+      for ( int i = 0; i < data.aggMeta.size(); i++ ) {
+        outputRowData[index++] = data.aggMeta.getValueMeta( i ).convertToNormalStorageType( aggregateResult[i] );
+      }
+      putRow( data.outputRowMeta, outputRowData );
+    }
+  }
+
+  /**
+   * Aggregates the spilled partitions one by one with an empty hash table. A partition that doesn't fit either is
+   * spilled again on the next level and aggregated recursively.
+   */
+  private void aggregateSpilledRows() throws KettleException {
+    MemoryGroupBySpill spill = data.spill;
+    if ( spill == null ) {
+      return;
+    }
+    data.spill = null;
+    try {
+      for ( int partition = 0; partition < MemoryGroupBySpill.NR_PARTITIONS && !isStopped(); partition++ ) {
+        if ( spill.getRowCount( partition ) == 0 ) {
+          continue;
+        }
+        data.map.clear();
+        data.memoryUsed = 0;
+        data.spillLevel = spill.getLevel() + 1;
+
+        MemoryGroupBySpill.Reader reader = spill.openPartition( partition );
+        try {
+          Object[] row;
+          while ( ( row = reader.readRow() ) != null ) {
+            addToAggregate( row );
+          }
+        } finally {
+          try {
+            reader.close();
+          } catch ( IOException e ) {
+            logError( BaseMessages.getString( PKG, "MemoryGroupBy.Exception.UnableToCloseInputStream" ), e );
+          }
+        }
+        spill.deletePartition( partition );
+
+        writeGroups();
+        aggregateSpilledRows();
+      }
+    } finally {
+      spill.close();
+      data.spillLevel = 0;
+    }
+  }
+
+  /**
+   * Combines the hash tables of all step copies into one, in copy number order.
+   */
+  private HashMap<HashEntry, Aggregate> combinePartials( List<HashMap<HashEntry, Aggregate>> partials )
+    throws KettleException {
+    HashMap<HashEntry, Aggregate> combined = partials.get( 0 );
+    for ( int p = 1; p < partials.size(); p++ ) {
+      for ( Map.Entry<HashEntry, Aggregate> entry : partials.get( p ).entrySet() ) {
+        Aggregate aggregate = combined.get( entry.getKey() );
+        if ( aggregate == null ) {
+          combined.put( entry.getKey(), entry.getValue() );
+        } else {
+          mergeAggregate( aggregate, entry.getValue() );
+        }
+      }
+    }
+    return combined;
+  }
+
+  /**
+   * Used for junits in MemoryGroupByTwoPhaseTest
+   *
+   * Merges the partial aggregate of a group calculated by another step copy into this one.
+   *
+   * @param aggregate
+   *          the aggregate to merge into
+   * @param other
+   *          the partial aggregate of the same group
+   * @throws KettleValueException
+   */
+  @SuppressWarnings( "unchecked" ) void mergeAggregate( Aggregate aggregate, Aggregate other )
+    throws KettleValueException {
+    for ( int i = 0; i < data.subjectnrs.length; i++ ) {
+      ValueMetaInterface valueMeta = data.aggMeta.getValueMeta( i );
+      if ( data.accumulatorTypes != null && data.accumulatorTypes[i] != ValueMetaInterface.TYPE_NONE ) {
+        if ( other.counts[i] > 0 ) {
+          accumulate( aggregate, i, valueMeta, getAccumulatedValue( other, i ) );
+          aggregate.counts[i] += other.counts[i] - 1;
+        }
+        continue;
+      }
+      Object value = aggregate.agg[i];
+      Object otherValue = other.agg[i];
+
+      switch ( meta.getAggregateType()[i] ) {
+        case MemoryGroupByMeta.TYPE_GROUP_SUM:
+          aggregate.agg[i] = ValueDataUtil.sum( valueMeta, value, valueMeta, otherValue );
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
+          aggregate.agg[i] = ValueDataUtil.sum( valueMeta, value, valueMeta, otherValue );
+          aggregate.counts[i] += other.counts[i];
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_MEDIAN:
+        case MemoryGroupByMeta.TYPE_GROUP_PERCENTILE:
+          ( (List<Double>) value ).addAll( (List<Double>) otherValue );
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION:
+          // Combine the means and the sums of squared deviations of both parts (Chan et al.)
+          //
+          if ( other.counts[i] == 0 ) {
+            break;
+          }
+          double n1 = aggregate.counts[i];
+          double n2 = other.counts[i];
+          double n = n1 + n2;
+          double delta = other.mean[i] - aggregate.mean[i];
+          double sum1 = value == null ? 0.0 : (Double) value;
+          double sum2 = otherValue == null ? 0.0 : (Double) otherValue;
+
+          aggregate.mean[i] = aggregate.mean[i] + delta * n2 / n;
+          aggregate.agg[i] = sum1 + sum2 + delta * delta * n1 * n2 / n;
+          aggregate.counts[i] += other.counts[i];
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT:
+          if ( other.distinctObjs == null || other.distinctObjs[i] == null ) {
+            break;
+          }
+          if ( aggregate.distinctObjs == null ) {
+            aggregate.distinctObjs = new Set[meta.getSubjectField().length];
+          }
+          if ( aggregate.distinctObjs[i] == null ) {
+            aggregate.distinctObjs[i] = new TreeSet<>();
+          }
+          aggregate.distinctObjs[i].addAll( other.distinctObjs[i] );
+          aggregate.counts[i] = aggregate.distinctObjs[i].size();
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL:
+        case MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY:
+          aggregate.counts[i] += other.counts[i];
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_MIN:
+          boolean otherIsNull = valueMeta.isNull( otherValue );
+          boolean valueIsNull = valueMeta.isNull( value );
+          if ( minNullIsValued || ( !otherIsNull && !valueIsNull ) ) {
+            aggregate.agg[i] = valueMeta.compare( otherValue, value ) < 0 ? otherValue : value;
+          } else if ( valueIsNull && !otherIsNull ) {
+            aggregate.agg[i] = otherValue;
+          }
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_MAX:
+          if ( valueMeta.compare( otherValue, value ) > 0 ) {
+            aggregate.agg[i] = otherValue;
+          }
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_FIRST:
+          if ( !valueMeta.isNull( otherValue ) && value == null ) {
+            aggregate.agg[i] = otherValue;
+          }
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_LAST:
+          if ( !valueMeta.isNull( otherValue ) ) {
+            aggregate.agg[i] = otherValue;
+          }
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_FIRST_INCL_NULL:
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_LAST_INCL_NULL:
+          aggregate.agg[i] = otherValue;
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_CONCAT_COMMA:
+        case MemoryGroupByMeta.TYPE_GROUP_CONCAT_STRING:
+          StringBuilder sb = (StringBuilder) value;
+          StringBuilder otherSb = (StringBuilder) otherValue;
+          if ( otherSb.length() > 0 ) {
+            if ( sb.length() > 0 ) {
+              if ( meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_CONCAT_COMMA ) {
+                sb.append( ", " );
+              } else if ( !Utils.isEmpty( meta.getValueField()[i] ) ) {
+                sb.append( environmentSubstitute( meta.getValueField()[i] ) );
+              }
+            }
+            sb.append( otherSb );
+          }
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  /**
+   * Starts spilling the rows of new groups to disk, the groups already in the hash table are aggregated in memory.
+   */
+  private void startSpilling() {
+    if ( log.isBasic() ) {
+      logBasic( BaseMessages.getString( PKG, "MemoryGroupBy.Log.SpillingPartitions",
+        String.valueOf( data.memoryLimit / ( 1024 * 1024 ) ), String.valueOf( data.map.size() ),
+        String.valueOf( data.spillLevel ) ) );
+    }
+    String directory = Utils.isEmpty( meta.getDirectory() ) ? "%%java.io.tmpdir%%" : meta.getDirectory();
+    data.spill = new MemoryGroupBySpill( data.inputRowMeta, data.spillLevel, Const.NVL( meta.getPrefix(), "mgrp" ),
+      environmentSubstitute( directory ), this );
+  }
+
+  /**
+   * Rough estimate of the heap taken by a new group: the map node, the key with its values and the aggregate arrays.
+   */
+  private long estimateGroupSize( Object[] groupData ) {
+    int nrAggregates = data.subjectnrs.length;
+    long size = 32 + 24 + 16 + 4L * groupData.length + 32 + 3 * ( 16 + 8L * nrAggregates );
+    if ( data.accumulatorTypes != null ) {
+      size += 16 + 8L * nrAggregates;
+    }
+    for ( Object value : groupData ) {
+      if ( value instanceof String ) {
+        size += 40 + 2L * ( (String) value ).length();
+      } else if ( value instanceof byte[] ) {
+        size += 16 + ( (byte[]) value ).length;
+      } else if ( value != null ) {
+        size += 24;
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Determines which aggregates can be accumulated into primitives: SUM, AVERAGE, MIN and MAX of Integer and Number
+   * subjects in normal storage that keep their type. MIN with valued nulls keeps the generic path.
+   *
+   * @return the accumulator type per aggregate or null if no aggregate qualifies
+   */
+  private int[] getAccumulatorTypes() {
+    int[] types = new int[data.subjectnrs.length];
+    boolean primitive = false;
+    for ( int i = 0; i < types.length; i++ ) {
+      int aggregateType = meta.getAggregateType()[i];
+      if ( aggregateType != MemoryGroupByMeta.TYPE_GROUP_SUM
+        && aggregateType != MemoryGroupByMeta.TYPE_GROUP_AVERAGE
+        && aggregateType != MemoryGroupByMeta.TYPE_GROUP_MAX
+        && ( aggregateType != MemoryGroupByMeta.TYPE_GROUP_MIN || minNullIsValued ) ) {
+        continue;
+      }
+      ValueMetaInterface subjMeta = data.inputRowMeta.getValueMeta( data.subjectnrs[i] );
+      ValueMetaInterface valueMeta = data.aggMeta.getValueMeta( i );
+      if ( ( subjMeta.isInteger() || subjMeta.isNumber() ) && subjMeta.isStorageNormal()
+        && !subjMeta.isSortedDescending() && subjMeta.getType() == valueMeta.getType() ) {
+        types[i] = subjMeta.getType();
+        primitive = true;
+      }
+    }
+    return primitive ? types : null;
+  }
+
+  private void accumulate( Aggregate aggregate, int i, ValueMetaInterface subjMeta, Object subj )
+    throws KettleValueException {
+    if ( subjMeta.isNull( subj ) ) {
+      return;
+    }
+    boolean firstValue = aggregate.counts[i]++ == 0;
+    if ( data.accumulatorTypes[i] == ValueMetaInterface.TYPE_INTEGER ) {
+      long x = (Long) subj;
+      long current = aggregate.values[i];
+      switch ( meta.getAggregateType()[i] ) {
+        case MemoryGroupByMeta.TYPE_GROUP_SUM:
+        case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
+          aggregate.values[i] = firstValue ? x : current + x;
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_MIN:
+          aggregate.values[i] = firstValue || x < current ? x : current;
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_MAX:
+          aggregate.values[i] = firstValue || x > current ? x : current;
+          break;
+        default:
+          break;
+      }
+    } else {
+      double x = (Double) subj;
+      double current = Double.longBitsToDouble( aggregate.values[i] );
+      switch ( meta.getAggregateType()[i] ) {
+        case MemoryGroupByMeta.TYPE_GROUP_SUM:
+        case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
+          current = firstValue ? x : current + x;
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_MIN:
+          current = firstValue || Double.compare( x, current ) < 0 ? x : current;
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_MAX:
+          current = firstValue || Double.compare( x, current ) > 0 ? x : current;
+          break;
+        default:
+          break;
+      }
+      aggregate.values[i] = Double.doubleToRawLongBits( current );
+    }
+  }
+
+  private Object getAccumulatedValue( Aggregate aggregate, int i ) {
+    if ( aggregate.counts[i] == 0 ) {
+      return null;
+    }
+    if ( data.accumulatorTypes[i] == ValueMetaInterface.TYPE_INTEGER ) {
+      return Long.valueOf( aggregate.values[i] );
+    }
+    return Double.valueOf( Double.longBitsToDouble( aggregate.values[i] ) );
   }
 
   @VisibleForTesting
@@ -270,6 +601,13 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
 
     Aggregate aggregate = data.map.get( entry );
     if ( aggregate == null ) {
+      if ( data.spill != null ) {
+        // The hash table is full, this group is aggregated later from its partition on disk
+        //
+        data.spill.add( entry.hashCode(), r );
+        return;
+      }
+
       // Create a new value...
       //
       aggregate = new Aggregate();
@@ -278,11 +616,21 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
       // Store it in the map!
       //
       data.map.put( entry, aggregate );
+
+      data.memoryUsed += estimateGroupSize( groupData );
+      if ( data.memoryLimit > 0 && data.memoryUsed > data.memoryLimit
+        && data.spillLevel < MemoryGroupBySpill.MAX_LEVEL ) {
+        startSpilling();
+      }
     }
 
     for ( int i = 0; i < data.subjectnrs.length; i++ ) {
       Object subj = r[data.subjectnrs[i]];
       ValueMetaInterface subjMeta = data.inputRowMeta.getValueMeta( data.subjectnrs[i] );
+      if ( data.accumulatorTypes != null && data.accumulatorTypes[i] != ValueMetaInterface.TYPE_NONE ) {
+        accumulate( aggregate, i, subjMeta, subj );
+        continue;
+      }
       Object value = aggregate.agg[i];
       ValueMetaInterface valueMeta = data.aggMeta.getValueMeta( i );
 
@@ -300,6 +648,7 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
         case MemoryGroupByMeta.TYPE_GROUP_PERCENTILE:
           if ( !subjMeta.isNull( subj ) ) {
             ( (List<Double>) aggregate.agg[i] ).add( subjMeta.getNumber( subj ) );
+            data.memoryUsed += 24;
           }
           break;
         case MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION:
@@ -337,6 +686,7 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
             }
             if ( !aggregate.distinctObjs[i].contains( obj ) ) {
               aggregate.distinctObjs[i].add( obj );
+              data.memoryUsed += 64;
             }
           }
           aggregate.counts[i] = aggregate.distinctObjs[i].size();
@@ -387,10 +737,12 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
         case MemoryGroupByMeta.TYPE_GROUP_CONCAT_COMMA:
           if ( !( subj == null ) ) {
             StringBuilder sb = (StringBuilder) value;
+            int length = sb.length();
             if ( sb.length() > 0 ) {
               sb.append( ", " );
             }
             sb.append( subjMeta.getString( subj ) );
+            data.memoryUsed += 2 * ( sb.length() - length );
           }
           break;
         case MemoryGroupByMeta.TYPE_GROUP_CONCAT_STRING:
@@ -400,10 +752,12 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
               separator = environmentSubstitute( meta.getValueField()[i] );
             }
             StringBuilder sb = (StringBuilder) value;
+            int length = sb.length();
             if ( sb.length() > 0 ) {
               sb.append( separator );
             }
             sb.append( subjMeta.getString( subj ) );
+            data.memoryUsed += 2 * ( sb.length() - length );
           }
           break;
         default:
@@ -432,6 +786,9 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
       aggregate.distinctObjs = null;
       aggregate.agg = new Object[data.subjectnrs.length];
       aggregate.mean = new double[data.subjectnrs.length]; // sets all doubles to 0.0
+      if ( data.accumulatorTypes != null ) {
+        aggregate.values = new long[data.subjectnrs.length];
+      }
     }
 
     for ( int i = 0; i < data.subjectnrs.length; i++ ) {
@@ -520,6 +877,9 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
     if ( data.subjectnrs != null ) {
       for ( int i = 0; i < data.subjectnrs.length; i++ ) {
         Object ag = aggregate.agg[i];
+        if ( data.accumulatorTypes != null && data.accumulatorTypes[i] != ValueMetaInterface.TYPE_NONE ) {
+          ag = getAccumulatedValue( aggregate, i );
+        }
         switch ( meta.getAggregateType()[i] ) {
           case MemoryGroupByMeta.TYPE_GROUP_SUM:
             break;
@@ -583,6 +943,7 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
 
     if ( super.init( smi, sdi ) ) {
       data.map = new HashMap<HashEntry, Aggregate>( 5000 );
+      data.twoPhase = meta.isTwoPhaseAggregation() && StepCopyCombiner.getNrCopies( this ) > 1;
       return true;
     }
     return false;
@@ -591,6 +952,10 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
   @Override
   public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
     super.dispose( smi, sdi );
+    if ( ( (MemoryGroupByData) sdi ).spill != null ) {
+      ( (MemoryGroupByData) sdi ).spill.close();
+      ( (MemoryGroupByData) sdi ).spill = null;
+    }
     ( (MemoryGroupByData) sdi ).clear();
   }
 
@@ -603,6 +968,7 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
     // Clear the complete cache...
     //
     data.map.clear();
+    data.memoryUsed = 0;
 
     data.newBatch = true;
   }
@@ -22,6 +22,7 @@
 
 package org.pentaho.di.trans.steps.memgroupby;
 
+import java.util.Arrays;
 import java.util.HashMap;
 
 import org.pentaho.di.core.exception.KettleValueException;
@@ -38,6 +39,8 @@ import org.pentaho.di.trans.step.StepDataInterface;
 public class MemoryGroupByData extends BaseStepData implements StepDataInterface {
   public class HashEntry {
     private Object[] groupData;
+    private int hash;
+    private boolean hashed;
 
     public HashEntry( Object[] groupData ) {
       this.groupData = groupData;
@@ -57,21 +60,34 @@ public class MemoryGroupByData extends BaseStepData implements StepDataInterface
       }
     }
 
+    /**
+     * The hash code of the group key converted to normal storage, the same as Arrays.deepHashCode() of the converted
+     * key. It is calculated once, without copying the key, and reused for table probes and spill partitioning.
+     */
     public int hashCode() {
-      try {
-        return groupMeta.hashCode( getHashValue() );
-      } catch ( KettleValueException e ) {
-        throw new RuntimeException( e );
+      if ( !hashed ) {
+        try {
+          int result = 1;
+          for ( int i = 0; i < groupMeta.size(); i++ ) {
+            ValueMetaInterface valueMeta = groupMeta.getValueMeta( i );
+            Object value = valueMeta.convertToNormalStorageType( groupData[i] );
+            int valueHash;
+            if ( value == null ) {
+              valueHash = 0;
+            } else if ( value instanceof byte[] ) {
+              valueHash = Arrays.hashCode( (byte[]) value );
+            } else {
+              valueHash = value.hashCode();
+            }
+            result = 31 * result + valueHash;
+          }
+          hash = result;
+          hashed = true;
+        } catch ( KettleValueException e ) {
+          throw new RuntimeException( e );
+        }
       }
-    }
-
-    private Object[] getHashValue() throws KettleValueException {
-      Object[] groupDataHash = new Object[groupMeta.size()];
-      for ( int i = 0; i < groupMeta.size(); i++ ) {
-        ValueMetaInterface valueMeta = groupMeta.getValueMeta( i );
-        groupDataHash[i] = valueMeta.convertToNormalStorageType( groupData[i] );
-      }
-      return groupDataHash;
+      return hash;
     }
   }
 
@@ -99,6 +115,21 @@ public class MemoryGroupByData extends BaseStepData implements StepDataInterface
 
   public boolean newBatch;
 
+  /** Per aggregate the primitive type accumulated in Aggregate.values or TYPE_NONE, null if there are none */
+  public int[] accumulatorTypes;
+
+  /** Memory budget of the hash table in bytes, 0 for unlimited */
+  public long memoryLimit;
+  /** Estimated memory held by the hash table */
+  public long memoryUsed;
+  /** The rows of groups that didn't fit in the hash table anymore, null while nothing was spilled */
+  public MemoryGroupBySpill spill;
+  /** The level of the next spill, increases while aggregating spilled partitions */
+  public int spillLevel;
+
+  /** Every copy aggregates its own rows, the copy that finishes last combines them */
+  public boolean twoPhase;
+
   public MemoryGroupByData() {
     super();
 
@@ -146,6 +146,22 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
   /** Flag to indicate that we always give back one row. Defaults to true for existing transformations. */
   private boolean alwaysGivingBackOneRow;
 
+  @Injection( name = "MEMORY_LIMIT" )
+  /** Memory budget of the hash table in MB, partitions of new groups are spilled to disk once it is exceeded */
+  private String memoryLimit;
+
+  @Injection( name = "DIRECTORY" )
+  /** Directory to store the spilled partitions in */
+  private String directory;
+
+  @Injection( name = "PREFIX" )
+  /** Spill files prefix */
+  private String prefix;
+
+  @Injection( name = "TWO_PHASE_AGGREGATION" )
+  /** Let every step copy pre-aggregate its own rows, the copy that finishes last combines the partial results */
+  private boolean twoPhaseAggregation;
+
   public MemoryGroupByMeta() {
     super(); // allocate BaseStepMeta
   }
@@ -289,6 +305,11 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
       } else {
         alwaysGivingBackOneRow = "Y".equalsIgnoreCase( giveBackRow );
       }
+
+      memoryLimit = XMLHandler.getTagValue( stepnode, "memory_limit" );
+      directory = XMLHandler.getTagValue( stepnode, "directory" );
+      prefix = XMLHandler.getTagValue( stepnode, "prefix" );
+      twoPhaseAggregation = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "two_phase_aggregation" ) );
     } catch ( Exception e ) {
       throw new KettleXMLException( BaseMessages.getString(
         PKG, "MemoryGroupByMeta.Exception.UnableToLoadStepInfoFromXML" ), e );
@@ -329,6 +350,11 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
     int nrfields = 0;
 
     allocate( sizegroup, nrfields );
+
+    memoryLimit = null;
+    directory = "%%java.io.tmpdir%%";
+    prefix = "mgrp";
+    twoPhaseAggregation = false;
   }
 
   @Override
@@ -445,6 +471,10 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
     StringBuilder retval = new StringBuilder( 500 );
 
     retval.append( "      " ).append( XMLHandler.addTagValue( "give_back_row", alwaysGivingBackOneRow ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "memory_limit", memoryLimit ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "directory", directory ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "prefix", prefix ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "two_phase_aggregation", twoPhaseAggregation ) );
 
     retval.append( "      <group>" ).append( Const.CR );
     for ( int i = 0; i < groupField.length; i++ ) {
@@ -494,6 +524,10 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
       }
 
       alwaysGivingBackOneRow = rep.getStepAttributeBoolean( id_step, 0, "give_back_row", hasNumberOfValues );
+      memoryLimit = rep.getStepAttributeString( id_step, "memory_limit" );
+      directory = rep.getStepAttributeString( id_step, "directory" );
+      prefix = rep.getStepAttributeString( id_step, "prefix" );
+      twoPhaseAggregation = rep.getStepAttributeBoolean( id_step, "two_phase_aggregation" );
     } catch ( Exception e ) {
       throw new KettleException( BaseMessages.getString(
         PKG, "MemoryGroupByMeta.Exception.UnexpectedErrorInReadingStepInfoFromRepository" ), e );
@@ -504,6 +538,10 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
   public void saveRep( Repository rep, IMetaStore metaStore, ObjectId id_transformation, ObjectId id_step ) throws KettleException {
     try {
       rep.saveStepAttribute( id_transformation, id_step, "give_back_row", alwaysGivingBackOneRow );
+      rep.saveStepAttribute( id_transformation, id_step, "memory_limit", memoryLimit );
+      rep.saveStepAttribute( id_transformation, id_step, "directory", directory );
+      rep.saveStepAttribute( id_transformation, id_step, "prefix", prefix );
+      rep.saveStepAttribute( id_transformation, id_step, "two_phase_aggregation", twoPhaseAggregation );
 
       for ( int i = 0; i < groupField.length; i++ ) {
         rep.saveStepAttribute( id_transformation, id_step, i, "group_name", groupField[i] );
@@ -567,6 +605,66 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
     this.alwaysGivingBackOneRow = alwaysGivingBackOneRow;
   }
 
+  /**
+   * @return the memory budget of the hash table in MB, empty or 0 to keep all groups in memory
+   */
+  public String getMemoryLimit() {
+    return memoryLimit;
+  }
+
+  /**
+   * @param memoryLimit
+   *          the memory budget of the hash table in MB, empty or 0 to keep all groups in memory
+   */
+  public void setMemoryLimit( String memoryLimit ) {
+    this.memoryLimit = memoryLimit;
+  }
+
+  /**
+   * @return Returns the directory to store the spilled partitions in.
+   */
+  public String getDirectory() {
+    return directory;
+  }
+
+  /**
+   * @param directory
+   *          The directory to store the spilled partitions in.
+   */
+  public void setDirectory( String directory ) {
+    this.directory = directory;
+  }
+
+  /**
+   * @return Returns the spill files prefix.
+   */
+  public String getPrefix() {
+    return prefix;
+  }
+
+  /**
+   * @param prefix
+   *          The spill files prefix.
+   */
+  public void setPrefix( String prefix ) {
+    this.prefix = prefix;
+  }
+
+  /**
+   * @return true if every step copy pre-aggregates its own rows and the copy that finishes last combines them
+   */
+  public boolean isTwoPhaseAggregation() {
+    return twoPhaseAggregation;
+  }
+
+  /**
+   * @param twoPhaseAggregation
+   *          true to let every step copy pre-aggregate its own rows and combine them at the end
+   */
+  public void setTwoPhaseAggregation( boolean twoPhaseAggregation ) {
+    this.twoPhaseAggregation = twoPhaseAggregation;
+  }
+
   /**
    * If we use injection we can have different arrays lengths.
    * We need synchronize them for consistency behavior with UI
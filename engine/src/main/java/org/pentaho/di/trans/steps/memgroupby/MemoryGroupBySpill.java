@@ -0,0 +1,257 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.trans.steps.memgroupby;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+
+import org.apache.commons.vfs2.FileObject;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.variables.VariableSpace;
+import org.pentaho.di.core.vfs.KettleVFS;
+import org.pentaho.di.i18n.BaseMessages;
+
+/**
+ * The spilled part of a hybrid hash aggregation. Once the hash table of {@link MemoryGroupBy} reaches its memory
+ * limit, rows that belong to groups not yet in the table are written to one of {@link #NR_PARTITIONS} temporary files
+ * chosen by the hash of their group key. All rows of a group end up in the same partition, in input order, so every
+ * partition can be aggregated on its own afterwards. A partition that overflows again is split on the next bits of
+ * the hash, up to {@link #MAX_LEVEL} levels deep.
+ */
+public class MemoryGroupBySpill implements Closeable {
+  private static Class<?> PKG = MemoryGroupByMeta.class; // for i18n purposes, needed by Translator2!!
+
+  static final int PARTITION_BITS = 4;
+  static final int NR_PARTITIONS = 1 << PARTITION_BITS;
+  static final int MAX_LEVEL = 32 / PARTITION_BITS;
+
+  private final RowMetaInterface rowMeta;
+  private final int level;
+  private final String prefix;
+  private final String directory;
+  private final VariableSpace space;
+
+  private final FileObject[] files = new FileObject[NR_PARTITIONS];
+  private final DataOutputStream[] outputs = new DataOutputStream[NR_PARTITIONS];
+  private final long[] rowCounts = new long[NR_PARTITIONS];
+
+  /**
+   * @param rowMeta
+   *          the layout of the spilled rows
+   * @param level
+   *          the recursion level, 0 for the rows of the step input
+   * @param prefix
+   *          the temporary file prefix
+   * @param directory
+   *          the directory to create the temporary files in
+   * @param space
+   *          the variables to resolve the directory with
+   */
+  public MemoryGroupBySpill( RowMetaInterface rowMeta, int level, String prefix, String directory,
+    VariableSpace space ) {
+    this.rowMeta = rowMeta;
+    this.level = level;
+    this.prefix = prefix;
+    this.directory = directory;
+    this.space = space;
+  }
+
+  /**
+   * @return the recursion level of this spill
+   */
+  public int getLevel() {
+    return level;
+  }
+
+  /**
+   * The partition of a group key hash code at the given level. The hash is scrambled first so that the partitions do
+   * not correlate with the hash table buckets, which use the low bits.
+   */
+  static int getPartition( int hash, int level ) {
+    int h = hash * 0x9E3779B9;
+    h ^= h >>> 16;
+    h *= 0x85EBCA6B;
+    h ^= h >>> 13;
+    return ( h >>> ( level * PARTITION_BITS ) ) & ( NR_PARTITIONS - 1 );
+  }
+
+  /**
+   * Writes a row to the partition of its group key.
+   *
+   * @param hash
+   *          the hash code of the group key of the row
+   * @param row
+   *          the row to spill
+   * @throws KettleException
+   *           in case the temporary file can't be created or written
+   */
+  public void add( int hash, Object[] row ) throws KettleException {
+    int partition = getPartition( hash, level );
+    DataOutputStream output = outputs[partition];
+    if ( output == null ) {
+      try {
+        files[partition] = KettleVFS.createTempFile( prefix, ".tmp", directory, space );
+        output = new DataOutputStream( new BufferedOutputStream(
+          KettleVFS.getOutputStream( files[partition], false ), 65536 ) );
+        outputs[partition] = output;
+      } catch ( Exception e ) {
+        throw new KettleException( BaseMessages.getString(
+          PKG, "MemoryGroupBy.Exception.UnableToCreateTemporaryFile" ), e );
+      }
+    }
+    rowMeta.writeData( output, row );
+    rowCounts[partition]++;
+  }
+
+  /**
+   * @return the number of rows spilled to the given partition
+   */
+  public long getRowCount( int partition ) {
+    return rowCounts[partition];
+  }
+
+  /**
+   * @return the total number of spilled rows
+   */
+  public long getRowCount() {
+    long total = 0;
+    for ( long rowCount : rowCounts ) {
+      total += rowCount;
+    }
+    return total;
+  }
+
+  /**
+   * Finishes writing and opens a partition for reading. The first call closes all output files.
+   *
+   * @param partition
+   *          the partition to read
+   * @return a reader over the rows of the partition, in the order they were spilled
+   * @throws KettleException
+   *           in case the temporary file can't be opened
+   */
+  public Reader openPartition( int partition ) throws KettleException {
+    closeOutputs();
+    if ( rowCounts[partition] == 0 ) {
+      return new Reader( null, 0 );
+    }
+    try {
+      DataInputStream input = new DataInputStream( new BufferedInputStream(
+        KettleVFS.getInputStream( files[partition] ), 65536 ) );
+      return new Reader( input, rowCounts[partition] );
+    } catch ( Exception e ) {
+      throw new KettleException( BaseMessages.getString(
+        PKG, "MemoryGroupBy.Exception.UnableToReadBackRowFromTemporaryFile" ), e );
+    }
+  }
+
+  /**
+   * Deletes the temporary file of a partition once it has been aggregated.
+   */
+  public void deletePartition( int partition ) {
+    if ( files[partition] != null ) {
+      try {
+        files[partition].delete();
+      } catch ( IOException e ) {
+        // Ignore, the file was created as a temporary file anyway
+      }
+      files[partition] = null;
+    }
+  }
+
+  private void closeOutputs() throws KettleException {
+    try {
+      for ( int i = 0; i < NR_PARTITIONS; i++ ) {
+        if ( outputs[i] != null ) {
+          outputs[i].close();
+          outputs[i] = null;
+        }
+      }
+    } catch ( IOException e ) {
+      throw new KettleFileException( e );
+    }
+  }
+
+  /**
+   * Closes the output files and deletes all temporary files.
+   */
+  @Override
+  public void close() {
+    for ( int i = 0; i < NR_PARTITIONS; i++ ) {
+      if ( outputs[i] != null ) {
+        try {
+          outputs[i].close();
+        } catch ( IOException e ) {
+          // Ignore, the file is deleted next
+        }
+        outputs[i] = null;
+      }
+      deletePartition( i );
+    }
+  }
+
+  /**
+   * Reads the rows of a single partition back.
+   */
+  public class Reader implements Closeable {
+    private final DataInputStream input;
+    private long remaining;
+
+    Reader( DataInputStream input, long rowCount ) {
+      this.input = input;
+      this.remaining = rowCount;
+    }
+
+    /**
+     * @return the next row or null if the partition is exhausted
+     * @throws KettleException
+     *           in case the row can't be read
+     */
+    public Object[] readRow() throws KettleException {
+      if ( remaining == 0 ) {
+        return null;
+      }
+      remaining--;
+      try {
+        return rowMeta.readData( input );
+      } catch ( SocketTimeoutException e ) {
+        throw new KettleException( BaseMessages.getString(
+          PKG, "MemoryGroupBy.Exception.UnableToReadBackRowFromTemporaryFile" ), e );
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if ( input != null ) {
+        input.close();
+      }
+    }
+  }
+}
@@ -46,6 +46,9 @@ public class SelectValuesData extends BaseStepData implements StepDataInterface
 
   public RowMetaInterface outputRowMeta;
 
+  /** Buffer holding the output rows of the current batch */
+  public Object[][] outputRows;
+
   // The MODE, default = select...
   public boolean select; // "normal" selection of fields.
   public boolean deselect; // de-select mode
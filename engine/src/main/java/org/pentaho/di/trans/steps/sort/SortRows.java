@@ -31,18 +31,25 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.SocketTimeoutException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.compress.CompressionProviderFactory;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleFileException;
 import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.logging.Metrics;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.vfs.KettleVFS;
@@ -64,6 +71,13 @@ import org.pentaho.di.trans.step.StepMetaInterface;
 public class SortRows extends BaseStep implements StepInterface {
   private static Class<?> PKG = SortRows.class; // for i18n
 
+  /** Smaller buffers are sorted on a single thread by Arrays.parallelSort() anyway */
+  private static final int PARALLEL_SORT_MIN_ROWS = 8192;
+
+  /** The number of rows read ahead from all temporary files together during a parallel merge */
+  private static final int MERGE_READ_AHEAD_ROWS = 32768;
+  private static final int MERGE_MIN_BLOCK_ROWS = 64;
+
   private SortRowsMeta meta;
   private SortRowsData data;
 
@@ -134,6 +148,7 @@ public class SortRows extends BaseStep implements StepInterface {
     // Then write them to disk...
     DataOutputStream dos;
     GZIPOutputStream gzos;
+    SortRunWriter runWriter;
     int p;
 
     try {
@@ -143,10 +158,16 @@ public class SortRows extends BaseStep implements StepInterface {
 
       data.files.add( fileObject ); // Remember the files!
       OutputStream outputStream = KettleVFS.getOutputStream( fileObject, false );
-      if ( data.compressFiles ) {
+      if ( data.parallelSort ) {
+        runWriter = new SortRunWriter( data.outputRowMeta, data.fieldnrs, outputStream, data.compressionProvider );
+        dos = null;
+        gzos = null;
+      } else if ( data.compressFiles ) {
+        runWriter = null;
         gzos = new GZIPOutputStream( new BufferedOutputStream( outputStream ) );
         dos = new DataOutputStream( gzos );
       } else {
+        runWriter = null;
         dos = new DataOutputStream( new BufferedOutputStream( outputStream, 500000 ) );
         gzos = null;
       }
@@ -186,7 +207,11 @@ public class SortRows extends BaseStep implements StepInterface {
           }
         }
         if ( !skip ) {
-          data.outputRowMeta.writeData( dos, data.buffer.get( p ) );
+          if ( runWriter != null ) {
+            runWriter.writeRow( data.buffer.get( p ) );
+          } else {
+            data.outputRowMeta.writeData( dos, data.buffer.get( p ) );
+          }
         }
       }
 
@@ -207,9 +232,15 @@ public class SortRows extends BaseStep implements StepInterface {
       data.buffer.clear();
 
       // Close temp-file
-      dos.close(); // close data stream
-      if ( gzos != null ) {
-        gzos.close(); // close gzip stream
+      if ( runWriter != null ) {
+        runWriter.close(); // close run and file stream
+        log.snap( Metrics.METRIC_STEP_SORT_RUNS_WRITTEN );
+        log.snap( Metrics.METRIC_STEP_SORT_BYTES_SPILLED, runWriter.getBytesWritten() );
+      } else {
+        dos.close(); // close data stream
+        if ( gzos != null ) {
+          gzos.close(); // close gzip stream
+        }
       }
       outputStream.close(); // close file stream
 
@@ -242,6 +273,11 @@ public class SortRows extends BaseStep implements StepInterface {
   Object[] getBuffer() throws KettleValueException {
     Object[] retval;
 
+    // A parallel sort merges its temp files with a loser tree
+    if ( data.parallelSort && !data.files.isEmpty() ) {
+      return getMergedRow();
+    }
+
     // Open all files at once and read one row from each file...
     if ( data.files.size() > 0 && ( data.dis.size() == 0 || data.fis.size() == 0 ) ) {
       if ( log.isBasic() ) {
@@ -372,6 +408,58 @@ public class SortRows extends BaseStep implements StepInterface {
     return retval;
   }
 
+  private Object[] getMergedRow() throws KettleValueException {
+    try {
+      if ( data.merger == null ) {
+        openSortRunMerger();
+      }
+      return data.merger.next();
+    } catch ( KettleException e ) {
+      throw new KettleValueException( e );
+    }
+  }
+
+  private void openSortRunMerger() throws KettleException {
+    if ( log.isBasic() ) {
+      logBasic( BaseMessages.getString( PKG, "SortRows.Basic.OpeningTempFiles", data.files.size() ) );
+    }
+
+    List<SortRunReader> readers = new ArrayList<SortRunReader>( data.files.size() );
+    try {
+      for ( int f = 0; f < data.files.size() && !isStopped(); f++ ) {
+        FileObject fileObject = data.files.get( f );
+        if ( log.isDetailed() ) {
+          logDetailed( BaseMessages.getString( PKG, "SortRows.Detailed.OpeningTempFile",
+              KettleVFS.getFilename( fileObject ) ) );
+        }
+        InputStream fi = KettleVFS.getInputStream( fileObject );
+        try {
+          readers.add( new SortRunReader( data.outputRowMeta, data.fieldnrs, fi, data.compressionProvider,
+              data.bufferSizes.get( f ) ) );
+        } catch ( IOException e ) {
+          BaseStep.closeQuietly( fi );
+          throw e;
+        }
+      }
+    } catch ( Exception e ) {
+      for ( SortRunReader reader : readers ) {
+        BaseStep.closeQuietly( reader );
+      }
+      throw new KettleException( BaseMessages.getString( PKG, "SortRows.Error.ErrorReadingBackTempFiles" ), e );
+    }
+
+    int blockSize = Math.max( MERGE_MIN_BLOCK_ROWS, MERGE_READ_AHEAD_ROWS / Math.max( readers.size(), 1 ) );
+    data.merger = new SortRunMerger( readers, data.rowComparator, getSortPool(), blockSize );
+    log.snap( Metrics.METRIC_STEP_SORT_MERGE_FAN_IN, data.merger.getFanIn() );
+  }
+
+  private ExecutorService getSortPool() {
+    if ( data.sortPool == null ) {
+      data.sortPool = new ForkJoinPool( data.sortThreads );
+    }
+    return data.sortPool;
+  }
+
   @Override
   public boolean processRow( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
 
@@ -580,12 +668,34 @@ public class SortRows extends BaseStep implements StepInterface {
 
     data.minSortSize = 5000;
 
+    data.parallelSort = meta.isParallelSort();
+    if ( data.parallelSort ) {
+      data.sortThreads = Const.toInt( environmentSubstitute( meta.getSortThreads() ), -1 );
+      if ( data.sortThreads <= 0 ) {
+        data.sortThreads = Runtime.getRuntime().availableProcessors();
+      }
+      if ( data.compressFiles ) {
+        String compressionType =
+            Const.NVL( environmentSubstitute( meta.getCompressionType() ), SortRowsMeta.DEFAULT_COMPRESSION_TYPE );
+        data.compressionProvider =
+            CompressionProviderFactory.getInstance().createCompressionProviderInstance( compressionType );
+        if ( data.compressionProvider == null ) {
+          logError( BaseMessages.getString( PKG, "SortRows.Error.UnknownCompressionType", compressionType ) );
+          return false;
+        }
+      }
+    }
+
     return true;
   }
 
   @Override
   public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
     clearBuffers();
+    if ( data.sortPool != null ) {
+      data.sortPool.shutdownNow();
+      data.sortPool = null;
+    }
     super.dispose( smi, sdi );
   }
 
@@ -596,6 +706,12 @@ public class SortRows extends BaseStep implements StepInterface {
     data.getBufferIndex = 0;
     data.rowbuffer.clear();
 
+    // stop the merge of a parallel sort, closing its temp files
+    if ( data.merger != null ) {
+      BaseStep.closeQuietly( data.merger );
+      data.merger = null;
+    }
+
     // close any open DataInputStream objects
     if ( ( data.dis != null ) && ( data.dis.size() > 0 ) ) {
       for ( DataInputStream dis : data.dis ) {
@@ -619,6 +735,11 @@ public class SortRows extends BaseStep implements StepInterface {
         logError( e.getLocalizedMessage(), e );
       }
     }
+    if ( data.parallelSort ) {
+      // the merge doesn't remove the temp files one by one, start the next batch with a clean slate
+      data.files.clear();
+      data.bufferSizes.clear();
+    }
   }
 
   /**
@@ -626,7 +747,11 @@ public class SortRows extends BaseStep implements StepInterface {
    */
   void quickSort( List<Object[]> elements ) throws KettleException {
     if ( elements.size() > 0 ) {
-      Collections.sort( elements, data.rowComparator );
+      if ( data.parallelSort && elements.size() >= PARALLEL_SORT_MIN_ROWS ) {
+        parallelSort( elements );
+      } else {
+        Collections.sort( elements, data.rowComparator );
+      }
 
       long nrConversions = 0L;
       for ( ValueMetaInterface valueMeta : data.outputRowMeta.getValueMetaList() ) {
@@ -639,6 +764,28 @@ public class SortRows extends BaseStep implements StepInterface {
     }
   }
 
+  /**
+   * Sort the vector using the threads of the sort pool.
+   */
+  private void parallelSort( List<Object[]> elements ) throws KettleException {
+    final Object[][] rows = elements.toArray( new Object[elements.size()][] );
+    try {
+      // Arrays.parallelSort() forks its sub-tasks into the pool it's called from
+      getSortPool().submit( () -> Arrays.parallelSort( rows, data.rowComparator ) ).get();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleException( e );
+    } catch ( ExecutionException e ) {
+      throw new KettleException( e.getCause() );
+    }
+
+    ListIterator<Object[]> iterator = elements.listIterator();
+    for ( Object[] row : rows ) {
+      iterator.next();
+      iterator.set( row );
+    }
+  }
+
   /**
    * Calling this method will alert the step that we finished passing records to the step. Specifically for steps like
    * "Sort Rows" it means that the buffered rows can be sorted and passed on.
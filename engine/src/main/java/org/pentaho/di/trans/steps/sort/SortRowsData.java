@@ -27,9 +27,11 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.zip.GZIPInputStream;
 
 import org.apache.commons.vfs2.FileObject;
+import org.pentaho.di.core.compress.CompressionProvider;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
@@ -76,6 +78,15 @@ public class SortRowsData extends BaseStepData implements StepDataInterface {
   public int[] groupnrs;
   public boolean newBatch;
 
+  /*
+   * Parallel sort
+   */
+  public boolean parallelSort;
+  public int sortThreads;
+  public CompressionProvider compressionProvider;
+  public ExecutorService sortPool;
+  public SortRunMerger merger;
+
   public SortRowsData() {
     super();
 
@@ -66,6 +66,9 @@ public class SortRowsMeta extends BaseStepMeta implements StepMetaInterface, Ser
   private static final long serialVersionUID = -9075883720765645655L;
   private static Class<?> PKG = SortRowsMeta.class; // for i18n purposes, needed by Translator2!!
 
+  /** The compression provider used for compressed temporary files in a parallel sort unless specified otherwise */
+  public static final String DEFAULT_COMPRESSION_TYPE = "Snappy";
+
   /** order by which fields? */
   @Injection( name = "NAME", group = "FIELDS" )
   private String[] fieldName;
@@ -121,6 +124,21 @@ public class SortRowsMeta extends BaseStepMeta implements StepMetaInterface, Ser
   /** The variable to use to set the compressFiles option boolean */
   private String compressFilesVariable;
 
+  /**
+   * Parallel sort: sort the in-memory runs on several threads, spill them in a compact binary format and merge the
+   * temporary files back with read-ahead threads
+   */
+  @Injection( name = "PARALLEL_SORT" )
+  private boolean parallelSort;
+
+  /** The number of threads to use for a parallel sort, empty means one per available processor */
+  @Injection( name = "SORT_THREADS" )
+  private String sortThreads;
+
+  /** The name of the compression provider used for compressed temporary files in a parallel sort */
+  @Injection( name = "COMPRESSION_TYPE" )
+  private String compressionType;
+
   public SortRowsMeta() {
     super(); // allocate BaseStepMeta
   }
@@ -226,6 +244,9 @@ public class SortRowsMeta extends BaseStepMeta implements StepMetaInterface, Ser
       compressFiles = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "compress" ) );
       compressFilesVariable = XMLHandler.getTagValue( stepnode, "compress_variable" );
       onlyPassingUniqueRows = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "unique_rows" ) );
+      parallelSort = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "parallel_sort" ) );
+      sortThreads = XMLHandler.getTagValue( stepnode, "sort_threads" );
+      compressionType = XMLHandler.getTagValue( stepnode, "compression_type" );
 
       Node fields = XMLHandler.getSubNode( stepnode, "fields" );
       int nrfields = XMLHandler.countNodes( fields, "field" );
@@ -262,6 +283,9 @@ public class SortRowsMeta extends BaseStepMeta implements StepMetaInterface, Ser
     compressFiles = false;
     compressFilesVariable = null;
     onlyPassingUniqueRows = false;
+    parallelSort = false;
+    sortThreads = null;
+    compressionType = DEFAULT_COMPRESSION_TYPE;
 
     int nrfields = 0;
 
@@ -292,6 +316,9 @@ public class SortRowsMeta extends BaseStepMeta implements StepMetaInterface, Ser
     retval.append( "      " ).append( XMLHandler.addTagValue( "compress", compressFiles ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "compress_variable", compressFilesVariable ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "unique_rows", onlyPassingUniqueRows ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "parallel_sort", parallelSort ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "sort_threads", sortThreads ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "compression_type", compressionType ) );
 
     retval.append( "    <fields>" ).append( Const.CR );
     for ( int i = 0; i < fieldName.length; i++ ) {
@@ -322,6 +349,9 @@ public class SortRowsMeta extends BaseStepMeta implements StepMetaInterface, Ser
       compressFilesVariable = rep.getStepAttributeString( id_step, "compress_variable" );
 
       onlyPassingUniqueRows = rep.getStepAttributeBoolean( id_step, "unique_rows" );
+      parallelSort = rep.getStepAttributeBoolean( id_step, "parallel_sort" );
+      sortThreads = rep.getStepAttributeString( id_step, "sort_threads" );
+      compressionType = rep.getStepAttributeString( id_step, "compression_type" );
 
       int nrfields = rep.countNrStepAttributes( id_step, "field_name" );
 
@@ -374,6 +404,9 @@ public class SortRowsMeta extends BaseStepMeta implements StepMetaInterface, Ser
       rep.saveStepAttribute( id_transformation, id_step, "compress", compressFiles );
       rep.saveStepAttribute( id_transformation, id_step, "compress_variable", compressFilesVariable );
       rep.saveStepAttribute( id_transformation, id_step, "unique_rows", onlyPassingUniqueRows );
+      rep.saveStepAttribute( id_transformation, id_step, "parallel_sort", parallelSort );
+      rep.saveStepAttribute( id_transformation, id_step, "sort_threads", sortThreads );
+      rep.saveStepAttribute( id_transformation, id_step, "compression_type", compressionType );
 
       for ( int i = 0; i < fieldName.length; i++ ) {
         rep.saveStepAttribute( id_transformation, id_step, i, "field_name", fieldName[i] );
@@ -582,6 +615,51 @@ public class SortRowsMeta extends BaseStepMeta implements StepMetaInterface, Ser
     this.compressFilesVariable = compressFilesVariable;
   }
 
+  /**
+   * @return true if the rows are sorted, spilled and merged using several threads
+   */
+  public boolean isParallelSort() {
+    return parallelSort;
+  }
+
+  /**
+   * @param parallelSort
+   *          true if the rows should be sorted, spilled and merged using several threads
+   */
+  public void setParallelSort( boolean parallelSort ) {
+    this.parallelSort = parallelSort;
+  }
+
+  /**
+   * @return the number of threads to use for a parallel sort, empty means one per available processor
+   */
+  public String getSortThreads() {
+    return sortThreads;
+  }
+
+  /**
+   * @param sortThreads
+   *          the number of threads to use for a parallel sort, empty means one per available processor
+   */
+  public void setSortThreads( String sortThreads ) {
+    this.sortThreads = sortThreads;
+  }
+
+  /**
+   * @return the name of the compression provider used for compressed temporary files in a parallel sort
+   */
+  public String getCompressionType() {
+    return compressionType;
+  }
+
+  /**
+   * @param compressionType
+   *          the name of the compression provider used for compressed temporary files in a parallel sort
+   */
+  public void setCompressionType( String compressionType ) {
+    this.compressionType = compressionType;
+  }
+
   /**
    * @return the caseSensitive
    */
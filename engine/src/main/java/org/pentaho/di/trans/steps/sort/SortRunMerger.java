@@ -0,0 +1,240 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.trans.steps.sort;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.pentaho.di.core.exception.KettleException;
+
+/**
+ * Merges the sorted runs of a parallel sort into a single sorted stream of rows.<br>
+ * <br>
+ * The smallest row is found with a loser tree, which takes log2(runs) comparisons per row whatever the number of runs.
+ * The runs are read in blocks of rows by read-ahead tasks on the given executor: while the merge consumes a block of a
+ * run, the next block of that run is read and decoded in the background. Equal rows are returned in the order of the
+ * runs so the merge is stable.
+ */
+public class SortRunMerger implements Closeable {
+  private final SortRunReader[] readers;
+  private final Comparator<Object[]> comparator;
+  private final ExecutorService executor;
+  private final int blockSize;
+
+  private final Object[][][] blocks;
+  private final int[] positions;
+  private final Future<?>[] readAhead;
+  private final Object[][] current;
+
+  /** tree[0] is the run with the smallest current row, the other nodes hold the loser of their match */
+  private final int[] tree;
+
+  /**
+   * @param readers
+   *          the sorted runs to merge, in the order they were written
+   * @param comparator
+   *          the sort order of the rows
+   * @param executor
+   *          the executor to read ahead with
+   * @param blockSize
+   *          the number of rows to read ahead per run
+   */
+  public SortRunMerger( List<SortRunReader> readers, Comparator<Object[]> comparator, ExecutorService executor,
+    int blockSize ) throws KettleException {
+    this.readers = readers.toArray( new SortRunReader[readers.size()] );
+    this.comparator = comparator;
+    this.executor = executor;
+    this.blockSize = blockSize;
+
+    int nrRuns = this.readers.length;
+    blocks = new Object[nrRuns][][];
+    positions = new int[nrRuns];
+    readAhead = new Future<?>[nrRuns];
+    current = new Object[nrRuns][];
+    tree = new int[Math.max( nrRuns, 1 )];
+
+    for ( int i = 0; i < nrRuns; i++ ) {
+      readAhead[i] = submitReadAhead( i );
+    }
+    for ( int i = 0; i < nrRuns; i++ ) {
+      nextBlock( i );
+    }
+    buildTree();
+  }
+
+  /**
+   * @return the number of runs merged
+   */
+  public int getFanIn() {
+    return readers.length;
+  }
+
+  /**
+   * @return the next row in sort order or null if all runs are exhausted
+   */
+  public Object[] next() throws KettleException {
+    if ( readers.length == 0 ) {
+      return null;
+    }
+    int winner = tree[0];
+    Object[] row = current[winner];
+    if ( row == null ) {
+      return null;
+    }
+
+    positions[winner]++;
+    if ( positions[winner] < blocks[winner].length ) {
+      current[winner] = blocks[winner][positions[winner]];
+    } else {
+      nextBlock( winner );
+    }
+
+    // Replay the matches from the leaf of the winner up to the root
+    //
+    for ( int node = ( winner + readers.length ) >> 1; node > 0; node >>= 1 ) {
+      if ( isSmaller( tree[node], winner ) ) {
+        int loser = winner;
+        winner = tree[node];
+        tree[node] = loser;
+      }
+    }
+    tree[0] = winner;
+
+    return row;
+  }
+
+  private void buildTree() {
+    int nrRuns = readers.length;
+    if ( nrRuns == 0 ) {
+      return;
+    }
+    int[] winners = new int[nrRuns * 2];
+    for ( int i = 0; i < nrRuns; i++ ) {
+      winners[nrRuns + i] = i;
+    }
+    for ( int node = nrRuns - 1; node > 0; node-- ) {
+      int left = winners[node * 2];
+      int right = winners[node * 2 + 1];
+      if ( isSmaller( right, left ) ) {
+        winners[node] = right;
+        tree[node] = left;
+      } else {
+        winners[node] = left;
+        tree[node] = right;
+      }
+    }
+    tree[0] = nrRuns == 1 ? 0 : winners[1];
+  }
+
+  /**
+   * @return true if the current row of run a goes before the current row of run b. Exhausted runs go last.
+   */
+  private boolean isSmaller( int a, int b ) {
+    Object[] rowA = current[a];
+    Object[] rowB = current[b];
+    if ( rowA == null ) {
+      return false;
+    }
+    if ( rowB == null ) {
+      return true;
+    }
+    int cmp = comparator.compare( rowA, rowB );
+    return cmp < 0 || ( cmp == 0 && a < b );
+  }
+
+  private Future<?> submitReadAhead( final int run ) {
+    final SortRunReader reader = readers[run];
+    if ( !reader.hasMoreRows() ) {
+      return null;
+    }
+    return executor.submit( () -> reader.readRows( blockSize ) );
+  }
+
+  private void nextBlock( int run ) throws KettleException {
+    Future<?> future = readAhead[run];
+    readAhead[run] = null;
+    Object[][] block = future == null ? null : (Object[][]) waitFor( future );
+
+    if ( block == null || block.length == 0 ) {
+      blocks[run] = null;
+      current[run] = null;
+      try {
+        readers[run].close();
+      } catch ( IOException e ) {
+        throw new KettleException( "Unable to close a sorted run", e );
+      }
+      return;
+    }
+
+    blocks[run] = block;
+    positions[run] = 0;
+    current[run] = block[0];
+    readAhead[run] = submitReadAhead( run );
+  }
+
+  private static Object waitFor( Future<?> future ) throws KettleException {
+    try {
+      return future.get();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleException( "Interrupted while reading a sorted run", e );
+    } catch ( ExecutionException e ) {
+      throw new KettleException( "Unable to read a sorted run", e.getCause() );
+    }
+  }
+
+  /**
+   * Stops the merge: waits for the pending read-ahead and closes all runs.
+   */
+  @Override
+  public void close() throws IOException {
+    IOException exception = null;
+    for ( int i = 0; i < readers.length; i++ ) {
+      if ( readAhead[i] != null ) {
+        try {
+          readAhead[i].get();
+        } catch ( InterruptedException e ) {
+          Thread.currentThread().interrupt();
+        } catch ( ExecutionException e ) {
+          // The run is closed anyway
+        }
+        readAhead[i] = null;
+      }
+      blocks[i] = null;
+      current[i] = null;
+      try {
+        readers[i].close();
+      } catch ( IOException e ) {
+        exception = e;
+      }
+    }
+    if ( exception != null ) {
+      throw exception;
+    }
+  }
+}
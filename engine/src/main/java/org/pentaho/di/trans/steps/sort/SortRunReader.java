@@ -0,0 +1,218 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.trans.steps.sort;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.pentaho.di.core.compress.CompressionInputStream;
+import org.pentaho.di.core.compress.CompressionProvider;
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.row.RowDataUtil;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * Reads back a sorted run written by a {@link SortRunWriter}. A reader is not thread safe but may be handed from one
+ * thread to another, as the read-ahead of the {@link SortRunMerger} does.
+ */
+public class SortRunReader implements Closeable {
+  private final RowMetaInterface rowMeta;
+  private final int[] kinds;
+  private final boolean[] keys;
+  private final DataInputStream in;
+  private long rowsLeft;
+
+  private final byte[] nulls;
+  private final String[] previousStrings;
+  private final long[] previousLongs;
+  private byte[] buffer;
+  private char[] chars;
+
+  /**
+   * @param rowMeta
+   *          the layout of the rows, the same as the one the run was written with
+   * @param keyFieldNrs
+   *          the indexes of the sort keys, the same as the ones the run was written with
+   * @param inputStream
+   *          the temporary file to read from, closed when this reader is closed
+   * @param compressionProvider
+   *          the compression the run was written with or null if it isn't compressed
+   * @param nrRows
+   *          the number of rows in the run
+   */
+  public SortRunReader( RowMetaInterface rowMeta, int[] keyFieldNrs, InputStream inputStream,
+    CompressionProvider compressionProvider, long nrRows ) throws IOException {
+    this.rowMeta = rowMeta;
+    this.kinds = SortRunWriter.getValueKinds( rowMeta );
+    this.keys = SortRunWriter.getKeyFields( rowMeta.size(), keyFieldNrs );
+    this.rowsLeft = nrRows;
+
+    InputStream stream = inputStream;
+    if ( compressionProvider != null ) {
+      CompressionInputStream compressed = compressionProvider.createInputStream( inputStream );
+      compressed.nextEntry();
+      stream = compressed;
+    }
+    in = new DataInputStream( new BufferedInputStream( stream, 65536 ) );
+
+    nulls = new byte[( kinds.length + 7 ) / 8];
+    previousStrings = new String[kinds.length];
+    previousLongs = new long[kinds.length];
+    buffer = new byte[256];
+    chars = new char[256];
+  }
+
+  /**
+   * @return true if there are rows left to read in this run
+   */
+  public boolean hasMoreRows() {
+    return rowsLeft > 0;
+  }
+
+  /**
+   * @return the next row of the run or null if all rows were read
+   */
+  public Object[] readRow() throws KettleFileException {
+    if ( rowsLeft <= 0 ) {
+      return null;
+    }
+    try {
+      in.readFully( nulls );
+      Object[] row = RowDataUtil.allocateRowData( kinds.length );
+      for ( int i = 0; i < kinds.length; i++ ) {
+        if ( ( nulls[i >> 3] & ( 1 << ( i & 7 ) ) ) != 0 ) {
+          continue;
+        }
+        switch ( kinds[i] ) {
+          case SortRunWriter.KIND_STRING:
+            row[i] = readString( i );
+            break;
+          case SortRunWriter.KIND_INTEGER:
+            row[i] = readLong( i );
+            break;
+          case SortRunWriter.KIND_NUMBER:
+            row[i] = in.readDouble();
+            break;
+          case SortRunWriter.KIND_DATE:
+            row[i] = new Date( readLong( i ) );
+            break;
+          case SortRunWriter.KIND_BOOLEAN:
+            row[i] = in.readBoolean();
+            break;
+          default:
+            row[i] = rowMeta.getValueMeta( i ).readData( in );
+            break;
+        }
+      }
+      rowsLeft--;
+      return row;
+    } catch ( IOException e ) {
+      throw new KettleFileException( "Unable to read a row from the sorted run", e );
+    }
+  }
+
+  /**
+   * Read a block of rows at once.
+   *
+   * @param maxRows
+   *          the maximum number of rows to read
+   * @return the rows read, an empty array if all rows were read
+   */
+  public Object[][] readRows( int maxRows ) throws KettleFileException {
+    Object[][] rows = new Object[(int) Math.min( maxRows, Math.max( rowsLeft, 0L ) )][];
+    for ( int i = 0; i < rows.length; i++ ) {
+      rows[i] = readRow();
+    }
+    return rows;
+  }
+
+  private long readLong( int index ) throws IOException {
+    long value = unZigZag( readVarLong( in ) );
+    if ( keys[index] ) {
+      value += previousLongs[index];
+      previousLongs[index] = value;
+    }
+    return value;
+  }
+
+  private String readString( int index ) throws IOException {
+    int shared = (int) readVarLong( in );
+    int size = (int) readVarLong( in );
+    if ( buffer.length < size ) {
+      buffer = new byte[size];
+    }
+    in.readFully( buffer, 0, size );
+
+    String previous = previousStrings[index];
+    if ( chars.length < shared + size ) {
+      chars = new char[shared + size];
+    }
+    if ( shared > 0 ) {
+      previous.getChars( 0, shared, chars, 0 );
+    }
+    int length = shared;
+    int p = 0;
+    while ( p < size ) {
+      int b = buffer[p++] & 0xFF;
+      if ( b < 0x80 ) {
+        chars[length++] = (char) b;
+      } else if ( ( b & 0xE0 ) == 0xC0 ) {
+        chars[length++] = (char) ( ( ( b & 0x1F ) << 6 ) | ( buffer[p++] & 0x3F ) );
+      } else {
+        chars[length++] = (char) ( ( ( b & 0x0F ) << 12 ) | ( ( buffer[p++] & 0x3F ) << 6 ) | ( buffer[p++] & 0x3F ) );
+      }
+    }
+
+    String value = new String( chars, 0, length );
+    previousStrings[index] = value;
+    return value;
+  }
+
+  static long unZigZag( long value ) {
+    return ( value >>> 1 ) ^ -( value & 1 );
+  }
+
+  static long readVarLong( DataInputStream in ) throws IOException {
+    long value = 0L;
+    int shift = 0;
+    int b;
+    do {
+      b = in.readUnsignedByte();
+      value |= (long) ( b & 0x7F ) << shift;
+      shift += 7;
+    } while ( ( b & 0x80 ) != 0 );
+    return value;
+  }
+
+  @Override
+  public void close() throws IOException {
+    rowsLeft = 0;
+    Arrays.fill( previousStrings, null );
+    in.close();
+  }
+}
@@ -0,0 +1,287 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.trans.steps.sort;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.pentaho.di.core.compress.CompressionOutputStream;
+import org.pentaho.di.core.compress.CompressionProvider;
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+/**
+ * Writes a sorted run of rows to a temporary file of the Sort rows step in a compact binary format.<br>
+ * <br>
+ * Every row starts with a bitmap of its null values, followed by the values that are not null. Strings are written as
+ * the length of the prefix they share with the same field of the previous row followed by the remaining characters.
+ * Integers and dates are written as variable length numbers, for sort keys as the difference with the previous row.
+ * Since the rows of a run are sorted, neighbouring key values tend to share long prefixes and to be close to each
+ * other. Values of other types or storage types are written by their value metadata.
+ *
+ * @see SortRunReader
+ */
+public class SortRunWriter implements Closeable {
+  static final int KIND_OTHER = 0;
+  static final int KIND_STRING = 1;
+  static final int KIND_INTEGER = 2;
+  static final int KIND_NUMBER = 3;
+  static final int KIND_DATE = 4;
+  static final int KIND_BOOLEAN = 5;
+
+  private final RowMetaInterface rowMeta;
+  private final int[] kinds;
+  private final boolean[] keys;
+  private final CountingOutputStream counter;
+  private final DataOutputStream out;
+
+  private final byte[] nulls;
+  private final String[] previousStrings;
+  private final long[] previousLongs;
+  private byte[] buffer;
+  private long rowsWritten;
+
+  /**
+   * @param rowMeta
+   *          the layout of the rows to write
+   * @param keyFieldNrs
+   *          the indexes of the sort keys
+   * @param outputStream
+   *          the temporary file to write to, closed when this writer is closed
+   * @param compressionProvider
+   *          the compression to use or null to write the run uncompressed
+   */
+  public SortRunWriter( RowMetaInterface rowMeta, int[] keyFieldNrs, OutputStream outputStream,
+    CompressionProvider compressionProvider ) throws IOException {
+    this.rowMeta = rowMeta;
+    this.kinds = getValueKinds( rowMeta );
+    this.keys = getKeyFields( rowMeta.size(), keyFieldNrs );
+
+    counter = new CountingOutputStream( outputStream );
+    OutputStream stream = counter;
+    if ( compressionProvider != null ) {
+      CompressionOutputStream compressed = compressionProvider.createOutputStream( counter );
+      compressed.addEntry( "run", null );
+      stream = compressed;
+    }
+    out = new DataOutputStream( new BufferedOutputStream( stream, 65536 ) );
+
+    nulls = new byte[( kinds.length + 7 ) / 8];
+    previousStrings = new String[kinds.length];
+    previousLongs = new long[kinds.length];
+    buffer = new byte[256];
+  }
+
+  static int[] getValueKinds( RowMetaInterface rowMeta ) {
+    int[] kinds = new int[rowMeta.size()];
+    for ( int i = 0; i < kinds.length; i++ ) {
+      ValueMetaInterface valueMeta = rowMeta.getValueMeta( i );
+      if ( !valueMeta.isStorageNormal() ) {
+        kinds[i] = KIND_OTHER;
+        continue;
+      }
+      switch ( valueMeta.getType() ) {
+        case ValueMetaInterface.TYPE_STRING:
+          kinds[i] = KIND_STRING;
+          break;
+        case ValueMetaInterface.TYPE_INTEGER:
+          kinds[i] = KIND_INTEGER;
+          break;
+        case ValueMetaInterface.TYPE_NUMBER:
+          kinds[i] = KIND_NUMBER;
+          break;
+        case ValueMetaInterface.TYPE_DATE:
+          kinds[i] = KIND_DATE;
+          break;
+        case ValueMetaInterface.TYPE_BOOLEAN:
+          kinds[i] = KIND_BOOLEAN;
+          break;
+        default:
+          kinds[i] = KIND_OTHER;
+          break;
+      }
+    }
+    return kinds;
+  }
+
+  static boolean[] getKeyFields( int size, int[] keyFieldNrs ) {
+    boolean[] keys = new boolean[size];
+    if ( keyFieldNrs != null ) {
+      for ( int keyFieldNr : keyFieldNrs ) {
+        if ( keyFieldNr >= 0 && keyFieldNr < size ) {
+          keys[keyFieldNr] = true;
+        }
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * Write the next row of the run. Rows have to be written in sort order for the run to be compact.
+   */
+  public void writeRow( Object[] row ) throws KettleFileException {
+    try {
+      Arrays.fill( nulls, (byte) 0 );
+      for ( int i = 0; i < kinds.length; i++ ) {
+        if ( i >= row.length || row[i] == null ) {
+          nulls[i >> 3] |= 1 << ( i & 7 );
+        }
+      }
+      out.write( nulls );
+
+      for ( int i = 0; i < kinds.length; i++ ) {
+        if ( i >= row.length || row[i] == null ) {
+          continue;
+        }
+        Object value = row[i];
+        switch ( kinds[i] ) {
+          case KIND_STRING:
+            writeString( i, (String) value );
+            break;
+          case KIND_INTEGER:
+            writeLong( i, (Long) value );
+            break;
+          case KIND_NUMBER:
+            out.writeDouble( (Double) value );
+            break;
+          case KIND_DATE:
+            writeLong( i, ( (Date) value ).getTime() );
+            break;
+          case KIND_BOOLEAN:
+            out.writeBoolean( (Boolean) value );
+            break;
+          default:
+            rowMeta.getValueMeta( i ).writeData( out, value );
+            break;
+        }
+      }
+      rowsWritten++;
+    } catch ( IOException e ) {
+      throw new KettleFileException( "Unable to write a row to the sorted run", e );
+    }
+  }
+
+  private void writeLong( int index, long value ) throws IOException {
+    if ( keys[index] ) {
+      writeVarLong( out, zigZag( value - previousLongs[index] ) );
+      previousLongs[index] = value;
+    } else {
+      writeVarLong( out, zigZag( value ) );
+    }
+  }
+
+  private void writeString( int index, String value ) throws IOException {
+    String previous = previousStrings[index];
+    int length = value.length();
+    int shared = 0;
+    if ( previous != null ) {
+      int max = Math.min( length, previous.length() );
+      while ( shared < max && previous.charAt( shared ) == value.charAt( shared ) ) {
+        shared++;
+      }
+    }
+
+    // Modified UTF-8 as in DataOutputStream.writeUTF() so that any sequence of chars survives the round trip
+    //
+    if ( buffer.length < ( length - shared ) * 3 ) {
+      buffer = new byte[( length - shared ) * 3];
+    }
+    int size = 0;
+    for ( int i = shared; i < length; i++ ) {
+      char c = value.charAt( i );
+      if ( c > 0 && c < 0x80 ) {
+        buffer[size++] = (byte) c;
+      } else if ( c < 0x800 ) {
+        buffer[size++] = (byte) ( 0xC0 | ( c >> 6 ) );
+        buffer[size++] = (byte) ( 0x80 | ( c & 0x3F ) );
+      } else {
+        buffer[size++] = (byte) ( 0xE0 | ( c >> 12 ) );
+        buffer[size++] = (byte) ( 0x80 | ( ( c >> 6 ) & 0x3F ) );
+        buffer[size++] = (byte) ( 0x80 | ( c & 0x3F ) );
+      }
+    }
+    writeVarLong( out, shared );
+    writeVarLong( out, size );
+    out.write( buffer, 0, size );
+
+    previousStrings[index] = value;
+  }
+
+  static long zigZag( long value ) {
+    return ( value << 1 ) ^ ( value >> 63 );
+  }
+
+  static void writeVarLong( DataOutputStream out, long value ) throws IOException {
+    while ( ( value & ~0x7FL ) != 0 ) {
+      out.write( (int) ( ( value & 0x7F ) | 0x80 ) );
+      value >>>= 7;
+    }
+    out.write( (int) value );
+  }
+
+  /**
+   * @return the number of rows written so far
+   */
+  public long getRowsWritten() {
+    return rowsWritten;
+  }
+
+  /**
+   * @return the number of bytes written to the temporary file so far, after compression
+   */
+  public long getBytesWritten() {
+    return counter.count;
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+
+  private static class CountingOutputStream extends FilterOutputStream {
+    private long count;
+
+    CountingOutputStream( OutputStream out ) {
+      super( out );
+    }
+
+    @Override
+    public void write( int b ) throws IOException {
+      out.write( b );
+      count++;
+    }
+
+    @Override
+    public void write( byte[] b, int off, int len ) throws IOException {
+      out.write( b, off, len );
+      count += len;
+    }
+  }
+}
@@ -26,12 +26,14 @@ import java.math.BigDecimal;
 import java.text.DateFormat;
 import java.util.Collections;
 
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.hash.ByteArrayHashIndex;
+import org.pentaho.di.core.hash.OffHeapHashIndex;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -218,6 +220,11 @@ public class StreamLookup extends BaseStep implements StepInterface {
       rowData = getRowFrom( rowSet );
     }
 
+    if ( data.offHeapIndex != null && log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "StreamLookup.Log.OffHeapIndexSize", data.offHeapIndex.getSize(),
+        data.offHeapIndex.getMemoryUsed() / 1024 / 1024, data.offHeapIndex.getBytesMapped() / 1024 / 1024 ) );
+    }
+
     return true;
   }
 
@@ -293,7 +300,7 @@ public class StreamLookup extends BaseStep implements StepInterface {
   }
 
   private void addToCache( RowMetaInterface keyMeta, Object[] keyData, RowMetaInterface valueMeta,
-    Object[] valueData ) throws KettleValueException {
+    Object[] valueData ) throws KettleException {
     if ( meta.isMemoryPreservationActive() ) {
       if ( meta.isUsingSortedList() ) {
         KeyValue keyValue = new KeyValue( keyData, valueData );
@@ -320,6 +327,14 @@ public class StreamLookup extends BaseStep implements StepInterface {
           Long key = keyMeta.getInteger( keyData, 0 );
           Long value = valueMeta.getInteger( valueData, 0 );
           data.longIndex.put( key, value );
+        } else if ( meta.isUsingOffHeapIndex() ) {
+          if ( data.offHeapIndex == null ) {
+            long budget = Const.toLong( environmentSubstitute( meta.getOffHeapMemoryBudget() ), -1L );
+            data.offHeapIndex =
+              new OffHeapHashIndex( budget > 0 ? budget * 1024 * 1024 : OffHeapHashIndex.DEFAULT_MEMORY_BUDGET, null );
+          }
+          data.offHeapIndex
+            .put( RowMeta.extractData( keyMeta, keyData ), RowMeta.extractData( valueMeta, valueData ) );
         } else {
           if ( data.hashIndex == null ) {
             data.hashIndex = new ByteArrayHashIndex( keyMeta );
@@ -355,7 +370,8 @@ public class StreamLookup extends BaseStep implements StepInterface {
           return new Object[] { value, };
         } else {
           try {
-            byte[] value = data.hashIndex.get( RowMeta.extractData( keyMeta, keyData ) );
+            byte[] key = RowMeta.extractData( keyMeta, keyData );
+            byte[] value = data.offHeapIndex != null ? data.offHeapIndex.get( key ) : data.hashIndex.get( key );
             if ( value == null ) {
               return null;
             }
@@ -483,6 +499,10 @@ public class StreamLookup extends BaseStep implements StepInterface {
     data.list = null;
     data.hashIndex = null;
     data.longIndex = null;
+    if ( data.offHeapIndex != null ) {
+      data.offHeapIndex.close();
+      data.offHeapIndex = null;
+    }
 
     super.dispose( smi, sdi );
   }
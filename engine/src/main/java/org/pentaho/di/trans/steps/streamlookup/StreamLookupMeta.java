@@ -101,6 +101,14 @@ public class StreamLookupMeta extends BaseStepMeta implements StepMetaInterface
   @Injection( name = "INTEGER_PAIR" )
   private boolean usingIntegerPair;
 
+  /** Keep the serialized keys and values in an off-heap hash index rather than on the Java heap */
+  @Injection( name = "OFF_HEAP_INDEX" )
+  private boolean usingOffHeapIndex;
+
+  /** The memory (MB) the off-heap hash index may use before it spills to a memory-mapped file */
+  @Injection( name = "OFF_HEAP_MEMORY_BUDGET" )
+  private String offHeapMemoryBudget;
+
   public StreamLookupMeta() {
     super(); // allocate BaseStepMeta
   }
@@ -163,6 +171,8 @@ public class StreamLookupMeta extends BaseStepMeta implements StepMetaInterface
       setMemoryPreservationActive( "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "preserve_memory" ) ) );
       setUsingSortedList( "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "sorted_list" ) ) );
       setUsingIntegerPair( "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "integer_pair" ) ) );
+      setUsingOffHeapIndex( "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "off_heap_index" ) ) );
+      setOffHeapMemoryBudget( XMLHandler.getTagValue( stepnode, "off_heap_memory_budget" ) );
 
       Node lookup = XMLHandler.getSubNode( stepnode, "lookup" );
       nrkeys = XMLHandler.countNodes( lookup, "key" );
@@ -211,6 +221,8 @@ public class StreamLookupMeta extends BaseStepMeta implements StepMetaInterface
     setMemoryPreservationActive( true );
     setUsingSortedList( false );
     setUsingIntegerPair( false );
+    setUsingOffHeapIndex( false );
+    setOffHeapMemoryBudget( null );
 
     allocate( 0, 0 );
   }
@@ -254,6 +266,8 @@ public class StreamLookupMeta extends BaseStepMeta implements StepMetaInterface
     retval.append( "    " ).append( XMLHandler.addTagValue( "preserve_memory", isMemoryPreservationActive() ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "sorted_list", isUsingSortedList() ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "integer_pair", isUsingIntegerPair() ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "off_heap_index", isUsingOffHeapIndex() ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "off_heap_memory_budget", getOffHeapMemoryBudget() ) );
 
     retval.append( "    <lookup>" ).append( Const.CR );
     for ( int i = 0; i < getKeystream().length; i++ ) {
@@ -288,6 +302,8 @@ public class StreamLookupMeta extends BaseStepMeta implements StepMetaInterface
       setMemoryPreservationActive( rep.getStepAttributeBoolean( id_step, "preserve_memory" ) );
       setUsingSortedList( rep.getStepAttributeBoolean( id_step, "sorted_list" ) );
       setUsingIntegerPair( rep.getStepAttributeBoolean( id_step, "integer_pair" ) );
+      setUsingOffHeapIndex( rep.getStepAttributeBoolean( id_step, "off_heap_index" ) );
+      setOffHeapMemoryBudget( rep.getStepAttributeString( id_step, "off_heap_memory_budget" ) );
 
       int nrkeys = rep.countNrStepAttributes( id_step, "lookup_key_name" );
       int nrvalues = rep.countNrStepAttributes( id_step, "return_value_name" );
@@ -325,6 +341,8 @@ public class StreamLookupMeta extends BaseStepMeta implements StepMetaInterface
       rep.saveStepAttribute( id_transformation, id_step, "preserve_memory", isMemoryPreservationActive() );
       rep.saveStepAttribute( id_transformation, id_step, "sorted_list", isUsingSortedList() );
       rep.saveStepAttribute( id_transformation, id_step, "integer_pair", isUsingIntegerPair() );
+      rep.saveStepAttribute( id_transformation, id_step, "off_heap_index", isUsingOffHeapIndex() );
+      rep.saveStepAttribute( id_transformation, id_step, "off_heap_memory_budget", getOffHeapMemoryBudget() );
 
       for ( int i = 0; i < getKeystream().length; i++ ) {
         rep.saveStepAttribute( id_transformation, id_step, i, "lookup_key_name", getKeystream()[i] );
@@ -667,6 +685,36 @@ public class StreamLookupMeta extends BaseStepMeta implements StepMetaInterface
     this.usingIntegerPair = usingIntegerPair;
   }
 
+  /**
+   * @return true if the serialized keys and values are kept in an off-heap hash index
+   */
+  public boolean isUsingOffHeapIndex() {
+    return usingOffHeapIndex;
+  }
+
+  /**
+   * @param usingOffHeapIndex
+   *          true to keep the serialized keys and values in an off-heap hash index
+   */
+  public void setUsingOffHeapIndex( boolean usingOffHeapIndex ) {
+    this.usingOffHeapIndex = usingOffHeapIndex;
+  }
+
+  /**
+   * @return the memory (MB) the off-heap hash index may use before it spills to a memory-mapped file
+   */
+  public String getOffHeapMemoryBudget() {
+    return offHeapMemoryBudget;
+  }
+
+  /**
+   * @param offHeapMemoryBudget
+   *          the memory (MB) the off-heap hash index may use before it spills to a memory-mapped file
+   */
+  public void setOffHeapMemoryBudget( String offHeapMemoryBudget ) {
+    this.offHeapMemoryBudget = offHeapMemoryBudget;
+  }
+
   /**
    * If we use injection we can have different arrays lengths.
    * We need synchronize them for consistency behavior with UI
@@ -24,6 +24,12 @@ package org.pentaho.di.trans.steps.tableinput;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.util.Utils;
@@ -143,21 +149,8 @@ public class TableInput extends BaseStep implements StepInterface {
       }
     } else {
       if ( data.thisrow != null ) { // We can expect more rows
-
-        try {
-          data.nextrow = data.db.getRow( data.rs, meta.isLazyConversionActive() );
-        } catch ( KettleDatabaseException e ) {
-          if ( e.getCause() instanceof SQLException && isStopped() ) {
-            //This exception indicates we tried reading a row after the statment for this step was cancelled
-            //this is expected and ok so do not pass the exception up
-            logDebug( e.getMessage() );
-            return false;
-          } else {
-            throw e;
-          }
-        }
-        if ( data.nextrow != null ) {
-          incrementLinesInput();
+        if ( !readNextRow() ) {
+          return false;
         }
       }
     }
@@ -199,26 +192,70 @@ public class TableInput extends BaseStep implements StepInterface {
         return false; // end of data or error.
       }
     } else {
-      putRow( data.rowMeta, data.thisrow ); // fill the rowset(s). (wait for empty)
-      data.thisrow = data.nextrow;
+      // Pass on this row together with the rows that follow it, up to a full batch
+      //
+      if ( data.outputRows == null ) {
+        data.outputRows = new Object[ getRowBatchSize() ][];
+      }
+      int nrRows = 0;
+      boolean moreRows = true;
+      while ( true ) {
+        data.outputRows[ nrRows++ ] = data.thisrow;
+        data.thisrow = data.nextrow;
+
+        if ( checkFeedback( getLinesInput() ) ) {
+          if ( log.isBasic() ) {
+            logBasic( "linenr " + getLinesInput() );
+          }
+        }
 
-      if ( checkFeedback( getLinesInput() ) ) {
-        if ( log.isBasic() ) {
-          logBasic( "linenr " + getLinesInput() );
+        if ( data.thisrow == null || nrRows == data.outputRows.length || isStopped() ) {
+          break;
+        }
+        if ( !readNextRow() ) {
+          moreRows = false;
+          break;
         }
       }
+      putRows( data.rowMeta, data.outputRows, nrRows ); // fill the rowset(s). (wait for empty)
+      Arrays.fill( data.outputRows, 0, nrRows, null );
+      return moreRows;
     }
 
     return true;
   }
 
+  /**
+   * Reads the row following data.thisrow into data.nextrow.
+   *
+   * @return false if the query was cancelled because the step got stopped
+   */
+  private boolean readNextRow() throws KettleDatabaseException {
+    try {
+      data.nextrow = data.db.getRow( data.rs, meta.isLazyConversionActive() );
+    } catch ( KettleDatabaseException e ) {
+      if ( e.getCause() instanceof SQLException && isStopped() ) {
+        //This exception indicates we tried reading a row after the statment for this step was cancelled
+        //this is expected and ok so do not pass the exception up
+        logDebug( e.getMessage() );
+        return false;
+      } else {
+        throw e;
+      }
+    }
+    if ( data.nextrow != null ) {
+      incrementLinesInput();
+    }
+    return true;
+  }
+
   private void closePreviousQuery() throws KettleDatabaseException {
     if ( data.db != null ) {
       data.db.closeQuery( data.rs );
     }
   }
 
-  private boolean doQuery( RowMetaInterface parametersMeta, Object[] parameters ) throws KettleDatabaseException {
+  private boolean doQuery( RowMetaInterface parametersMeta, Object[] parameters ) throws KettleException {
     boolean success = true;
 
     // Open the query with the optional parameters received from the source steps.
@@ -229,6 +266,17 @@ public class TableInput extends BaseStep implements StepInterface {
       sql = meta.getSQL();
     }
 
+    // Only read the slice of this step copy, the slice parameters replace the (absent) parameters from source steps
+    //
+    if ( data.slice != null ) {
+      if ( data.slice.isRangeNeeded() ) {
+        loadSliceRange( sql );
+      }
+      sql = data.slice.getSliceSql( sql );
+      parametersMeta = data.slice.getParametersMeta();
+      parameters = data.slice.getParameters();
+    }
+
     if ( log.isDetailed() ) {
       logDetailed( "SQL query : " + sql );
     }
@@ -268,6 +316,78 @@ public class TableInput extends BaseStep implements StepInterface {
     return success;
   }
 
+  /**
+   * Determines the minimum and maximum of the split field. This is done once for all step copies in the
+   * transformation, so they all agree on the ranges. The first copy runs the query, the other copies wait for its
+   * result. The extension data map is only locked to look up or register the shared task.
+   */
+  @SuppressWarnings( "unchecked" )
+  private void loadSliceRange( String sql ) throws KettleException {
+    Map<String, Object> extensionData = getTrans().getExtensionDataMap();
+    String key = "TableInput.SplitRange." + getStepname();
+    FutureTask<RowMetaAndData> rangeTask = new FutureTask<>( () -> {
+      String rangeSql = data.slice.getRangeSql( sql );
+      if ( log.isDetailed() ) {
+        logDetailed( "SQL query for the split range : " + rangeSql );
+      }
+      return data.db.getOneRow( rangeSql );
+    } );
+    Future<RowMetaAndData> sharedTask;
+    synchronized ( extensionData ) {
+      sharedTask = (Future<RowMetaAndData>) extensionData.get( key );
+      if ( sharedTask == null ) {
+        sharedTask = rangeTask;
+        extensionData.put( key, rangeTask );
+      }
+    }
+    if ( sharedTask == rangeTask ) {
+      rangeTask.run();
+    }
+    RowMetaAndData range;
+    try {
+      range = sharedTask.get();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleException( e );
+    } catch ( ExecutionException e ) {
+      throw new KettleException( e.getCause() );
+    }
+    data.slice.setRange( range.getRowMeta().getValueMeta( 0 ), range.getData()[ 0 ], range.getData()[ 1 ] );
+  }
+
+  /**
+   * Sets up the slice of the rows this step copy reads, if the rows are split over several copies. A partitioned step
+   * reads the slice of its partition, so the modulo split method lines up with the modulo partitioner.
+   */
+  private void initSlice() {
+    String splitField = environmentSubstitute( meta.getSplitField() );
+    if ( Utils.isEmpty( splitField ) ) {
+      return;
+    }
+    int sliceNr;
+    int sliceCount;
+    if ( getStepMeta().isPartitioned() ) {
+      List<String> partitionIds = getStepMeta().getStepPartitioningMeta().getPartitionSchema().getPartitionIDs();
+      sliceNr = partitionIds.indexOf( getPartitionID() );
+      sliceCount = partitionIds.size();
+    } else {
+      sliceNr = getUniqueStepNrAcrossSlaves();
+      sliceCount = getUniqueStepCountAcrossSlaves();
+    }
+    if ( sliceCount <= 1 || sliceNr < 0 ) {
+      return;
+    }
+    if ( data.infoStream.getStepMeta() != null ) {
+      logBasic( BaseMessages.getString( PKG, "TableInput.Log.SplitNotPossibleWithInfoStep" ) );
+      return;
+    }
+    data.slice = new TableInputSlice( meta.getDatabaseMeta(), splitField,
+      Const.NVL( meta.getSplitMethod(), TableInputMeta.SPLIT_METHOD_RANGE ), sliceNr, sliceCount );
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "TableInput.Log.ReadingSlice", sliceNr + 1, sliceCount, splitField ) );
+    }
+  }
+
   public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
     if ( log.isBasic() ) {
       logBasic( "Finished reading query, closing connection." );
@@ -325,6 +445,7 @@ public class TableInput extends BaseStep implements StepInterface {
       }
 
       data.infoStream = meta.getStepIOMeta().getInfoStreams().get( 0 );
+      initSlice();
       if ( meta.getDatabaseMeta() == null ) {
         logError( BaseMessages.getString( PKG, "TableInput.Init.ConnectionMissing", getStepname() ) );
         return false;
@@ -38,6 +38,9 @@ import org.pentaho.di.trans.step.errorhandling.StreamInterface;
 public class TableInputData extends BaseStepData implements StepDataInterface {
   public Object[] nextrow;
   public Object[] thisrow;
+
+  /** Buffer holding the rows passed on in the current batch */
+  public Object[][] outputRows;
   public Database db;
   public ResultSet rs;
   public String lookupStep;
@@ -46,6 +49,9 @@ public class TableInputData extends BaseStepData implements StepDataInterface {
   public boolean isCanceled;
   public StreamInterface infoStream;
 
+  /** The slice of the rows this step copy reads, null if it reads all of them */
+  public TableInputSlice slice;
+
   public TableInputData() {
     super();
 
@@ -77,6 +77,12 @@ import java.util.List;
 public class TableInputMeta extends BaseStepMeta implements StepMetaInterface {
   private static Class<?> PKG = TableInputMeta.class; // for i18n purposes, needed by Translator2!!
 
+  /** Split the rows in ranges between the minimum and maximum of the split field */
+  public static final String SPLIT_METHOD_RANGE = "range";
+
+  /** Split the rows on the remainder of dividing the (integer) split field by the number of step copies */
+  public static final String SPLIT_METHOD_MODULO = "modulo";
+
   private List<? extends SharedObjectInterface> databases;
 
   private DatabaseMeta databaseMeta;
@@ -102,6 +108,14 @@ public class TableInputMeta extends BaseStepMeta implements StepMetaInterface {
 
   private RowMetaInterface cachedRowMeta;
 
+  /** The field of the query result to split the rows on over the step copies, empty to read all rows in every copy */
+  @Injection( name = "SPLIT_FIELD" )
+  private String splitField;
+
+  /** How the rows are split over the step copies, one of the SPLIT_METHOD_ codes */
+  @Injection( name = "SPLIT_METHOD" )
+  private String splitMethod;
+
   public TableInputMeta() {
     super();
   }
@@ -195,6 +209,8 @@ public class TableInputMeta extends BaseStepMeta implements StepMetaInterface {
       variableReplacementActive = "Y".equals( XMLHandler.getTagValue( stepnode, "variables_active" ) );
       lazyConversionActive = "Y".equals( XMLHandler.getTagValue( stepnode, "lazy_conversion_active" ) );
       cachedRowMetaActive = "Y".equals( XMLHandler.getTagValue( stepnode, "cached_row_meta_active" ) );
+      splitField = XMLHandler.getTagValue( stepnode, "split_field" );
+      splitMethod = Const.NVL( XMLHandler.getTagValue( stepnode, "split_method" ), SPLIT_METHOD_RANGE );
       cachedRowMeta = new RowMeta( XMLHandler.getSubNode( stepnode, RowMeta.XML_META_TAG ) );
 
     } catch ( Exception e ) {
@@ -206,6 +222,8 @@ public class TableInputMeta extends BaseStepMeta implements StepMetaInterface {
     databaseMeta = null;
     sql = "SELECT <values> FROM <table name> WHERE <conditions>";
     rowLimit = "0";
+    splitField = null;
+    splitMethod = SPLIT_METHOD_RANGE;
   }
 
   protected Database getDatabase() {
@@ -314,6 +332,8 @@ public class TableInputMeta extends BaseStepMeta implements StepMetaInterface {
     retval.append( "    " + XMLHandler.addTagValue( "variables_active", variableReplacementActive ) );
     retval.append( "    " + XMLHandler.addTagValue( "lazy_conversion_active", lazyConversionActive ) );
     retval.append( "    " + XMLHandler.addTagValue( "cached_row_meta_active", cachedRowMetaActive ) );
+    retval.append( "    " + XMLHandler.addTagValue( "split_field", splitField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "split_method", splitMethod ) );
     storeCachedRowMeta( retval );
     return retval.toString();
   }
@@ -367,6 +387,8 @@ public class TableInputMeta extends BaseStepMeta implements StepMetaInterface {
       variableReplacementActive = rep.getStepAttributeBoolean( id_step, "variables_active" );
       lazyConversionActive = rep.getStepAttributeBoolean( id_step, "lazy_conversion_active" );
       cachedRowMetaActive = rep.getStepAttributeBoolean( id_step, "cached_row_meta_active" );
+      splitField = rep.getStepAttributeString( id_step, "split_field" );
+      splitMethod = Const.NVL( rep.getStepAttributeString( id_step, "split_method" ), SPLIT_METHOD_RANGE );
 
       String sRowMeta = rep.getStepAttributeString( id_step, RowMeta.XML_META_TAG );
       if ( sRowMeta != null ) {
@@ -393,6 +415,8 @@ public class TableInputMeta extends BaseStepMeta implements StepMetaInterface {
       rep.saveStepAttribute( id_transformation, id_step, "variables_active", variableReplacementActive );
       rep.saveStepAttribute( id_transformation, id_step, "lazy_conversion_active", lazyConversionActive );
       rep.saveStepAttribute( id_transformation, id_step, "cached_row_meta_active", cachedRowMetaActive );
+      rep.saveStepAttribute( id_transformation, id_step, "split_field", splitField );
+      rep.saveStepAttribute( id_transformation, id_step, "split_method", splitMethod );
       if ( cachedRowMeta != null ) {
         rep.saveStepAttribute( id_transformation, id_step, RowMeta.XML_META_TAG, cachedRowMeta.getMetaXML() );
       }
@@ -632,6 +656,34 @@ public class TableInputMeta extends BaseStepMeta implements StepMetaInterface {
     this.cachedRowMeta = cachedRowMeta;
   }
 
+  /**
+   * @return the field of the query result to split the rows on over the step copies, empty if not splitting
+   */
+  public String getSplitField() {
+    return splitField;
+  }
+
+  /**
+   * @param splitField the field of the query result to split the rows on over the step copies
+   */
+  public void setSplitField( String splitField ) {
+    this.splitField = splitField;
+  }
+
+  /**
+   * @return how the rows are split over the step copies, one of the SPLIT_METHOD_ codes
+   */
+  public String getSplitMethod() {
+    return splitMethod;
+  }
+
+  /**
+   * @param splitMethod how the rows are split over the step copies, one of the SPLIT_METHOD_ codes
+   */
+  public void setSplitMethod( String splitMethod ) {
+    this.splitMethod = splitMethod;
+  }
+
   /**
    * Returns the Input/Output metadata for this step. The generator step only produces output, does not accept input!
    */
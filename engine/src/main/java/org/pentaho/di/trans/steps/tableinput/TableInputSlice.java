@@ -0,0 +1,220 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.trans.steps.tableinput;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.util.Date;
+
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+/**
+ * Restricts the query of a table input step copy to its slice of the rows, so that several copies read a table in
+ * parallel instead of each reading all of it. The query is wrapped and filtered on a field of its result:
+ * <ul>
+ * <li>range: the values between the minimum and maximum of the field are cut into equally wide ranges. Rows with a
+ * null value, or a value outside of the range, go to the first or last slice.</li>
+ * <li>modulo: the rows are split on the remainder of the absolute value of an integer field, the way the modulo
+ * partitioner splits them. Rows with a null value go to the first slice.</li>
+ * </ul>
+ */
+public class TableInputSlice {
+
+  private static final String ALIAS = "kettle_split";
+
+  private final DatabaseMeta databaseMeta;
+  private final String splitField;
+  private final String splitMethod;
+  private final int sliceNr;
+  private final int sliceCount;
+
+  private boolean rangeLoaded;
+  private boolean emptyRange;
+  private RowMetaInterface parametersMeta = new RowMeta();
+  private Object[] parameters = new Object[ 0 ];
+
+  /**
+   * @param databaseMeta the database the query runs on
+   * @param splitField   the field of the query result to split on
+   * @param splitMethod  one of the TableInputMeta.SPLIT_METHOD_ codes
+   * @param sliceNr      the slice to read, starting at 0
+   * @param sliceCount   the number of slices
+   */
+  public TableInputSlice( DatabaseMeta databaseMeta, String splitField, String splitMethod, int sliceNr,
+                          int sliceCount ) {
+    this.databaseMeta = databaseMeta;
+    this.splitField = splitField;
+    this.splitMethod = splitMethod;
+    this.sliceNr = sliceNr;
+    this.sliceCount = sliceCount;
+  }
+
+  /**
+   * @return true if the slices are ranges, which need the minimum and maximum of the split field first
+   */
+  public boolean isRangeNeeded() {
+    return !TableInputMeta.SPLIT_METHOD_MODULO.equals( splitMethod ) && !rangeLoaded;
+  }
+
+  /**
+   * @return the query for the minimum and maximum of the split field
+   */
+  public String getRangeSql( String sql ) {
+    String field = databaseMeta.quoteField( splitField );
+    return "SELECT MIN(" + field + "), MAX(" + field + ") FROM ( " + stripSql( sql ) + " ) " + ALIAS;
+  }
+
+  /**
+   * Sets the minimum and maximum of the split field and determines the bounds of this slice.
+   *
+   * @param valueMeta the type of the split field
+   * @param min       the minimum, null if the query returns no (non-null) values
+   * @param max       the maximum
+   * @throws KettleException in case the split field is not a number or a date
+   */
+  public void setRange( ValueMetaInterface valueMeta, Object min, Object max ) throws KettleException {
+    rangeLoaded = true;
+    parametersMeta = new RowMeta();
+    if ( min == null || max == null ) {
+      emptyRange = true;
+      parameters = new Object[ 0 ];
+      return;
+    }
+    Object lower = sliceNr > 0 ? getBound( valueMeta, min, max, sliceNr ) : null;
+    Object upper = sliceNr < sliceCount - 1 ? getBound( valueMeta, min, max, sliceNr + 1 ) : null;
+    if ( lower != null && upper != null ) {
+      parameters = new Object[] { lower, upper };
+    } else if ( lower != null ) {
+      parameters = new Object[] { lower };
+    } else {
+      parameters = new Object[] { upper };
+    }
+    for ( int i = 0; i < parameters.length; i++ ) {
+      ValueMetaInterface parameterMeta = valueMeta.clone();
+      parameterMeta.setName( splitField + "_" + i );
+      parametersMeta.addValueMeta( parameterMeta );
+    }
+  }
+
+  /**
+   * @return the query restricted to this slice, see {@link #getParametersMeta()} for the values to bind
+   */
+  public String getSliceSql( String sql ) {
+    String field = databaseMeta.quoteField( splitField );
+    StringBuilder slice = new StringBuilder( "SELECT * FROM ( " ).append( stripSql( sql ) ).append( " ) " );
+    slice.append( ALIAS ).append( " WHERE " );
+
+    if ( TableInputMeta.SPLIT_METHOD_MODULO.equals( splitMethod ) ) {
+      slice.append( databaseMeta.getModuloExpression( "ABS(" + field + ")", sliceCount ) ).append( " = " )
+        .append( sliceNr );
+      if ( sliceNr == 0 ) {
+        slice.append( " OR " ).append( field ).append( " IS NULL" );
+      }
+    } else if ( emptyRange ) {
+      // Nothing to split: the first slice reads whatever there is
+      //
+      slice.append( sliceNr == 0 ? "1 = 1" : "1 = 0" );
+    } else if ( sliceNr == 0 ) {
+      slice.append( field ).append( " < ? OR " ).append( field ).append( " IS NULL" );
+    } else if ( sliceNr == sliceCount - 1 ) {
+      slice.append( field ).append( " >= ?" );
+    } else {
+      slice.append( field ).append( " >= ? AND " ).append( field ).append( " < ?" );
+    }
+    return slice.toString();
+  }
+
+  /**
+   * @return the types of the values to bind to the slice query
+   */
+  public RowMetaInterface getParametersMeta() {
+    return parametersMeta;
+  }
+
+  /**
+   * @return the values to bind to the slice query
+   */
+  public Object[] getParameters() {
+    return parameters;
+  }
+
+  /**
+   * @return the slice to read, starting at 0
+   */
+  public int getSliceNr() {
+    return sliceNr;
+  }
+
+  /**
+   * @return the number of slices
+   */
+  public int getSliceCount() {
+    return sliceCount;
+  }
+
+  /**
+   * Calculates min + (max - min) * i / n, rounded down for integers and dates.
+   */
+  private Object getBound( ValueMetaInterface valueMeta, Object min, Object max, int i ) throws KettleException {
+    switch ( valueMeta.getType() ) {
+      case ValueMetaInterface.TYPE_INTEGER:
+        return getBound( valueMeta.getInteger( min ), valueMeta.getInteger( max ), i );
+      case ValueMetaInterface.TYPE_NUMBER:
+        double minNumber = valueMeta.getNumber( min );
+        return minNumber + ( valueMeta.getNumber( max ) - minNumber ) * i / sliceCount;
+      case ValueMetaInterface.TYPE_BIGNUMBER:
+        BigDecimal minBig = valueMeta.getBigNumber( min );
+        return valueMeta.getBigNumber( max ).subtract( minBig ).multiply( BigDecimal.valueOf( i ) )
+          .divide( BigDecimal.valueOf( sliceCount ), MathContext.DECIMAL64 ).add( minBig );
+      case ValueMetaInterface.TYPE_DATE:
+      case ValueMetaInterface.TYPE_TIMESTAMP:
+        long millis = getBound( valueMeta.getDate( min ).getTime(), valueMeta.getDate( max ).getTime(), i );
+        return valueMeta.getType() == ValueMetaInterface.TYPE_DATE ? new Date( millis ) : new Timestamp( millis );
+      default:
+        throw new KettleException( "Unable to split the rows in ranges on field [" + splitField + "] of type "
+          + valueMeta.getTypeDesc() + ", only numbers and dates are supported" );
+    }
+  }
+
+  private long getBound( long min, long max, int i ) {
+    return BigDecimal.valueOf( max ).subtract( BigDecimal.valueOf( min ) ).multiply( BigDecimal.valueOf( i ) )
+      .divide( BigDecimal.valueOf( sliceCount ), 0, RoundingMode.FLOOR ).longValue() + min;
+  }
+
+  /**
+   * A query ending with a semicolon can't be used as a subquery.
+   */
+  private static String stripSql( String sql ) {
+    String stripped = sql.trim();
+    while ( stripped.endsWith( ";" ) ) {
+      stripped = stripped.substring( 0, stripped.length() - 1 ).trim();
+    }
+    return stripped;
+  }
+}
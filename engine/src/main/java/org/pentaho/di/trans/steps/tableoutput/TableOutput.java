@@ -22,6 +22,7 @@
 
 package org.pentaho.di.trans.steps.tableoutput;
 
+import com.google.common.annotations.VisibleForTesting;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.database.Database;
@@ -30,10 +31,12 @@ import org.pentaho.di.core.exception.KettleDatabaseBatchException;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.logging.Metrics;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.util.ExecutorUtil;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
@@ -47,8 +50,12 @@ import org.pentaho.di.trans.step.StepMetaInterface;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Writes rows to a database table.
@@ -59,6 +66,12 @@ import java.util.List;
 public class TableOutput extends BaseStep implements StepInterface {
   private static Class<?> PKG = TableOutputMeta.class; // for i18n purposes, needed by Translator2!!
 
+  /**
+   * The number of inserted rows kept back in bulk mode without a commit size before they are passed on.
+   */
+  @VisibleForTesting
+  static final int MAX_UNCOMMITTED_BUFFER_ROWS = 10000;
+
   private TableOutputMeta meta;
   private TableOutputData data;
 
@@ -71,12 +84,16 @@ public class TableOutput extends BaseStep implements StepInterface {
     meta = (TableOutputMeta) smi;
     data = (TableOutputData) sdi;
 
-    Object[] r = getRow(); // this also waits for a previous step to be finished.
-    if ( r == null ) { // no more input to be expected...
+    Object[][] rows = getRows( getRowBatchSize() ); // this also waits for a previous step to be finished.
+    if ( rows == null ) { // no more input to be expected...
       // truncate the table if there are no rows at all coming into this step
       if ( first && meta.truncateTable() ) {
         truncateTable();
       }
+      if ( !first ) {
+        flushBulkRows();
+        finishAsyncBatches();
+      }
       return false;
     }
 
@@ -119,20 +136,39 @@ public class TableOutput extends BaseStep implements StepInterface {
           }
         }
       }
+      chooseInsertMethod();
+      chooseAsyncCommit();
+    }
+
+    if ( data.outputRows == null || data.outputRows.length < rows.length ) {
+      data.outputRows = new Object[ rows.length ][];
     }
+    int nrOutputRows = 0;
+    long linesRead = getLinesRead() - rows.length;
 
     try {
-      Object[] outputRowData = writeToTable( getInputRowMeta(), r );
-      if ( outputRowData != null ) {
-        putRow( data.outputRowMeta, outputRowData ); // in case we want it go further...
-        incrementLinesOutput();
+      if ( data.rowsPerStatement > 0 || data.copyWriter != null ) {
+        writeRowsInBulk( rows );
+        return true;
       }
+      if ( data.asyncCommit ) {
+        writeRowsAsync( rows );
+        return true;
+      }
+      for ( Object[] r : rows ) {
+        linesRead++;
+        Object[] outputRowData = writeToTable( getInputRowMeta(), r );
+        if ( outputRowData != null ) {
+          data.outputRows[ nrOutputRows++ ] = outputRowData;
+        }
 
-      if ( checkFeedback( getLinesRead() ) ) {
-        if ( log.isBasic() ) {
-          logBasic( "linenr " + getLinesRead() );
+        if ( checkFeedback( linesRead ) ) {
+          if ( log.isBasic() ) {
+            logBasic( "linenr " + linesRead );
+          }
         }
       }
+      putOutputRows( nrOutputRows ); // in case we want it go further...
     } catch ( KettleException e ) {
       logError( "Because of an error, this step can't continue: ", e );
       setErrors( 1 );
@@ -144,6 +180,284 @@ public class TableOutput extends BaseStep implements StepInterface {
     return true;
   }
 
+  private void putOutputRows( int nrOutputRows ) throws KettleStepException {
+    putRows( data.outputRowMeta, data.outputRows, nrOutputRows );
+    incrementLinesOutput( nrOutputRows );
+    Arrays.fill( data.outputRows, 0, nrOutputRows, null );
+  }
+
+  /**
+   * Passes on the rows of the batch buffer now that they are safely committed and clears the buffer.
+   */
+  private void putBatchBufferRows() throws KettleStepException {
+    int nrRows = data.batchBuffer.size();
+    putRows( data.outputRowMeta, data.batchBuffer.toArray( new Object[ nrRows ][] ), nrRows );
+    incrementLinesOutput( nrRows );
+    data.batchBuffer.clear();
+  }
+
+  /**
+   * Uses multi-row INSERT statements or a COPY stream if asked for and possible. These only apply to plain inserts
+   * into a single table, where the rows don't need to be handled one by one.
+   */
+  private void chooseInsertMethod() throws KettleException {
+    String insertMethod = Const.NVL( meta.getInsertMethod(), TableOutputMeta.INSERT_METHOD_STATEMENT );
+    if ( TableOutputMeta.INSERT_METHOD_STATEMENT.equals( insertMethod ) ) {
+      return;
+    }
+    boolean bulkPossible = !meta.isTableNameInField() && !meta.isPartitioningEnabled()
+      && !meta.isReturningGeneratedKeys() && !meta.ignoreErrors() && !getStepMeta().isDoingErrorHandling();
+
+    if ( bulkPossible && TableOutputMeta.INSERT_METHOD_MULTI_ROW.equals( insertMethod )
+      && data.databaseMeta.supportsMultiRowInsert() ) {
+      // Stay within the limits of the database for the number of parameters and rows in a single statement
+      //
+      int rowsPerStatement = Const.toInt( environmentSubstitute( meta.getRowsPerStatement() ), 1 );
+      rowsPerStatement = Math.min( rowsPerStatement,
+        data.databaseMeta.getMaxStatementParameters() / Math.max( 1, data.insertRowMeta.size() ) );
+      rowsPerStatement = Math.min( rowsPerStatement, data.databaseMeta.getMaxMultiRowInsertRows() );
+      data.rowsPerStatement = Math.max( 1, rowsPerStatement );
+      data.pendingInsertRows = new Object[ data.rowsPerStatement ][];
+      data.batchMode = false;
+    } else if ( bulkPossible && TableOutputMeta.INSERT_METHOD_COPY.equals( insertMethod )
+      && data.databaseMeta.supportsCopyFromStdin() ) {
+      String copyCommand = TableOutputCopyWriter.getCopyCommand( data.databaseMeta,
+        environmentSubstitute( meta.getSchemaName() ), data.tableName, data.insertRowMeta );
+      if ( log.isDetailed() ) {
+        logDetailed( "Copy command : " + copyCommand );
+      }
+      data.copyWriter = new TableOutputCopyWriter( data.db.getConnection(), copyCommand );
+      data.batchMode = false;
+    } else {
+      logBasic( BaseMessages.getString( PKG, "TableOutput.Log.InsertMethodNotUsed", insertMethod ) );
+    }
+  }
+
+  /**
+   * Writes a batch of input rows with multi-row INSERT statements or a COPY stream. The rows are passed on once they
+   * are committed.
+   */
+  @VisibleForTesting
+  void writeRowsInBulk( Object[][] rows ) throws KettleException {
+    long linesRead = getLinesRead() - rows.length;
+    for ( Object[] r : rows ) {
+      linesRead++;
+      Object[] insertRowData = getInsertRowData( r );
+      data.batchBuffer.add( r );
+
+      if ( data.copyWriter != null ) {
+        data.copyWriter.writeRow( data.insertRowMeta, insertRowData );
+        commitBulkRows( 1 );
+      } else {
+        data.pendingInsertRows[ data.nrPendingInsertRows++ ] = insertRowData;
+        if ( data.nrPendingInsertRows == data.rowsPerStatement ) {
+          executeMultiRowInsert();
+        }
+      }
+
+      if ( checkFeedback( linesRead ) ) {
+        if ( log.isBasic() ) {
+          logBasic( "linenr " + linesRead );
+        }
+      }
+    }
+  }
+
+  private Object[] getInsertRowData( Object[] r ) {
+    if ( !meta.specifyFields() ) {
+      return r;
+    }
+    Object[] insertRowData = new Object[data.valuenrs.length];
+    for ( int idx = 0; idx < data.valuenrs.length; idx++ ) {
+      insertRowData[idx] = r[data.valuenrs[idx]];
+    }
+    return insertRowData;
+  }
+
+  /**
+   * Executes and commits batches on a background thread while the next batch is collected, if asked for and possible.
+   * The batches need to go to a single table and all rows of a batch need to be committed together.
+   */
+  private void chooseAsyncCommit() throws KettleException {
+    if ( !meta.isAsyncCommit() ) {
+      return;
+    }
+    if ( data.batchMode && data.commitSize != Integer.MAX_VALUE && !meta.isTableNameInField()
+      && !meta.isPartitioningEnabled() && data.db.getUseBatchInsert( data.batchMode ) ) {
+      data.asyncCommit = true;
+      data.asyncInsertRows = new ArrayList<>();
+    } else {
+      logBasic( BaseMessages.getString( PKG, "TableOutput.Log.AsyncCommitNotUsed" ) );
+    }
+  }
+
+  /**
+   * Collects the rows of the next batch. A full batch is handed to the background thread once the previous one is
+   * done.
+   */
+  private void writeRowsAsync( Object[][] rows ) throws KettleException {
+    long linesRead = getLinesRead() - rows.length;
+    for ( Object[] r : rows ) {
+      linesRead++;
+      data.asyncInsertRows.add( getInsertRowData( r ) );
+      data.batchBuffer.add( r );
+      if ( data.asyncInsertRows.size() >= data.commitSize ) {
+        submitAsyncBatch();
+      }
+
+      if ( checkFeedback( linesRead ) ) {
+        if ( log.isBasic() ) {
+          logBasic( "linenr " + linesRead );
+        }
+      }
+    }
+  }
+
+  private void submitAsyncBatch() throws KettleException {
+    waitForAsyncBatch();
+
+    PreparedStatement insertStatement = data.preparedStatements.get( data.tableName );
+    if ( insertStatement == null ) {
+      String sql = data.db
+        .getInsertStatement( environmentSubstitute( meta.getSchemaName() ), data.tableName, data.insertRowMeta );
+      if ( log.isDetailed() ) {
+        logDetailed( "Prepared statement : " + sql );
+      }
+      insertStatement = data.db.prepareSQL( sql );
+      data.preparedStatements.put( data.tableName, insertStatement );
+    }
+
+    TableOutputAsyncBatch batch = new TableOutputAsyncBatch( data.db, insertStatement, data.insertRowMeta,
+      data.asyncInsertRows, data.batchBuffer, getStepMeta().isDoingErrorHandling() );
+    data.asyncInsertRows = new ArrayList<>();
+    data.batchBuffer = new ArrayList<>();
+    data.asyncBatch = ExecutorUtil.getExecutor().submit( batch );
+  }
+
+  /**
+   * Waits for the background batch, if any, and passes on its rows. The rows of a failed batch go to error handling
+   * like they do for a synchronous batch.
+   */
+  private void waitForAsyncBatch() throws KettleException {
+    if ( data.asyncBatch == null ) {
+      return;
+    }
+    TableOutputAsyncBatch batch;
+    long start = System.nanoTime();
+    try {
+      batch = data.asyncBatch.get();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleException( "Interrupted while waiting for a batch to be committed", e );
+    } catch ( ExecutionException e ) {
+      throw new KettleException( "Error inserting rows into table [" + data.tableName + "]", e.getCause() );
+    } finally {
+      data.asyncBatch = null;
+      data.asyncWaitNanos += System.nanoTime() - start;
+    }
+    data.asyncBindNanos += batch.getBindNanos();
+    data.asyncExecuteNanos += batch.getExecuteNanos();
+
+    for ( int i = 0; i < batch.getErrorRows().size(); i++ ) {
+      putError( data.outputRowMeta, batch.getErrorRows().get( i ), 1L, batch.getErrorMessages().get( i ), null,
+        "TOP001" );
+    }
+    KettleDatabaseBatchException be = batch.getBatchException();
+    if ( be == null ) {
+      List<Object[]> boundRows = batch.getBoundRows();
+      putRows( data.outputRowMeta, boundRows.toArray( new Object[ boundRows.size() ][] ), boundRows.size() );
+      incrementLinesOutput( boundRows.size() );
+    } else if ( getStepMeta().isDoingErrorHandling() ) {
+      processBatchException( be.toString(), be.getUpdateCounts(), be.getExceptionsList(), batch.getBoundRows() );
+    } else {
+      throw new KettleException( getBatchErrorMessage( data.tableName, be ), be );
+    }
+  }
+
+  /**
+   * Commits the rows collected so far and waits for the last background batch.
+   */
+  private void finishAsyncBatches() throws KettleException {
+    if ( !data.asyncCommit ) {
+      return;
+    }
+    if ( !data.asyncInsertRows.isEmpty() ) {
+      submitAsyncBatch();
+    }
+    waitForAsyncBatch();
+  }
+
+  /**
+   * Inserts the pending rows with a single INSERT statement. The statement for a full set of rows is kept, the last
+   * rows of the stream get one of their own.
+   */
+  private void executeMultiRowInsert() throws KettleException {
+    int nrRows = data.nrPendingInsertRows;
+    boolean fullStatement = nrRows == data.rowsPerStatement;
+    PreparedStatement insertStatement = fullStatement ? data.preparedStatements.get( data.tableName ) : null;
+    if ( insertStatement == null ) {
+      String sql = data.db.getMultiRowInsertStatement(
+        environmentSubstitute( meta.getSchemaName() ), data.tableName, data.insertRowMeta, nrRows );
+      if ( log.isDetailed() ) {
+        logDetailed( "Prepared statement for " + nrRows + " rows : " + sql );
+      }
+      insertStatement = data.db.prepareSQL( sql );
+      if ( fullStatement ) {
+        data.preparedStatements.put( data.tableName, insertStatement );
+      }
+    }
+
+    try {
+      data.db.setValues( data.insertRowMeta, data.pendingInsertRows, nrRows, insertStatement );
+      data.db.insertRow( insertStatement, false, false ); // false: no commit, it is handled in this step differently
+    } finally {
+      if ( !fullStatement ) {
+        data.db.closePreparedStatement( insertStatement );
+      }
+    }
+    Arrays.fill( data.pendingInsertRows, 0, nrRows, null );
+    data.nrPendingInsertRows = 0;
+
+    commitBulkRows( nrRows );
+  }
+
+  private void commitBulkRows( int nrRows ) throws KettleException {
+    data.uncommittedRows += nrRows;
+    if ( data.uncommittedRows >= data.commitSize ) {
+      if ( data.copyWriter != null ) {
+        data.copyWriter.endCopy();
+      }
+      data.db.commit();
+      data.uncommittedRows = 0;
+      putBatchBufferRows();
+    } else if ( data.commitSize == Integer.MAX_VALUE && data.batchBuffer.size() >= MAX_UNCOMMITTED_BUFFER_ROWS ) {
+      // Without a commit size everything is committed at the end of the stream. Like a plain insert, pass the rows on
+      // once they are executed instead of keeping all of them in memory.
+      //
+      if ( data.copyWriter != null ) {
+        data.copyWriter.endCopy();
+      }
+      putBatchBufferRows();
+    }
+  }
+
+  /**
+   * Sends the rows still pending for a multi-row INSERT statement, ends the running COPY and commits.
+   */
+  private void flushBulkRows() throws KettleException {
+    if ( data.nrPendingInsertRows > 0 ) {
+      executeMultiRowInsert();
+    }
+    if ( data.copyWriter != null ) {
+      data.copyWriter.endCopy();
+    }
+    if ( data.uncommittedRows > 0 ) {
+      data.db.commit();
+      data.uncommittedRows = 0;
+      putBatchBufferRows();
+    }
+  }
+
   protected Object[] writeToTable( RowMetaInterface rowMeta, Object[] r ) throws KettleException {
 
     if ( r == null ) { // Stop: last line or error encountered
@@ -336,16 +650,7 @@ public class TableOutput extends BaseStep implements StepInterface {
       } else {
         data.db.clearBatch( insertStatement );
         data.db.rollback();
-        StringBuilder msg = new StringBuilder( "Error batch inserting rows into table [" + tableName + "]." );
-        msg.append( Const.CR );
-        msg.append( "Errors encountered (first 10):" ).append( Const.CR );
-        for ( int x = 0; x < be.getExceptionsList().size() && x < 10; x++ ) {
-          Exception exception = be.getExceptionsList().get( x );
-          if ( exception.getMessage() != null ) {
-            msg.append( exception.getMessage() ).append( Const.CR );
-          }
-        }
-        throw new KettleException( msg.toString(), be );
+        throw new KettleException( getBatchErrorMessage( tableName, be ), be );
       }
     } catch ( KettleDatabaseException dbe ) {
       if ( getStepMeta().isDoingErrorHandling() ) {
@@ -397,7 +702,7 @@ public class TableOutput extends BaseStep implements StepInterface {
           data.batchBuffer.add( outputRowData );
           outputRowData = null;
 
-          processBatchException( errorMessage, updateCounts, exceptionsList );
+          processBatchException( errorMessage, updateCounts, exceptionsList, data.batchBuffer );
         } else {
           // Simply add this row to the error row
           putError( rowMeta, r, 1L, errorMessage, null, "TOP001" );
@@ -408,13 +713,7 @@ public class TableOutput extends BaseStep implements StepInterface {
         outputRowData = null;
 
         if ( rowIsSafe ) { // A commit was done and the rows are all safe (no error)
-          for ( int i = 0; i < data.batchBuffer.size(); i++ ) {
-            Object[] row = data.batchBuffer.get( i );
-            putRow( data.outputRowMeta, row );
-            incrementLinesOutput();
-          }
-          // Clear the buffer
-          data.batchBuffer.clear();
+          putBatchBufferRows();
         }
       }
     } else {
@@ -431,14 +730,28 @@ public class TableOutput extends BaseStep implements StepInterface {
     return log.isRowLevel();
   }
 
-  private void processBatchException( String errorMessage, int[] updateCounts, List<Exception> exceptionsList ) throws KettleException {
+  private String getBatchErrorMessage( String tableName, KettleDatabaseBatchException be ) {
+    StringBuilder msg = new StringBuilder( "Error batch inserting rows into table [" + tableName + "]." );
+    msg.append( Const.CR );
+    msg.append( "Errors encountered (first 10):" ).append( Const.CR );
+    for ( int x = 0; x < be.getExceptionsList().size() && x < 10; x++ ) {
+      Exception exception = be.getExceptionsList().get( x );
+      if ( exception.getMessage() != null ) {
+        msg.append( exception.getMessage() ).append( Const.CR );
+      }
+    }
+    return msg.toString();
+  }
+
+  private void processBatchException( String errorMessage, int[] updateCounts, List<Exception> exceptionsList,
+                                      List<Object[]> batchRows ) throws KettleException {
     // There was an error with the commit
     // We should put all the failing rows out there...
     //
     if ( updateCounts != null ) {
       int errNr = 0;
       for ( int i = 0; i < updateCounts.length; i++ ) {
-        Object[] row = data.batchBuffer.get( i );
+        Object[] row = batchRows.get( i );
         if ( updateCounts[i] > 0 ) {
           // send the error foward
           putRow( data.outputRowMeta, row );
@@ -457,14 +770,14 @@ public class TableOutput extends BaseStep implements StepInterface {
       // If we don't have update counts, it probably means the DB doesn't support it.
       // In this case we don't have a choice but to consider all inserted rows to be error rows.
       //
-      for ( int i = 0; i < data.batchBuffer.size(); i++ ) {
-        Object[] row = data.batchBuffer.get( i );
+      for ( int i = 0; i < batchRows.size(); i++ ) {
+        Object[] row = batchRows.get( i );
         putError( data.outputRowMeta, row, 1L, errorMessage, null, "TOP0003" );
       }
     }
 
     // Clear the buffer afterwards...
-    data.batchBuffer.clear();
+    batchRows.clear();
   }
 
   public boolean init( StepMetaInterface smi, StepDataInterface sdi ) {
@@ -576,6 +889,12 @@ public class TableOutput extends BaseStep implements StepInterface {
     data = (TableOutputData) sdi;
 
     if ( data.db != null ) {
+      if ( data.asyncCommit ) {
+        disposeAsyncBatch();
+      }
+      if ( data.rowsPerStatement > 0 || data.copyWriter != null ) {
+        disposeBulkRows();
+      }
       try {
         for ( String schemaTable : data.preparedStatements.keySet() ) {
           // Get a commit counter per prepared statement to keep track of separate tables, etc.
@@ -589,19 +908,13 @@ public class TableOutput extends BaseStep implements StepInterface {
 
           data.db.emptyAndCommit( insertStatement, data.batchMode, batchCounter );
         }
-        for ( int i = 0; i < data.batchBuffer.size(); i++ ) {
-          Object[] row = data.batchBuffer.get( i );
-          putRow( data.outputRowMeta, row );
-          incrementLinesOutput();
-        }
-        // Clear the buffer
-        data.batchBuffer.clear();
+        putBatchBufferRows();
       } catch ( KettleDatabaseBatchException be ) {
         if ( getStepMeta().isDoingErrorHandling() ) {
           // Right at the back we are experiencing a batch commit problem...
           // OK, we have the numbers...
           try {
-            processBatchException( be.toString(), be.getUpdateCounts(), be.getExceptionsList() );
+            processBatchException( be.toString(), be.getUpdateCounts(), be.getExceptionsList(), data.batchBuffer );
           } catch ( KettleException e ) {
             logError( "Unexpected error processing batch error", e );
             setErrors( 1 );
@@ -634,6 +947,60 @@ public class TableOutput extends BaseStep implements StepInterface {
     }
   }
 
+  /**
+   * Lets a batch still running in the background finish before the connection is committed or rolled back and
+   * handles its rows, then records where the time went. The rows collected for the next batch were never inserted, so
+   * they are not passed on.
+   */
+  private void disposeAsyncBatch() {
+    try {
+      waitForAsyncBatch();
+    } catch ( KettleException e ) {
+      logError( "Unexpected error in a batch committed in the background.", e );
+      setErrors( 1 );
+    }
+    if ( !data.asyncInsertRows.isEmpty() ) {
+      logBasic( BaseMessages.getString( PKG, "TableOutput.Log.RowsNotInserted", data.asyncInsertRows.size() ) );
+      data.asyncInsertRows.clear();
+      data.batchBuffer.clear();
+    }
+
+    long bindMs = TimeUnit.NANOSECONDS.toMillis( data.asyncBindNanos );
+    long executeMs = TimeUnit.NANOSECONDS.toMillis( data.asyncExecuteNanos );
+    long waitMs = TimeUnit.NANOSECONDS.toMillis( data.asyncWaitNanos );
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "TableOutput.Log.AsyncCommitTimes", bindMs, executeMs, waitMs ) );
+    }
+    log.snap( Metrics.METRIC_STEP_DATABASE_BIND_TIME, bindMs );
+    log.snap( Metrics.METRIC_STEP_DATABASE_EXECUTE_TIME, executeMs );
+    log.snap( Metrics.METRIC_STEP_DATABASE_WAIT_TIME, waitMs );
+  }
+
+  /**
+   * Cancels a COPY that was not ended before the connection is committed or rolled back. The rows of that COPY and the
+   * rows still pending for a multi-row INSERT statement were never executed, so they are not passed on.
+   */
+  private void disposeBulkRows() {
+    int nrNotInserted = data.nrPendingInsertRows;
+    if ( data.copyWriter != null ) {
+      try {
+        data.copyWriter.cancelCopy();
+      } catch ( KettleDatabaseException e ) {
+        logError( "Unexpected error cancelling the COPY command.", e );
+        setErrors( 1 );
+      }
+      nrNotInserted = data.batchBuffer.size();
+    } else if ( nrNotInserted > 0 ) {
+      Arrays.fill( data.pendingInsertRows, 0, nrNotInserted, null );
+      data.nrPendingInsertRows = 0;
+    }
+    if ( nrNotInserted > 0 ) {
+      logBasic( BaseMessages.getString( PKG, "TableOutput.Log.RowsNotInserted", nrNotInserted ) );
+      int nrRows = data.batchBuffer.size();
+      data.batchBuffer.subList( nrRows - nrNotInserted, nrRows ).clear();
+    }
+  }
+
   /**
    * Allows subclasses of TableOuput to get hold of the step meta
    *
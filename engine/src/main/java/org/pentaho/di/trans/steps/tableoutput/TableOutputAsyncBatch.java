@@ -0,0 +1,155 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.trans.steps.tableoutput;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.exception.KettleDatabaseBatchException;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * A batch of rows that is bound, executed and committed on a background thread while the step collects the next
+ * batch. Only one batch runs at a time, so the connection is never used by two threads at once.
+ *
+ * A failing batch is cleared and committed (with error handling) or rolled back (without), just like the step does for
+ * a synchronous batch. The step picks up the outcome once the batch is done.
+ */
+public class TableOutputAsyncBatch implements Callable<TableOutputAsyncBatch> {
+
+  private final Database db;
+  private final PreparedStatement insertStatement;
+  private final RowMetaInterface insertRowMeta;
+  private final List<Object[]> insertRows;
+  private final List<Object[]> outputRows;
+  private final boolean errorHandling;
+
+  private final List<Object[]> boundRows = new ArrayList<>();
+  private final List<Object[]> errorRows = new ArrayList<>();
+  private final List<String> errorMessages = new ArrayList<>();
+  private KettleDatabaseBatchException batchException;
+  private long bindNanos;
+  private long executeNanos;
+
+  /**
+   * @param db              the connection to insert with
+   * @param insertStatement the prepared INSERT statement
+   * @param insertRowMeta   the layout of the rows to insert
+   * @param insertRows      the values to insert
+   * @param outputRows      the rows to pass on, one for each row to insert
+   * @param errorHandling   true if rows that fail are sent to error handling instead of failing the step
+   */
+  public TableOutputAsyncBatch( Database db, PreparedStatement insertStatement, RowMetaInterface insertRowMeta,
+                                List<Object[]> insertRows, List<Object[]> outputRows, boolean errorHandling ) {
+    this.db = db;
+    this.insertStatement = insertStatement;
+    this.insertRowMeta = insertRowMeta;
+    this.insertRows = insertRows;
+    this.outputRows = outputRows;
+    this.errorHandling = errorHandling;
+  }
+
+  @Override
+  public TableOutputAsyncBatch call() throws KettleDatabaseException {
+    long start = System.nanoTime();
+    for ( int i = 0; i < insertRows.size(); i++ ) {
+      try {
+        db.setValues( insertRowMeta, insertRows.get( i ), insertStatement );
+        db.insertRow( insertStatement, true, false ); // false: no commit, it is done for the whole batch below
+        boundRows.add( outputRows.get( i ) );
+      } catch ( KettleDatabaseException e ) {
+        if ( !errorHandling ) {
+          throw e;
+        }
+        errorRows.add( outputRows.get( i ) );
+        errorMessages.add( e.toString() );
+      }
+    }
+    long bound = System.nanoTime();
+    bindNanos = bound - start;
+
+    try {
+      insertStatement.executeBatch();
+      db.commit();
+      insertStatement.clearBatch();
+    } catch ( SQLException ex ) {
+      batchException = Database.createKettleDatabaseBatchException( "Error updating batch", ex );
+      db.clearBatch( insertStatement );
+      if ( errorHandling ) {
+        db.commit( true );
+      } else {
+        db.rollback();
+      }
+    } finally {
+      executeNanos = System.nanoTime() - bound;
+    }
+    return this;
+  }
+
+  /**
+   * @return the rows that were added to the JDBC batch, in the order of the update counts of a batch exception
+   */
+  public List<Object[]> getBoundRows() {
+    return boundRows;
+  }
+
+  /**
+   * @return the rows whose values could not be bound, only with error handling
+   */
+  public List<Object[]> getErrorRows() {
+    return errorRows;
+  }
+
+  /**
+   * @return the error messages of the error rows
+   */
+  public List<String> getErrorMessages() {
+    return errorMessages;
+  }
+
+  /**
+   * @return the exception of a failed batch, or null if the batch was committed
+   */
+  public KettleDatabaseBatchException getBatchException() {
+    return batchException;
+  }
+
+  /**
+   * @return the time spent binding the values of the rows, in nanoseconds
+   */
+  public long getBindNanos() {
+    return bindNanos;
+  }
+
+  /**
+   * @return the time spent executing and committing the batch, in nanoseconds
+   */
+  public long getExecuteNanos() {
+    return executeNanos;
+  }
+}
@@ -0,0 +1,188 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.trans.steps.tableoutput;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+
+/**
+ * Streams rows into a table with COPY ... FROM STDIN in CSV format, using the CopyManager of the PostgreSQL JDBC
+ * driver. A COPY is started with the first row written and ends with {@link #endCopy()}, after which the rows can be
+ * committed like any other insert.
+ */
+public class TableOutputCopyWriter {
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private final Connection connection;
+  private final String copyCommand;
+  private final StringBuilder line = new StringBuilder( 256 );
+
+  private PGCopyOutputStream copyOut;
+
+  /**
+   * @param connection   the PostgreSQL connection to copy over
+   * @param copyCommand  the COPY command to execute, see {@link #getCopyCommand(DatabaseMeta, String, String,
+   *                     RowMetaInterface)}
+   */
+  public TableOutputCopyWriter( Connection connection, String copyCommand ) {
+    this.connection = connection;
+    this.copyCommand = copyCommand;
+  }
+
+  /**
+   * Builds the COPY command for the fields of a table, reading CSV from the client.
+   */
+  public static String getCopyCommand( DatabaseMeta databaseMeta, String schemaName, String tableName,
+                                       RowMetaInterface fields ) {
+    StringBuilder copy = new StringBuilder( 128 );
+    copy.append( "COPY " ).append( databaseMeta.getQuotedSchemaTableCombination( schemaName, tableName ) );
+    copy.append( " (" );
+    for ( int i = 0; i < fields.size(); i++ ) {
+      if ( i > 0 ) {
+        copy.append( ", " );
+      }
+      copy.append( databaseMeta.quoteField( fields.getValueMeta( i ).getName() ) );
+    }
+    copy.append( ") FROM STDIN WITH CSV" );
+    return copy.toString();
+  }
+
+  /**
+   * Writes a row to the running COPY, a new COPY is started if needed.
+   *
+   * @param rowMeta the layout of the row, in the order of the fields of the COPY command
+   * @param row     the row to write
+   * @throws KettleDatabaseException in case the row can't be sent to the database
+   */
+  public void writeRow( RowMetaInterface rowMeta, Object[] row ) throws KettleDatabaseException {
+    try {
+      String csv = formatRow( rowMeta, row );
+      if ( copyOut == null ) {
+        copyOut = new PGCopyOutputStream( connection.unwrap( PGConnection.class ).getCopyAPI().copyIn( copyCommand ) );
+      }
+      copyOut.write( csv.getBytes( StandardCharsets.UTF_8 ) );
+    } catch ( Exception e ) {
+      throw new KettleDatabaseException( "Error writing a row to COPY command [" + copyCommand + "]", e );
+    }
+  }
+
+  /**
+   * Ends the running COPY, if any.
+   *
+   * @return the number of rows copied
+   * @throws KettleDatabaseException in case the database rejects the rows
+   */
+  public long endCopy() throws KettleDatabaseException {
+    if ( copyOut == null ) {
+      return 0L;
+    }
+    try {
+      return copyOut.endCopy();
+    } catch ( SQLException e ) {
+      throw new KettleDatabaseException( "Error ending COPY command [" + copyCommand + "]", e );
+    } finally {
+      copyOut = null;
+    }
+  }
+
+  /**
+   * Cancels the running COPY, if any, so the connection can be rolled back.
+   */
+  public void cancelCopy() throws KettleDatabaseException {
+    if ( copyOut == null ) {
+      return;
+    }
+    try {
+      if ( copyOut.isActive() ) {
+        copyOut.cancelCopy();
+      }
+    } catch ( SQLException e ) {
+      throw new KettleDatabaseException( "Error cancelling COPY command [" + copyCommand + "]", e );
+    } finally {
+      copyOut = null;
+    }
+  }
+
+  /**
+   * Formats a row as a line of CSV in the format of COPY: an unquoted empty value is NULL, strings are always quoted.
+   */
+  String formatRow( RowMetaInterface rowMeta, Object[] row ) throws KettleValueException {
+    line.setLength( 0 );
+    for ( int i = 0; i < rowMeta.size(); i++ ) {
+      if ( i > 0 ) {
+        line.append( ',' );
+      }
+      appendValue( rowMeta.getValueMeta( i ), row[ i ] );
+    }
+    line.append( '\n' );
+    return line.toString();
+  }
+
+  private void appendValue( ValueMetaInterface valueMeta, Object value ) throws KettleValueException {
+    if ( valueMeta.isNull( value ) ) {
+      return;
+    }
+    switch ( valueMeta.getType() ) {
+      case ValueMetaInterface.TYPE_INTEGER:
+        line.append( valueMeta.getInteger( value ).longValue() );
+        break;
+      case ValueMetaInterface.TYPE_NUMBER:
+        line.append( valueMeta.getNumber( value ).doubleValue() );
+        break;
+      case ValueMetaInterface.TYPE_BIGNUMBER:
+        line.append( valueMeta.getBigNumber( value ).toPlainString() );
+        break;
+      case ValueMetaInterface.TYPE_BOOLEAN:
+        line.append( valueMeta.getBoolean( value ) ? 't' : 'f' );
+        break;
+      case ValueMetaInterface.TYPE_DATE:
+      case ValueMetaInterface.TYPE_TIMESTAMP:
+        // Timestamps keep their nanoseconds, dates are written in the same local format as JDBC would
+        //
+        Date date = valueMeta.getDate( value );
+        line.append( date instanceof Timestamp ? date : new Timestamp( date.getTime() ) );
+        break;
+      case ValueMetaInterface.TYPE_BINARY:
+        line.append( "\\x" );
+        for ( byte b : valueMeta.getBinary( value ) ) {
+          line.append( HEX_DIGITS[ ( b >> 4 ) & 0xF ] ).append( HEX_DIGITS[ b & 0xF ] );
+        }
+        break;
+      default:
+        line.append( '"' ).append( valueMeta.getString( value ).replace( "\"", "\"\"" ) ).append( '"' );
+        break;
+    }
+  }
+}
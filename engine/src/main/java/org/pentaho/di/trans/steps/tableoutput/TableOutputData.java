@@ -30,6 +30,7 @@ import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
 
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
@@ -65,6 +66,10 @@ public class TableOutputData extends BaseStepData implements StepDataInterface {
   public int indexOfTableNameField;
 
   public List<Object[]> batchBuffer;
+
+  /** Buffer holding the rows passed on in the current batch of input rows */
+  public Object[][] outputRows;
+
   public boolean sendToErrorRow;
   public RowMetaInterface outputRowMeta;
   public RowMetaInterface insertRowMeta;
@@ -78,6 +83,33 @@ public class TableOutputData extends BaseStepData implements StepDataInterface {
 
   public int commitSize;
 
+  /** The number of rows per multi-row INSERT statement, 0 if rows are inserted one statement at a time */
+  public int rowsPerStatement;
+
+  /** Rows waiting for the next multi-row INSERT statement */
+  public Object[][] pendingInsertRows;
+  public int nrPendingInsertRows;
+
+  /** Streams the rows with COPY instead of INSERT statements, null if not used */
+  public TableOutputCopyWriter copyWriter;
+
+  /** The number of rows sent with multi-row INSERT statements or COPY since the last commit */
+  public int uncommittedRows;
+
+  /** Execute and commit batches on a background thread while the next batch is collected */
+  public boolean asyncCommit;
+
+  /** The values to insert for the batch being collected, the rows to pass on are in the batch buffer */
+  public List<Object[]> asyncInsertRows;
+
+  /** The batch running in the background, null if there is none */
+  public Future<TableOutputAsyncBatch> asyncBatch;
+
+  /** Time spent binding, executing and committing and waiting on background batches, in nanoseconds */
+  public long asyncBindNanos;
+  public long asyncExecuteNanos;
+  public long asyncWaitNanos;
+
   public TableOutputData() {
     super();
 
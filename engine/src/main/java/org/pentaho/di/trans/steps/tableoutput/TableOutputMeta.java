@@ -74,6 +74,15 @@ import java.util.List;
 public class TableOutputMeta extends BaseStepMeta implements StepMetaInterface, ProvidesModelerMeta {
   private static Class<?> PKG = TableOutputMeta.class; // for i18n purposes, needed by Translator2!!
 
+  /** Insert every row with its own (batched) INSERT statement */
+  public static final String INSERT_METHOD_STATEMENT = "statement";
+
+  /** Insert several rows with a single INSERT statement, if the database supports it */
+  public static final String INSERT_METHOD_MULTI_ROW = "multi_row";
+
+  /** Stream the rows with COPY ... FROM STDIN, if the database supports it */
+  public static final String INSERT_METHOD_COPY = "copy";
+
   private DatabaseMeta databaseMeta;
 
   @Injection( name = "TARGET_SCHEMA" )
@@ -112,6 +121,27 @@ public class TableOutputMeta extends BaseStepMeta implements StepMetaInterface,
   }
   private boolean useBatchUpdate;
 
+  /**
+   * How the rows are sent to the database, one of the INSERT_METHOD_ codes
+   */
+  @Injection( name = "INSERT_METHOD" )
+  private String insertMethod;
+
+  /**
+   * The number of rows per INSERT statement for the multi-row insert method
+   */
+  @Injection( name = "ROWS_PER_STATEMENT" )
+  private String rowsPerStatement;
+
+  /**
+   * Execute and commit batches on a background thread while the next batch is collected
+   */
+  @Injection( name = "ASYNC_COMMIT" )
+  public void metaSetAsyncCommit( String value ) {
+    setAsyncCommit( "Y".equalsIgnoreCase( value ) );
+  }
+  private boolean asyncCommit;
+
 
   @Injection( name = "PARTITION_OVER_TABLES" )
   public void metaSetPartitionOverTables( String value ) {
@@ -300,6 +330,8 @@ public class TableOutputMeta extends BaseStepMeta implements StepMetaInterface,
     super(); // allocate BaseStepMeta
     useBatchUpdate = true;
     commitSize = "1000";
+    insertMethod = INSERT_METHOD_STATEMENT;
+    rowsPerStatement = "100";
 
     fieldStream = new String[ 0 ];
     fieldDatabase = new String[ 0 ];
@@ -451,6 +483,48 @@ public class TableOutputMeta extends BaseStepMeta implements StepMetaInterface,
     return useBatchUpdate;
   }
 
+  /**
+   * @return How the rows are sent to the database, one of the INSERT_METHOD_ codes
+   */
+  public String getInsertMethod() {
+    return insertMethod;
+  }
+
+  /**
+   * @param insertMethod How the rows are sent to the database, one of the INSERT_METHOD_ codes
+   */
+  public void setInsertMethod( String insertMethod ) {
+    this.insertMethod = insertMethod;
+  }
+
+  /**
+   * @return The number of rows per INSERT statement for the multi-row insert method
+   */
+  public String getRowsPerStatement() {
+    return rowsPerStatement;
+  }
+
+  /**
+   * @param rowsPerStatement The number of rows per INSERT statement for the multi-row insert method
+   */
+  public void setRowsPerStatement( String rowsPerStatement ) {
+    this.rowsPerStatement = rowsPerStatement;
+  }
+
+  /**
+   * @return true if batches are executed and committed on a background thread while the next batch is collected
+   */
+  public boolean isAsyncCommit() {
+    return asyncCommit;
+  }
+
+  /**
+   * @param asyncCommit true to execute and commit batches on a background thread while the next batch is collected
+   */
+  public void setAsyncCommit( boolean asyncCommit ) {
+    this.asyncCommit = asyncCommit;
+  }
+
   private void readData( Node stepnode, List<? extends SharedObjectInterface> databases ) throws KettleXMLException {
     try {
       String con = XMLHandler.getTagValue( stepnode, "connection" );
@@ -461,6 +535,9 @@ public class TableOutputMeta extends BaseStepMeta implements StepMetaInterface,
       truncateTable = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "truncate" ) );
       ignoreErrors = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "ignore_errors" ) );
       useBatchUpdate = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "use_batch" ) );
+      insertMethod = Const.NVL( XMLHandler.getTagValue( stepnode, "insert_method" ), INSERT_METHOD_STATEMENT );
+      rowsPerStatement = Const.NVL( XMLHandler.getTagValue( stepnode, "rows_per_statement" ), "100" );
+      asyncCommit = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "async_commit" ) );
 
       // If not present it will be false to be compatible with pre-v3.2
       specifyFields = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "specify_fields" ) );
@@ -497,6 +574,8 @@ public class TableOutputMeta extends BaseStepMeta implements StepMetaInterface,
     databaseMeta = null;
     tableName = "";
     commitSize = "1000";
+    insertMethod = INSERT_METHOD_STATEMENT;
+    rowsPerStatement = "100";
 
     partitioningEnabled = false;
     partitioningMonthly = true;
@@ -519,6 +598,9 @@ public class TableOutputMeta extends BaseStepMeta implements StepMetaInterface,
     retval.append( "    " + XMLHandler.addTagValue( "truncate", truncateTable ) );
     retval.append( "    " + XMLHandler.addTagValue( "ignore_errors", ignoreErrors ) );
     retval.append( "    " + XMLHandler.addTagValue( "use_batch", useBatchUpdate ) );
+    retval.append( "    " + XMLHandler.addTagValue( "insert_method", insertMethod ) );
+    retval.append( "    " + XMLHandler.addTagValue( "rows_per_statement", rowsPerStatement ) );
+    retval.append( "    " + XMLHandler.addTagValue( "async_commit", asyncCommit ) );
     retval.append( "    " + XMLHandler.addTagValue( "specify_fields", specifyFields ) );
 
     retval.append( "    " + XMLHandler.addTagValue( "partitioning_enabled", partitioningEnabled ) );
@@ -556,6 +638,9 @@ public class TableOutputMeta extends BaseStepMeta implements StepMetaInterface,
       truncateTable = rep.getStepAttributeBoolean( id_step, "truncate" );
       ignoreErrors = rep.getStepAttributeBoolean( id_step, "ignore_errors" );
       useBatchUpdate = rep.getStepAttributeBoolean( id_step, "use_batch" );
+      insertMethod = Const.NVL( rep.getStepAttributeString( id_step, "insert_method" ), INSERT_METHOD_STATEMENT );
+      rowsPerStatement = Const.NVL( rep.getStepAttributeString( id_step, "rows_per_statement" ), "100" );
+      asyncCommit = rep.getStepAttributeBoolean( id_step, "async_commit" );
       specifyFields = rep.getStepAttributeBoolean( id_step, "specify_fields" );
 
       partitioningEnabled = rep.getStepAttributeBoolean( id_step, "partitioning_enabled" );
@@ -595,6 +680,9 @@ public class TableOutputMeta extends BaseStepMeta implements StepMetaInterface,
       rep.saveStepAttribute( id_transformation, id_step, "truncate", truncateTable );
       rep.saveStepAttribute( id_transformation, id_step, "ignore_errors", ignoreErrors );
       rep.saveStepAttribute( id_transformation, id_step, "use_batch", useBatchUpdate );
+      rep.saveStepAttribute( id_transformation, id_step, "insert_method", insertMethod );
+      rep.saveStepAttribute( id_transformation, id_step, "rows_per_statement", rowsPerStatement );
+      rep.saveStepAttribute( id_transformation, id_step, "async_commit", asyncCommit );
       rep.saveStepAttribute( id_transformation, id_step, "specify_fields", specifyFields );
 
       rep.saveStepAttribute( id_transformation, id_step, "partitioning_enabled", partitioningEnabled );
@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
 import com.google.common.annotations.VisibleForTesting;
 import org.pentaho.di.core.Const;
@@ -38,6 +39,7 @@ import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.logging.KettleLogStore;
+import org.pentaho.di.core.logging.Metrics;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.i18n.BaseMessages;
@@ -206,16 +208,31 @@ public class TransExecutor extends BaseStep implements StepInterface {
       discardLogLines( transExecutorData );
     }
 
-    Trans executorTrans = createInternalTrans();
-    transExecutorData.setExecutorTrans( executorTrans );
-    if ( incomingFieldValues != null ) {
-      // Pass parameter values
-      passParametersToTrans( incomingFieldValues );
+    long setupStart = System.nanoTime();
+    if ( transExecutorData.preparedTransformations > 0 && transExecutorData.transPool == null ) {
+      transExecutorData.transPool = createTransPool();
+    }
+
+    Trans executorTrans;
+    TransExecutorPool.PreparedTrans preparedTrans = null;
+    if ( transExecutorData.transPool != null ) {
+      // The parameters don't depend on the rows, they were passed when the sub-transformation was prepared
+      //
+      preparedTrans = transExecutorData.transPool.take();
+      executorTrans = preparedTrans.getTrans();
+      transExecutorData.setExecutorTrans( executorTrans );
     } else {
-      List<String> lastIncomingFieldValues = getLastIncomingFieldValues();
-      // incomingFieldValues == null-  There are no more rows - Last Case - pass previous values if exists
-      // If not still pass the null parameter values
-      passParametersToTrans( lastIncomingFieldValues != null && !lastIncomingFieldValues.isEmpty() ? lastIncomingFieldValues : incomingFieldValues );
+      executorTrans = createInternalTrans();
+      transExecutorData.setExecutorTrans( executorTrans );
+      if ( incomingFieldValues != null ) {
+        // Pass parameter values
+        passParametersToTrans( incomingFieldValues );
+      } else {
+        List<String> lastIncomingFieldValues = getLastIncomingFieldValues();
+        // incomingFieldValues == null-  There are no more rows - Last Case - pass previous values if exists
+        // If not still pass the null parameter values
+        passParametersToTrans( lastIncomingFieldValues != null && !lastIncomingFieldValues.isEmpty() ? lastIncomingFieldValues : incomingFieldValues );
+      }
     }
 
 
@@ -226,8 +243,16 @@ public class TransExecutor extends BaseStep implements StepInterface {
     result.setRows( transExecutorData.groupBuffer );
     executorTrans.setPreviousResult( result );
 
+    long setupNanos = 0L;
+    long processingStart = 0L;
     try {
-      executorTrans.prepareExecution( getTrans().getArguments() );
+      if ( preparedTrans != null ) {
+        preparedTrans.checkPrepared();
+      } else {
+        executorTrans.prepareExecution( getTrans().getArguments() );
+      }
+      setupNanos = System.nanoTime() - setupStart;
+      processingStart = System.nanoTime();
 
       // run transformation
       executorTrans.startThreads();
@@ -248,6 +273,11 @@ public class TransExecutor extends BaseStep implements StepInterface {
       result.setResult( false );
       result.setNrErrors( 1 );
     }
+    long processingNanos = processingStart > 0L ? System.nanoTime() - processingStart : 0L;
+    if ( preparedTrans != null ) {
+      transExecutorData.transPool.release( preparedTrans );
+    }
+    snapGroupTimes( setupNanos, processingNanos );
 
     if ( result.isSafeStop() ) {
       getTrans().safeStop();
@@ -270,9 +300,51 @@ public class TransExecutor extends BaseStep implements StepInterface {
     }
   }
 
+  /**
+   * Keeps the sub-transformations prepared ahead of the groups of rows, if the parameters passed to them don't depend
+   * on the rows.
+   */
+  private TransExecutorPool createTransPool() {
+    String[] fields = meta.getParameters().getField();
+    if ( fields != null ) {
+      for ( String field : fields ) {
+        if ( !Utils.isEmpty( Const.trim( field ) ) ) {
+          logBasic( BaseMessages.getString( PKG, "TransExecutor.Log.NoPreparedTransformationsWithFieldParameters" ) );
+          getData().preparedTransformations = 0;
+          return null;
+        }
+      }
+    }
+    if ( log.isBasic() ) {
+      logBasic( BaseMessages.getString( PKG, "TransExecutor.Log.PreparingTransformations",
+        getData().preparedTransformations ) );
+    }
+    return new TransExecutorPool( getData().getExecutorTransMeta(), getData().preparedTransformations,
+      transMeta -> {
+        Trans executorTrans = createInternalTrans( transMeta );
+        passParametersToTrans( null, executorTrans );
+        return executorTrans;
+      }, getTrans().getArguments() );
+  }
+
+  private void snapGroupTimes( long setupNanos, long processingNanos ) {
+    long setupMs = TimeUnit.NANOSECONDS.toMillis( setupNanos );
+    long processingMs = TimeUnit.NANOSECONDS.toMillis( processingNanos );
+    if ( log.isDebug() ) {
+      logDebug( BaseMessages.getString( PKG, "TransExecutor.Log.GroupTimes", setupMs, processingMs ) );
+    }
+    log.snap( Metrics.METRIC_STEP_SUBTRANS_SETUP_TIME, setupMs );
+    log.snap( Metrics.METRIC_STEP_SUBTRANS_PROCESSING_TIME, processingMs );
+  }
+
   @VisibleForTesting
   Trans createInternalTrans() throws KettleException {
-    Trans executorTrans = new Trans( getData().getExecutorTransMeta(), this );
+    return createInternalTrans( getData().getExecutorTransMeta() );
+  }
+
+  @VisibleForTesting
+  Trans createInternalTrans( TransMeta transMeta ) throws KettleException {
+    Trans executorTrans = new Trans( transMeta, this );
 
     executorTrans.setParentTrans( getTrans() );
     executorTrans.setRepository( getTrans().getRepository() );
@@ -290,6 +362,10 @@ public class TransExecutor extends BaseStep implements StepInterface {
 
   @VisibleForTesting
   void passParametersToTrans( List<String> incomingFieldValues ) throws KettleException {
+    passParametersToTrans( incomingFieldValues, getExecutorTrans() );
+  }
+
+  private void passParametersToTrans( List<String> incomingFieldValues, Trans trans ) throws KettleException {
     //The values of the incoming fields from the previous step.
     if ( incomingFieldValues == null ) {
       incomingFieldValues = new ArrayList<String>();
@@ -367,7 +443,6 @@ public class TransExecutor extends BaseStep implements StepInterface {
       inputFieldValues[i] = resolvingValuesMap.get( parameters.getVariable()[i] );
     }
 
-    Trans trans = getExecutorTrans();
     initializeVariablesFromParent( trans );
 
     StepWithMappingMeta
@@ -487,6 +562,10 @@ public class TransExecutor extends BaseStep implements StepInterface {
           }
           transExecutorData.groupTimeStart = System.currentTimeMillis();
 
+          // How many sub-transformations do we keep prepared?
+          transExecutorData.preparedTransformations =
+            Const.toInt( environmentSubstitute( meta.getPreparedTransformations() ), 0 );
+
           // Is there a grouping field set?
           if ( !Utils.isEmpty( meta.getGroupField() ) ) {
             transExecutorData.groupField = environmentSubstitute( meta.getGroupField() );
@@ -513,6 +592,10 @@ public class TransExecutor extends BaseStep implements StepInterface {
   public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
     TransExecutorData transExecutorData = getData();
     transExecutorData.groupBuffer = null;
+    if ( transExecutorData.transPool != null ) {
+      transExecutorData.transPool.dispose();
+      transExecutorData.transPool = null;
+    }
     super.dispose( smi, sdi );
   }
 
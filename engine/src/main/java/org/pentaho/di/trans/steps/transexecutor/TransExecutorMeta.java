@@ -101,6 +101,15 @@ public class TransExecutorMeta extends StepWithMappingMeta implements StepMetaIn
    */
   private String groupTime;
 
+  /**
+   * Optional number of sub-transformations that are kept prepared ahead of the groups of rows they execute (empty
+   * default, "0": every group prepares its own sub-transformation). This is an opt-in for sub-transformations whose
+   * steps can be initialized at any time: the steps are initialized before the rows of their group are known, the
+   * previous result is only set afterwards, and the sub-transformations left prepared at the end are initialized
+   * without ever being executed. Parameters can't take their values from fields.
+   */
+  private String preparedTransformations;
+
   private TransExecutorParameters parameters;
 
   private String executionResultTargetStep;
@@ -270,6 +279,7 @@ public class TransExecutorMeta extends StepWithMappingMeta implements StepMetaIn
     retval.append( "    " ).append( XMLHandler.addTagValue( "group_size", groupSize ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "group_field", groupField ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "group_time", groupTime ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "prepared_transformations", preparedTransformations ) );
 
     // Add the mapping parameters too
     //
@@ -338,6 +348,7 @@ public class TransExecutorMeta extends StepWithMappingMeta implements StepMetaIn
       groupSize = XMLHandler.getTagValue( stepnode, "group_size" );
       groupField = XMLHandler.getTagValue( stepnode, "group_field" );
       groupTime = XMLHandler.getTagValue( stepnode, "group_time" );
+      preparedTransformations = XMLHandler.getTagValue( stepnode, "prepared_transformations" );
 
       // Load the mapping parameters too..
       //
@@ -399,6 +410,7 @@ public class TransExecutorMeta extends StepWithMappingMeta implements StepMetaIn
     groupSize = rep.getStepAttributeString( id_step, "group_size" );
     groupField = rep.getStepAttributeString( id_step, "group_field" );
     groupTime = rep.getStepAttributeString( id_step, "group_time" );
+    preparedTransformations = rep.getStepAttributeString( id_step, "prepared_transformations" );
 
     parameters = new TransExecutorParameters( rep, id_step );
 
@@ -448,6 +460,7 @@ public class TransExecutorMeta extends StepWithMappingMeta implements StepMetaIn
     rep.saveStepAttribute( id_transformation, id_step, "group_size", groupSize );
     rep.saveStepAttribute( id_transformation, id_step, "group_field", groupField );
     rep.saveStepAttribute( id_transformation, id_step, "group_time", groupTime );
+    rep.saveStepAttribute( id_transformation, id_step, "prepared_transformations", preparedTransformations );
 
     // save the mapping parameters too
     //
@@ -500,6 +513,7 @@ public class TransExecutorMeta extends StepWithMappingMeta implements StepMetaIn
     groupSize = "1";
     groupField = "";
     groupTime = "";
+    preparedTransformations = "";
 
     executionTimeField = "ExecutionTime";
     executionResultField = "ExecutionResult";
@@ -1024,6 +1038,20 @@ public class TransExecutorMeta extends StepWithMappingMeta implements StepMetaIn
     this.groupTime = groupTime;
   }
 
+  /**
+   * @return the number of sub-transformations kept prepared ahead of the groups of rows
+   */
+  public String getPreparedTransformations() {
+    return preparedTransformations;
+  }
+
+  /**
+   * @param preparedTransformations the number of sub-transformations kept prepared ahead of the groups of rows
+   */
+  public void setPreparedTransformations( String preparedTransformations ) {
+    this.preparedTransformations = preparedTransformations;
+  }
+
   @Override
   public boolean excludeFromCopyDistributeVerification() {
     return true;
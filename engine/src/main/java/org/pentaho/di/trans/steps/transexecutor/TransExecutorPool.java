@@ -0,0 +1,184 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.trans.steps.transexecutor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.util.ExecutorUtil;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+
+/**
+ * Keeps sub-transformations of a transformation executor prepared ahead of the groups of rows they execute: created,
+ * parameters passed and steps initialized. A group takes a prepared sub-transformation and, once it's done, a new one
+ * is prepared in the background while the next groups execute.<br>
+ * <br>
+ * Every slot in the pool has a copy of the transformation meta-data of its own, so a sub-transformation being prepared
+ * never shares it with one that is executing. The sub-transformations are created on the thread of the step, only the
+ * initialization of their steps runs in the background.
+ */
+class TransExecutorPool {
+
+  /**
+   * Creates a sub-transformation and passes the parameters to it.
+   */
+  interface TransFactory {
+    Trans createTrans( TransMeta transMeta ) throws KettleException;
+  }
+
+  /**
+   * A sub-transformation taken from the pool, with the error preparing it, if any.
+   */
+  static class PreparedTrans {
+    private final TransMeta transMeta;
+    private final Trans trans;
+    private final KettleException error;
+
+    PreparedTrans( TransMeta transMeta, Trans trans, KettleException error ) {
+      this.transMeta = transMeta;
+      this.trans = trans;
+      this.error = error;
+    }
+
+    Trans getTrans() {
+      return trans;
+    }
+
+    /**
+     * @throws KettleException the error preparing the execution of the sub-transformation, if any
+     */
+    void checkPrepared() throws KettleException {
+      if ( error != null ) {
+        throw error;
+      }
+    }
+  }
+
+  /**
+   * A slot of the pool: its copy of the meta-data and the sub-transformation being prepared with it.
+   */
+  private static class Slot {
+    private final TransMeta transMeta;
+    private final Future<PreparedTrans> preparedTrans;
+
+    Slot( TransMeta transMeta, Future<PreparedTrans> preparedTrans ) {
+      this.transMeta = transMeta;
+      this.preparedTrans = preparedTrans;
+    }
+  }
+
+  private final TransFactory transFactory;
+  private final String[] arguments;
+  private final Deque<Slot> slots = new ArrayDeque<>();
+
+  /**
+   * Starts preparing the sub-transformations in the background.
+   *
+   * @param transMeta    the sub-transformation meta-data, used by the first slot, the other slots use a copy
+   * @param size         the number of sub-transformations to keep prepared
+   * @param transFactory creates the sub-transformations
+   * @param arguments    the command line arguments to prepare the sub-transformations with
+   */
+  TransExecutorPool( TransMeta transMeta, int size, TransFactory transFactory, String[] arguments ) {
+    this.transFactory = transFactory;
+    this.arguments = arguments;
+    for ( int i = 0; i < size; i++ ) {
+      prepareAhead( i == 0 ? transMeta : (TransMeta) transMeta.realClone( false ) );
+    }
+  }
+
+  /**
+   * Takes the sub-transformation which was prepared first, waiting for it if it's not ready yet.
+   *
+   * @return the prepared sub-transformation, give it back with {@link #release(PreparedTrans)} once it's done
+   * @throws KettleException in case the sub-transformation couldn't be created, a new one is prepared in its slot
+   */
+  synchronized PreparedTrans take() throws KettleException {
+    Slot slot = slots.pollFirst();
+    if ( slot == null ) {
+      throw new KettleException( "There are no prepared sub-transformations left in the pool" );
+    }
+    try {
+      return slot.preparedTrans.get();
+    } catch ( InterruptedException e ) {
+      slots.addFirst( slot );
+      Thread.currentThread().interrupt();
+      throw new KettleException( "Interrupted while waiting for a prepared sub-transformation", e );
+    } catch ( ExecutionException e ) {
+      prepareAhead( slot.transMeta );
+      throw new KettleException( "Unable to create the sub-transformation", e.getCause() );
+    }
+  }
+
+  /**
+   * Prepares a new sub-transformation in the slot of one which is done.
+   */
+  synchronized void release( PreparedTrans done ) {
+    prepareAhead( done.transMeta );
+  }
+
+  /**
+   * Releases the steps of the sub-transformations which were prepared but never executed.
+   */
+  synchronized void dispose() {
+    while ( !slots.isEmpty() ) {
+      try {
+        slots.pollFirst().preparedTrans.get().getTrans().cleanup();
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch ( ExecutionException e ) {
+        // Nothing was prepared, nothing to release
+      }
+    }
+  }
+
+  private void prepareAhead( TransMeta transMeta ) {
+    Future<PreparedTrans> preparedTrans;
+    try {
+      Trans trans = transFactory.createTrans( transMeta );
+      preparedTrans = ExecutorUtil.getExecutor().submit( () -> prepare( transMeta, trans ) );
+    } catch ( KettleException | RuntimeException e ) {
+      // Reported when the slot is taken, like a failure in the background
+      //
+      CompletableFuture<PreparedTrans> failed = new CompletableFuture<>();
+      failed.completeExceptionally( e );
+      preparedTrans = failed;
+    }
+    slots.addLast( new Slot( transMeta, preparedTrans ) );
+  }
+
+  private PreparedTrans prepare( TransMeta transMeta, Trans trans ) {
+    try {
+      trans.prepareExecution( arguments );
+      return new PreparedTrans( transMeta, trans, null );
+    } catch ( KettleException e ) {
+      return new PreparedTrans( transMeta, trans, e );
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.trans.steps.uniquerowsbyhashset;
+
+/**
+ * A Bloom filter over 128-bit row key fingerprints. It never reports a new key as seen before, but it reports a
+ * fraction of the new keys, the false positive rate, as duplicates. The memory use only depends on the expected number
+ * of distinct keys and the false positive rate, not on the actual number of keys.
+ */
+class FingerprintFilter {
+  private static final long MAX_HASHES = 32;
+
+  private final long[] bits;
+  private final long nrBits;
+  private final int nrHashes;
+
+  /**
+   * @param expectedKeys
+   *          the expected number of distinct keys
+   * @param falsePositiveRate
+   *          the accepted fraction of new keys reported as duplicates, between 0 and 1
+   */
+  FingerprintFilter( long expectedKeys, double falsePositiveRate ) {
+    expectedKeys = Math.max( expectedKeys, 1L );
+    double optimalBits = -expectedKeys * Math.log( falsePositiveRate ) / ( Math.log( 2 ) * Math.log( 2 ) );
+    long nrWords = Math.min( Math.max( (long) Math.ceil( optimalBits / 64 ), 1L ), Integer.MAX_VALUE - 8 );
+    bits = new long[(int) nrWords];
+    nrBits = nrWords * 64;
+    nrHashes = (int) Math.min( MAX_HASHES, Math.max( 1L, Math.round( (double) nrBits / expectedKeys * Math.log( 2 ) ) ) );
+  }
+
+  /**
+   * Adds a fingerprint. The bit positions are derived from both halves of the fingerprint by double hashing.
+   *
+   * @return true if the fingerprint was certainly not added before, false if it probably was
+   */
+  boolean add( long high, long low ) {
+    boolean added = false;
+    long combined = high;
+    for ( int i = 0; i < nrHashes; i++ ) {
+      long index = ( combined & Long.MAX_VALUE ) % nrBits;
+      int word = (int) ( index >>> 6 );
+      long bit = 1L << index;
+      if ( ( bits[word] & bit ) == 0L ) {
+        bits[word] |= bit;
+        added = true;
+      }
+      combined += low;
+    }
+    return added;
+  }
+
+  /**
+   * @return the number of hash functions
+   */
+  int getNrHashes() {
+    return nrHashes;
+  }
+
+  /**
+   * @return the size of the filter in bytes
+   */
+  long getMemorySize() {
+    return bits.length * 8L;
+  }
+}
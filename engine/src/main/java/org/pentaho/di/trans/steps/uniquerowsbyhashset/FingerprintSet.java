@@ -0,0 +1,147 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.trans.steps.uniquerowsbyhashset;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.pentaho.di.core.exception.KettleException;
+
+/**
+ * A set of 128-bit row key fingerprints kept in a single primitive open addressing table, without an object per key.
+ * Every fingerprint takes two longs; with the table at most three quarters full that is 22 to 43 bytes per distinct
+ * key, compared to well over a hundred bytes for a {@link RowKey} with its key values in a {@link java.util.HashSet}.
+ * <p>
+ * The table stops growing at {@link #MAX_CAPACITY} slots, the largest that fits in a Java array. Once it is full (see
+ * {@link #isFull()}) the fingerprints need to be spilled before more are added.
+ */
+class FingerprintSet {
+  private static final int INITIAL_CAPACITY = 1024;
+
+  /**
+   * The maximum number of slots: two longs per slot still fit in an array.
+   */
+  static final int MAX_CAPACITY = 1 << 29;
+
+  private final int maxCapacity;
+  private long[] table;
+  private int mask;
+  private int size;
+
+  FingerprintSet() {
+    this( MAX_CAPACITY );
+  }
+
+  @VisibleForTesting
+  FingerprintSet( int maxCapacity ) {
+    this.maxCapacity = maxCapacity;
+    allocate( Math.min( INITIAL_CAPACITY, maxCapacity ) );
+  }
+
+  private void allocate( int capacity ) {
+    table = new long[capacity * 2];
+    mask = capacity - 1;
+    size = 0;
+  }
+
+  /**
+   * Adds a fingerprint.
+   *
+   * @param high
+   *          the upper 64 bits of the fingerprint
+   * @param low
+   *          the lower 64 bits of the fingerprint
+   * @return true if the fingerprint was not in the set yet
+   */
+  boolean add( long high, long low ) {
+    if ( high == 0L && low == 0L ) {
+      // The empty slot marker
+      //
+      low = 1L;
+    }
+    int slot = (int) high & mask;
+    while ( true ) {
+      long slotHigh = table[slot * 2];
+      long slotLow = table[slot * 2 + 1];
+      if ( slotHigh == 0L && slotLow == 0L ) {
+        break;
+      }
+      if ( slotHigh == high && slotLow == low ) {
+        return false;
+      }
+      slot = ( slot + 1 ) & mask;
+    }
+    table[slot * 2] = high;
+    table[slot * 2 + 1] = low;
+    size++;
+    if ( isOverloaded() && mask + 1 < maxCapacity ) {
+      grow();
+    }
+    return true;
+  }
+
+  private boolean isOverloaded() {
+    return size * 4L > ( mask + 1L ) * 3L;
+  }
+
+  /**
+   * @return true if the table is as large as it gets and three quarters full, no fingerprints can be added anymore
+   */
+  boolean isFull() {
+    return isOverloaded();
+  }
+
+  private void grow() {
+    long[] old = table;
+    allocate( ( mask + 1 ) * 2 );
+    for ( int i = 0; i < old.length; i += 2 ) {
+      if ( old[i] != 0L || old[i + 1] != 0L ) {
+        add( old[i], old[i + 1] );
+      }
+    }
+  }
+
+  /**
+   * @return the number of fingerprints in the set
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * @return the size of the table in bytes
+   */
+  long getMemorySize() {
+    return table.length * 8L;
+  }
+
+  /**
+   * Writes all fingerprints to the partitions of a spill and empties the set.
+   */
+  void spillTo( UniqueRowsSpill spill ) throws KettleException {
+    for ( int i = 0; i < table.length; i += 2 ) {
+      if ( table[i] != 0L || table[i + 1] != 0L ) {
+        spill.addSeen( table[i], table[i + 1] );
+      }
+    }
+    allocate( Math.min( INITIAL_CAPACITY, maxCapacity ) );
+  }
+}
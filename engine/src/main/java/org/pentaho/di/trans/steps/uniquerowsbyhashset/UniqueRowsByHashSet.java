@@ -22,6 +22,11 @@
 
 package org.pentaho.di.trans.steps.uniquerowsbyhashset;
 
+import java.io.DataOutputStream;
+
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Longs;
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.i18n.BaseMessages;
@@ -51,6 +56,123 @@ public class UniqueRowsByHashSet extends BaseStep implements StepInterface {
     return data.seen.add( new RowKey( row, data ) );
   }
 
+  /**
+   * Serializes the key values of a row and hashes them into a 128-bit fingerprint.
+   */
+  private void calculateFingerprint( Object[] row ) throws KettleException {
+    data.keyBuffer.reset();
+    if ( data.fieldnrs.length == 0 ) {
+      data.inputRowMeta.writeData( data.keyOutput, row );
+    } else {
+      for ( int i = 0; i < data.fieldnrs.length; i++ ) {
+        data.inputRowMeta.getValueMeta( data.fieldnrs[i] ).writeData( data.keyOutput, row[data.fieldnrs[i]] );
+      }
+    }
+    byte[] hash = Hashing.murmur3_128().hashBytes( data.keyBuffer.getBuffer(), 0, data.keyBuffer.size() ).asBytes();
+    data.fingerprintHigh = Longs.fromBytes( hash[0], hash[1], hash[2], hash[3], hash[4], hash[5], hash[6], hash[7] );
+    data.fingerprintLow =
+      Longs.fromBytes( hash[8], hash[9], hash[10], hash[11], hash[12], hash[13], hash[14], hash[15] );
+  }
+
+  /**
+   * Moves a fingerprint table to disk once it grew beyond the memory limit, or beyond the largest table there can be
+   * even without a limit.
+   *
+   * @return the spill holding the fingerprints of the table, null if the table still fits
+   */
+  private UniqueRowsSpill spillIfFull( FingerprintSet fingerprints, int level ) throws KettleException {
+    boolean full = fingerprints.isFull();
+    if ( !full && ( data.memoryLimit <= 0 || fingerprints.getMemorySize() <= data.memoryLimit ) ) {
+      return null;
+    }
+    if ( level >= UniqueRowsSpill.MAX_LEVEL ) {
+      if ( full ) {
+        throw new KettleException( BaseMessages.getString( PKG, "UniqueRowsByHashSet.Exception.TooManyKeys",
+          fingerprints.size() ) );
+      }
+      return null;
+    }
+    if ( log.isBasic() && full ) {
+      logBasic( BaseMessages.getString( PKG, "UniqueRowsByHashSet.Log.SpillingFullTable", fingerprints.size(),
+        level ) );
+    } else if ( log.isBasic() ) {
+      logBasic( BaseMessages.getString( PKG, "UniqueRowsByHashSet.Log.SpillingPartitions",
+        environmentSubstitute( meta.getMemoryLimit() ), fingerprints.size(), level ) );
+    }
+    UniqueRowsSpill spill =
+      new UniqueRowsSpill( data.inputRowMeta, level, environmentSubstitute( meta.getPrefix() ), meta
+        .getDirectory(), this );
+    fingerprints.spillTo( spill );
+    return spill;
+  }
+
+  /**
+   * Deduplicates the spilled rows partition by partition: the fingerprints seen before the spill are loaded first,
+   * then the rows of the partition are filtered against them in the order they were received.
+   */
+  private void deduplicateSpill( UniqueRowsSpill spill ) throws KettleException {
+    for ( int partition = 0; partition < UniqueRowsSpill.NR_PARTITIONS; partition++ ) {
+      if ( spill.getRowCount( partition ) == 0 ) {
+        // Only fingerprints of rows that were passed on already
+        //
+        spill.deletePartition( partition );
+        continue;
+      }
+
+      FingerprintSet fingerprints = new FingerprintSet();
+      UniqueRowsSpill child = null;
+      try {
+        UniqueRowsSpill.Reader reader = spill.openPartition( partition );
+        try {
+          while ( reader.nextSeen() ) {
+            if ( child != null ) {
+              child.addSeen( reader.getHigh(), reader.getLow() );
+            } else if ( fingerprints.add( reader.getHigh(), reader.getLow() ) ) {
+              child = spillIfFull( fingerprints, spill.getLevel() + 1 );
+            }
+          }
+          Object[] row;
+          while ( ( row = reader.readRow() ) != null ) {
+            if ( child != null ) {
+              child.addRow( reader.getHigh(), reader.getLow(), row );
+            } else {
+              boolean unique = fingerprints.add( reader.getHigh(), reader.getLow() );
+              putUniqueOrDuplicateRow( row, unique );
+              if ( unique ) {
+                child = spillIfFull( fingerprints, spill.getLevel() + 1 );
+              }
+            }
+          }
+        } finally {
+          reader.close();
+          spill.deletePartition( partition );
+        }
+        fingerprints = null;
+
+        if ( child != null ) {
+          deduplicateSpill( child );
+        }
+      } finally {
+        if ( child != null ) {
+          child.close();
+        }
+      }
+    }
+  }
+
+  private void putUniqueOrDuplicateRow( Object[] r, boolean unique ) throws KettleException {
+    if ( unique ) {
+      putRow( data.outputRowMeta, r );
+    } else {
+      incrementLinesRejected();
+      if ( data.sendDuplicateRows ) {
+        // Simply add this row to the error row
+        putError( getInputRowMeta(), r, 1, data.realErrorDescription, Utils.isEmpty( data.compareFields )
+          ? null : data.compareFields, "UNRH001" );
+      }
+    }
+  }
+
   public boolean processRow( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
     meta = (UniqueRowsByHashSetMeta) smi;
     data = (UniqueRowsByHashSetData) sdi;
@@ -58,6 +180,14 @@ public class UniqueRowsByHashSet extends BaseStep implements StepInterface {
     Object[] r = getRow(); // get row!
     if ( r == null ) { // no more input to be expected...
 
+      if ( data.spill != null ) {
+        try {
+          deduplicateSpill( data.spill );
+        } finally {
+          data.spill.close();
+          data.spill = null;
+        }
+      }
       data.clearHashSet();
       setOutputDone();
       return false;
@@ -95,15 +225,24 @@ public class UniqueRowsByHashSet extends BaseStep implements StepInterface {
       }
     }
 
-    if ( isUniqueRow( r ) ) {
-      putRow( data.outputRowMeta, r );
-    } else {
-      incrementLinesRejected();
-      if ( data.sendDuplicateRows ) {
-        // Simply add this row to the error row
-        putError( getInputRowMeta(), r, 1, data.realErrorDescription, Utils.isEmpty( data.compareFields )
-          ? null : data.compareFields, "UNRH001" );
+    if ( data.fingerprints != null ) {
+      calculateFingerprint( r );
+      if ( data.spill != null ) {
+        // Decided once the input is exhausted
+        //
+        data.spill.addRow( data.fingerprintHigh, data.fingerprintLow, r );
+      } else {
+        boolean unique = data.fingerprints.add( data.fingerprintHigh, data.fingerprintLow );
+        putUniqueOrDuplicateRow( r, unique );
+        if ( unique ) {
+          data.spill = spillIfFull( data.fingerprints, 0 );
+        }
       }
+    } else if ( data.filter != null ) {
+      calculateFingerprint( r );
+      putUniqueOrDuplicateRow( r, data.filter.add( data.fingerprintHigh, data.fingerprintLow ) );
+    } else {
+      putUniqueOrDuplicateRow( r, isUniqueRow( r ) );
     }
 
     if ( checkFeedback( getLinesRead() ) ) {
@@ -122,9 +261,45 @@ public class UniqueRowsByHashSet extends BaseStep implements StepInterface {
     if ( super.init( smi, sdi ) ) {
       // Add init code here.
       data.sendDuplicateRows = getStepMeta().getStepErrorMeta() != null && meta.supportsErrorHandling();
+
+      String distinctMode = Const.NVL( meta.getDistinctMode(), UniqueRowsByHashSetMeta.DISTINCT_MODE_HASH_SET );
+      if ( UniqueRowsByHashSetMeta.DISTINCT_MODE_FINGERPRINT.equals( distinctMode ) ) {
+        data.fingerprints = new FingerprintSet();
+        data.memoryLimit = Const.toLong( environmentSubstitute( meta.getMemoryLimit() ), 0L ) * 1024 * 1024;
+      } else if ( UniqueRowsByHashSetMeta.DISTINCT_MODE_FILTER.equals( distinctMode ) ) {
+        long expectedRows = Const.toLong( environmentSubstitute( meta.getExpectedRows() ), -1L );
+        double falsePositiveRate = Const.toDouble( environmentSubstitute( meta.getFalsePositiveRate() ), -1.0 );
+        if ( expectedRows <= 0 || falsePositiveRate <= 0.0 || falsePositiveRate >= 1.0 ) {
+          logError( BaseMessages.getString( PKG, "UniqueRowsByHashSet.Log.InvalidFilterSettings",
+            meta.getExpectedRows(), meta.getFalsePositiveRate() ) );
+          return false;
+        }
+        data.filter = new FingerprintFilter( expectedRows, falsePositiveRate );
+        if ( log.isDetailed() ) {
+          logDetailed( BaseMessages.getString( PKG, "UniqueRowsByHashSet.Log.FilterSize",
+            data.filter.getMemorySize() / ( 1024 * 1024 ), data.filter.getNrHashes() ) );
+        }
+      } else if ( !UniqueRowsByHashSetMeta.DISTINCT_MODE_HASH_SET.equals( distinctMode ) ) {
+        logError( BaseMessages.getString( PKG, "UniqueRowsByHashSet.Log.UnknownDistinctMode", distinctMode ) );
+        return false;
+      }
+      if ( data.fingerprints != null || data.filter != null ) {
+        data.keyBuffer = new UniqueRowsByHashSetData.KeyBuffer();
+        data.keyOutput = new DataOutputStream( data.keyBuffer );
+      }
       return true;
     }
     return false;
   }
 
+  @Override
+  public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
+    super.dispose( smi, sdi );
+    UniqueRowsByHashSetData data = (UniqueRowsByHashSetData) sdi;
+    if ( data.spill != null ) {
+      data.spill.close();
+      data.spill = null;
+    }
+  }
+
 }
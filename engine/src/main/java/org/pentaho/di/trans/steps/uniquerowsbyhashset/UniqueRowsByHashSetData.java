@@ -22,6 +22,8 @@
 
 package org.pentaho.di.trans.steps.uniquerowsbyhashset;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.util.HashSet;
 
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -39,13 +41,38 @@ public class UniqueRowsByHashSetData extends BaseStepData implements StepDataInt
 
   public HashSet<RowKey> seen = new HashSet<RowKey>();
 
+  /** The fingerprints of the distinct rows in fingerprint mode */
+  FingerprintSet fingerprints;
+  /** The Bloom filter of the distinct rows in filter mode */
+  FingerprintFilter filter;
+  /** The rows and fingerprints spilled to disk once the fingerprint table reached the memory limit */
+  UniqueRowsSpill spill;
+  long memoryLimit;
+
+  /** The serialized key of the current row and its fingerprint */
+  KeyBuffer keyBuffer;
+  DataOutputStream keyOutput;
+  long fingerprintHigh;
+  long fingerprintLow;
+
   public UniqueRowsByHashSetData() {
     super();
   }
 
+  /**
+   * Gives access to the serialized key without copying it.
+   */
+  static class KeyBuffer extends ByteArrayOutputStream {
+    byte[] getBuffer() {
+      return buf;
+    }
+  }
+
   public void clearHashSet() {
     sendDuplicateRows = false;
     compareFields = null;
     realErrorDescription = null;
+    fingerprints = null;
+    filter = null;
   }
 }
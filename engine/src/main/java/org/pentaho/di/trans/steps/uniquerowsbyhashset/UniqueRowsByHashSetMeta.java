@@ -25,6 +25,7 @@ package org.pentaho.di.trans.steps.uniquerowsbyhashset;
 import java.util.List;
 
 import org.pentaho.di.core.CheckResult;
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.CheckResultInterface;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleException;
@@ -49,6 +50,15 @@ import org.w3c.dom.Node;
 public class UniqueRowsByHashSetMeta extends BaseStepMeta implements StepMetaInterface {
   private static Class<?> PKG = UniqueRowsByHashSetMeta.class; // for i18n purposes, needed by Translator2!!
 
+  /** Keep a {@link RowKey} per distinct row in a hash set */
+  public static final String DISTINCT_MODE_HASH_SET = "HASH_SET";
+
+  /** Keep a 128-bit fingerprint per distinct row in a primitive table, spilling to disk beyond the memory limit */
+  public static final String DISTINCT_MODE_FINGERPRINT = "FINGERPRINT";
+
+  /** Keep a Bloom filter of the fingerprints, a fraction of the unique rows is dropped as duplicates */
+  public static final String DISTINCT_MODE_FILTER = "FILTER";
+
   /** Whether to compare strictly by hash value or to store the row values for strict equality checking */
   private boolean storeValues;
 
@@ -58,6 +68,24 @@ public class UniqueRowsByHashSetMeta extends BaseStepMeta implements StepMetaInt
   private boolean rejectDuplicateRow;
   private String errorDescription;
 
+  /** How the distinct rows are kept track of, one of the DISTINCT_MODE_ codes */
+  private String distinctMode;
+
+  /** The memory limit of the fingerprint table in MB, rows are spilled to disk beyond it. Empty means no limit. */
+  private String memoryLimit;
+
+  /** The directory to store the temporary files in */
+  private String directory;
+
+  /** The prefix of the temporary files */
+  private String prefix;
+
+  /** The expected number of distinct rows the Bloom filter is sized for */
+  private String expectedRows;
+
+  /** The accepted fraction of unique rows the Bloom filter drops as duplicates */
+  private String falsePositiveRate;
+
   public UniqueRowsByHashSetMeta() {
     super(); // allocate BaseStepMeta
   }
@@ -119,6 +147,96 @@ public class UniqueRowsByHashSetMeta extends BaseStepMeta implements StepMetaInt
     return errorDescription;
   }
 
+  /**
+   * @return the distinct mode, one of the DISTINCT_MODE_ codes
+   */
+  public String getDistinctMode() {
+    return distinctMode;
+  }
+
+  /**
+   * @param distinctMode
+   *          the distinct mode to set, one of the DISTINCT_MODE_ codes
+   */
+  public void setDistinctMode( String distinctMode ) {
+    this.distinctMode = distinctMode;
+  }
+
+  /**
+   * @return the memory limit of the fingerprint table in MB
+   */
+  public String getMemoryLimit() {
+    return memoryLimit;
+  }
+
+  /**
+   * @param memoryLimit
+   *          the memory limit of the fingerprint table in MB to set
+   */
+  public void setMemoryLimit( String memoryLimit ) {
+    this.memoryLimit = memoryLimit;
+  }
+
+  /**
+   * @return the directory to store the temporary files in
+   */
+  public String getDirectory() {
+    return directory;
+  }
+
+  /**
+   * @param directory
+   *          the directory to store the temporary files in
+   */
+  public void setDirectory( String directory ) {
+    this.directory = directory;
+  }
+
+  /**
+   * @return the prefix of the temporary files
+   */
+  public String getPrefix() {
+    return prefix;
+  }
+
+  /**
+   * @param prefix
+   *          the prefix of the temporary files to set
+   */
+  public void setPrefix( String prefix ) {
+    this.prefix = prefix;
+  }
+
+  /**
+   * @return the expected number of distinct rows the Bloom filter is sized for
+   */
+  public String getExpectedRows() {
+    return expectedRows;
+  }
+
+  /**
+   * @param expectedRows
+   *          the expected number of distinct rows to set
+   */
+  public void setExpectedRows( String expectedRows ) {
+    this.expectedRows = expectedRows;
+  }
+
+  /**
+   * @return the accepted fraction of unique rows the Bloom filter drops as duplicates
+   */
+  public String getFalsePositiveRate() {
+    return falsePositiveRate;
+  }
+
+  /**
+   * @param falsePositiveRate
+   *          the false positive rate of the Bloom filter to set
+   */
+  public void setFalsePositiveRate( String falsePositiveRate ) {
+    this.falsePositiveRate = falsePositiveRate;
+  }
+
   public void loadXML( Node stepnode, List<DatabaseMeta> databases, IMetaStore metaStore ) throws KettleXMLException {
     readData( stepnode );
   }
@@ -139,6 +257,12 @@ public class UniqueRowsByHashSetMeta extends BaseStepMeta implements StepMetaInt
       storeValues = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "store_values" ) );
       rejectDuplicateRow = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "reject_duplicate_row" ) );
       errorDescription = XMLHandler.getTagValue( stepnode, "error_description" );
+      distinctMode = Const.NVL( XMLHandler.getTagValue( stepnode, "distinct_mode" ), DISTINCT_MODE_HASH_SET );
+      memoryLimit = XMLHandler.getTagValue( stepnode, "memory_limit" );
+      directory = XMLHandler.getTagValue( stepnode, "directory" );
+      prefix = XMLHandler.getTagValue( stepnode, "prefix" );
+      expectedRows = XMLHandler.getTagValue( stepnode, "expected_rows" );
+      falsePositiveRate = XMLHandler.getTagValue( stepnode, "false_positive_rate" );
 
       Node fields = XMLHandler.getSubNode( stepnode, "fields" );
       int nrfields = XMLHandler.countNodes( fields, "field" );
@@ -160,6 +284,12 @@ public class UniqueRowsByHashSetMeta extends BaseStepMeta implements StepMetaInt
   public void setDefault() {
     rejectDuplicateRow = false;
     errorDescription = null;
+    distinctMode = DISTINCT_MODE_HASH_SET;
+    memoryLimit = null;
+    directory = "%%java.io.tmpdir%%";
+    prefix = "uniq";
+    expectedRows = "10000000";
+    falsePositiveRate = "0.001";
     int nrfields = 0;
 
     allocate( nrfields );
@@ -179,6 +309,12 @@ public class UniqueRowsByHashSetMeta extends BaseStepMeta implements StepMetaInt
     retval.append( "      " + XMLHandler.addTagValue( "store_values", storeValues ) );
     retval.append( "      " + XMLHandler.addTagValue( "reject_duplicate_row", rejectDuplicateRow ) );
     retval.append( "      " + XMLHandler.addTagValue( "error_description", errorDescription ) );
+    retval.append( "      " + XMLHandler.addTagValue( "distinct_mode", distinctMode ) );
+    retval.append( "      " + XMLHandler.addTagValue( "memory_limit", memoryLimit ) );
+    retval.append( "      " + XMLHandler.addTagValue( "directory", directory ) );
+    retval.append( "      " + XMLHandler.addTagValue( "prefix", prefix ) );
+    retval.append( "      " + XMLHandler.addTagValue( "expected_rows", expectedRows ) );
+    retval.append( "      " + XMLHandler.addTagValue( "false_positive_rate", falsePositiveRate ) );
     retval.append( "    <fields>" );
     for ( int i = 0; i < compareFields.length; i++ ) {
       retval.append( "      <field>" );
@@ -195,6 +331,12 @@ public class UniqueRowsByHashSetMeta extends BaseStepMeta implements StepMetaInt
       storeValues = rep.getStepAttributeBoolean( id_step, "store_values" );
       rejectDuplicateRow = rep.getStepAttributeBoolean( id_step, "reject_duplicate_row" );
       errorDescription = rep.getStepAttributeString( id_step, "error_description" );
+      distinctMode = Const.NVL( rep.getStepAttributeString( id_step, "distinct_mode" ), DISTINCT_MODE_HASH_SET );
+      memoryLimit = rep.getStepAttributeString( id_step, "memory_limit" );
+      directory = rep.getStepAttributeString( id_step, "directory" );
+      prefix = rep.getStepAttributeString( id_step, "prefix" );
+      expectedRows = rep.getStepAttributeString( id_step, "expected_rows" );
+      falsePositiveRate = rep.getStepAttributeString( id_step, "false_positive_rate" );
       int nrfields = rep.countNrStepAttributes( id_step, "field_name" );
 
       allocate( nrfields );
@@ -213,6 +355,12 @@ public class UniqueRowsByHashSetMeta extends BaseStepMeta implements StepMetaInt
       rep.saveStepAttribute( id_transformation, id_step, "store_values", storeValues );
       rep.saveStepAttribute( id_transformation, id_step, "reject_duplicate_row", rejectDuplicateRow );
       rep.saveStepAttribute( id_transformation, id_step, "error_description", errorDescription );
+      rep.saveStepAttribute( id_transformation, id_step, "distinct_mode", distinctMode );
+      rep.saveStepAttribute( id_transformation, id_step, "memory_limit", memoryLimit );
+      rep.saveStepAttribute( id_transformation, id_step, "directory", directory );
+      rep.saveStepAttribute( id_transformation, id_step, "prefix", prefix );
+      rep.saveStepAttribute( id_transformation, id_step, "expected_rows", expectedRows );
+      rep.saveStepAttribute( id_transformation, id_step, "false_positive_rate", falsePositiveRate );
       for ( int i = 0; i < compareFields.length; i++ ) {
         rep.saveStepAttribute( id_transformation, id_step, i, "field_name", compareFields[i] );
       }
@@ -0,0 +1,332 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.trans.steps.uniquerowsbyhashset;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.apache.commons.vfs2.FileObject;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.variables.VariableSpace;
+import org.pentaho.di.core.vfs.KettleVFS;
+import org.pentaho.di.i18n.BaseMessages;
+
+/**
+ * The spilled part of a compact distinct filter. Once the fingerprint table reaches its memory limit, the fingerprints
+ * seen so far and all later rows are written to one of {@link #NR_PARTITIONS} pairs of temporary files chosen by the
+ * fingerprint. All occurrences of a key end up in the same partition, so every partition can be deduplicated on its
+ * own afterwards: first its seen fingerprints are loaded, then its rows are filtered in input order. A partition that
+ * overflows again is split on the next bits of the fingerprint, up to {@link #MAX_LEVEL} levels deep.
+ */
+class UniqueRowsSpill implements Closeable {
+  private static Class<?> PKG = UniqueRowsByHashSetMeta.class; // for i18n purposes, needed by Translator2!!
+
+  static final int PARTITION_BITS = 4;
+  static final int NR_PARTITIONS = 1 << PARTITION_BITS;
+  static final int MAX_LEVEL = 8;
+
+  private final RowMetaInterface rowMeta;
+  private final int level;
+  private final String prefix;
+  private final String directory;
+  private final VariableSpace space;
+
+  private final FileObject[] seenFiles = new FileObject[NR_PARTITIONS];
+  private final DataOutputStream[] seenOutputs = new DataOutputStream[NR_PARTITIONS];
+  private final long[] seenCounts = new long[NR_PARTITIONS];
+
+  private final FileObject[] rowFiles = new FileObject[NR_PARTITIONS];
+  private final DataOutputStream[] rowOutputs = new DataOutputStream[NR_PARTITIONS];
+  private final long[] rowCounts = new long[NR_PARTITIONS];
+
+  /**
+   * @param rowMeta
+   *          the layout of the spilled rows
+   * @param level
+   *          the recursion level, 0 for the rows of the step input
+   * @param prefix
+   *          the temporary file prefix
+   * @param directory
+   *          the directory to create the temporary files in
+   * @param space
+   *          the variables to resolve the directory with
+   */
+  UniqueRowsSpill( RowMetaInterface rowMeta, int level, String prefix, String directory, VariableSpace space ) {
+    this.rowMeta = rowMeta;
+    this.level = level;
+    this.prefix = prefix;
+    this.directory = directory;
+    this.space = space;
+  }
+
+  /**
+   * @return the recursion level of this spill
+   */
+  int getLevel() {
+    return level;
+  }
+
+  /**
+   * The partition of a fingerprint at the given level. The low half is used, the fingerprint table slots use the high
+   * half.
+   */
+  static int getPartition( long low, int level ) {
+    return (int) ( low >>> ( level * PARTITION_BITS ) ) & ( NR_PARTITIONS - 1 );
+  }
+
+  /**
+   * Writes a fingerprint that was seen before the spill to its partition.
+   */
+  void addSeen( long high, long low ) throws KettleException {
+    int partition = getPartition( low, level );
+    if ( seenOutputs[partition] == null ) {
+      seenFiles[partition] = createTempFile();
+      seenOutputs[partition] = openOutput( seenFiles[partition] );
+    }
+    try {
+      seenOutputs[partition].writeLong( high );
+      seenOutputs[partition].writeLong( low );
+    } catch ( IOException e ) {
+      throw new KettleFileException( e );
+    }
+    seenCounts[partition]++;
+  }
+
+  /**
+   * Writes a row together with the fingerprint of its key to its partition.
+   */
+  void addRow( long high, long low, Object[] row ) throws KettleException {
+    int partition = getPartition( low, level );
+    if ( rowOutputs[partition] == null ) {
+      rowFiles[partition] = createTempFile();
+      rowOutputs[partition] = openOutput( rowFiles[partition] );
+    }
+    try {
+      rowOutputs[partition].writeLong( high );
+      rowOutputs[partition].writeLong( low );
+    } catch ( IOException e ) {
+      throw new KettleFileException( e );
+    }
+    rowMeta.writeData( rowOutputs[partition], row );
+    rowCounts[partition]++;
+  }
+
+  private FileObject createTempFile() throws KettleException {
+    try {
+      return KettleVFS.createTempFile( prefix, ".tmp", directory, space );
+    } catch ( Exception e ) {
+      throw new KettleException( BaseMessages.getString(
+        PKG, "UniqueRowsByHashSet.Exception.UnableToCreateTemporaryFile" ), e );
+    }
+  }
+
+  private DataOutputStream openOutput( FileObject file ) throws KettleException {
+    try {
+      return new DataOutputStream( new BufferedOutputStream( KettleVFS.getOutputStream( file, false ), 65536 ) );
+    } catch ( Exception e ) {
+      throw new KettleException( BaseMessages.getString(
+        PKG, "UniqueRowsByHashSet.Exception.UnableToCreateTemporaryFile" ), e );
+    }
+  }
+
+  private DataInputStream openInput( FileObject file ) throws KettleException {
+    try {
+      return new DataInputStream( new BufferedInputStream( KettleVFS.getInputStream( file ), 65536 ) );
+    } catch ( Exception e ) {
+      throw new KettleException( BaseMessages.getString(
+        PKG, "UniqueRowsByHashSet.Exception.UnableToReadBackRowFromTemporaryFile" ), e );
+    }
+  }
+
+  /**
+   * @return the number of rows spilled to the given partition
+   */
+  long getRowCount( int partition ) {
+    return rowCounts[partition];
+  }
+
+  /**
+   * @return the total number of spilled rows
+   */
+  long getRowCount() {
+    long total = 0;
+    for ( long rowCount : rowCounts ) {
+      total += rowCount;
+    }
+    return total;
+  }
+
+  /**
+   * Finishes writing and opens a partition for reading. The first call closes all output files.
+   *
+   * @param partition
+   *          the partition to read
+   * @return a reader over the seen fingerprints and then the rows of the partition, in the order they were spilled
+   * @throws KettleException
+   *           in case a temporary file can't be opened
+   */
+  Reader openPartition( int partition ) throws KettleException {
+    closeOutputs();
+    DataInputStream seenInput = seenCounts[partition] == 0 ? null : openInput( seenFiles[partition] );
+    DataInputStream rowInput = rowCounts[partition] == 0 ? null : openInput( rowFiles[partition] );
+    return new Reader( seenInput, seenCounts[partition], rowInput, rowCounts[partition] );
+  }
+
+  /**
+   * Deletes the temporary files of a partition once it has been deduplicated.
+   */
+  void deletePartition( int partition ) {
+    delete( seenFiles[partition] );
+    seenFiles[partition] = null;
+    delete( rowFiles[partition] );
+    rowFiles[partition] = null;
+  }
+
+  private void delete( FileObject file ) {
+    if ( file != null ) {
+      try {
+        file.delete();
+      } catch ( IOException e ) {
+        // Ignore, the file was created as a temporary file anyway
+      }
+    }
+  }
+
+  private void closeOutputs() throws KettleException {
+    try {
+      for ( int i = 0; i < NR_PARTITIONS; i++ ) {
+        if ( seenOutputs[i] != null ) {
+          seenOutputs[i].close();
+          seenOutputs[i] = null;
+        }
+        if ( rowOutputs[i] != null ) {
+          rowOutputs[i].close();
+          rowOutputs[i] = null;
+        }
+      }
+    } catch ( IOException e ) {
+      throw new KettleFileException( e );
+    }
+  }
+
+  /**
+   * Closes the output files and deletes all temporary files.
+   */
+  @Override
+  public void close() {
+    for ( int i = 0; i < NR_PARTITIONS; i++ ) {
+      closeQuietly( seenOutputs[i] );
+      seenOutputs[i] = null;
+      closeQuietly( rowOutputs[i] );
+      rowOutputs[i] = null;
+      deletePartition( i );
+    }
+  }
+
+  private static void closeQuietly( Closeable closeable ) {
+    if ( closeable != null ) {
+      try {
+        closeable.close();
+      } catch ( IOException e ) {
+        // Ignore, the file is deleted next
+      }
+    }
+  }
+
+  /**
+   * Reads a single partition back: first all seen fingerprints with {@link #nextSeen()}, then all rows with
+   * {@link #readRow()}. The fingerprint of the current entry is available from {@link #getHigh()} and
+   * {@link #getLow()}.
+   */
+  class Reader implements Closeable {
+    private final DataInputStream seenInput;
+    private long seenRemaining;
+    private final DataInputStream rowInput;
+    private long rowsRemaining;
+    private long high;
+    private long low;
+
+    Reader( DataInputStream seenInput, long seenCount, DataInputStream rowInput, long rowCount ) {
+      this.seenInput = seenInput;
+      this.seenRemaining = seenCount;
+      this.rowInput = rowInput;
+      this.rowsRemaining = rowCount;
+    }
+
+    /**
+     * @return true if the next seen fingerprint was read, false if there are no more
+     */
+    boolean nextSeen() throws KettleException {
+      if ( seenRemaining == 0 ) {
+        return false;
+      }
+      seenRemaining--;
+      try {
+        high = seenInput.readLong();
+        low = seenInput.readLong();
+      } catch ( IOException e ) {
+        throw new KettleException( BaseMessages.getString(
+          PKG, "UniqueRowsByHashSet.Exception.UnableToReadBackRowFromTemporaryFile" ), e );
+      }
+      return true;
+    }
+
+    /**
+     * @return the next row or null if the partition is exhausted
+     */
+    Object[] readRow() throws KettleException {
+      if ( rowsRemaining == 0 ) {
+        return null;
+      }
+      rowsRemaining--;
+      try {
+        high = rowInput.readLong();
+        low = rowInput.readLong();
+        return rowMeta.readData( rowInput );
+      } catch ( IOException e ) {
+        throw new KettleException( BaseMessages.getString(
+          PKG, "UniqueRowsByHashSet.Exception.UnableToReadBackRowFromTemporaryFile" ), e );
+      }
+    }
+
+    long getHigh() {
+      return high;
+    }
+
+    long getLow() {
+      return low;
+    }
+
+    @Override
+    public void close() {
+      closeQuietly( seenInput );
+      closeQuietly( rowInput );
+    }
+  }
+}
@@ -0,0 +1,322 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.www;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.pentaho.di.core.annotations.CarteServlet;
+import org.pentaho.di.i18n.BaseMessages;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.step.StepInterface;
+import org.pentaho.di.trans.step.StepMetaDataCombi;
+
+/**
+ * Exposes the live counters of the transformations on this server, together with a few JVM gauges, in the
+ * OpenMetrics text format so that Carte can be scraped directly by Prometheus and compatible collectors.
+ * <p>
+ * The step counters are read straight from the running steps: {@link org.pentaho.di.trans.step.BaseStep} keeps them
+ * in lock-free fields, so a scrape never contends with the step threads.
+ */
+@CarteServlet( id = "metrics", name = "GetMetricsServlet",
+  description = "Expose transformation and JVM metrics in the OpenMetrics text format" )
+public class GetMetricsServlet extends BaseHttpServlet implements CartePluginInterface {
+  private static final Class<?> PKG = GetMetricsServlet.class; // for i18n purposes, needed by Translator2!!
+
+  private static final long serialVersionUID = -6211542373574186357L;
+
+  public static final String CONTEXT_PATH = "/kettle/metrics";
+
+  public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+  public GetMetricsServlet() {
+  }
+
+  public GetMetricsServlet( TransformationMap transformationMap ) {
+    super( transformationMap );
+  }
+
+  /**
+   <div id="mindtouch">
+   <h1>/kettle/metrics</h1>
+   <a name="GET"></a>
+   <h2>GET</h2>
+   <p>Retrieve the metrics of the server in the OpenMetrics text format. For every transformation and every step
+   copy the rows read, written, input, output, updated and rejected are reported, together with the errors, the
+   throughput in rows per second and the number of rows waiting in the input and output buffers of the step.
+   The memory and thread counts of the JVM are added as well.</p>
+
+   <p><b>Example Request:</b><br />
+   <pre function="syntax.xml">
+   GET /kettle/metrics
+   </pre>
+
+   </p>
+   <h3>Response Body</h3>
+   <p>The response is plain text in the OpenMetrics exposition format, terminated by <code># EOF</code>.</p>
+
+   <p><b>Example Response:</b></p>
+   <pre function="syntax.xml">
+   # TYPE kettle_step_rows_read counter
+   # HELP kettle_step_rows_read Rows read from previous steps
+   kettle_step_rows_read_total{trans="dummy-trans",trans_id="c56961b2",step="Dummy",copy="0"} 1000
+   ...
+   # EOF
+   </pre>
+
+   <h3>Status Codes</h3>
+   <table class="pentaho-table">
+   <tbody>
+   <tr>
+   <th>code</th>
+   <th>description</th>
+   </tr>
+   <tr>
+   <td>200</td>
+   <td>Request was processed.</td>
+   </tr>
+   </tbody>
+   </table>
+   </div>
+   */
+  @Override
+  public void doGet( HttpServletRequest request, HttpServletResponse response ) throws ServletException,
+    IOException {
+    if ( isJettyMode() && !request.getContextPath().startsWith( CONTEXT_PATH ) ) {
+      return;
+    }
+
+    if ( log.isDebug() ) {
+      logDebug( BaseMessages.getString( PKG, "GetMetricsServlet.MetricsRequested" ) );
+    }
+
+    response.setStatus( HttpServletResponse.SC_OK );
+    response.setContentType( CONTENT_TYPE );
+
+    PrintWriter out = response.getWriter();
+    writeMetrics( out );
+    out.flush();
+  }
+
+  void writeMetrics( PrintWriter out ) {
+    List<StepSample> steps = new ArrayList<>();
+    List<TransSample> transformations = new ArrayList<>();
+    for ( CarteObjectEntry entry : getTransformationMap().getTransformationObjects() ) {
+      Trans trans = getTransformationMap().getTransformation( entry );
+      if ( trans == null ) {
+        continue;
+      }
+      TransSample transSample = new TransSample( entry, trans );
+      List<StepMetaDataCombi> combis = trans.getSteps();
+      if ( combis != null ) {
+        for ( StepMetaDataCombi combi : new ArrayList<>( combis ) ) {
+          if ( combi.step == null ) {
+            continue;
+          }
+          StepSample stepSample = new StepSample( transSample, combi.step );
+          transSample.add( stepSample );
+          steps.add( stepSample );
+        }
+      }
+      transformations.add( transSample );
+    }
+
+    writeFamily( out, "kettle_trans_running", "gauge", "Whether the transformation is running (1) or not (0)",
+      transformations, t -> t.running ? 1 : 0 );
+    writeFamily( out, "kettle_trans_rows_read", "counter", "Rows read by all the steps of the transformation",
+      transformations, t -> t.linesRead );
+    writeFamily( out, "kettle_trans_rows_written", "counter", "Rows written by all the steps of the transformation",
+      transformations, t -> t.linesWritten );
+    writeFamily( out, "kettle_trans_rows_rejected", "counter",
+      "Rows rejected to error handling by all the steps of the transformation", transformations, t -> t.linesRejected );
+    writeFamily( out, "kettle_trans_errors", "counter", "Errors raised by the transformation",
+      transformations, t -> t.errors );
+
+    writeFamily( out, "kettle_step_rows_read", "counter", "Rows read from previous steps",
+      steps, s -> s.linesRead );
+    writeFamily( out, "kettle_step_rows_written", "counter", "Rows written to next steps",
+      steps, s -> s.linesWritten );
+    writeFamily( out, "kettle_step_rows_input", "counter", "Rows read from a file, database or other source",
+      steps, s -> s.linesInput );
+    writeFamily( out, "kettle_step_rows_output", "counter", "Rows written to a file, database or other target",
+      steps, s -> s.linesOutput );
+    writeFamily( out, "kettle_step_rows_updated", "counter", "Rows updated in a file, database or other target",
+      steps, s -> s.linesUpdated );
+    writeFamily( out, "kettle_step_rows_rejected", "counter", "Rows rejected to an error handling step",
+      steps, s -> s.linesRejected );
+    writeFamily( out, "kettle_step_errors", "counter", "Errors raised by the step",
+      steps, s -> s.errors );
+    writeFamily( out, "kettle_step_rows_per_second", "gauge", "Average throughput of the step since it started",
+      steps, s -> s.rowsPerSecond );
+    writeFamily( out, "kettle_step_input_buffer_rows", "gauge", "Rows waiting in the input row sets of the step",
+      steps, s -> s.inputBufferRows );
+    writeFamily( out, "kettle_step_output_buffer_rows", "gauge", "Rows waiting in the output row sets of the step",
+      steps, s -> s.outputBufferRows );
+
+    Runtime runtime = Runtime.getRuntime();
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    writeGauge( out, "kettle_jvm_memory_free_bytes", "Free memory of the JVM", runtime.freeMemory() );
+    writeGauge( out, "kettle_jvm_memory_total_bytes", "Total memory of the JVM", runtime.totalMemory() );
+    writeGauge( out, "kettle_jvm_memory_max_bytes", "Maximum memory the JVM will attempt to use", runtime.maxMemory() );
+    writeGauge( out, "kettle_jvm_threads", "Live threads of the JVM", threads.getThreadCount() );
+    writeGauge( out, "kettle_jvm_threads_daemon", "Live daemon threads of the JVM", threads.getDaemonThreadCount() );
+    writeGauge( out, "kettle_jvm_threads_peak", "Peak live threads of the JVM", threads.getPeakThreadCount() );
+
+    out.print( "# EOF\n" );
+  }
+
+  private static <T extends Sample> void writeFamily( PrintWriter out, String name, String type, String help,
+    List<T> samples, ToDoubleFunction<T> value ) {
+    writeHeader( out, name, type, help );
+    String sampleName = "counter".equals( type ) ? name + "_total" : name;
+    for ( T sample : samples ) {
+      out.print( sampleName + "{" + sample.labels + "} " + formatValue( value.applyAsDouble( sample ) ) + "\n" );
+    }
+  }
+
+  private static void writeGauge( PrintWriter out, String name, String help, double value ) {
+    writeHeader( out, name, "gauge", help );
+    out.print( name + " " + formatValue( value ) + "\n" );
+  }
+
+  private static void writeHeader( PrintWriter out, String name, String type, String help ) {
+    out.print( "# TYPE " + name + " " + type + "\n" );
+    out.print( "# HELP " + name + " " + help + "\n" );
+  }
+
+  static String formatValue( double value ) {
+    if ( value == Math.rint( value ) && Math.abs( value ) < 1e15 ) {
+      return Long.toString( (long) value );
+    }
+    return Double.toString( value );
+  }
+
+  /**
+   * Escapes a label value as required by the OpenMetrics text format: backslash, double quote and line feed.
+   */
+  static String escapeLabelValue( String value ) {
+    if ( value == null ) {
+      return "";
+    }
+    StringBuilder escaped = new StringBuilder( value.length() );
+    for ( int i = 0; i < value.length(); i++ ) {
+      char c = value.charAt( i );
+      switch ( c ) {
+        case '\\':
+          escaped.append( "\\\\" );
+          break;
+        case '"':
+          escaped.append( "\\\"" );
+          break;
+        case '\n':
+          escaped.append( "\\n" );
+          break;
+        default:
+          escaped.append( c );
+          break;
+      }
+    }
+    return escaped.toString();
+  }
+
+  private abstract static class Sample {
+    String labels;
+    long linesRead;
+    long linesWritten;
+    long linesRejected;
+    long errors;
+  }
+
+  private static class TransSample extends Sample {
+    final boolean running;
+
+    TransSample( CarteObjectEntry entry, Trans trans ) {
+      labels = "trans=\"" + escapeLabelValue( entry.getName() ) + "\",trans_id=\""
+        + escapeLabelValue( entry.getId() ) + "\"";
+      running = trans.isRunning();
+      errors = trans.getErrors();
+    }
+
+    void add( StepSample step ) {
+      linesRead += step.linesRead;
+      linesWritten += step.linesWritten;
+      linesRejected += step.linesRejected;
+    }
+  }
+
+  private static class StepSample extends Sample {
+    final long linesInput;
+    final long linesOutput;
+    final long linesUpdated;
+    final double rowsPerSecond;
+    final int inputBufferRows;
+    final int outputBufferRows;
+
+    StepSample( TransSample trans, StepInterface step ) {
+      labels = trans.labels + ",step=\"" + escapeLabelValue( step.getStepname() ) + "\",copy=\"" + step.getCopy()
+        + "\"";
+      // Each counter is read once so that all the families of a scrape agree with each other
+      //
+      linesRead = step.getLinesRead();
+      linesWritten = step.getLinesWritten();
+      linesInput = step.getLinesInput();
+      linesOutput = step.getLinesOutput();
+      linesUpdated = step.getLinesUpdated();
+      linesRejected = step.getLinesRejected();
+      errors = step.getErrors();
+
+      long runtime = step.getRuntime();
+      long processed = Math.max( Math.max( linesInput, linesRead ),
+        Math.max( linesOutput + linesUpdated, linesWritten + linesRejected ) );
+      rowsPerSecond = runtime > 0 ? Math.floor( 10.0 * processed * 1000 / runtime ) / 10 : 0;
+
+      boolean running = step.isRunning();
+      inputBufferRows = running ? step.rowsetInputSize() : 0;
+      outputBufferRows = running ? step.rowsetOutputSize() : 0;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return BaseMessages.getString( PKG, "GetMetricsServlet.description" );
+  }
+
+  @Override
+  public String getService() {
+    return CONTEXT_PATH + " (" + toString() + ")";
+  }
+
+  @Override
+  public String getContextPath() {
+    return CONTEXT_PATH;
+  }
+}
@@ -28,7 +28,9 @@ import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.xml.XMLHandler;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.job.Job;
+import org.pentaho.di.job.JobMetaCache;
 import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMetaCache;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -603,6 +605,28 @@ public class GetStatusServlet extends BaseHttpServlet implements CartePluginInte
             + "cellTableLastColumn\">"
             + repositoryName + "</td> </tr>" );
 
+        // The use of the transformation and job meta-data caches
+        //
+        TransMetaCache transMetaCache = TransMetaCache.getInstance();
+        JobMetaCache jobMetaCache = JobMetaCache.getInstance();
+        String metaCache;
+        if ( transMetaCache.isEnabled() ) {
+          metaCache = BaseMessages.getString( PKG, "GetStatusServlet.MetaCacheStatistics",
+            String.valueOf( transMetaCache.getSize() + jobMetaCache.getSize() ),
+            String.valueOf( transMetaCache.getHitCount() + jobMetaCache.getHitCount() ),
+            String.valueOf( transMetaCache.getMissCount() + jobMetaCache.getMissCount() ),
+            String.valueOf( transMetaCache.getEvictionCount() + jobMetaCache.getEvictionCount() ) );
+        } else {
+          metaCache = BaseMessages.getString( PKG, "GetStatusServlet.MetaCacheDisabled" );
+        }
+        out.print(
+          "<tr style=\"font-size: 12;\"> <td style=\"padding: 2px 10px 2px 10px\" class=\"cellTableCell "
+            + "cellTableEvenRowCell cellTableFirstColumn\">"
+            + BaseMessages.getString( PKG, "GetStatusServlet.Parameter.MetaCache" )
+            + "</td> <td style=\"padding: 2px 10px 2px 10px\" class=\"cellTableCell cellTableEvenRowCell "
+            + "cellTableLastColumn\">"
+            + metaCache + "</td> </tr>" );
+
         out.print( "</table>" );
 
         String filename = serverConfig.getFilename();
@@ -997,6 +1021,13 @@ public class GetStatusServlet extends BaseHttpServlet implements CartePluginInte
     serverStatus.setOsArchitecture( osArch );
     serverStatus.setMemoryFree( freeMemory );
     serverStatus.setMemoryTotal( totalMemory );
+
+    TransMetaCache transMetaCache = TransMetaCache.getInstance();
+    JobMetaCache jobMetaCache = JobMetaCache.getInstance();
+    serverStatus.setMetaCacheHits( transMetaCache.getHitCount() + jobMetaCache.getHitCount() );
+    serverStatus.setMetaCacheMisses( transMetaCache.getMissCount() + jobMetaCache.getMissCount() );
+    serverStatus.setMetaCacheEvictions( transMetaCache.getEvictionCount() + jobMetaCache.getEvictionCount() );
+    serverStatus.setMetaCacheSize( transMetaCache.getSize() + jobMetaCache.getSize() );
   }
 
   public String toString() {
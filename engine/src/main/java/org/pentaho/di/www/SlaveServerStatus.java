@@ -59,6 +59,14 @@ public class SlaveServerStatus {
 
   private String osArchitecture;
 
+  private long metaCacheHits;
+
+  private long metaCacheMisses;
+
+  private long metaCacheEvictions;
+
+  private long metaCacheSize;
+
   public SlaveServerStatus() {
     transStatusList = new ArrayList<SlaveServerTransStatus>();
     jobStatusList = new ArrayList<SlaveServerJobStatus>();
@@ -102,6 +110,11 @@ public class SlaveServerStatus {
     xml.append( XMLHandler.addTagValue( "os_version", osVersion ) );
     xml.append( XMLHandler.addTagValue( "os_arch", osArchitecture ) );
 
+    xml.append( XMLHandler.addTagValue( "meta_cache_hits", metaCacheHits ) );
+    xml.append( XMLHandler.addTagValue( "meta_cache_misses", metaCacheMisses ) );
+    xml.append( XMLHandler.addTagValue( "meta_cache_evictions", metaCacheEvictions ) );
+    xml.append( XMLHandler.addTagValue( "meta_cache_size", metaCacheSize ) );
+
     xml.append( "  <transstatuslist>" ).append( Const.CR );
     for ( int i = 0; i < transStatusList.size(); i++ ) {
       SlaveServerTransStatus transStatus = transStatusList.get( i );
@@ -141,6 +154,11 @@ public class SlaveServerStatus {
     osVersion = XMLHandler.getTagValue( statusNode, "os_version" );
     osArchitecture = XMLHandler.getTagValue( statusNode, "os_arch" );
 
+    metaCacheHits = Const.toLong( XMLHandler.getTagValue( statusNode, "meta_cache_hits" ), -1L );
+    metaCacheMisses = Const.toLong( XMLHandler.getTagValue( statusNode, "meta_cache_misses" ), -1L );
+    metaCacheEvictions = Const.toLong( XMLHandler.getTagValue( statusNode, "meta_cache_evictions" ), -1L );
+    metaCacheSize = Const.toLong( XMLHandler.getTagValue( statusNode, "meta_cache_size" ), -1L );
+
     Node listTransNode = XMLHandler.getSubNode( statusNode, "transstatuslist" );
     Node listJobsNode = XMLHandler.getSubNode( statusNode, "jobstatuslist" );
 
@@ -352,4 +370,48 @@ public class SlaveServerStatus {
   public String getOsArchitecture() {
     return osArchitecture;
   }
+
+  /**
+   * @return the number of transformations and jobs served from the meta-data cache
+   */
+  public long getMetaCacheHits() {
+    return metaCacheHits;
+  }
+
+  public void setMetaCacheHits( long metaCacheHits ) {
+    this.metaCacheHits = metaCacheHits;
+  }
+
+  /**
+   * @return the number of transformations and jobs loaded because they weren't in the meta-data cache
+   */
+  public long getMetaCacheMisses() {
+    return metaCacheMisses;
+  }
+
+  public void setMetaCacheMisses( long metaCacheMisses ) {
+    this.metaCacheMisses = metaCacheMisses;
+  }
+
+  /**
+   * @return the number of transformations and jobs evicted from the meta-data cache
+   */
+  public long getMetaCacheEvictions() {
+    return metaCacheEvictions;
+  }
+
+  public void setMetaCacheEvictions( long metaCacheEvictions ) {
+    this.metaCacheEvictions = metaCacheEvictions;
+  }
+
+  /**
+   * @return the number of transformations and jobs in the meta-data cache
+   */
+  public long getMetaCacheSize() {
+    return metaCacheSize;
+  }
+
+  public void setMetaCacheSize( long metaCacheSize ) {
+    this.metaCacheSize = metaCacheSize;
+  }
 }
@@ -54,6 +54,7 @@ import org.pentaho.di.core.util.CurrentDirectoryResolver;
 import org.pentaho.di.core.variables.VariableSpace;
 import org.pentaho.di.job.Job;
 import org.pentaho.di.job.JobMeta;
+import org.pentaho.di.job.JobMetaCache;
 import org.pentaho.di.repository.ObjectId;
 import org.pentaho.di.repository.Repository;
 import org.pentaho.di.repository.RepositoryDirectoryInterface;
@@ -65,7 +66,7 @@ import org.powermock.modules.junit4.PowerMockRunner;
 import org.w3c.dom.Node;
 
 @RunWith( PowerMockRunner.class )
-@PrepareForTest( JobEntryJob.class )
+@PrepareForTest( { JobEntryJob.class, JobMetaCache.class } )
 public class JobEntryJobTest {
 
   private final String JOB_ENTRY_JOB_NAME = "My Job";
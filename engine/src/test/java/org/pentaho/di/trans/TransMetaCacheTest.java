@@ -0,0 +1,208 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.trans;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.variables.Variables;
+import org.pentaho.di.core.xml.XMLHandler;
+import org.pentaho.di.repository.Repository;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.steps.dummytrans.DummyTransMeta;
+
+public class TransMetaCacheTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @BeforeClass
+  public static void initKettle() throws Exception {
+    KettleEnvironment.init();
+  }
+
+  @Test
+  public void testDisabledCacheLoadsEveryTime() throws Exception {
+    TransMetaCache cache = new TransMetaCache( 0 );
+    File file = writeTransformation();
+
+    assertFalse( cache.isEnabled() );
+    assertNull( cache.getFileKey( file.getAbsolutePath(), null, new Variables() ) );
+
+    TransMeta first = cache.loadTransMeta( file.getAbsolutePath(), null, null, new Variables() );
+    TransMeta second = cache.loadTransMeta( file.getAbsolutePath(), null, null, new Variables() );
+    assertNotSame( first, second );
+    assertEquals( 0, cache.getHitCount() );
+    assertEquals( 0, cache.getSize() );
+  }
+
+  @Test
+  public void testLoadsFileOnceAndHandsOutCopies() throws Exception {
+    TransMetaCache cache = new TransMetaCache( 10 );
+    File file = writeTransformation();
+
+    TransMeta first = cache.loadTransMeta( file.getAbsolutePath(), null, null, new Variables() );
+    first.setVariable( "changed", "Y" );
+    first.findStep( "input" ).setName( "renamed" );
+
+    TransMeta second = cache.loadTransMeta( file.getAbsolutePath(), null, null, new Variables() );
+    assertEquals( 1, cache.getMissCount() );
+    assertEquals( 1, cache.getHitCount() );
+    assertEquals( 1, cache.getSize() );
+
+    assertNotSame( first, second );
+    assertNull( second.getVariable( "changed" ) );
+    assertEquals( file.getName(), new File( second.getFilename() ).getName() );
+
+    StepMeta input = second.findStep( "input" );
+    StepMeta output = second.findStep( "output" );
+    assertNotSame( first.findStep( "renamed" ), input );
+    assertSame( input, second.getTransHop( 0 ).getFromStep() );
+    assertSame( output, second.getTransHop( 0 ).getToStep() );
+    assertEquals( 1, second.findNextSteps( input ).size() );
+  }
+
+  @Test
+  public void testCopiesTakeTheVariablesOfTheirParent() throws Exception {
+    TransMetaCache cache = new TransMetaCache( 10 );
+    File file = writeTransformation();
+
+    Variables firstParent = new Variables();
+    firstParent.setVariable( "parent", "first" );
+    firstParent.setVariable( "onlyFirst", "Y" );
+    cache.loadTransMeta( file.getAbsolutePath(), null, null, firstParent );
+
+    Variables secondParent = new Variables();
+    secondParent.setVariable( "parent", "second" );
+    TransMeta second = cache.loadTransMeta( file.getAbsolutePath(), null, null, secondParent );
+    assertEquals( 1, cache.getHitCount() );
+    assertEquals( "second", second.getVariable( "parent" ) );
+    assertNull( second.getVariable( "onlyFirst" ) );
+    assertNotNull( second.getVariable( "Internal.Transformation.Filename.Directory" ) );
+  }
+
+  @Test
+  public void testReloadsChangedFile() throws Exception {
+    TransMetaCache cache = new TransMetaCache( 10 );
+    File file = writeTransformation();
+
+    cache.loadTransMeta( file.getAbsolutePath(), null, null, new Variables() );
+    assertEquals( 1, cache.getMissCount() );
+
+    file.setLastModified( file.lastModified() - 60000L );
+    cache.loadTransMeta( file.getAbsolutePath(), null, null, new Variables() );
+    assertEquals( 2, cache.getMissCount() );
+    assertEquals( 0, cache.getHitCount() );
+  }
+
+  @Test
+  public void testKeysFilesByRepository() throws Exception {
+    TransMetaCache cache = new TransMetaCache( 10 );
+    File file = writeTransformation();
+    Repository rep = mock( Repository.class );
+    doReturn( "repo" ).when( rep ).getName();
+
+    String withoutRepository = cache.getFileKey( file.getAbsolutePath(), null, new Variables() );
+    String withRepository = cache.getFileKey( file.getAbsolutePath(), rep, new Variables() );
+    assertNotNull( withoutRepository );
+    assertNotNull( withRepository );
+    assertNotEquals( withoutRepository, withRepository );
+  }
+
+  @Test
+  public void testReloadsChangedSharedObjects() throws Exception {
+    TransMetaCache cache = new TransMetaCache( 10 );
+    File shared = folder.newFile( "shared" + System.nanoTime() + ".xml" );
+    writeSharedObjects( shared, "" );
+    File file = writeTransformation( shared.getAbsolutePath() );
+
+    cache.loadTransMeta( file.getAbsolutePath(), null, null, new Variables() );
+    TransMeta cached = cache.loadTransMeta( file.getAbsolutePath(), null, null, new Variables() );
+    assertEquals( 1, cache.getHitCount() );
+    assertNull( cached.findDatabase( "shared" ) );
+
+    DatabaseMeta databaseMeta = new DatabaseMeta( "shared", "H2", "JDBC", null, "test", null, null, null );
+    writeSharedObjects( shared, databaseMeta.getXML() );
+    shared.setLastModified( shared.lastModified() - 60000L );
+
+    TransMeta reloaded = cache.loadTransMeta( file.getAbsolutePath(), null, null, new Variables() );
+    assertEquals( 2, cache.getMissCount() );
+    assertEquals( 1, cache.getHitCount() );
+    assertNotNull( reloaded.findDatabase( "shared" ) );
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() throws Exception {
+    TransMetaCache cache = new TransMetaCache( 1 );
+    File first = writeTransformation();
+    File second = writeTransformation();
+
+    cache.loadTransMeta( first.getAbsolutePath(), null, null, new Variables() );
+    cache.loadTransMeta( second.getAbsolutePath(), null, null, new Variables() );
+    cache.loadTransMeta( first.getAbsolutePath(), null, null, new Variables() );
+
+    assertEquals( 3, cache.getMissCount() );
+    assertEquals( 2, cache.getEvictionCount() );
+    assertEquals( 1, cache.getSize() );
+  }
+
+  private File writeTransformation() throws Exception {
+    return writeTransformation( null );
+  }
+
+  private File writeTransformation( String sharedObjectsFile ) throws Exception {
+    TransMeta transMeta = new TransMeta();
+    transMeta.setName( "cached" );
+    transMeta.setSharedObjectsFile( sharedObjectsFile );
+    StepMeta input = new StepMeta( "input", new DummyTransMeta() );
+    StepMeta output = new StepMeta( "output", new DummyTransMeta() );
+    transMeta.addStep( input );
+    transMeta.addStep( output );
+    transMeta.addTransHop( new TransHopMeta( input, output ) );
+
+    File file = folder.newFile( "cached" + System.nanoTime() + ".ktr" );
+    Files.write( file.toPath(), ( XMLHandler.getXMLHeader() + transMeta.getXML() ).getBytes( StandardCharsets.UTF_8 ) );
+    return file;
+  }
+
+  private void writeSharedObjects( File file, String objects ) throws Exception {
+    String xml = XMLHandler.getXMLHeader() + "<sharedobjects>" + objects + "</sharedobjects>";
+    Files.write( file.toPath(), xml.getBytes( StandardCharsets.UTF_8 ) );
+  }
+}
@@ -28,6 +28,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -42,6 +43,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.After;
@@ -55,9 +57,11 @@ import org.mockito.stubbing.Answer;
 import org.pentaho.di.core.BlockingRowSet;
 import org.pentaho.di.core.QueueRowSet;
 import org.pentaho.di.core.ResultFile;
+import org.pentaho.di.core.RowArrayPool;
 import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.SingleRowRowSet;
+import org.pentaho.di.core.SpscRowSet;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
 import org.pentaho.di.core.exception.KettleValueException;
@@ -297,6 +301,180 @@ public class BaseStepTest {
     assertFalse( meta1 == meta2 );
   }
 
+  @Test
+  public void putRowsHandsOverTheBatchInOrder() throws Exception {
+    RowSet rowSet = new QueueRowSet();
+
+    when( mockHelper.trans.isRunning() ).thenReturn( true );
+    BaseStep baseStep =
+      new BaseStep( mockHelper.stepMeta, mockHelper.stepDataInterface, 0, mockHelper.transMeta, mockHelper.trans );
+    baseStep.setStopped( false );
+    baseStep.setRepartitioning( StepPartitioningMeta.PARTITIONING_METHOD_NONE );
+    baseStep.setOutputRowSets( Arrays.asList( rowSet ) );
+
+    final List<Object[]> written = new ArrayList<>();
+    baseStep.addRowListener( new RowAdapter() {
+      @Override
+      public void rowWrittenEvent( RowMetaInterface rowMeta, Object[] row ) {
+        written.add( row );
+      }
+    } );
+
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "integer" ) );
+    Object[][] rows = new Object[][] { { 1L }, { 2L }, { 3L }, null };
+
+    baseStep.putRows( rowMeta, rows, 3 );
+
+    assertEquals( 3, baseStep.getLinesWritten() );
+    assertEquals( 3, written.size() );
+    assertEquals( 3, rowSet.size() );
+    assertEquals( 1L, rowSet.getRow()[ 0 ] );
+    assertEquals( 2L, rowSet.getRow()[ 0 ] );
+    assertEquals( 3L, rowSet.getRow()[ 0 ] );
+  }
+
+  @Test( expected = KettleStepException.class )
+  public void putRowsRejectsNullRows() throws Exception {
+    BaseStep baseStep =
+      new BaseStep( mockHelper.stepMeta, mockHelper.stepDataInterface, 0, mockHelper.transMeta, mockHelper.trans );
+    baseStep.setOutputRowSets( Arrays.<RowSet>asList( new SpscRowSet( 10 ) ) );
+
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "integer" ) );
+    baseStep.putRows( rowMeta, new Object[][] { { 1L }, null, { 3L } }, 3 );
+  }
+
+  @Test
+  public void outputRowMetaIsVerifiedOncePerLayout() throws Exception {
+    when( mockHelper.trans.isRunning() ).thenReturn( true );
+    BaseStep baseStep =
+      new BaseStep( mockHelper.stepMeta, mockHelper.stepDataInterface, 0, mockHelper.transMeta, mockHelper.trans );
+    baseStep.setStopped( false );
+    baseStep.setRepartitioning( StepPartitioningMeta.PARTITIONING_METHOD_NONE );
+
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "integer" ) );
+
+    baseStep.putRow( rowMeta, new Object[] { 1L } );
+    baseStep.putRow( rowMeta, new Object[] { 2L } );
+    assertEquals( 1, baseStep.getRowMetaVerifications() );
+
+    rowMeta.addValueMeta( new ValueMetaString( "string" ) );
+    baseStep.putRow( rowMeta, new Object[] { 3L, "three" } );
+    baseStep.putRow( rowMeta.clone(), new Object[] { 4L, "four" } );
+    assertEquals( 3, baseStep.getRowMetaVerifications() );
+    assertEquals( 4, baseStep.getLinesWritten() );
+
+    rowMeta.addValueMeta( new ValueMetaString( null ) );
+    try {
+      baseStep.putRow( rowMeta, new Object[] { 5L, "five", null } );
+      fail( "A field without a name should not be accepted" );
+    } catch ( KettleStepException e ) {
+      assertEquals( 4, baseStep.getRowMetaVerifications() );
+    }
+  }
+
+  @Test
+  public void getRowsReadsTheAvailableRows() throws Exception {
+    BaseStep baseStep =
+      new BaseStep( mockHelper.stepMeta, mockHelper.stepDataInterface, 0, mockHelper.transMeta, mockHelper.trans );
+    when( mockHelper.trans.isRunning() ).thenReturn( true );
+
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "integer" ) );
+    RowSet rowSet = new BlockingRowSet( 10 );
+    for ( long i = 0; i < 5; i++ ) {
+      rowSet.putRow( rowMeta, new Object[] { i } );
+    }
+    rowSet.setDone();
+    baseStep.setInputRowSets( new ArrayList<>( Arrays.asList( rowSet ) ) );
+
+    Object[][] rows = baseStep.getRows( 3 );
+    assertEquals( 3, rows.length );
+    assertEquals( 0L, rows[ 0 ][ 0 ] );
+    assertEquals( 2L, rows[ 2 ][ 0 ] );
+
+    rows = baseStep.getRows( 3 );
+    assertEquals( 2, rows.length );
+    assertEquals( 4L, rows[ 1 ][ 0 ] );
+
+    assertNull( baseStep.getRows( 3 ) );
+    assertEquals( 5, baseStep.getLinesRead() );
+  }
+
+  @Test
+  public void getRowsReadsFromTheRowSetOfTheFirstRow() throws Exception {
+    BaseStep baseStep =
+      new BaseStep( mockHelper.stepMeta, mockHelper.stepDataInterface, 0, mockHelper.transMeta, mockHelper.trans );
+    when( mockHelper.trans.isRunning() ).thenReturn( true );
+
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "origin" ) );
+
+    // The first row arrives just as the row set is done, getRow() then switches to the next row set
+    //
+    RowSet done = mock( RowSet.class );
+    doReturn( rowMeta ).when( done ).getRowMeta();
+    doReturn( true ).when( done ).isDone();
+    when( done.getRowWait( anyLong(), any( TimeUnit.class ) ) ).thenReturn( null, new Object[] { "done" } );
+    doAnswer( invocation -> {
+      Object[][] rows = (Object[][]) invocation.getArguments()[ 0 ];
+      rows[ (Integer) invocation.getArguments()[ 1 ] ] = new Object[] { "done" };
+      return 1;
+    } ).when( done ).getRowsImmediate( any( Object[][].class ), anyInt(), anyInt() );
+    RowSet next = new BlockingRowSet( 10 );
+    next.putRow( rowMeta, new Object[] { "next" } );
+    baseStep.setInputRowSets( new ArrayList<>( Arrays.asList( done, next ) ) );
+
+    Object[][] rows = baseStep.getRows( 3 );
+    assertEquals( 2, rows.length );
+    assertEquals( "done", rows[ 0 ][ 0 ] );
+    assertEquals( "done", rows[ 1 ][ 0 ] );
+    assertEquals( 2, baseStep.getLinesRead() );
+  }
+
+  @Test
+  public void recycledRowsAreReusedByThePreviousStep() throws Exception {
+    when( mockHelper.trans.isRunning() ).thenReturn( true );
+    RowSet rowSet = new BlockingRowSet( 10 );
+    rowSet.setRowArrayPool( new RowArrayPool( 10 ) );
+
+    BaseStep producer =
+      new BaseStep( mockHelper.stepMeta, mockHelper.stepDataInterface, 0, mockHelper.transMeta, mockHelper.trans );
+    producer.setStopped( false );
+    producer.setRepartitioning( StepPartitioningMeta.PARTITIONING_METHOD_NONE );
+    producer.setOutputRowSets( new ArrayList<>( Arrays.asList( rowSet ) ) );
+    BaseStep consumer =
+      new BaseStep( mockHelper.stepMeta, mockHelper.stepDataInterface, 0, mockHelper.transMeta, mockHelper.trans );
+    consumer.setInputRowSets( new ArrayList<>( Arrays.asList( rowSet ) ) );
+
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "integer" ) );
+
+    Object[] row = producer.allocateRowData( 1 );
+    row[ 0 ] = 1L;
+    producer.putRow( rowMeta, row );
+    assertSame( row, consumer.getRow() );
+    assertTrue( consumer.recycleRow( row ) );
+
+    Object[] reused = producer.allocateRowData( 1 );
+    assertSame( row, reused );
+    assertNull( reused[ 0 ] );
+    assertEquals( 1, producer.getRowArraysAllocated() );
+    assertEquals( 1, producer.getRowArraysReused() );
+    assertEquals( 1, consumer.getRowArraysRecycled() );
+
+    // A listener might hold on to the rows, these can't be recycled anymore
+    //
+    producer.addRowListener( new RowAdapter() );
+    reused[ 0 ] = 2L;
+    producer.putRow( rowMeta, reused );
+    assertSame( reused, consumer.getRow() );
+    assertFalse( consumer.recycleRow( reused ) );
+    assertEquals( 1, consumer.getRowArraysRecycled() );
+  }
+
   @Test
   public void testBuildLog() throws KettleValueException {
     BaseStep testObject = new BaseStep( mockHelper.stepMeta, mockHelper.stepDataInterface, 0, mockHelper.transMeta,
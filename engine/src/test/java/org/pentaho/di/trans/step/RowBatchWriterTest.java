@@ -0,0 +1,115 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.trans.step;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+import org.junit.Test;
+import org.pentaho.di.core.compress.CompressionProvider;
+import org.pentaho.di.core.compress.gzip.GZIPCompressionProvider;
+import org.pentaho.di.core.compress.snappy.SnappyCompressionProvider;
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+public class RowBatchWriterTest {
+
+  private static final int ROWS = 1000;
+
+  @Test
+  public void testUncompressedBatches() throws Exception {
+    assertRoundTrip( null, 100 );
+  }
+
+  @Test
+  public void testGzipBatches() throws Exception {
+    assertRoundTrip( new GZIPCompressionProvider(), 500 );
+  }
+
+  @Test
+  public void testSnappyBatches() throws Exception {
+    assertRoundTrip( new SnappyCompressionProvider(), 500 );
+  }
+
+  @Test
+  public void testOneRowPerFrame() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    RowBatchWriter writer = new RowBatchWriter( new DataOutputStream( bytes ), createRowMeta(), null, 1 );
+    writer.writeRow( new Object[] { 1L, "a" } );
+    writer.writeRow( new Object[] { 2L, "b" } );
+    writer.close();
+
+    DataInputStream frames = new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+    assertEquals( 1, frames.readInt() );
+    frames.skipBytes( frames.readInt() );
+    assertEquals( 1, frames.readInt() );
+    frames.skipBytes( frames.readInt() );
+    assertEquals( 0, frames.readInt() );
+  }
+
+  @Test( expected = KettleFileException.class )
+  public void testStreamWithoutEnd() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    RowBatchWriter writer = new RowBatchWriter( new DataOutputStream( bytes ), createRowMeta(), null, 1000 );
+    writer.writeRow( new Object[] { 1L, "a" } );
+    writer.flush();
+
+    RowBatchReader reader = new RowBatchReader(
+      new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ), createRowMeta(), null );
+    assertArrayEquals( new Object[] { 1L, "a" }, reader.readRow() );
+    reader.readRow();
+  }
+
+  private void assertRoundTrip( CompressionProvider compression, int batchSize ) throws Exception {
+    RowMetaInterface rowMeta = createRowMeta();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    RowBatchWriter writer = new RowBatchWriter( new DataOutputStream( bytes ), rowMeta, compression, batchSize );
+    for ( long i = 0; i < ROWS; i++ ) {
+      writer.writeRow( new Object[] { i, i % 3 == 0 ? null : "value " + i } );
+    }
+    writer.close();
+
+    RowBatchReader reader = new RowBatchReader(
+      new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ), rowMeta, compression );
+    for ( long i = 0; i < ROWS; i++ ) {
+      assertArrayEquals( new Object[] { i, i % 3 == 0 ? null : "value " + i }, reader.readRow() );
+    }
+    assertNull( reader.readRow() );
+    assertNull( reader.readRow() );
+  }
+
+  private static RowMetaInterface createRowMeta() {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    return rowMeta;
+  }
+}
@@ -0,0 +1,115 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.trans.step;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.BlockingRowSet;
+import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.logging.LogChannelInterface;
+import org.pentaho.di.core.row.RowMeta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ScheduledStepTest {
+
+  private StepInterface step;
+  private StepMetaDataCombi combi;
+  private List<RowSet> inputRowSets;
+  private List<RowSet> outputRowSets;
+
+  @Before
+  public void setUp() {
+    step = mock( StepInterface.class );
+    when( step.getLogChannel() ).thenReturn( mock( LogChannelInterface.class ) );
+    inputRowSets = new ArrayList<>();
+    outputRowSets = new ArrayList<>();
+    when( step.getInputRowSets() ).thenReturn( inputRowSets );
+    when( step.getOutputRowSets() ).thenReturn( outputRowSets );
+
+    combi = new StepMetaDataCombi();
+    combi.step = step;
+    combi.meta = mock( StepMetaInterface.class );
+    combi.data = mock( StepDataInterface.class );
+  }
+
+  @Test
+  public void canMakeProgressWithInputAndOutputRoom() {
+    ScheduledStep scheduledStep = new ScheduledStep( new StepScheduler( 1 ), combi, 2 );
+    RowSet input = new BlockingRowSet( 10 );
+    RowSet output = new BlockingRowSet( 10 );
+    inputRowSets.add( input );
+    outputRowSets.add( output );
+
+    assertFalse( scheduledStep.canMakeProgress() );
+
+    input.putRow( new RowMeta(), new Object[] {} );
+    assertTrue( scheduledStep.canMakeProgress() );
+
+    output.putRow( new RowMeta(), new Object[] {} );
+    output.putRow( new RowMeta(), new Object[] {} );
+    assertFalse( scheduledStep.canMakeProgress() );
+
+    output.getRow();
+    when( step.isPaused() ).thenReturn( true );
+    assertFalse( scheduledStep.canMakeProgress() );
+
+    when( step.isStopped() ).thenReturn( true );
+    assertTrue( scheduledStep.canMakeProgress() );
+  }
+
+  @Test
+  public void canMakeProgressWhenAllInputIsDone() {
+    ScheduledStep scheduledStep = new ScheduledStep( new StepScheduler( 1 ), combi, 2 );
+    RowSet input = new BlockingRowSet( 10 );
+    inputRowSets.addAll( Arrays.asList( input ) );
+    assertFalse( scheduledStep.canMakeProgress() );
+
+    input.setDone();
+    assertTrue( scheduledStep.canMakeProgress() );
+  }
+
+  @Test
+  public void runsStepUntilItIsDone() throws Exception {
+    when( step.processRow( combi.meta, combi.data ) ).thenReturn( true, true, false );
+
+    ScheduledStep scheduledStep = new StepScheduler( 1 ).schedule( combi, 10 );
+
+    verify( step, timeout( 5000 ) ).markStop();
+    verify( step, times( 3 ) ).processRow( combi.meta, combi.data );
+    verify( step ).dispose( combi.meta, combi.data );
+    assertTrue( scheduledStep.isFinished() );
+    assertEquals( 1, scheduledStep.getBursts() );
+  }
+}
@@ -0,0 +1,86 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.trans.step;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransListener;
+
+public class StepCopyCombinerTest {
+  private Trans trans;
+  private StepInterface copy0;
+  private StepInterface copy1;
+
+  @Before
+  public void setUp() {
+    trans = mock( Trans.class );
+    when( trans.getExtensionDataMap() ).thenReturn( new HashMap<String, Object>() );
+    copy0 = mockCopy( 0 );
+    copy1 = mockCopy( 1 );
+    when( trans.findStepInterfaces( "Group by" ) ).thenReturn( Arrays.asList( copy0, copy1 ) );
+  }
+
+  @Test
+  public void testLastCopyReceivesAllPartials() {
+    StepCopyCombiner<String> combiner = StepCopyCombiner.getCombiner( copy1 );
+    assertSame( combiner, StepCopyCombiner.getCombiner( copy0 ) );
+
+    assertNull( combiner.offer( 1, "b" ) );
+    assertEquals( Arrays.asList( "a", "b" ), combiner.offer( 0, "a" ) );
+    assertNotSame( combiner, StepCopyCombiner.getCombiner( copy0 ) );
+  }
+
+  @Test
+  public void testCombinersAreDroppedWhenTheTransformationFinishes() throws Exception {
+    StepCopyCombiner<String> combiner = StepCopyCombiner.getCombiner( copy0 );
+    assertNull( combiner.offer( 0, "a" ) );
+
+    // The transformation failed before the other copy offered its partial result
+    ArgumentCaptor<TransListener> listener = ArgumentCaptor.forClass( TransListener.class );
+    verify( trans ).addTransListener( listener.capture() );
+    listener.getValue().transFinished( trans );
+
+    assertEquals( 0, trans.getExtensionDataMap().size() );
+    assertNotSame( combiner, StepCopyCombiner.getCombiner( copy0 ) );
+  }
+
+  private StepInterface mockCopy( int copyNr ) {
+    StepInterface step = mock( StepInterface.class );
+    when( step.getTrans() ).thenReturn( trans );
+    when( step.getStepname() ).thenReturn( "Group by" );
+    when( step.getCopy() ).thenReturn( copyNr );
+    return step;
+  }
+}
@@ -0,0 +1,47 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.pentaho.di.trans.step;
+
+import org.junit.Test;
+import org.pentaho.di.trans.steps.dummytrans.DummyTransMeta;
+import org.pentaho.di.trans.steps.tableinput.TableInputMeta;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StepSchedulerTest {
+
+  @Test
+  public void schedulesOnlyTheListedSteps() {
+    assertTrue( StepScheduler.canSchedule( new StepMeta( "Dummy", "dummy", new DummyTransMeta() ) ) );
+    // Waits for the database within processRow()
+    assertFalse( StepScheduler.canSchedule( new StepMeta( "TableInput", "input", new TableInputMeta() ) ) );
+  }
+
+  @Test
+  public void rowSetsHaveRoomForOneMoreCall() {
+    assertEquals( 20000, StepScheduler.getRowSetCapacity( 10000 ) );
+    assertEquals( 10 + 500, StepScheduler.getRowSetCapacity( 10 ) );
+  }
+}
@@ -34,4 +34,19 @@ public class StepStatusTest {
     String[] overrides = status.getTransLogFields( "Override" );
     assertEquals( "Override", overrides[10] );
   }
+
+  @Test
+  public void testWaitTimesInXml() throws Exception {
+    StepStatus status = new StepStatus();
+    status.setStepname( "step" );
+    status.setStatusDescription( "Running" );
+    status.setSpeed( "-" );
+    status.setPriority( "-" );
+    status.setInputWaitTime( 1200L );
+    status.setOutputWaitTime( 3400L );
+
+    StepStatus copy = status.fromXML( status.getXML() );
+    assertEquals( 1200L, copy.getInputWaitTime() );
+    assertEquals( 3400L, copy.getOutputWaitTime() );
+  }
 }
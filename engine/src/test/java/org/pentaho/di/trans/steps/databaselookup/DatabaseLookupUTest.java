@@ -47,6 +47,7 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -69,6 +70,7 @@ import org.mockito.internal.util.reflection.Whitebox;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
@@ -80,6 +82,7 @@ import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.row.value.ValueMetaBigNumber;
 import org.pentaho.di.core.row.value.ValueMetaBinary;
+import org.pentaho.di.core.row.value.ValueMetaDate;
 import org.pentaho.di.core.row.value.ValueMetaInteger;
 import org.pentaho.di.core.row.value.ValueMetaNumber;
 import org.pentaho.di.core.row.value.ValueMetaString;
@@ -140,6 +143,94 @@ public class DatabaseLookupUTest {
   }
 
 
+  @Test
+  public void batchLookupUsesInListForSingleKey() throws Exception {
+    DatabaseLookupMeta meta = createDatabaseMeta();
+    DatabaseLookupData data = createDatabaseData();
+    Database db = createVirtualDb( meta.getDatabaseMeta() );
+
+    DatabaseLookup lookup = spyLookup( mockHelper, db, meta.getDatabaseMeta() );
+    lookup.init( meta, data );
+
+    assertEquals( "SELECT id, aBinaryFieldInDb FROM VirtualTable WHERE id IN (?, ?, ?)",
+      lookup.getBatchLookupSQL( 3 ) );
+  }
+
+  @Test
+  public void batchLookupCombinesKeysForMultipleKeyFields() throws Exception {
+    DatabaseLookupMeta meta = createDatabaseMeta();
+    meta.setTableKeyField( new String[] { ID_FIELD, "country", "removed_at" } );
+    meta.setKeyCondition( new String[] { "=", "=", "IS NULL" } );
+    meta.setOrderByClause( "id" );
+    DatabaseLookupData data = createDatabaseData();
+    Database db = createVirtualDb( meta.getDatabaseMeta() );
+
+    DatabaseLookup lookup = spyLookup( mockHelper, db, meta.getDatabaseMeta() );
+    lookup.init( meta, data );
+
+    assertEquals( "SELECT id, country, aBinaryFieldInDb FROM VirtualTable WHERE removed_at IS NULL AND "
+      + "((id = ? AND country = ?) OR (id = ? AND country = ?)) ORDER BY id", lookup.getBatchLookupSQL( 2 ) );
+  }
+
+  @Test
+  public void batchLookupIsNotUsedForStringKeys() throws Exception {
+    DatabaseLookupMeta meta = createDatabaseMeta();
+    DatabaseLookupData data = createDatabaseData();
+    Database db = createVirtualDb( meta.getDatabaseMeta() );
+
+    DatabaseLookup lookup = spyLookup( mockHelper, db, meta.getDatabaseMeta() );
+    lookup.init( meta, data );
+    data.keynrs = new int[] { 0 };
+    data.keynrs2 = new int[] { -1 };
+
+    data.lookupMeta = new RowMeta();
+    data.lookupMeta.addValueMeta( new ValueMetaInteger( ID_FIELD ) );
+    assertTrue( lookup.isBatchLookupPossible() );
+
+    // A case insensitive collation or a CHAR column matches 'abc' with 'ABC' or 'abc  ' where Kettle wouldn't
+    data.lookupMeta = new RowMeta();
+    data.lookupMeta.addValueMeta( new ValueMetaString( ID_FIELD ) );
+    assertFalse( lookup.isBatchLookupPossible() );
+
+    // The database compares these at the precision of the column
+    data.lookupMeta = new RowMeta();
+    data.lookupMeta.addValueMeta( new ValueMetaNumber( ID_FIELD ) );
+    assertFalse( lookup.isBatchLookupPossible() );
+    data.lookupMeta = new RowMeta();
+    data.lookupMeta.addValueMeta( new ValueMetaDate( ID_FIELD ) );
+    assertFalse( lookup.isBatchLookupPossible() );
+  }
+
+  @Test
+  public void batchKeysOfBigNumbersMatchAtAnyScale() throws Exception {
+    DatabaseLookupMeta meta = createDatabaseMeta();
+    DatabaseLookupData data = createDatabaseData();
+    Database db = createVirtualDb( meta.getDatabaseMeta() );
+
+    DatabaseLookup lookup = spyLookup( mockHelper, db, meta.getDatabaseMeta() );
+    lookup.init( meta, data );
+    data.lookupMeta = new RowMeta();
+    data.lookupMeta.addValueMeta( new ValueMetaBigNumber( ID_FIELD ) );
+
+    Object[] scaled = new Object[] { new BigDecimal( "1.00" ) };
+    RowMetaAndData key = lookup.getBatchKey( scaled );
+    RowMetaAndData other = lookup.getBatchKey( new Object[] { BigDecimal.ONE } );
+    assertEquals( key, other );
+    assertEquals( key.hashCode(), other.hashCode() );
+    // The row itself keeps its value
+    assertEquals( new BigDecimal( "1.00" ), scaled[ 0 ] );
+  }
+
+  @Test
+  public void batchLookupPadsTheKeysToPowersOfTwo() {
+    assertEquals( 1, DatabaseLookup.getPaddedNrKeys( 1, 100 ) );
+    assertEquals( 2, DatabaseLookup.getPaddedNrKeys( 2, 100 ) );
+    assertEquals( 4, DatabaseLookup.getPaddedNrKeys( 3, 100 ) );
+    assertEquals( 64, DatabaseLookup.getPaddedNrKeys( 33, 100 ) );
+    assertEquals( 100, DatabaseLookup.getPaddedNrKeys( 65, 100 ) );
+    assertEquals( 100, DatabaseLookup.getPaddedNrKeys( 100, 100 ) );
+  }
+
   private StepMockHelper<DatabaseLookupMeta, DatabaseLookupData> createMockHelper() {
     StepMockHelper<DatabaseLookupMeta, DatabaseLookupData> mockHelper =
       new StepMockHelper<DatabaseLookupMeta, DatabaseLookupData>( "test DatabaseLookup", DatabaseLookupMeta.class,
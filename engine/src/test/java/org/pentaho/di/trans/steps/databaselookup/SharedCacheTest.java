@@ -0,0 +1,125 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.trans.steps.databaselookup;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.trans.Trans;
+
+public class SharedCacheTest {
+
+  private Trans trans;
+  private Map<String, Object> extensionData;
+  private RowMetaInterface keyMeta;
+
+  @Before
+  public void setUp() {
+    extensionData = new HashMap<>();
+    trans = mock( Trans.class );
+    when( trans.getExtensionDataMap() ).thenReturn( extensionData );
+
+    keyMeta = new RowMeta();
+    keyMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+  }
+
+  @Test
+  public void sameKeySharesTheCacheUntilTheLastRelease() {
+    SharedCache first = SharedCache.acquire( trans, "customers", 0 );
+    SharedCache second = SharedCache.acquire( trans, "customers", 0 );
+    SharedCache other = SharedCache.acquire( trans, "products", 0 );
+
+    assertSame( first, second );
+    assertTrue( first != other );
+
+    assertFalse( first.release( trans ) );
+    assertTrue( second.release( trans ) );
+    assertTrue( SharedCache.acquire( trans, "customers", 0 ) != first );
+  }
+
+  @Test
+  public void storedRowsAreVisibleToAllUsers() throws Exception {
+    SharedCache first = SharedCache.acquire( trans, "customers", 0 );
+    SharedCache second = SharedCache.acquire( trans, "customers", 0 );
+
+    first.storeRowInCache( new DatabaseLookupMeta(), keyMeta, new Object[] { 1L }, new Object[] { "one" } );
+    second.storeRowInCache( new DatabaseLookupMeta(), keyMeta, new Object[] { 1L }, new Object[] { "uno" } );
+
+    assertArrayEquals( new Object[] { "one" }, second.getRowFromCache( keyMeta, new Object[] { 1L } ) );
+    assertNull( second.getRowFromCache( keyMeta, new Object[] { 2L } ) );
+  }
+
+  @Test
+  public void leastRecentlyUsedRowsAreEvicted() throws Exception {
+    SharedCache cache = SharedCache.acquire( trans, "customers", 2 );
+    DatabaseLookupMeta meta = new DatabaseLookupMeta();
+
+    cache.storeRowInCache( meta, keyMeta, new Object[] { 1L }, new Object[] { "one" } );
+    cache.storeRowInCache( meta, keyMeta, new Object[] { 2L }, new Object[] { "two" } );
+    cache.getRowFromCache( keyMeta, new Object[] { 1L } );
+    cache.storeRowInCache( meta, keyMeta, new Object[] { 3L }, new Object[] { "three" } );
+
+    assertEquals( 2, cache.size() );
+    assertArrayEquals( new Object[] { "one" }, cache.getRowFromCache( keyMeta, new Object[] { 1L } ) );
+    assertNull( cache.getRowFromCache( keyMeta, new Object[] { 2L } ) );
+    assertEquals( 1, cache.takeEvictions() );
+    assertEquals( 0, cache.takeEvictions() );
+  }
+
+  @Test
+  public void allDataIsLoadedOnce() throws Exception {
+    final DatabaseLookupData.Cache table = mock( DatabaseLookupData.Cache.class );
+    when( table.getRowFromCache( keyMeta, new Object[] { 1L } ) ).thenReturn( new Object[] { "one" } );
+    final AtomicInteger loads = new AtomicInteger();
+    SharedCache.Loader loader = new SharedCache.Loader() {
+      @Override
+      public DatabaseLookupData.Cache load() throws KettleException {
+        loads.incrementAndGet();
+        return table;
+      }
+    };
+
+    SharedCache first = SharedCache.acquire( trans, "customers", 0 );
+    SharedCache second = SharedCache.acquire( trans, "customers", 0 );
+    first.loadAll( loader );
+    second.loadAll( loader );
+
+    assertEquals( 1, loads.get() );
+    assertArrayEquals( new Object[] { "one" }, second.getRowFromCache( keyMeta, new Object[] { 1L } ) );
+  }
+}
@@ -139,6 +139,21 @@ public class ReadAllCacheTest {
     assertArrayEquals( "('1' <= keys[1] <= '3') && (0 <= keys[2] <= 1000) --> row 2", data[ 2 ], found );
   }
 
+  @Test
+  public void lookup_Finds_WithIndexesAfterBetweenOperator() throws Exception {
+    RowMeta meta = new RowMeta();
+    meta.addValueMeta( new ValueMetaInteger() );
+    meta.addValueMeta( new ValueMetaInteger() );
+    meta.addValueMeta( new ValueMetaString() );
+    meta.addValueMeta( new ValueMetaDate() );
+    meta.addValueMeta( new ValueMetaInteger() );
+
+    ReadAllCache cache = buildCache( "BETWEEN,=,>=,IS NULL" );
+    Object[] found = cache.getRowFromCache(
+      meta, new Object[] { 1L, 2L, "1", new Date( 120 ), null } );
+    assertArrayEquals( "(1 <= keys[0] <= 2) && (keys[1] == '1') && (keys[2] >= 120) --> row 4", data[ 4 ], found );
+  }
+
   @Test
   public void lookup_DoesNotFind_FilteredByIndex() throws Exception {
     ReadAllCache cache = buildCache( "=,IS NOT NULL,>=,IS NOT NULL" );
@@ -174,6 +174,12 @@ public class DimensionLookupMetaInjectionTest extends BaseMetadataInjectionTest<
         return meta.isPreloadingCache();
       }
     } );
+    check( "MAINTENANCE_MODE", new BooleanGetter() {
+      @Override
+      public boolean get() {
+        return meta.isMaintenanceMode();
+      }
+    } );
     check( "CONNECTION_NAME", new StringGetter() {
       public String get() {
         return "My Connection";
@@ -24,22 +24,33 @@ package org.pentaho.di.trans.steps.dimensionlookup;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
 import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepPartitioningMeta;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -102,4 +113,78 @@ public class DimensionLookupTest {
     dimensionLookupSpy.dimInsert( rowMetaInterface, objects, null, true, null, date, date );
     verify( databaseMeta, times( 2 ) ).supportsAutoGeneratedKeys();
   }
+
+  @Test
+  public void testBatchedNewVersionInMaintenanceMode() throws Exception {
+    doReturn( new String[] { "id" } ).when( dimensionLookupMeta ).getKeyLookup();
+    doReturn( 10 ).when( dimensionLookupMeta ).getCommitSize();
+    PreparedStatement insert = mock( PreparedStatement.class );
+    PreparedStatement update = mock( PreparedStatement.class );
+    Connection connection = dimensionLookupData.db.getConnection();
+    doReturn( insert ).doReturn( update ).when( connection ).prepareStatement( anyString() );
+
+    RowMetaInterface keyMeta = new RowMeta();
+    keyMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    RowMetaInterface versionMeta = new RowMeta();
+    versionMeta.addValueMeta( new ValueMetaInteger( "tk" ) );
+    versionMeta.addValueMeta( new ValueMetaInteger( "version" ) );
+    versionMeta.addValueMeta( new ValueMetaDate( "date_from" ) );
+    versionMeta.addValueMeta( new ValueMetaDate( "date_to" ) );
+    dimensionLookupData.versionCache = new DimensionVersionCache( keyMeta, versionMeta );
+    dimensionLookupData.versionCache.addVersion( new Object[] { 7L }, new Object[] { 1L, 1L, null, null } );
+    dimensionLookupData.versionFieldIndexes = new int[] { };
+    dimensionLookupData.keynrs = new int[] { 0 };
+    dimensionLookupData.batchUpdates = true;
+    dimensionLookupData.batchedStatements = new HashSet<>();
+
+    // A new version of entry 7 closes the pre-loaded one, both writes wait in the batches
+    //
+    Date changed = new Date( 1000000L );
+    Date end = new Date( 2000000L );
+    dimensionLookupSpy.dimInsert( keyMeta, new Object[] { 7L }, 2L, false, 2L, changed, end );
+
+    verify( dimensionLookupData.db ).insertRow( insert, true, false );
+    verify( dimensionLookupData.db ).insertRow( update, true, false );
+    verify( dimensionLookupData.db, never() ).insertRow( any( PreparedStatement.class ) );
+    verify( dimensionLookupData.db, never() ).commit();
+    assertEquals( 2, dimensionLookupData.batchedRows );
+
+    // The cache already knows both versions, so the next rows find them without reading the dimension
+    //
+    assertEquals( 1L, dimensionLookupData.versionCache.lookup( new Object[] { 7L }, new Date( 500000L ) )[ 0 ] );
+    assertEquals( 2L, dimensionLookupData.versionCache.lookup( new Object[] { 7L }, new Date( 1500000L ) )[ 0 ] );
+
+    // At the end of the stream the new versions are inserted before the old ones are closed, then committed
+    //
+    doReturn( null ).when( dimensionLookupSpy ).getRow();
+    doNothing().when( dimensionLookupSpy ).setOutputDone();
+    assertFalse( dimensionLookupSpy.processRow( dimensionLookupMeta, dimensionLookupData ) );
+
+    InOrder order = inOrder( insert, update, dimensionLookupData.db );
+    order.verify( insert ).executeBatch();
+    order.verify( update ).executeBatch();
+    order.verify( dimensionLookupData.db ).commit();
+    assertEquals( 0, dimensionLookupData.batchedRows );
+  }
+
+  @Test
+  public void testDisposeFlushesBatches() throws Exception {
+    PreparedStatement insert = mock( PreparedStatement.class );
+    dimensionLookupData.prepStatementInsert = insert;
+    dimensionLookupData.batchUpdates = true;
+    dimensionLookupData.batchedStatements = new HashSet<>();
+    dimensionLookupData.batchedStatements.add( insert );
+    dimensionLookupData.batchedRows = 1;
+    Database db = dimensionLookupData.db;
+
+    // The step stopped before the end of the stream, the rows of the last batch are still written
+    //
+    dimensionLookupSpy.dispose( dimensionLookupMeta, dimensionLookupData );
+
+    InOrder order = inOrder( insert, db );
+    order.verify( insert ).executeBatch();
+    order.verify( db ).commit();
+    order.verify( db ).disconnect();
+    assertEquals( 0, dimensionLookupData.batchedRows );
+  }
 }
@@ -0,0 +1,127 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.trans.steps.dimensionlookup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+public class DimensionVersionCacheTest {
+
+  private static final long T0 = 1425300000000L;
+
+  private DimensionVersionCache cache;
+
+  @Before
+  public void setUp() {
+    RowMetaInterface keyMeta = new RowMeta();
+    keyMeta.addValueMeta( new ValueMetaString( "customer" ) );
+
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "tk" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "version" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "city" ) );
+    rowMeta.addValueMeta( new ValueMetaDate( "date_from" ) );
+    rowMeta.addValueMeta( new ValueMetaDate( "date_to" ) );
+
+    cache = new DimensionVersionCache( keyMeta, rowMeta );
+  }
+
+  @Test
+  public void lookup_FindsVersionValidOnDate() throws Exception {
+    Object[] first = row( 1L, 1L, "Orlando", null, date( 10 ) );
+    Object[] second = row( 2L, 2L, "Miami", date( 10 ), date( 20 ) );
+    Object[] third = row( 3L, 3L, "Tampa", date( 20 ), null );
+    cache.addVersion( key( "c1" ), first );
+    cache.addVersion( key( "c1" ), second );
+    cache.addVersion( key( "c1" ), third );
+
+    assertSame( first, cache.lookup( key( "c1" ), null ) );
+    assertSame( first, cache.lookup( key( "c1" ), date( 5 ) ) );
+    assertSame( second, cache.lookup( key( "c1" ), date( 10 ) ) );
+    assertSame( second, cache.lookup( key( "c1" ), date( 19 ) ) );
+    assertSame( third, cache.lookup( key( "c1" ), date( 20 ) ) );
+    assertSame( third, cache.lookup( key( "c1" ), date( 1000 ) ) );
+    assertNull( cache.lookup( key( "c2" ), date( 5 ) ) );
+    assertEquals( 1, cache.getKeyCount() );
+    assertEquals( 3, cache.size() );
+  }
+
+  @Test
+  public void lookup_ReturnsNull_WhenNoVersionIsValid() throws Exception {
+    cache.addVersion( key( "c1" ), row( 1L, 1L, "Orlando", date( 10 ), date( 20 ) ) );
+
+    assertNull( cache.lookup( key( "c1" ), date( 5 ) ) );
+    assertNull( cache.lookup( key( "c1" ), date( 20 ) ) );
+  }
+
+  @Test
+  public void addVersion_KeepsVersionsSorted() throws Exception {
+    Object[] second = row( 2L, 2L, "Miami", date( 10 ), null );
+    Object[] first = row( 1L, 1L, "Orlando", null, date( 10 ) );
+    cache.addVersion( key( "c1" ), second );
+    cache.addVersion( key( "c1" ), first );
+
+    List<Object[]> versions = cache.getVersions( key( "c1" ) );
+    assertEquals( 2, versions.size() );
+    assertSame( first, versions.get( 0 ) );
+    assertSame( second, versions.get( 1 ) );
+    assertSame( first, cache.lookup( key( "c1" ), date( 5 ) ) );
+    assertSame( second, cache.lookup( key( "c1" ), date( 15 ) ) );
+  }
+
+  @Test
+  public void closeVersion_EndsDateRange() throws Exception {
+    Object[] first = row( 1L, 1L, "Orlando", null, null );
+    cache.addVersion( key( "c1" ), first );
+    cache.closeVersion( key( "c1" ), 1L, date( 10 ) );
+    Object[] second = row( 2L, 2L, "Miami", date( 10 ), null );
+    cache.addVersion( key( "c1" ), second );
+
+    assertEquals( date( 10 ), first[ 4 ] );
+    assertSame( first, cache.lookup( key( "c1" ), date( 5 ) ) );
+    assertSame( second, cache.lookup( key( "c1" ), date( 15 ) ) );
+  }
+
+  private static Object[] key( String customer ) {
+    return new Object[] { customer };
+  }
+
+  private static Object[] row( Long tk, Long version, String city, Date from, Date to ) {
+    return new Object[] { tk, version, city, from, to };
+  }
+
+  private static Date date( int hours ) {
+    return new Date( T0 + 3600000L * hours );
+  }
+}
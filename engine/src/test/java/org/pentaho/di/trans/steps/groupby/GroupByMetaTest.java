@@ -55,7 +55,7 @@ public class GroupByMetaTest implements InitializerInterface<StepMetaInterface>
     List<String> attributes =
         Arrays.asList( "passAllRows", "directory", "prefix", "aggregateIgnored", "aggregateIgnoredField", "addingLineNrInGroup",
             "lineNrInGroupField", "alwaysGivingBackOneRow", "groupField", "aggregateField", "subjectField",
-            "aggregateType", "valueField" );
+            "aggregateType", "valueField", "twoPhaseAggregation" );
 
     Map<String, String> getterMap = new HashMap<String, String>() {
       {
@@ -0,0 +1,194 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.trans.steps.groupby;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.KettleClientEnvironment;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.variables.Variables;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepCopyCombiner;
+import org.pentaho.di.trans.step.StepInterface;
+import org.pentaho.di.trans.step.StepMeta;
+
+public class GroupByTwoPhaseTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  private static final String STEP_NAME = "testStep";
+  private static final int NR_COPIES = 3;
+  private static final int NR_KEYS = 10;
+  private static final int NR_ROWS = 1000;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws KettleException {
+    KettleClientEnvironment.init();
+  }
+
+  private GroupByMeta getMeta() {
+    GroupByMeta meta = new GroupByMeta();
+    meta.setDefault();
+    int[] types = new int[] { GroupByMeta.TYPE_GROUP_SUM, GroupByMeta.TYPE_GROUP_AVERAGE,
+      GroupByMeta.TYPE_GROUP_MEDIAN, GroupByMeta.TYPE_GROUP_MIN, GroupByMeta.TYPE_GROUP_MAX,
+      GroupByMeta.TYPE_GROUP_COUNT_ALL, GroupByMeta.TYPE_GROUP_COUNT_DISTINCT, GroupByMeta.TYPE_GROUP_FIRST,
+      GroupByMeta.TYPE_GROUP_LAST, GroupByMeta.TYPE_GROUP_STANDARD_DEVIATION, GroupByMeta.TYPE_GROUP_CONCAT_COMMA, };
+    String[] subjects = new String[] { "value", "number", "value", "value", "value", "value", "modulo", "value",
+      "value", "number", "modulo", };
+    meta.allocate( 1, types.length );
+    meta.getGroupField()[0] = "key";
+    for ( int i = 0; i < types.length; i++ ) {
+      meta.getAggregateField()[i] = "agg" + i;
+      meta.getSubjectField()[i] = subjects[i];
+      meta.getAggregateType()[i] = types[i];
+    }
+    meta.setTwoPhaseAggregation( true );
+    return meta;
+  }
+
+  private RowMetaInterface getRowMeta() {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "key" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "value" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "number" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "modulo" ) );
+    return rowMeta;
+  }
+
+  /**
+   * @return the rows in the given range, sorted on the group key (stable, so the row order stays within a key)
+   */
+  private List<Object[]> getRows( int start, int end ) {
+    List<Object[]> rows = new ArrayList<Object[]>();
+    for ( int rowNr = start; rowNr < end; rowNr++ ) {
+      rows.add( new Object[] { "key" + ( rowNr % NR_KEYS ), (long) rowNr, rowNr / 7.0, (long) ( rowNr % 13 ) } );
+    }
+    Collections.sort( rows, new Comparator<Object[]>() {
+      @Override
+      public int compare( Object[] o1, Object[] o2 ) {
+        return ( (String) o1[0] ).compareTo( (String) o2[0] );
+      }
+    } );
+    return rows;
+  }
+
+  /**
+   * Runs the copies of the step one after the other, each on a contiguous slice of the rows, and returns the output
+   * rows.
+   */
+  private List<Object[]> run( int nrCopies ) throws KettleException {
+    final GroupByMeta meta = getMeta();
+    TransMeta transMeta = mock( TransMeta.class );
+    StepMeta stepMeta = new StepMeta( STEP_NAME, meta );
+    when( transMeta.findStep( STEP_NAME ) ).thenReturn( stepMeta );
+    Trans trans = mock( Trans.class );
+    List<StepInterface> copies = new ArrayList<StepInterface>();
+    when( trans.findStepInterfaces( anyString() ) ).thenReturn( copies );
+
+    final RowMetaInterface rowMeta = getRowMeta();
+    final List<Object[]> output = new ArrayList<Object[]>();
+    List<GroupByData> datas = new ArrayList<GroupByData>();
+    for ( int copyNr = 0; copyNr < nrCopies; copyNr++ ) {
+      final List<Object[]> rows = getRows( copyNr * NR_ROWS / nrCopies, ( copyNr + 1 ) * NR_ROWS / nrCopies );
+      GroupByData data = new GroupByData();
+      GroupBy step = new GroupBy( stepMeta, data, copyNr, transMeta, trans ) {
+        private int rowNr;
+
+        @Override
+        public Object[] getRow() {
+          return rowNr == rows.size() ? null : rows.get( rowNr++ );
+        }
+
+        @Override
+        public RowMetaInterface getInputRowMeta() {
+          return rowMeta;
+        }
+
+        @Override
+        public void putRow( RowMetaInterface rowMeta, Object[] row ) {
+          output.add( row );
+        }
+
+        @Override
+        public void setOutputDone() {
+        }
+      };
+      step.copyVariablesFrom( new Variables() );
+      copies.add( step );
+      datas.add( data );
+    }
+
+    for ( int copyNr = 0; copyNr < nrCopies; copyNr++ ) {
+      GroupBy step = (GroupBy) copies.get( copyNr );
+      GroupByData data = datas.get( copyNr );
+      assertEquals( nrCopies, StepCopyCombiner.getNrCopies( step ) );
+      data.twoPhase = nrCopies > 1;
+      data.partials = new ArrayList<GroupAggregate>();
+      while ( step.processRow( meta, data ) ) {
+        // Keep going
+      }
+      if ( copyNr < nrCopies - 1 ) {
+        assertEquals( 0, output.size() );
+      }
+    }
+    return output;
+  }
+
+  @Test
+  public void testCombinedCopiesMatchSingleCopy() throws Exception {
+    List<Object[]> expected = run( 1 );
+    List<Object[]> actual = run( NR_COPIES );
+
+    assertEquals( NR_KEYS, expected.size() );
+    assertEquals( expected.size(), actual.size() );
+    for ( int rowNr = 0; rowNr < expected.size(); rowNr++ ) {
+      Object[] expectedRow = expected.get( rowNr );
+      Object[] actualRow = actual.get( rowNr );
+      assertNotNull( actualRow );
+      for ( int i = 0; i < expectedRow.length; i++ ) {
+        if ( expectedRow[i] instanceof Double ) {
+          assertEquals( (Double) expectedRow[i], (Double) actualRow[i], 1e-9 );
+        } else {
+          assertEquals( expectedRow[i], actualRow[i] );
+        }
+      }
+    }
+  }
+}
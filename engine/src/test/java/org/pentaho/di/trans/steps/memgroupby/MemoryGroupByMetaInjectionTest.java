@@ -77,5 +77,29 @@ public class MemoryGroupByMetaInjectionTest extends BaseMetadataInjectionTest<Me
           return meta.isAlwaysGivingBackOneRow();
         }
       } );
+    check( "MEMORY_LIMIT", new StringGetter() {
+      @Override
+      public String get() {
+        return meta.getMemoryLimit();
+      }
+    } );
+    check( "DIRECTORY", new StringGetter() {
+      @Override
+      public String get() {
+        return meta.getDirectory();
+      }
+    } );
+    check( "PREFIX", new StringGetter() {
+      @Override
+      public String get() {
+        return meta.getPrefix();
+      }
+    } );
+    check( "TWO_PHASE_AGGREGATION", new BooleanGetter() {
+      @Override
+      public boolean get() {
+        return meta.isTwoPhaseAggregation();
+      }
+    } );
   }
 }
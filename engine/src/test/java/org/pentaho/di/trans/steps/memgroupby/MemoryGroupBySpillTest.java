@@ -0,0 +1,175 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.trans.steps.memgroupby;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.di.core.KettleClientEnvironment;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.variables.Variables;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepMeta;
+
+public class MemoryGroupBySpillTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private static final String STEP_NAME = "testStep";
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws KettleException {
+    KettleClientEnvironment.init();
+  }
+
+  private RowMetaInterface getRowMeta() {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "key" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "value" ) );
+    return rowMeta;
+  }
+
+  @Test
+  public void testPartitionsKeepRowOrder() throws Exception {
+    MemoryGroupBySpill spill =
+      new MemoryGroupBySpill( getRowMeta(), 0, "test", folder.getRoot().getAbsolutePath(), new Variables() );
+    for ( long i = 0; i < 1000; i++ ) {
+      String key = "key" + ( i % 37 );
+      spill.add( key.hashCode(), new Object[] { key, i } );
+    }
+    assertEquals( 1000L, spill.getRowCount() );
+
+    for ( int partition = 0; partition < MemoryGroupBySpill.NR_PARTITIONS; partition++ ) {
+      MemoryGroupBySpill.Reader reader = spill.openPartition( partition );
+      long previous = -1;
+      long count = 0;
+      Object[] row;
+      while ( ( row = reader.readRow() ) != null ) {
+        String key = (String) row[0];
+        assertEquals( partition, MemoryGroupBySpill.getPartition( key.hashCode(), 0 ) );
+        assertEquals( true, (Long) row[1] > previous );
+        previous = (Long) row[1];
+        count++;
+      }
+      reader.close();
+      assertEquals( spill.getRowCount( partition ), count );
+    }
+
+    spill.close();
+    assertEquals( 0, folder.getRoot().list().length );
+  }
+
+  @Test
+  public void testSpilledAggregationMatchesInMemory() throws Exception {
+    MemoryGroupByMeta meta = new MemoryGroupByMeta();
+    meta.setDefault();
+    meta.allocate( 1, 3 );
+    meta.getGroupField()[0] = "key";
+    meta.getAggregateField()[0] = "sum";
+    meta.getSubjectField()[0] = "value";
+    meta.getAggregateType()[0] = MemoryGroupByMeta.TYPE_GROUP_SUM;
+    meta.getAggregateField()[1] = "count";
+    meta.getSubjectField()[1] = "value";
+    meta.getAggregateType()[1] = MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL;
+    meta.getAggregateField()[2] = "first";
+    meta.getSubjectField()[2] = "value";
+    meta.getAggregateType()[2] = MemoryGroupByMeta.TYPE_GROUP_FIRST;
+    meta.setMemoryLimit( "1" );
+    meta.setDirectory( folder.getRoot().getAbsolutePath() );
+
+    TransMeta transMeta = mock( TransMeta.class );
+    StepMeta stepMeta = new StepMeta( STEP_NAME, meta );
+    when( transMeta.findStep( STEP_NAME ) ).thenReturn( stepMeta );
+
+    // Enough distinct keys to spill at least two levels deep
+    //
+    final int nrKeys = 150000;
+    final int nrRows = 3 * nrKeys;
+    final RowMetaInterface rowMeta = getRowMeta();
+    final Map<String, Object[]> output = new HashMap<String, Object[]>();
+    MemoryGroupByData data = new MemoryGroupByData();
+    data.map = new HashMap<MemoryGroupByData.HashEntry, Aggregate>();
+    MemoryGroupBy step = new MemoryGroupBy( stepMeta, data, 0, transMeta, mock( Trans.class ) ) {
+      private int rowNr;
+
+      @Override
+      public Object[] getRow() {
+        if ( rowNr == nrRows ) {
+          return null;
+        }
+        long value = rowNr++;
+        return new Object[] { "key" + ( value % nrKeys ), value };
+      }
+
+      @Override
+      public RowMetaInterface getInputRowMeta() {
+        return rowMeta;
+      }
+
+      @Override
+      public void putRow( RowMetaInterface rowMeta, Object[] row ) {
+        assertNull( output.put( (String) row[0], row ) );
+      }
+
+      @Override
+      public void setOutputDone() {
+      }
+    };
+    step.copyVariablesFrom( new Variables() );
+
+    while ( step.processRow( meta, data ) ) {
+      // Keep going
+    }
+
+    assertEquals( nrKeys, output.size() );
+    for ( int i = 0; i < nrKeys; i++ ) {
+      Object[] row = output.get( "key" + i );
+      assertNotNull( row );
+      assertEquals( Long.valueOf( 3L * i + 3L * nrKeys ), row[1] );
+      assertEquals( Long.valueOf( 3L ), row[2] );
+      assertEquals( Long.valueOf( i ), row[3] );
+    }
+    assertNull( data.spill );
+
+    step.dispose( meta, data );
+    assertEquals( 0, new File( folder.getRoot().getAbsolutePath() ).list().length );
+  }
+}
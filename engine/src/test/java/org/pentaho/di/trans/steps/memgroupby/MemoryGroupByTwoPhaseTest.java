@@ -0,0 +1,191 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.trans.steps.memgroupby;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.KettleClientEnvironment;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.variables.Variables;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepCopyCombiner;
+import org.pentaho.di.trans.step.StepInterface;
+import org.pentaho.di.trans.step.StepMeta;
+
+public class MemoryGroupByTwoPhaseTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  private static final String STEP_NAME = "testStep";
+  private static final int NR_COPIES = 3;
+  private static final int NR_KEYS = 10;
+  private static final int NR_ROWS = 1000;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws KettleException {
+    KettleClientEnvironment.init();
+  }
+
+  private MemoryGroupByMeta getMeta() {
+    MemoryGroupByMeta meta = new MemoryGroupByMeta();
+    meta.setDefault();
+    meta.allocate( 1, 8 );
+    meta.getGroupField()[0] = "key";
+    int[] types = new int[] { MemoryGroupByMeta.TYPE_GROUP_SUM, MemoryGroupByMeta.TYPE_GROUP_AVERAGE,
+      MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL, MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT,
+      MemoryGroupByMeta.TYPE_GROUP_MIN, MemoryGroupByMeta.TYPE_GROUP_FIRST, MemoryGroupByMeta.TYPE_GROUP_LAST,
+      MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION, };
+    String[] subjects = new String[] { "value", "number", "value", "modulo", "value", "value", "value", "number" };
+    for ( int i = 0; i < types.length; i++ ) {
+      meta.getAggregateField()[i] = "agg" + i;
+      meta.getSubjectField()[i] = subjects[i];
+      meta.getAggregateType()[i] = types[i];
+    }
+    meta.setTwoPhaseAggregation( true );
+    return meta;
+  }
+
+  private RowMetaInterface getRowMeta() {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "key" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "value" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "number" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "modulo" ) );
+    return rowMeta;
+  }
+
+  private Object[] getRow( int rowNr ) {
+    return new Object[] { "key" + ( rowNr % NR_KEYS ), (long) rowNr, rowNr / 7.0, (long) ( rowNr % 13 ) };
+  }
+
+  /**
+   * Runs the copies of the step one after the other, each on a contiguous slice of the rows, and returns the output
+   * rows by key. The last copy gets no rows at all if asked for, so it has to combine the groups without having seen
+   * the layout of the input rows.
+   */
+  private Map<String, Object[]> run( int nrCopies, boolean lastCopyEmpty ) throws KettleException {
+    final MemoryGroupByMeta meta = getMeta();
+    TransMeta transMeta = mock( TransMeta.class );
+    StepMeta stepMeta = new StepMeta( STEP_NAME, meta );
+    when( transMeta.findStep( STEP_NAME ) ).thenReturn( stepMeta );
+    when( transMeta.getPrevStepFields( stepMeta ) ).thenReturn( getRowMeta() );
+    Trans trans = mock( Trans.class );
+    List<StepInterface> copies = new ArrayList<StepInterface>();
+    when( trans.findStepInterfaces( anyString() ) ).thenReturn( copies );
+
+    final RowMetaInterface rowMeta = getRowMeta();
+    final Map<String, Object[]> output = new HashMap<String, Object[]>();
+    List<MemoryGroupByData> datas = new ArrayList<MemoryGroupByData>();
+    for ( int copyNr = 0; copyNr < nrCopies; copyNr++ ) {
+      final int nrSlices = lastCopyEmpty ? nrCopies - 1 : nrCopies;
+      final int start = Math.min( copyNr, nrSlices ) * NR_ROWS / nrSlices;
+      final int end = Math.min( copyNr + 1, nrSlices ) * NR_ROWS / nrSlices;
+      MemoryGroupByData data = new MemoryGroupByData();
+      MemoryGroupBy step = new MemoryGroupBy( stepMeta, data, copyNr, transMeta, trans ) {
+        private int rowNr = start;
+
+        @Override
+        public Object[] getRow() {
+          return rowNr == end ? null : MemoryGroupByTwoPhaseTest.this.getRow( rowNr++ );
+        }
+
+        @Override
+        public RowMetaInterface getInputRowMeta() {
+          return start == end ? null : rowMeta;
+        }
+
+        @Override
+        public void putRow( RowMetaInterface rowMeta, Object[] row ) {
+          assertNull( output.put( (String) row[0], row ) );
+        }
+
+        @Override
+        public void setOutputDone() {
+        }
+      };
+      step.copyVariablesFrom( new Variables() );
+      copies.add( step );
+      datas.add( data );
+    }
+
+    for ( int copyNr = 0; copyNr < nrCopies; copyNr++ ) {
+      MemoryGroupBy step = (MemoryGroupBy) copies.get( copyNr );
+      MemoryGroupByData data = datas.get( copyNr );
+      assertEquals( nrCopies, StepCopyCombiner.getNrCopies( step ) );
+      data.map = new HashMap<MemoryGroupByData.HashEntry, Aggregate>();
+      data.twoPhase = nrCopies > 1;
+      while ( step.processRow( meta, data ) ) {
+        // Keep going
+      }
+      if ( copyNr < nrCopies - 1 ) {
+        assertEquals( 0, output.size() );
+      }
+    }
+    return output;
+  }
+
+  @Test
+  public void testCombinedCopiesMatchSingleCopy() throws Exception {
+    assertSameOutput( run( 1, false ), run( NR_COPIES, false ) );
+  }
+
+  @Test
+  public void testCopyWithoutRowsCombinesLast() throws Exception {
+    assertSameOutput( run( 1, false ), run( 2, true ) );
+  }
+
+  private void assertSameOutput( Map<String, Object[]> expected, Map<String, Object[]> actual ) {
+    assertEquals( NR_KEYS, expected.size() );
+    assertEquals( expected.size(), actual.size() );
+    for ( Map.Entry<String, Object[]> entry : expected.entrySet() ) {
+      Object[] expectedRow = entry.getValue();
+      Object[] actualRow = actual.get( entry.getKey() );
+      assertNotNull( actualRow );
+      for ( int i = 0; i < expectedRow.length; i++ ) {
+        if ( expectedRow[i] instanceof Double ) {
+          assertEquals( (Double) expectedRow[i], (Double) actualRow[i], 1e-9 );
+        } else {
+          assertEquals( expectedRow[i], actualRow[i] );
+        }
+      }
+    }
+  }
+}
@@ -73,6 +73,24 @@ public class SortRowsMetaInjectionTest extends BaseMetadataInjectionTest<SortRow
         return meta.getCompressFiles();
       }
     } );
+    check( "PARALLEL_SORT", new BooleanGetter() {
+      @Override
+      public boolean get() {
+        return meta.isParallelSort();
+      }
+    } );
+    check( "SORT_THREADS", new StringGetter() {
+      @Override
+      public String get() {
+        return meta.getSortThreads();
+      }
+    } );
+    check( "COMPRESSION_TYPE", new StringGetter() {
+      @Override
+      public String get() {
+        return meta.getCompressionType();
+      }
+    } );
     check( "NAME", new StringGetter() {
       @Override
       public String get() {
@@ -0,0 +1,160 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.trans.steps.sort;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.compress.CompressionProvider;
+import org.pentaho.di.core.compress.snappy.SnappyCompressionProvider;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBigNumber;
+import org.pentaho.di.core.row.value.ValueMetaBoolean;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+public class SortRunMergerTest {
+  private static final int[] KEYS = new int[] { 0, 1 };
+
+  private RowMetaInterface rowMeta;
+  private Comparator<Object[]> comparator;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "amount" ) );
+    rowMeta.addValueMeta( new ValueMetaDate( "date" ) );
+    rowMeta.addValueMeta( new ValueMetaBoolean( "flag" ) );
+    rowMeta.addValueMeta( new ValueMetaBigNumber( "big" ) );
+
+    comparator = new Comparator<Object[]>() {
+      @Override
+      public int compare( Object[] o1, Object[] o2 ) {
+        try {
+          return rowMeta.compare( o1, o2, KEYS );
+        } catch ( KettleValueException e ) {
+          throw new IllegalStateException( e );
+        }
+      }
+    };
+    executor = Executors.newFixedThreadPool( 2 );
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    List<Object[]> rows = Arrays.asList(
+      row( "apple", 3L, 1.5, new Date( 1000L ), true, new BigDecimal( "1.25" ) ),
+      row( "apple", 7L, null, null, false, null ),
+      row( "applesauce", -2L, -0.0, new Date( -5000L ), null, new BigDecimal( "-3" ) ),
+      row( null, null, Double.NaN, new Date( Long.MAX_VALUE ), true, BigDecimal.ZERO ),
+      row( "\u00e9t\u00e9 \ud83d\ude00 \u0000 \ud800", Long.MIN_VALUE, 0.0, null, null, null ) );
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    SortRunWriter writer = new SortRunWriter( rowMeta, KEYS, outputStream, null );
+    for ( Object[] row : rows ) {
+      writer.writeRow( row );
+    }
+    writer.close();
+    assertEquals( rows.size(), writer.getRowsWritten() );
+    assertEquals( outputStream.size(), writer.getBytesWritten() );
+
+    SortRunReader reader = new SortRunReader( rowMeta, KEYS,
+      new ByteArrayInputStream( outputStream.toByteArray() ), null, rows.size() );
+    for ( Object[] row : rows ) {
+      assertArrayEquals( row, Arrays.copyOf( reader.readRow(), row.length ) );
+    }
+    assertNull( reader.readRow() );
+    reader.close();
+  }
+
+  @Test
+  public void testMergeIsSortedAndStable() throws Exception {
+    List<Object[]> expected = new ArrayList<Object[]>();
+    List<SortRunReader> readers = new ArrayList<SortRunReader>();
+    CompressionProvider compression = new SnappyCompressionProvider();
+    for ( int run = 0; run < 5; run++ ) {
+      List<Object[]> rows = new ArrayList<Object[]>();
+      for ( int i = 0; i < 100 + run * 37; i++ ) {
+        rows.add( row( "key" + ( i * 7 + run ) % 50, (long) ( i % 3 ), (double) run, null, null, null ) );
+      }
+      rows.sort( comparator );
+      expected.addAll( rows );
+
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      SortRunWriter writer = new SortRunWriter( rowMeta, KEYS, outputStream, compression );
+      for ( Object[] row : rows ) {
+        writer.writeRow( row );
+      }
+      writer.close();
+      readers.add( new SortRunReader( rowMeta, KEYS, new ByteArrayInputStream( outputStream.toByteArray() ),
+        compression, rows.size() ) );
+    }
+    // A stable sort keeps the rows of earlier runs first, like the merge should
+    expected.sort( comparator );
+
+    SortRunMerger merger = new SortRunMerger( readers, comparator, executor, 16 );
+    assertEquals( 5, merger.getFanIn() );
+    for ( Object[] row : expected ) {
+      assertArrayEquals( row, Arrays.copyOf( merger.next(), row.length ) );
+    }
+    assertNull( merger.next() );
+    merger.close();
+  }
+
+  @Test
+  public void testMergeWithoutRuns() throws Exception {
+    SortRunMerger merger = new SortRunMerger( new ArrayList<SortRunReader>(), comparator, executor, 16 );
+    assertNull( merger.next() );
+    merger.close();
+  }
+
+  private static Object[] row( Object... values ) {
+    return values;
+  }
+}
@@ -68,6 +68,16 @@ public class TableInputMetaInjectionTest extends BaseMetadataInjectionTest<Table
         return meta.isCachedRowMetaActive();
       }
     } );
+    check( "SPLIT_FIELD", new StringGetter() {
+      public String get() {
+        return meta.getSplitField();
+      }
+    } );
+    check( "SPLIT_METHOD", new StringGetter() {
+      public String get() {
+        return meta.getSplitMethod();
+      }
+    } );
     skipPropertyTest( "CONNECTIONNAME" );
   }
 }
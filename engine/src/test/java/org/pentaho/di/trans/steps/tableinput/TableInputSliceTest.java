@@ -0,0 +1,122 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.trans.steps.tableinput;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+public class TableInputSliceTest {
+
+  private static final String SQL = "SELECT id, created FROM orders;";
+
+  private DatabaseMeta databaseMeta;
+
+  @Before
+  public void setUp() {
+    databaseMeta = mock( DatabaseMeta.class );
+    when( databaseMeta.quoteField( anyString() ) ).thenAnswer( invocation -> invocation.getArguments()[ 0 ] );
+    when( databaseMeta.getModuloExpression( anyString(), anyInt() ) ).thenAnswer(
+      invocation -> "MOD(" + invocation.getArguments()[ 0 ] + ", " + invocation.getArguments()[ 1 ] + ")" );
+  }
+
+  @Test
+  public void testModuloSlices() {
+    TableInputSlice first = new TableInputSlice( databaseMeta, "id", TableInputMeta.SPLIT_METHOD_MODULO, 0, 3 );
+    TableInputSlice last = new TableInputSlice( databaseMeta, "id", TableInputMeta.SPLIT_METHOD_MODULO, 2, 3 );
+
+    assertFalse( first.isRangeNeeded() );
+    assertEquals(
+      "SELECT * FROM ( SELECT id, created FROM orders ) kettle_split WHERE MOD(ABS(id), 3) = 0 OR id IS NULL", first.getSliceSql( SQL ) );
+    assertEquals( "SELECT * FROM ( SELECT id, created FROM orders ) kettle_split WHERE MOD(ABS(id), 3) = 2",
+      last.getSliceSql( SQL ) );
+    assertEquals( 0, last.getParameters().length );
+  }
+
+  @Test
+  public void testIntegerRanges() throws KettleException {
+    TableInputSlice first = new TableInputSlice( databaseMeta, "id", TableInputMeta.SPLIT_METHOD_RANGE, 0, 4 );
+    TableInputSlice middle = new TableInputSlice( databaseMeta, "id", TableInputMeta.SPLIT_METHOD_RANGE, 1, 4 );
+    TableInputSlice last = new TableInputSlice( databaseMeta, "id", TableInputMeta.SPLIT_METHOD_RANGE, 3, 4 );
+
+    assertTrue( middle.isRangeNeeded() );
+    assertEquals( "SELECT MIN(id), MAX(id) FROM ( SELECT id, created FROM orders ) kettle_split",
+      middle.getRangeSql( SQL ) );
+
+    for ( TableInputSlice slice : new TableInputSlice[] { first, middle, last } ) {
+      slice.setRange( new ValueMetaInteger( "min" ), 10L, 110L );
+      assertFalse( slice.isRangeNeeded() );
+    }
+
+    assertArrayEquals( new Object[] { 35L }, first.getParameters() );
+    assertEquals( "SELECT * FROM ( SELECT id, created FROM orders ) kettle_split WHERE id < ? OR id IS NULL",
+      first.getSliceSql( SQL ) );
+    assertArrayEquals( new Object[] { 35L, 60L }, middle.getParameters() );
+    assertEquals( 2, middle.getParametersMeta().size() );
+    assertEquals( "SELECT * FROM ( SELECT id, created FROM orders ) kettle_split WHERE id >= ? AND id < ?",
+      middle.getSliceSql( SQL ) );
+    assertArrayEquals( new Object[] { 85L }, last.getParameters() );
+    assertEquals( "SELECT * FROM ( SELECT id, created FROM orders ) kettle_split WHERE id >= ?",
+      last.getSliceSql( SQL ) );
+  }
+
+  @Test
+  public void testDateRanges() throws KettleException {
+    TableInputSlice slice = new TableInputSlice( databaseMeta, "created", TableInputMeta.SPLIT_METHOD_RANGE, 1, 2 );
+    slice.setRange( new ValueMetaDate( "min" ), new Date( 1000L ), new Date( 3000L ) );
+
+    assertArrayEquals( new Object[] { new Date( 2000L ) }, slice.getParameters() );
+  }
+
+  @Test
+  public void testEmptyRange() throws KettleException {
+    TableInputSlice first = new TableInputSlice( databaseMeta, "id", TableInputMeta.SPLIT_METHOD_RANGE, 0, 2 );
+    TableInputSlice second = new TableInputSlice( databaseMeta, "id", TableInputMeta.SPLIT_METHOD_RANGE, 1, 2 );
+    first.setRange( new ValueMetaInteger( "min" ), null, null );
+    second.setRange( new ValueMetaInteger( "min" ), null, null );
+
+    assertTrue( first.getSliceSql( SQL ).endsWith( "WHERE 1 = 1" ) );
+    assertTrue( second.getSliceSql( SQL ).endsWith( "WHERE 1 = 0" ) );
+    assertEquals( 0, second.getParametersMeta().size() );
+  }
+
+  @Test( expected = KettleException.class )
+  public void testStringRangeNotSupported() throws KettleException {
+    TableInputSlice slice = new TableInputSlice( databaseMeta, "name", TableInputMeta.SPLIT_METHOD_RANGE, 1, 2 );
+    slice.setRange( new ValueMetaString( "min" ), "a", "z" );
+  }
+}
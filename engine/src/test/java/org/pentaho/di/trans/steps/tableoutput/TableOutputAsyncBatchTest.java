@@ -0,0 +1,113 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.trans.steps.tableoutput;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+public class TableOutputAsyncBatchTest {
+
+  private Database db;
+  private PreparedStatement ps;
+  private RowMetaInterface rowMeta;
+  private Object[] row1 = new Object[] { 1L };
+  private Object[] row2 = new Object[] { 2L };
+  private List<Object[]> rows;
+
+  @Before
+  public void setUp() {
+    db = mock( Database.class );
+    ps = mock( PreparedStatement.class );
+    rowMeta = mock( RowMetaInterface.class );
+    rows = Arrays.asList( row1, row2 );
+  }
+
+  @Test
+  public void testCall_CommitsBatch() throws Exception {
+    TableOutputAsyncBatch batch = new TableOutputAsyncBatch( db, ps, rowMeta, rows, rows, false );
+
+    assertSame( batch, batch.call() );
+
+    verify( db ).setValues( rowMeta, row1, ps );
+    verify( db ).setValues( rowMeta, row2, ps );
+    verify( db, times( 2 ) ).insertRow( ps, true, false );
+    verify( ps ).executeBatch();
+    verify( db ).commit();
+    assertNull( batch.getBatchException() );
+    assertEquals( 2, batch.getBoundRows().size() );
+  }
+
+  @Test
+  public void testCall_RollsBackFailedBatch() throws Exception {
+    when( ps.executeBatch() ).thenThrow( new BatchUpdateException( new int[] { 1, 0 } ) );
+    TableOutputAsyncBatch batch = new TableOutputAsyncBatch( db, ps, rowMeta, rows, rows, false );
+
+    batch.call();
+
+    verify( db ).clearBatch( ps );
+    verify( db ).rollback();
+    verify( db, never() ).commit();
+    assertNotNull( batch.getBatchException() );
+    assertArrayEquals( new int[] { 1, 0 }, batch.getBatchException().getUpdateCounts() );
+  }
+
+  @Test
+  public void testCall_SendsUnboundRowToErrorHandling() throws Exception {
+    doThrow( new KettleDatabaseException( "bad value" ) ).when( db ).setValues( rowMeta, row1, ps );
+    TableOutputAsyncBatch batch = new TableOutputAsyncBatch( db, ps, rowMeta, rows, rows, true );
+
+    batch.call();
+
+    assertEquals( 1, batch.getErrorRows().size() );
+    assertSame( row1, batch.getErrorRows().get( 0 ) );
+    assertEquals( 1, batch.getBoundRows().size() );
+    assertSame( row2, batch.getBoundRows().get( 0 ) );
+    verify( db ).commit();
+  }
+
+  @Test( expected = KettleDatabaseException.class )
+  public void testCall_FailsOnUnboundRowWithoutErrorHandling() throws Exception {
+    doThrow( new KettleDatabaseException( "bad value" ) ).when( db ).setValues( rowMeta, row1, ps );
+
+    new TableOutputAsyncBatch( db, ps, rowMeta, rows, rows, false ).call();
+  }
+}
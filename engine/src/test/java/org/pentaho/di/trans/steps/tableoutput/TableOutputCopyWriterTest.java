@@ -0,0 +1,76 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.trans.steps.tableoutput;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+import org.junit.Test;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBigNumber;
+import org.pentaho.di.core.row.value.ValueMetaBinary;
+import org.pentaho.di.core.row.value.ValueMetaBoolean;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.row.value.ValueMetaTimestamp;
+
+public class TableOutputCopyWriterTest {
+
+  @Test
+  public void testGetCopyCommand() {
+    DatabaseMeta databaseMeta = mock( DatabaseMeta.class );
+    when( databaseMeta.getQuotedSchemaTableCombination( "s", "t" ) ).thenReturn( "s.t" );
+    when( databaseMeta.quoteField( anyString() ) )
+      .thenAnswer( invocation -> "\"" + invocation.getArguments()[ 0 ] + "\"" );
+    RowMetaInterface fields = new RowMeta();
+    fields.addValueMeta( new ValueMetaInteger( "id" ) );
+    fields.addValueMeta( new ValueMetaString( "name" ) );
+
+    assertEquals( "COPY s.t (\"id\", \"name\") FROM STDIN WITH CSV",
+      TableOutputCopyWriter.getCopyCommand( databaseMeta, "s", "t", fields ) );
+  }
+
+  @Test
+  public void testFormatRow() throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    rowMeta.addValueMeta( new ValueMetaBigNumber( "amount" ) );
+    rowMeta.addValueMeta( new ValueMetaBoolean( "flag" ) );
+    rowMeta.addValueMeta( new ValueMetaTimestamp( "ts" ) );
+    rowMeta.addValueMeta( new ValueMetaBinary( "data" ) );
+    Timestamp timestamp = Timestamp.valueOf( "2015-03-02 16:40:00.123456789" );
+    TableOutputCopyWriter writer = new TableOutputCopyWriter( null, "COPY" );
+
+    assertEquals( "1,\"say \"\"hi\"\", bye\",1000,t,2015-03-02 16:40:00.123456789,\\x00ff\n",
+      writer.formatRow( rowMeta, new Object[] {
+        1L, "say \"hi\", bye", new BigDecimal( "1E+3" ), true, timestamp, new byte[] { 0, (byte) 0xFF } } ) );
+    assertEquals( ",,,,,\n", writer.formatRow( rowMeta, new Object[ 6 ] ) );
+  }
+}
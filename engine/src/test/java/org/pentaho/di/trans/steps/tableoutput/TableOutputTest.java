@@ -24,6 +24,7 @@ package org.pentaho.di.trans.steps.tableoutput;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseInterface;
 import org.pentaho.di.core.database.DatabaseMeta;
@@ -35,14 +36,19 @@ import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepPartitioningMeta;
 
 import java.sql.Connection;
+import java.util.ArrayList;
 import java.util.Map;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
@@ -179,6 +185,48 @@ public class TableOutputTest {
     verify( tableOutputSpy, never() ).truncateTable();
   }
 
+  @Test
+  public void testWriteRowsInBulk_passesRowsOnAfterCommit() throws Exception {
+    TableOutputCopyWriter copyWriter = mock( TableOutputCopyWriter.class );
+    tableOutputData.copyWriter = copyWriter;
+    tableOutputData.commitSize = 2;
+    tableOutputData.batchBuffer = new ArrayList<>();
+    doNothing().when( tableOutputSpy ).putRows( any( RowMetaInterface.class ), any( Object[][].class ), anyInt() );
+
+    tableOutputSpy.writeRowsInBulk( new Object[][] { { "a" }, { "b" }, { "c" } } );
+
+    InOrder order = inOrder( copyWriter, db, tableOutputSpy );
+    order.verify( copyWriter ).endCopy();
+    order.verify( db ).commit();
+    order.verify( tableOutputSpy ).putRows( any( RowMetaInterface.class ), any( Object[][].class ), eq( 2 ) );
+    verify( tableOutputSpy, times( 1 ) ).putRows( any( RowMetaInterface.class ), any( Object[][].class ), anyInt() );
+    // The last row is not committed yet
+    assertEquals( 1, tableOutputData.batchBuffer.size() );
+  }
+
+  @Test
+  public void testWriteRowsInBulk_passesRowsOnWithoutCommitSize() throws Exception {
+    TableOutputCopyWriter copyWriter = mock( TableOutputCopyWriter.class );
+    tableOutputData.copyWriter = copyWriter;
+    tableOutputData.commitSize = Integer.MAX_VALUE;
+    tableOutputData.batchBuffer = new ArrayList<>();
+    doNothing().when( tableOutputSpy ).putRows( any( RowMetaInterface.class ), any( Object[][].class ), anyInt() );
+
+    Object[][] rows = new Object[ TableOutput.MAX_UNCOMMITTED_BUFFER_ROWS + 1 ][];
+    for ( int i = 0; i < rows.length; i++ ) {
+      rows[ i ] = new Object[] { "row" + i };
+    }
+    tableOutputSpy.writeRowsInBulk( rows );
+
+    InOrder order = inOrder( copyWriter, tableOutputSpy );
+    order.verify( copyWriter ).endCopy();
+    order.verify( tableOutputSpy ).putRows( any( RowMetaInterface.class ), any( Object[][].class ),
+      eq( TableOutput.MAX_UNCOMMITTED_BUFFER_ROWS ) );
+    // Everything is committed at the end of the stream
+    verify( db, never() ).commit();
+    assertEquals( 1, tableOutputData.batchBuffer.size() );
+  }
+
   @Test
   public void testInit_unsupportedConnection() {
 
@@ -0,0 +1,83 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.trans.steps.transexecutor;
+
+import org.junit.Test;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+public class TransExecutorPoolTest {
+
+  @Test
+  public void testFailedSlotIsPreparedAgain() throws Exception {
+    Trans trans = mock( Trans.class );
+    AtomicInteger attempts = new AtomicInteger();
+    TransExecutorPool pool = new TransExecutorPool( mock( TransMeta.class ), 1, transMeta -> {
+      if ( attempts.getAndIncrement() == 0 ) {
+        throw new IllegalStateException( "first attempt fails" );
+      }
+      return trans;
+    }, new String[ 0 ] );
+
+    try {
+      pool.take();
+      fail( "The failure to create the sub-transformation should be reported" );
+    } catch ( KettleException e ) {
+      // expected
+    }
+
+    // The slot is not lost, the next group gets a sub-transformation
+    //
+    TransExecutorPool.PreparedTrans preparedTrans = pool.take();
+    preparedTrans.checkPrepared();
+    assertSame( trans, preparedTrans.getTrans() );
+  }
+
+  @Test
+  public void testTransIsCreatedOnTheStepThread() throws Exception {
+    AtomicReference<Thread> creatingThread = new AtomicReference<>();
+    TransExecutorPool pool = new TransExecutorPool( mock( TransMeta.class ), 1, transMeta -> {
+      creatingThread.set( Thread.currentThread() );
+      return mock( Trans.class );
+    }, new String[ 0 ] );
+
+    pool.release( pool.take() );
+    assertSame( Thread.currentThread(), creatingThread.get() );
+    pool.dispose();
+  }
+
+  @Test( expected = KettleException.class )
+  public void testTakeFromEmptyPool() throws Exception {
+    TransExecutorPool pool = new TransExecutorPool( mock( TransMeta.class ), 1, transMeta -> mock( Trans.class ),
+      new String[ 0 ] );
+    pool.take();
+    pool.take();
+  }
+}
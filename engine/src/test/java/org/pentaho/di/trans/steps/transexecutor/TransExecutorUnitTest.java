@@ -65,6 +65,7 @@ import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -576,6 +577,32 @@ public class TransExecutorUnitTest {
     verify( executor.getTrans(), never() ).stopAll();
   }
 
+  @Test
+  public void executesGroupsWithPreparedTransformations() throws Exception {
+    prepareOneRowForExecutor();
+    meta.setPreparedTransformations( "1" );
+    doReturn( internalTrans ).when( executor ).createInternalTrans( any( TransMeta.class ) );
+
+    RowMetaAndData expectedResult = new RowMetaAndData( new RowMeta(), "fake result" );
+    internalResult.getRows().add( expectedResult );
+    RowSet rowSet = new QueueRowSet();
+    meta.setOutputRowsSourceStepMeta( mockStepAndMapItToRowSet( "stepMetaMock", rowSet ) );
+
+    Trans parent = new Trans();
+    Mockito.when( executor.getTrans() ).thenReturn( parent );
+
+    executor.init( meta, data );
+    executor.setInputRowMeta( new RowMeta() );
+    assertTrue( executor.processRow( meta, data ) );
+    assertFalse( executor.processRow( meta, data ) );
+
+    assertArrayEquals( expectedResult.getData(), rowSet.getRowImmediate() );
+    verify( executor, never() ).createInternalTrans();
+    // The first sub-transformation, and the one prepared for the next group
+    verify( executor, timeout( 5000 ).times( 2 ) ).createInternalTrans( any( TransMeta.class ) );
+    verify( internalTrans, timeout( 5000 ).times( 2 ) ).prepareExecution( any( String[].class ) );
+  }
+
   private void prepareNoRowForExecutor() throws Exception {
     doReturn( null ).when( executor ).getRow();
   }
@@ -0,0 +1,181 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.trans.steps.uniquerowsbyhashset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.DataOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.di.core.KettleClientEnvironment;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.variables.Variables;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepMeta;
+
+public class UniqueRowsByHashSetCompactTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private static final String STEP_NAME = "testStep";
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws KettleException {
+    KettleClientEnvironment.init();
+  }
+
+  @Test
+  public void testFingerprintSet() {
+    FingerprintSet fingerprints = new FingerprintSet();
+    for ( long i = 1; i <= 100000; i++ ) {
+      assertTrue( fingerprints.add( i * 31, i ) );
+    }
+    for ( long i = 1; i <= 100000; i++ ) {
+      assertFalse( fingerprints.add( i * 31, i ) );
+    }
+    assertEquals( 100000, fingerprints.size() );
+    assertTrue( fingerprints.add( 0L, 0L ) );
+    assertFalse( fingerprints.add( 0L, 0L ) );
+  }
+
+  @Test
+  public void testFingerprintSetStopsGrowingAtItsMaximumCapacity() {
+    FingerprintSet fingerprints = new FingerprintSet( 1024 );
+    long tableSize = fingerprints.getMemorySize();
+    for ( long i = 1; i <= 768; i++ ) {
+      assertTrue( fingerprints.add( i * 31, i ) );
+    }
+    assertFalse( fingerprints.isFull() );
+
+    // Three quarters full: the table doesn't grow, the fingerprints have to be spilled
+    //
+    assertTrue( fingerprints.add( 769 * 31, 769 ) );
+    assertTrue( fingerprints.isFull() );
+    assertEquals( tableSize, fingerprints.getMemorySize() );
+    // The largest table still fits in an array
+    assertTrue( FingerprintSet.MAX_CAPACITY * 2L < Integer.MAX_VALUE );
+  }
+
+  @Test
+  public void testFingerprintFilterFalsePositiveRate() {
+    FingerprintFilter filter = new FingerprintFilter( 100000, 0.01 );
+    int falsePositives = 0;
+    for ( long i = 0; i < 100000; i++ ) {
+      long high = i * 0x9E3779B97F4A7C15L;
+      if ( !filter.add( high, Long.rotateLeft( high, 29 ) ^ i ) ) {
+        falsePositives++;
+      }
+    }
+    assertTrue( "False positives: " + falsePositives, falsePositives < 2000 );
+    for ( long i = 0; i < 100000; i++ ) {
+      long high = i * 0x9E3779B97F4A7C15L;
+      assertFalse( filter.add( high, Long.rotateLeft( high, 29 ) ^ i ) );
+    }
+  }
+
+  @Test
+  public void testSpilledFingerprintsKeepFirstRowOfEveryKey() throws Exception {
+    UniqueRowsByHashSetMeta meta = new UniqueRowsByHashSetMeta();
+    meta.setDefault();
+    meta.allocate( 1 );
+    meta.getCompareFields()[0] = "key";
+    meta.setDistinctMode( UniqueRowsByHashSetMeta.DISTINCT_MODE_FINGERPRINT );
+    meta.setDirectory( folder.getRoot().getAbsolutePath() );
+
+    TransMeta transMeta = mock( TransMeta.class );
+    StepMeta stepMeta = new StepMeta( STEP_NAME, meta );
+    when( transMeta.findStep( STEP_NAME ) ).thenReturn( stepMeta );
+
+    // Enough distinct keys to spill at least two levels deep with a 64 KB table
+    //
+    final int nrKeys = 80000;
+    final int nrRows = 200000;
+    final RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "key" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "value" ) );
+    final Map<String, Object[]> output = new HashMap<String, Object[]>();
+    UniqueRowsByHashSetData data = new UniqueRowsByHashSetData();
+    data.fingerprints = new FingerprintSet();
+    data.memoryLimit = 64 * 1024;
+    data.keyBuffer = new UniqueRowsByHashSetData.KeyBuffer();
+    data.keyOutput = new DataOutputStream( data.keyBuffer );
+    UniqueRowsByHashSet step = new UniqueRowsByHashSet( stepMeta, data, 0, transMeta, mock( Trans.class ) ) {
+      private int rowNr;
+
+      @Override
+      public Object[] getRow() {
+        if ( rowNr == nrRows ) {
+          return null;
+        }
+        long value = rowNr++;
+        return new Object[] { "key" + ( value % nrKeys ), value };
+      }
+
+      @Override
+      public RowMetaInterface getInputRowMeta() {
+        return rowMeta;
+      }
+
+      @Override
+      public void putRow( RowMetaInterface rowMeta, Object[] row ) {
+        assertNull( output.put( (String) row[0], row ) );
+      }
+
+      @Override
+      public void setOutputDone() {
+      }
+    };
+    step.copyVariablesFrom( new Variables() );
+
+    while ( step.processRow( meta, data ) ) {
+      // Keep going
+    }
+
+    assertEquals( nrKeys, output.size() );
+    for ( int i = 0; i < nrKeys; i++ ) {
+      assertEquals( Long.valueOf( i ), output.get( "key" + i )[1] );
+    }
+    assertEquals( nrRows - nrKeys, step.getLinesRejected() );
+    assertNull( data.spill );
+
+    step.dispose( meta, data );
+    assertEquals( 0, folder.getRoot().list().length );
+  }
+}
@@ -42,19 +42,32 @@ public class UniqueRowsByHashSetMetaTest {
   @Test
   public void testRoundTrip() throws KettleException {
     List<String> attributes =
-      Arrays.asList( "store_values", "reject_duplicate_row", "error_description", "name" );
+      Arrays.asList( "store_values", "reject_duplicate_row", "error_description", "name", "distinct_mode",
+        "memory_limit", "directory", "prefix", "expected_rows", "false_positive_rate" );
 
     Map<String, String> getterMap = new HashMap<String, String>();
     getterMap.put( "store_values", "getStoreValues" );
     getterMap.put( "reject_duplicate_row", "isRejectDuplicateRow" );
     getterMap.put( "error_description", "getErrorDescription" );
     getterMap.put( "name", "getCompareFields" );
+    getterMap.put( "distinct_mode", "getDistinctMode" );
+    getterMap.put( "memory_limit", "getMemoryLimit" );
+    getterMap.put( "directory", "getDirectory" );
+    getterMap.put( "prefix", "getPrefix" );
+    getterMap.put( "expected_rows", "getExpectedRows" );
+    getterMap.put( "false_positive_rate", "getFalsePositiveRate" );
 
     Map<String, String> setterMap = new HashMap<String, String>();
     setterMap.put( "store_values", "setStoreValues" );
     setterMap.put( "reject_duplicate_row", "setRejectDuplicateRow" );
     setterMap.put( "error_description", "setErrorDescription" );
     setterMap.put( "name", "setCompareFields" );
+    setterMap.put( "distinct_mode", "setDistinctMode" );
+    setterMap.put( "memory_limit", "setMemoryLimit" );
+    setterMap.put( "directory", "setDirectory" );
+    setterMap.put( "prefix", "setPrefix" );
+    setterMap.put( "expected_rows", "setExpectedRows" );
+    setterMap.put( "false_positive_rate", "setFalsePositiveRate" );
 
     Map<String, FieldLoadSaveValidator<?>> fieldLoadSaveValidatorAttributeMap =
       new HashMap<String, FieldLoadSaveValidator<?>>();
@@ -0,0 +1,109 @@
+/*! ******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2020 by Hitachi Vantara : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.pentaho.di.www;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Collections;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.step.StepInterface;
+import org.pentaho.di.trans.step.StepMetaDataCombi;
+
+public class GetMetricsServletTest {
+  private TransformationMap mockTransformationMap;
+  private GetMetricsServlet getMetricsServlet;
+
+  @Before
+  public void setup() {
+    mockTransformationMap = mock( TransformationMap.class );
+    getMetricsServlet = new GetMetricsServlet( mockTransformationMap );
+  }
+
+  @Test
+  public void testMetricsOfRunningStep() throws Exception {
+    CarteObjectEntry entry = new CarteObjectEntry( "my \"trans\"", "id-1" );
+    Trans mockTrans = mock( Trans.class );
+    StepInterface mockStep = mock( StepInterface.class );
+    StepMetaDataCombi combi = new StepMetaDataCombi();
+    combi.step = mockStep;
+
+    when( mockTransformationMap.getTransformationObjects() ).thenReturn( Collections.singletonList( entry ) );
+    when( mockTransformationMap.getTransformation( entry ) ).thenReturn( mockTrans );
+    when( mockTrans.getSteps() ).thenReturn( Collections.singletonList( combi ) );
+    when( mockTrans.isRunning() ).thenReturn( true );
+    when( mockTrans.getErrors() ).thenReturn( 1 );
+    when( mockStep.getStepname() ).thenReturn( "Dummy" );
+    when( mockStep.getCopy() ).thenReturn( 2 );
+    when( mockStep.getLinesRead() ).thenReturn( 1000L );
+    when( mockStep.getLinesWritten() ).thenReturn( 900L );
+    when( mockStep.getLinesRejected() ).thenReturn( 100L );
+    when( mockStep.getRuntime() ).thenReturn( 2000L );
+    when( mockStep.isRunning() ).thenReturn( true );
+    when( mockStep.rowsetInputSize() ).thenReturn( 42 );
+
+    HttpServletRequest mockHttpServletRequest = mock( HttpServletRequest.class );
+    HttpServletResponse mockHttpServletResponse = mock( HttpServletResponse.class );
+    StringWriter out = new StringWriter();
+    when( mockHttpServletRequest.getContextPath() ).thenReturn( GetMetricsServlet.CONTEXT_PATH );
+    when( mockHttpServletResponse.getWriter() ).thenReturn( new PrintWriter( out ) );
+
+    getMetricsServlet.doGet( mockHttpServletRequest, mockHttpServletResponse );
+
+    verify( mockHttpServletResponse ).setContentType( GetMetricsServlet.CONTENT_TYPE );
+    String metrics = out.toString();
+    String transLabels = "trans=\"my \\\"trans\\\"\",trans_id=\"id-1\"";
+    String stepLabels = transLabels + ",step=\"Dummy\",copy=\"2\"";
+    assertTrue( metrics.contains( "# TYPE kettle_step_rows_read counter\n" ) );
+    assertTrue( metrics.contains( "kettle_trans_running{" + transLabels + "} 1\n" ) );
+    assertTrue( metrics.contains( "kettle_trans_errors_total{" + transLabels + "} 1\n" ) );
+    assertTrue( metrics.contains( "kettle_step_rows_read_total{" + stepLabels + "} 1000\n" ) );
+    assertTrue( metrics.contains( "kettle_step_rows_rejected_total{" + stepLabels + "} 100\n" ) );
+    assertTrue( metrics.contains( "kettle_step_rows_per_second{" + stepLabels + "} 500\n" ) );
+    assertTrue( metrics.contains( "kettle_step_input_buffer_rows{" + stepLabels + "} 42\n" ) );
+    assertTrue( metrics.contains( "# TYPE kettle_jvm_threads gauge\n" ) );
+    assertTrue( metrics.endsWith( "# EOF\n" ) );
+  }
+
+  @Test
+  public void testEscapeLabelValue() {
+    assertEquals( "a\\\\b\\\"c\\nd", GetMetricsServlet.escapeLabelValue( "a\\b\"c\nd" ) );
+    assertEquals( "", GetMetricsServlet.escapeLabelValue( null ) );
+  }
+
+  @Test
+  public void testFormatValue() {
+    assertEquals( "12", GetMetricsServlet.formatValue( 12 ) );
+    assertEquals( "12.5", GetMetricsServlet.formatValue( 12.5 ) );
+  }
+}
@@ -90,6 +90,8 @@ public class TransDelegate extends AbstractDelegate implements ITransformer, ISh
 
   private static final String PROP_TRANSFORMATION_TYPE = "TRANSFORMATION_TYPE";
 
+  private static final String PROP_LOCK_FREE_ROWSETS = "LOCK_FREE_ROWSETS";
+
   public static final String PROP_TRANS_DATA_SERVICE_NAME = "DATA_SERVICE_NAME";
 
   private static final String PROP_STEP_PERFORMANCE_LOG_TABLE = "STEP_PERFORMANCE_LOG_TABLE";
@@ -573,6 +575,11 @@ public class TransDelegate extends AbstractDelegate implements ITransformer, ISh
     transMeta.setSharedObjectsFile( getString( rootNode, PROP_SHARED_FILE ) );
     String transTypeCode = getString( rootNode, PROP_TRANSFORMATION_TYPE );
     transMeta.setTransformationType( TransformationType.getTransformationTypeByCode( transTypeCode ) );
+    boolean usingLockFreeRowSets = false;
+    if ( rootNode.hasProperty( PROP_LOCK_FREE_ROWSETS ) ) {
+      usingLockFreeRowSets = rootNode.getProperty( PROP_LOCK_FREE_ROWSETS ).getBoolean();
+    }
+    transMeta.setUsingLockFreeRowSets( usingLockFreeRowSets );
 
     // Performance monitoring for steps...
     //
@@ -797,6 +804,7 @@ public class TransDelegate extends AbstractDelegate implements ITransformer, ISh
     rootNode.setProperty( PROP_LOG_INTERVAL, transMeta.getTransLogTable().getLogInterval() );
 
     rootNode.setProperty( PROP_TRANSFORMATION_TYPE, transMeta.getTransformationType().getCode() );
+    rootNode.setProperty( PROP_LOCK_FREE_ROWSETS, transMeta.isUsingLockFreeRowSets() );
 
     // Save the logging tables too..
     //
@@ -322,6 +322,8 @@ public abstract class RepositoryTestBase extends RepositoryTestLazySupport {
 
   protected static final boolean EXP_CLUSTER_SCHEMA_SOCKETS_COMPRESSED = true;
 
+  protected static final String EXP_CLUSTER_SCHEMA_SOCKETS_COMPRESSION_TYPE = "Snappy";
+
   protected static final boolean EXP_CLUSTER_SCHEMA_DYN = true;
 
   protected static final String EXP_CLUSTER_SCHEMA_BASE_PORT_V2 = "12457";
@@ -1057,6 +1059,7 @@ public abstract class RepositoryTestBase extends RepositoryTestLazySupport {
     assertEquals( EXP_CLUSTER_SCHEMA_SOCKETS_BUFFER_SIZE, fetchedClusterSchema.getSocketsBufferSize() );
     assertEquals( EXP_CLUSTER_SCHEMA_SOCKETS_FLUSH_INTERVAL, fetchedClusterSchema.getSocketsFlushInterval() );
     assertEquals( EXP_CLUSTER_SCHEMA_SOCKETS_COMPRESSED, fetchedClusterSchema.isSocketsCompressed() );
+    assertEquals( EXP_CLUSTER_SCHEMA_SOCKETS_COMPRESSION_TYPE, fetchedClusterSchema.getSocketsCompressionType() );
     assertEquals( EXP_CLUSTER_SCHEMA_DYN, fetchedClusterSchema.isDynamic() );
     assertEquals( 1, fetchedClusterSchema.getSlaveServers().size() );
     assertTrue( fetchedClusterSchema.getSlaveServers().get( 0 ).getName().startsWith( EXP_SLAVE_NAME ) );
@@ -1101,6 +1104,7 @@ public abstract class RepositoryTestBase extends RepositoryTestLazySupport {
     clusterSchema.setSocketsBufferSize( EXP_CLUSTER_SCHEMA_SOCKETS_BUFFER_SIZE );
     clusterSchema.setSocketsFlushInterval( EXP_CLUSTER_SCHEMA_SOCKETS_FLUSH_INTERVAL );
     clusterSchema.setSocketsCompressed( EXP_CLUSTER_SCHEMA_SOCKETS_COMPRESSED );
+    clusterSchema.setSocketsCompressionType( EXP_CLUSTER_SCHEMA_SOCKETS_COMPRESSION_TYPE );
     clusterSchema.setDynamic( EXP_CLUSTER_SCHEMA_DYN );
     SlaveServer slaveServer = createSlaveServer( clusterName );
     repository.save( slaveServer, VERSION_COMMENT_V1, null );
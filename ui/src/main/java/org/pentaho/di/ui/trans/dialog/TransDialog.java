@@ -210,6 +210,8 @@ public class TransDialog extends Dialog {
 
   private CCombo wTransformationType;
 
+  private Button wLockFreeRowSets;
+
   private Tabs currentTab = null;
 
   protected boolean changed;
@@ -1976,6 +1978,27 @@ public class TransDialog extends Dialog {
     wTransformationType.setLayoutData( fdTransformationType );
     wTransformationType.setItems( TransformationType.getTransformationTypesDescriptions() );
 
+    // Use lock-free row sets between single step copies?
+    //
+    Label wlLockFreeRowSets = new Label( wMiscComp, SWT.RIGHT );
+    wlLockFreeRowSets.setText( BaseMessages.getString( PKG, "TransDialog.LockFreeRowSets.Label" ) );
+    wlLockFreeRowSets.setToolTipText( BaseMessages.getString( PKG, "TransDialog.LockFreeRowSets.Tooltip" ) );
+    props.setLook( wlLockFreeRowSets );
+    FormData fdlLockFreeRowSets = new FormData();
+    fdlLockFreeRowSets.left = new FormAttachment( 0, 0 );
+    fdlLockFreeRowSets.top = new FormAttachment( wTransformationType, margin );
+    fdlLockFreeRowSets.right = new FormAttachment( middle, -margin );
+    wlLockFreeRowSets.setLayoutData( fdlLockFreeRowSets );
+    wLockFreeRowSets = new Button( wMiscComp, SWT.CHECK );
+    wLockFreeRowSets.setToolTipText( BaseMessages.getString( PKG, "TransDialog.LockFreeRowSets.Tooltip" ) );
+    wLockFreeRowSets.addSelectionListener( lsModSel );
+    props.setLook( wLockFreeRowSets );
+    FormData fdLockFreeRowSets = new FormData();
+    fdLockFreeRowSets.left = new FormAttachment( middle, 0 );
+    fdLockFreeRowSets.top = new FormAttachment( wTransformationType, margin );
+    fdLockFreeRowSets.right = new FormAttachment( 100, 0 );
+    wLockFreeRowSets.setLayoutData( fdLockFreeRowSets );
+
     FormData fdMiscComp = new FormData();
     fdMiscComp.left = new FormAttachment( 0, 0 );
     fdMiscComp.top = new FormAttachment( 0, 0 );
@@ -2180,6 +2203,7 @@ public class TransDialog extends Dialog {
     wSharedObjectsFile.setText( Const.NVL( transMeta.getSharedObjectsFile(), "" ) );
     wManageThreads.setSelection( transMeta.isUsingThreadPriorityManagment() );
     wTransformationType.setText( transMeta.getTransformationType().getDescription() );
+    wLockFreeRowSets.setSelection( transMeta.isUsingLockFreeRowSets() );
 
     wFields.setRowNums();
     wFields.optWidth( true );
@@ -2319,6 +2343,7 @@ public class TransDialog extends Dialog {
     transMeta.setUsingThreadPriorityManagment( wManageThreads.getSelection() );
     transMeta.setTransformationType( TransformationType.values()[Const.indexOfString( wTransformationType
       .getText(), TransformationType.getTransformationTypesDescriptions() )] );
+    transMeta.setUsingLockFreeRowSets( wLockFreeRowSets.getSelection() );
 
     if ( directoryChangeAllowed && transMeta.getObjectId() != null ) {
       if ( newDirectory != null ) {
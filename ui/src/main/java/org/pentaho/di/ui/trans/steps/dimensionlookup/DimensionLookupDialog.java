@@ -127,6 +127,9 @@ public class DimensionLookupDialog extends BaseStepDialog implements StepDialogI
   private Label wlPreloadCache;
   private Button wPreloadCache;
 
+  private Label wlMaintenanceMode;
+  private Button wMaintenanceMode;
+
   private Label wlCacheSize;
   private Text wCacheSize;
 
@@ -464,6 +467,31 @@ public class DimensionLookupDialog extends BaseStepDialog implements StepDialogI
     fdPreloadCache.right = new FormAttachment( 100, 0 );
     wPreloadCache.setLayoutData( fdPreloadCache );
 
+    // Maintenance mode?
+    wlMaintenanceMode = new Label( comp, SWT.RIGHT );
+    wlMaintenanceMode.setText( BaseMessages.getString( PKG, "DimensionLookupDialog.MaintenanceMode.Label" ) );
+    wlMaintenanceMode.setToolTipText( BaseMessages.getString( PKG, "DimensionLookupDialog.MaintenanceMode.Tooltip" ) );
+    props.setLook( wlMaintenanceMode );
+    FormData fdlMaintenanceMode = new FormData();
+    fdlMaintenanceMode.left = new FormAttachment( 0, 0 );
+    fdlMaintenanceMode.right = new FormAttachment( middle, -margin );
+    fdlMaintenanceMode.top = new FormAttachment( wPreloadCache, margin );
+    wlMaintenanceMode.setLayoutData( fdlMaintenanceMode );
+    wMaintenanceMode = new Button( comp, SWT.CHECK );
+    wMaintenanceMode.setToolTipText( BaseMessages.getString( PKG, "DimensionLookupDialog.MaintenanceMode.Tooltip" ) );
+    props.setLook( wMaintenanceMode );
+    wMaintenanceMode.addSelectionListener( new SelectionAdapter() {
+      public void widgetSelected( SelectionEvent arg0 ) {
+        setFlags();
+        input.setChanged();
+      }
+    } );
+    FormData fdMaintenanceMode = new FormData();
+    fdMaintenanceMode.left = new FormAttachment( middle, 0 );
+    fdMaintenanceMode.top = new FormAttachment( wPreloadCache, margin );
+    fdMaintenanceMode.right = new FormAttachment( 100, 0 );
+    wMaintenanceMode.setLayoutData( fdMaintenanceMode );
+
     // Cache size ...
     wlCacheSize = new Label( comp, SWT.RIGHT );
     wlCacheSize.setText( BaseMessages.getString( PKG, "DimensionLookupDialog.CacheSize.Label" ) );
@@ -471,14 +499,14 @@ public class DimensionLookupDialog extends BaseStepDialog implements StepDialogI
     FormData fdlCacheSize = new FormData();
     fdlCacheSize.left = new FormAttachment( 0, 0 );
     fdlCacheSize.right = new FormAttachment( middle, -margin );
-    fdlCacheSize.top = new FormAttachment( wPreloadCache, margin );
+    fdlCacheSize.top = new FormAttachment( wMaintenanceMode, margin );
     wlCacheSize.setLayoutData( fdlCacheSize );
     wCacheSize = new Text( comp, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
     props.setLook( wCacheSize );
     wCacheSize.addModifyListener( lsMod );
     FormData fdCacheSize = new FormData();
     fdCacheSize.left = new FormAttachment( middle, 0 );
-    fdCacheSize.top = new FormAttachment( wPreloadCache, margin );
+    fdCacheSize.top = new FormAttachment( wMaintenanceMode, margin );
     fdCacheSize.right = new FormAttachment( 100, 0 );
     wCacheSize.setLayoutData( fdCacheSize );
 
@@ -1201,8 +1229,14 @@ public class DimensionLookupDialog extends BaseStepDialog implements StepDialogI
     wlPreloadCache.setEnabled( wUseCache.getSelection() && !wUpdate.getSelection() );
     wPreloadCache.setEnabled( wUseCache.getSelection() && !wUpdate.getSelection() );
 
-    wlCacheSize.setEnabled( wUseCache.getSelection() && !wPreloadCache.getSelection() );
-    wCacheSize.setEnabled( wUseCache.getSelection() && !wPreloadCache.getSelection() );
+    // In maintenance mode the whole dimension is pre-loaded
+    //
+    wlMaintenanceMode.setEnabled( wUpdate.getSelection() );
+    wMaintenanceMode.setEnabled( wUpdate.getSelection() );
+    boolean preloaded = wUpdate.getSelection() ? wMaintenanceMode.getSelection() : wPreloadCache.getSelection();
+
+    wlCacheSize.setEnabled( wUseCache.getSelection() && !preloaded );
+    wCacheSize.setEnabled( wUseCache.getSelection() && !preloaded );
 
   }
 
@@ -1371,6 +1405,7 @@ public class DimensionLookupDialog extends BaseStepDialog implements StepDialogI
 
     wUseCache.setSelection( input.getCacheSize() >= 0 );
     wPreloadCache.setSelection( input.isPreloadingCache() );
+    wMaintenanceMode.setSelection( input.isMaintenanceMode() );
     if ( input.getCacheSize() >= 0 ) {
       wCacheSize.setText( "" + input.getCacheSize() );
     }
@@ -1495,6 +1530,7 @@ public class DimensionLookupDialog extends BaseStepDialog implements StepDialogI
       in.setCacheSize( -1 );
     }
     in.setPreloadingCache( wPreloadCache.getSelection() );
+    in.setMaintenanceMode( wMaintenanceMode.getSelection() );
     if ( wPreloadCache.getSelection() ) {
       in.setCacheSize( 0 );
     }